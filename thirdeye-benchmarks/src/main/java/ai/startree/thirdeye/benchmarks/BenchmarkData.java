@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.benchmarks;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the DataFrames of the benchmarks. Generation is seeded: every run measures the same
+ * data.
+ */
+class BenchmarkData {
+
+  static final String TIMESTAMP = "ts";
+  static final String VALUE = "value";
+  static final long START_TIME = 1_700_000_000_000L;
+  static final long TIME_STEP = 60_000L;
+
+  private static final long SEED = 42L;
+  /* ratio of null values in the value series */
+  private static final double NULL_RATIO = 0.05;
+
+  static List<String> keyNames(final int keyColumns) {
+    final List<String> names = new ArrayList<>(keyColumns);
+    for (int k = 0; k < keyColumns; k++) {
+      names.add("k" + k);
+    }
+    return names;
+  }
+
+  /**
+   * Returns a DataFrame of the given size with keyColumns long key series, a minutely timestamp
+   * series and a double value series with nulls.
+   * The key tuple of a row is a function of a random id in [0, cardinality): two DataFrames
+   * generated with the same cardinality share their key tuples, whatever the number of key
+   * columns.
+   */
+  static DataFrame keyedDataFrame(final int rows, final int keyColumns, final int cardinality,
+      final long seed) {
+    final Random random = new Random(SEED ^ seed);
+    final long[][] keys = new long[keyColumns][rows];
+    final long[] timestamps = new long[rows];
+    final double[] values = new double[rows];
+    for (int i = 0; i < rows; i++) {
+      final long id = random.nextInt(cardinality);
+      for (int k = 0; k < keyColumns; k++) {
+        keys[k][i] = id * (k + 1);
+      }
+      timestamps[i] = START_TIME + i * TIME_STEP;
+      values[i] = random.nextDouble() < NULL_RATIO ? DoubleSeries.NULL : random.nextDouble() * 1000;
+    }
+
+    final DataFrame df = new DataFrame();
+    final List<String> keyNames = keyNames(keyColumns);
+    for (int k = 0; k < keyColumns; k++) {
+      df.addSeries(keyNames.get(k), LongSeries.buildFrom(keys[k]));
+    }
+    return df
+        .addSeries(TIMESTAMP, LongSeries.buildFrom(timestamps))
+        .addSeries(VALUE, DoubleSeries.buildFrom(values));
+  }
+
+  /**
+   * Returns rows of strings, as read from a csv or a sql result: a timestamp, a dimension and a
+   * value.
+   */
+  static List<Object[]> stringRows(final int rows) {
+    final Random random = new Random(SEED);
+    final List<Object[]> stringRows = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      stringRows.add(new Object[]{
+          String.valueOf(START_TIME + i * TIME_STEP),
+          "dimension_" + random.nextInt(100),
+          String.valueOf(random.nextDouble() * 1000)});
+    }
+    return stringRows;
+  }
+}
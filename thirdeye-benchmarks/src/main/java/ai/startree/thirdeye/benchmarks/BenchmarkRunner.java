@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the JMH command line options. Results are written as
+ * JSON in jmh-result.json unless -rf and -rff say otherwise, so that runs can be compared.
+ *
+ * Example: java -jar thirdeye-benchmarks/target/benchmarks.jar JoinBenchmark -p rows=10000
+ */
+public class BenchmarkRunner {
+
+  private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  public static void main(final String[] args) throws Exception {
+    final CommandLineOptions cli;
+    try {
+      cli = new CommandLineOptions(args);
+    } catch (final CommandLineOptionException e) {
+      System.err.println("Error parsing command line: " + e.getMessage());
+      System.exit(1);
+      return;
+    }
+    if (cli.shouldHelp()) {
+      cli.showHelp();
+      return;
+    }
+    final Options options = new OptionsBuilder()
+        .parent(cli)
+        .resultFormat(cli.getResultFormat().orElse(ResultFormatType.JSON))
+        .result(cli.getResult().orElse(DEFAULT_RESULT_FILE))
+        .build();
+    final Runner runner = new Runner(options);
+    if (cli.shouldList()) {
+      runner.list();
+      return;
+    }
+    runner.run();
+  }
+}
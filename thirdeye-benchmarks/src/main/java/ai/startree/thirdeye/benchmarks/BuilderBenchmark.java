@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.benchmarks;
+
+import static ai.startree.thirdeye.benchmarks.BenchmarkData.stringRows;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures DataFrame.Builder parsing rows of strings, with declared series types and with type
+ * inference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BuilderBenchmark {
+
+  @Param({"10000", "1000000", "5000000"})
+  private int rows;
+
+  private List<Object[]> stringRows;
+
+  @Setup
+  public void setUp() {
+    stringRows = stringRows(rows);
+  }
+
+  @Benchmark
+  public DataFrame buildTyped() {
+    return DataFrame.builder("ts:LONG", "dimension:STRING", "value:DOUBLE")
+        .append(stringRows)
+        .build();
+  }
+
+  @Benchmark
+  public DataFrame buildInferred() {
+    return DataFrame.builder("ts", "dimension", "value")
+        .append(stringRows)
+        .build();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.benchmarks;
+
+import ai.startree.thirdeye.detectionpipeline.operator.sql.CalciteDataTableToSqlAdapter;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.HyperSqlDataTableToSqlAdapter;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the SqlExecution operator workload for each {@link DataTableToSqlAdapter}: load a
+ * DataTable and run an aggregation query on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataTableToSqlAdapterBenchmark {
+
+  private static final String QUERY =
+      "SELECT country, SUM(met) AS met, COUNT(*) AS cnt FROM input GROUP BY country";
+
+  @Param({"10000", "100000"})
+  private int rows;
+
+  private Map<String, DataTable> dataTables;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    final long[] ts = new long[rows];
+    final String[] countries = new String[rows];
+    final double[] met = new double[rows];
+    for (int i = 0; i < rows; i++) {
+      ts[i] = 1_700_000_000_000L + i * 60_000L;
+      countries[i] = "country_" + random.nextInt(50);
+      met[i] = random.nextDouble() * 1000;
+    }
+    dataTables = Map.of("input", SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(ts))
+        .addSeries("country", StringSeries.buildFrom(countries))
+        .addSeries("met", DoubleSeries.buildFrom(met))));
+  }
+
+  @Benchmark
+  public DataFrame hyperSql() throws Exception {
+    return run(new HyperSqlDataTableToSqlAdapter());
+  }
+
+  @Benchmark
+  public DataFrame calcite() throws Exception {
+    return run(new CalciteDataTableToSqlAdapter());
+  }
+
+  private DataFrame run(final DataTableToSqlAdapter adapter) throws Exception {
+    Class.forName(adapter.jdbcDriverClassName());
+    try (final Connection connection = DriverManager.getConnection(adapter.jdbcConnection(),
+        adapter.jdbcProperties())) {
+      adapter.loadTables(connection, dataTables);
+      try (final Statement statement = connection.createStatement();
+          final ResultSet resultSet = statement.executeQuery(QUERY)) {
+        return DataFrame.fromResultSet(resultSet);
+      } finally {
+        adapter.tearDown(connection);
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.benchmarks;
+
+import static ai.startree.thirdeye.benchmarks.BenchmarkData.keyNames;
+import static ai.startree.thirdeye.benchmarks.BenchmarkData.keyedDataFrame;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the DataFrame hash joins on 1 to 10 long key series. Both sides have the same size
+ * and share most of their keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class JoinBenchmark {
+
+  @Param({"10000", "1000000", "5000000"})
+  private int rows;
+
+  @Param({"1", "3", "10"})
+  private int keyColumns;
+
+  private DataFrame left;
+  private DataFrame right;
+  private List<String> keys;
+
+  @Setup
+  public void setUp() {
+    left = keyedDataFrame(rows, keyColumns, rows, 1L);
+    right = keyedDataFrame(rows, keyColumns, rows, 2L);
+    keys = keyNames(keyColumns);
+  }
+
+  @Benchmark
+  public DataFrame joinInner() {
+    return left.joinInner(right, keys);
+  }
+
+  @Benchmark
+  public DataFrame joinLeft() {
+    return left.joinLeft(right, keys);
+  }
+
+  @Benchmark
+  public DataFrame joinOuter() {
+    return left.joinOuter(right, keys);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.benchmarks;
+
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotQueryExecutor;
+import ai.startree.thirdeye.plugins.datasource.pinot.ThirdEyeResultSetDataTable;
+import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeDataFrameResultSet;
+import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSetMetaData;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the conversion of a Pinot {@link ResultSet} into a DataTable with the columnar
+ * {@link PinotQueryExecutor#fromPinotResultSet} and with the former row-wise conversion through
+ * {@link DataFrame.Builder}.
+ *
+ * Add {@code -prof gc} to the options to measure allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PinotQueryExecutorBenchmark {
+
+  @Param({"1000", "50000"})
+  private int rows;
+
+  private ResultSet resultSet;
+
+  @Setup
+  public void setUp() {
+    resultSet = breakdownResultSet(rows);
+  }
+
+  /**
+   * A result set shaped like a breakdown query: a time column, 2 dimensions and 2 metrics.
+   */
+  private static ResultSet breakdownResultSet(final int rows) {
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final ObjectNode resultTable = objectMapper.createObjectNode();
+    final ObjectNode dataSchema = resultTable.putObject("dataSchema");
+    dataSchema.putArray("columnNames")
+        .add("ts").add("country").add("browser").add("revenue").add("views");
+    dataSchema.putArray("columnDataTypes")
+        .add("LONG").add("STRING").add("STRING").add("DOUBLE").add("LONG");
+    final ArrayNode rowsArray = resultTable.putArray("rows");
+    final Random random = new Random(42);
+    for (int i = 0; i < rows; i++) {
+      rowsArray.addArray()
+          .add(1_700_000_000_000L + i * 3_600_000L)
+          .add("country_" + random.nextInt(50))
+          .add("browser_" + random.nextInt(10))
+          .add(random.nextDouble() * 1000)
+          .add(random.nextInt(100_000));
+    }
+    return new ResultTableResultSet(resultTable);
+  }
+
+  @Benchmark
+  public DataFrame columnar() {
+    return new ThirdEyeResultSetDataTable(PinotQueryExecutor.fromPinotResultSet(resultSet))
+        .getDataFrame();
+  }
+
+  @Benchmark
+  public DataFrame rowWise() {
+    return rowWise(resultSet);
+  }
+
+  private static DataFrame rowWise(final ResultSet resultSet) {
+    return new ThirdEyeResultSetDataTable(rowWiseResultSet(resultSet)).getDataFrame();
+  }
+
+  /**
+   * Former conversion: every value is converted to a String, then parsed again by the
+   * DataFrame builder. Pinot SQL result sets have no group key columns.
+   */
+  private static ThirdEyeDataFrameResultSet rowWiseResultSet(final ResultSet resultSet) {
+    final List<String> columnNames = new ArrayList<>();
+    final List<ColumnType> columnTypes = new ArrayList<>();
+    for (int columnIdx = 0; columnIdx < resultSet.getColumnCount(); columnIdx++) {
+      columnNames.add(resultSet.getColumnName(columnIdx));
+      columnTypes.add(ColumnType.pinotTypeToColumnType(resultSet.getColumnDataType(columnIdx)));
+    }
+    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNames);
+    final int columnCount = resultSet.getColumnCount();
+    for (int rowIdx = 0; rowIdx < resultSet.getRowCount(); rowIdx++) {
+      final String[] columnsOfTheRow = new String[columnCount];
+      for (int columnIdx = 0; columnIdx < columnCount; columnIdx++) {
+        columnsOfTheRow[columnIdx] = resultSet.getString(rowIdx, columnIdx);
+      }
+      dfBuilder.append(columnsOfTheRow);
+    }
+    return new ThirdEyeDataFrameResultSet(
+        new ThirdEyeResultSetMetaData(List.of(), columnNames, List.of(), columnTypes),
+        dfBuilder.build());
+  }
+}
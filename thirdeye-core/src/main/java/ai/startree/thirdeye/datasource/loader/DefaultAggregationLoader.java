@@ -16,9 +16,14 @@ package ai.startree.thirdeye.datasource.loader;
 import static ai.startree.thirdeye.datasource.query.AggregateProjections.aggProjection;
 import static ai.startree.thirdeye.datasource.query.AggregateProjections.countStar;
 import static ai.startree.thirdeye.datasource.query.QueryProjection.getColName;
+import static ai.startree.thirdeye.spi.util.ExecutorUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.util.CalciteUtils.addAlias;
+import static ai.startree.thirdeye.util.CalciteUtils.castOf;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierDescOf;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierOf;
+import static ai.startree.thirdeye.util.CalciteUtils.stringLiteralOf;
+import static java.util.Collections.emptyList;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.datasource.query.SelectQuery;
@@ -34,20 +39,24 @@ import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.datasource.loader.AggregationLoader;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.metric.MetricSlice;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.commons.collections4.MapUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +68,11 @@ public class DefaultAggregationLoader implements AggregationLoader {
 
   private static final long TIMEOUT = 600000;
   private static final String ROLLUP_NAME = "OTHER";
+  /**
+   * Maximum number of queries run concurrently by the loader. Queries above the limit wait in
+   * queue, so that RCA load cannot overwhelm the datasources.
+   */
+  private static final int MAX_CONCURRENT_QUERIES = 16;
 
   private final DataSourceCache dataSourceCache;
   private final ExecutorService executorService;
@@ -66,8 +80,16 @@ public class DefaultAggregationLoader implements AggregationLoader {
   @Inject
   public DefaultAggregationLoader(final DataSourceCache dataSourceCache) {
     this.dataSourceCache = dataSourceCache;
-    executorService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat(
-        "aggregation-loader-%d").build());
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_QUERIES,
+        MAX_CONCURRENT_QUERIES,
+        60L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        threadsNamed("aggregation-loader-%d"));
+    executor.allowCoreThreadTimeOut(true);
+    executorService = executor;
+    new ExecutorServiceMetrics(executorService, "aggregation-loader", emptyList()).bindTo(
+        Metrics.globalRegistry);
   }
 
   /**
@@ -136,6 +158,57 @@ public class DefaultAggregationLoader implements AggregationLoader {
         .build()
         .setIndex(COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
 
+    final List<DataFrame> results = dimensions.size() > 1
+        && supportsUnionAll(slice.getDataSourceDto())
+        ? fetchBreakdownSingleQuery(slice, dimensions, limit)
+        : fetchBreakdownPerDimension(slice, dimensions, limit);
+
+    final DataFrame breakdown = dfAll.append(results);
+    // dimension columns are low-cardinality - dictionary-encode them for the contributors and
+    // heatmap group-bys and joins
+    return breakdown
+        .addSeries(COL_DIMENSION_NAME, breakdown.getStrings(COL_DIMENSION_NAME).encode())
+        .addSeries(COL_DIMENSION_VALUE, breakdown.getStrings(COL_DIMENSION_VALUE).encode())
+        // add time column containing start time of slice
+        .addSeries(Constants.COL_TIME,
+            LongSeries.fillValues(breakdown.size(), slice.getInterval().getStartMillis()))
+        .setIndex(Constants.COL_TIME, COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
+  }
+
+  /**
+   * Fetches the breakdown of all dimensions with a single UNION ALL query. Each dimension is
+   * a branch of the union, with its own ORDER BY and LIMIT.
+   */
+  private List<DataFrame> fetchBreakdownSingleQuery(final MetricSlice slice,
+      final List<String> dimensions, final int limit) throws Exception {
+    final List<SelectQueryTranslator> requests = new ArrayList<>();
+    for (final String dimension : dimensions) {
+      final SqlIdentifier dimensionIdentifier = identifierOf(dimension);
+      requests.add(SelectQuery.from(slice)
+          .select(addAlias(stringLiteralOf(dimension), COL_DIMENSION_NAME))
+          // branches of the union must have the same types
+          .select(addAlias(castOf(dimensionIdentifier, SqlTypeName.VARCHAR), COL_DIMENSION_VALUE))
+          .groupBy(dimensionIdentifier)
+          // ensure multiple runs return the same values when num rows > limit - see te-636
+          .orderBy(identifierDescOf(Constants.COL_VALUE))
+          .limit(limit)
+          .build());
+    }
+    final DataFrame res = executorService
+        .submit(() -> getUnionQueryResult(requests, slice.getDataSourceDto()))
+        .get(TIMEOUT, TimeUnit.MILLISECONDS);
+    return List.of(new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, res.get(COL_DIMENSION_NAME))
+        .addSeries(COL_DIMENSION_VALUE, res.get(COL_DIMENSION_VALUE))
+        .addSeries(Constants.COL_VALUE, res.get(Constants.COL_VALUE)));
+  }
+
+  /**
+   * Fetches the breakdown with one query per dimension. Used for datasources that do not support
+   * UNION ALL.
+   */
+  private List<DataFrame> fetchBreakdownPerDimension(final MetricSlice slice,
+      final List<String> dimensions, final int limit) throws Exception {
     final Map<String, Future<DataFrame>> responses = new HashMap<>();
 
     // submit requests
@@ -163,13 +236,12 @@ public class DefaultAggregationLoader implements AggregationLoader {
           .addSeries(Constants.COL_VALUE, res.get(Constants.COL_VALUE));
       results.add(dfResult);
     }
+    return results;
+  }
 
-    final DataFrame breakdown = dfAll.append(results);
-    // add time column containing start time of slice
-    return breakdown
-        .addSeries(Constants.COL_TIME,
-            LongSeries.fillValues(breakdown.size(), slice.getInterval().getStartMillis()))
-        .setIndex(Constants.COL_TIME, COL_DIMENSION_NAME, COL_DIMENSION_VALUE);
+  private boolean supportsUnionAll(final DataSourceDTO dataSourceDto) {
+    final SqlLanguage sqlLanguage = dataSourceCache.getDataSource(dataSourceDto).getSqlLanguage();
+    return sqlLanguage != null && sqlLanguage.supportsUnionAll();
   }
 
   @Override
@@ -214,4 +286,14 @@ public class DefaultAggregationLoader implements AggregationLoader {
     final DataSourceRequest requestV2 = new DataSourceRequest(null, query, customOptions, Map.of());
     return thirdEyeDataSource.fetchDataTable(requestV2).getDataFrame();
   }
+
+  private DataFrame getUnionQueryResult(final List<SelectQueryTranslator> requests,
+      final DataSourceDTO dataSourceDto) throws Exception {
+    final ThirdEyeDataSource thirdEyeDataSource = dataSourceCache.getDataSource(dataSourceDto);
+    final String query = SelectQueryTranslator.getUnionAllSql(requests,
+        thirdEyeDataSource.getSqlLanguage(),
+        thirdEyeDataSource.getSqlExpressionBuilder());
+    final DataSourceRequest requestV2 = new DataSourceRequest(null, query, Map.of(), Map.of());
+    return thirdEyeDataSource.fetchDataTable(requestV2).getDataFrame();
+  }
 }
@@ -36,6 +36,7 @@ import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.SqlNodeList;
 import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.sql.parser.SqlParser;
 import org.apache.calcite.sql.parser.SqlParser.Config;
 import org.apache.calcite.sql.parser.SqlParserPos;
@@ -151,6 +152,28 @@ public class SelectQueryTranslator {
     return nodeToQuery(sqlNode, sqlDialect, QUOTE_IDENTIFIERS);
   }
 
+  /**
+   * Generates a single query returning the rows of all the queries, combined with UNION ALL.
+   * Each query keeps its own ORDER BY and LIMIT. The queries must project the same number of
+   * columns, with compatible types.
+   *
+   * Only use with a {@link SqlLanguage} that {@link SqlLanguage#supportsUnionAll() supports
+   * UNION ALL}.
+   */
+  public static String getUnionAllSql(final List<SelectQueryTranslator> queries,
+      final SqlLanguage sqlLanguage, final SqlExpressionBuilder expressionBuilder) {
+    checkArgument(!queries.isEmpty(), "No query to combine. Invalid SQL request.");
+    final SqlParser.Config sqlParserConfig = SqlLanguageTranslator.translate(sqlLanguage.getSqlParserConfig());
+    final SqlDialect sqlDialect = SqlLanguageTranslator.translate(sqlLanguage.getSqlDialect());
+
+    SqlNode union = queries.get(0).getSqlNode(sqlParserConfig, expressionBuilder, sqlDialect);
+    for (final SelectQueryTranslator query : queries.subList(1, queries.size())) {
+      final SqlNode sqlNode = query.getSqlNode(sqlParserConfig, expressionBuilder, sqlDialect);
+      union = SqlStdOperatorTable.UNION_ALL.createCall(SqlParserPos.ZERO, union, sqlNode);
+    }
+    return nodeToQuery(union, sqlDialect, QUOTE_IDENTIFIERS);
+  }
+
   protected SqlNode getSqlNode(final SqlParser.Config sqlParserConfig,
       final SqlExpressionBuilder expressionBuilder, final SqlDialect dialect) {
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql;
+
+import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.concurrent.ExecutionException;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParser;
+
+/**
+ * Process-wide cache of parsed SQL templates.
+ *
+ * The same alert queries are rendered at every run, with a different detection interval. Parsing
+ * them once avoids running the Calcite parser on the whole query at every run.
+ *
+ * The returned trees are shared between threads: they must not be modified. Visitors must copy
+ * the nodes they change, like {@link org.apache.calcite.sql.util.SqlShuttle} does.
+ */
+public class SqlTemplateCache {
+
+  private static final long MAXIMUM_SIZE = 10_000;
+
+  private static final Cache<Key, SqlNode> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAXIMUM_SIZE)
+      .recordStats()
+      .build();
+
+  static {
+    GuavaCacheMetrics.monitor(Metrics.globalRegistry, CACHE, "thirdeye_sql_template_cache");
+  }
+
+  /**
+   * Returns the parsed query. The returned tree must not be modified.
+   */
+  public static SqlNode parse(final String sql, final SqlParser.Config sqlParserConfig) {
+    try {
+      return CACHE.get(new Key(sql, sqlParserConfig), () -> queryToNode(sql, sqlParserConfig));
+    } catch (final ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        // invalid sql - not cached
+        throw cause;
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Parser configs are immutable values: configs translated from the same SqlLanguage are equal.
+   */
+  private record Key(String sql, SqlParser.Config sqlParserConfig) {}
+}
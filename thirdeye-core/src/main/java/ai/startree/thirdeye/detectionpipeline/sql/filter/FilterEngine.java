@@ -15,11 +15,11 @@ package ai.startree.thirdeye.detectionpipeline.sql.filter;
 
 import static ai.startree.thirdeye.util.CalciteUtils.addPredicates;
 import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
-import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.datasource.query.QueryPredicate;
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlTemplateCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import java.util.List;
@@ -61,7 +61,7 @@ public class FilterEngine {
   }
 
   public String prepareQuery() {
-    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    final SqlNode rootNode = SqlTemplateCache.parse(query, sqlParserConfig);
     final SqlNode rootNodeWithFilters = rootNode.accept(new FilterVisitor());
     final String preparedQuery = nodeToQuery(rootNodeWithFilters, sqlDialect, QUOTE_IDENTIFIERS);
 
@@ -97,30 +97,36 @@ public class FilterEngine {
      * This avoids column name collisions when there is a JOIN. See predicate creation.
      * - The method does not look at the table reference before injecting predicates.
      * It could do so to be more robust and find the parts of the SQL where injection is required.
+     * - The parsed query is shared: the nodes from the root to the WHERE clause are copied, not
+     * modified.
      */
     private SqlNode injectPredicates(final SqlCall call) {
-      SqlSelect selectNode;
       if (call.getClass() == SqlSelect.class) {
-        selectNode = (SqlSelect) call;
+        return injectPredicates((SqlSelect) call);
       } else if (call.getClass() == SqlOrderBy.class) {
-        final SqlOrderBy orderByNode = (SqlOrderBy) call;
         // element of index 0 is the select node
-        selectNode = (SqlSelect) orderByNode.getOperandList().get(0);
+        return withOperand(call, 0, injectPredicates((SqlSelect) call.operand(0)));
       } else if (call.getClass() == SqlWith.class) {
-        final SqlWith withNode = (SqlWith) call;
         // element of index 1 is the select node - in simple with + select queries
-        selectNode = (SqlSelect) withNode.getOperandList().get(1);
+        return withOperand(call, 1, injectPredicates((SqlSelect) call.operand(1)));
       } else {
         throw new UnsupportedOperationException(
             String.format("Filter injection failed. Unknown SqlNode class: %s", call.getClass()));
       }
+    }
 
+    private SqlCall injectPredicates(final SqlSelect selectNode) {
       SqlNode whereNode = Objects.requireNonNull(selectNode.getWhere());
       List<SqlNode> newPredicates = getCalcitePredicates();
       SqlNode whereNodeWithPredicates = addPredicates(whereNode, newPredicates);
-      selectNode.setWhere(whereNodeWithPredicates);
+      return withOperand(selectNode, SqlSelect.WHERE_OPERAND, whereNodeWithPredicates);
+    }
 
-      return call;
+    private SqlCall withOperand(final SqlCall call, final int index, final SqlNode operand) {
+      final SqlNode[] operands = call.getOperandList().toArray(new SqlNode[0]);
+      operands[index] = operand;
+      return call.getOperator()
+          .createCall(call.getFunctionQuantifier(), call.getParserPosition(), operands);
     }
   }
 }
@@ -14,12 +14,14 @@
 package ai.startree.thirdeye.detectionpipeline.sql.macro;
 
 import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.QUERY;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.TIME_COLUMN;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static ai.startree.thirdeye.util.CalciteUtils.expressionToNode;
 import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
-import static ai.startree.thirdeye.util.CalciteUtils.queryToNode;
+import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlTemplateCache;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeFilterFunction;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupFunction;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupKeyFunction;
@@ -36,6 +38,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.calcite.sql.SqlCall;
 import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.parser.SqlParser;
@@ -84,8 +87,18 @@ public class MacroEngine {
     }
   }
 
+  /**
+   * Raises the lower bound of the time filter macro to the given time. Used to query only the end
+   * of the time filter window. Only supported for queries with a single time filter macro.
+   */
+  public MacroEngine setTimeFilterStartMillis(final @Nullable Long timeFilterStartMillis) {
+    macroFunctionContext.setTimeFilterStartMillis(timeFilterStartMillis);
+    return this;
+  }
+
   public DataSourceRequest prepareRequest() {
-    final SqlNode rootNode = queryToNode(query, sqlParserConfig);
+    // the parsed template is shared - MacroVisitor copies the nodes it replaces
+    final SqlNode rootNode = SqlTemplateCache.parse(query, sqlParserConfig);
     final SqlNode appliedMacrosNode = applyMacros(rootNode);
     final String preparedQuery = nodeToQuery(appliedMacrosNode, sqlDialect, QUOTE_IDENTIFIERS);
 
@@ -95,7 +108,17 @@ public class MacroEngine {
   }
 
   private SqlNode applyMacros(SqlNode rootNode) {
-    return rootNode.accept(new MacroVisitor());
+    final MacroVisitor macroVisitor = new MacroVisitor();
+    final SqlNode appliedMacrosNode = rootNode.accept(macroVisitor);
+    if (macroVisitor.timeFilterCount > 1) {
+      // the raised lower bound would apply to every time filter, not only the detection window
+      checkArgument(macroFunctionContext.getTimeFilterStartMillis() == null,
+          "The time filter start cannot be raised for a query with multiple time filter macros");
+      // the time bounds of the properties are the ones of a single filter: the result cannot be
+      // split in time
+      properties.remove(TIME_COLUMN.toString());
+    }
+    return appliedMacrosNode;
   }
 
   private List<String> paramsFromCall(final SqlCall call) {
@@ -107,9 +130,12 @@ public class MacroEngine {
 
   private class MacroVisitor extends SqlShuttle {
 
+    private int timeFilterCount = 0;
+
     @Override
     public @Nullable
     SqlNode visit(SqlCall call) {
+      recordTimeColumn(call);
       // depth-first traverse and replace macros
       CallCopyingArgHandler argHandler = new CallCopyingArgHandler(call, false);
       call.getOperator().acceptCall(this, call, false, argHandler);
@@ -117,6 +143,16 @@ public class MacroEngine {
       return replaceIfMacro((SqlCall) argHandler.result());
     }
 
+    private void recordTimeColumn(final SqlCall call) {
+      // __timeGroup(...) AS alias --> alias is the time column of the result
+      if (call.getKind() == SqlKind.AS
+          && call.operand(0) instanceof SqlCall projection
+          && availableMacros.get(projection.getOperator().getName()) instanceof TimeGroupFunction
+          && call.operand(1) instanceof SqlIdentifier alias) {
+        properties.put(TIME_COLUMN.toString(), alias.getSimple());
+      }
+    }
+
     private SqlNode replaceIfMacro(SqlCall call) {
       if (call.getOperator().getKind() != SqlKind.OTHER_FUNCTION) {
         // cannot be a macro function
@@ -124,6 +160,9 @@ public class MacroEngine {
       }
       final MacroFunction macroFunction = availableMacros.get(call.getOperator().getName());
       if (macroFunction != null) {
+        if (macroFunction instanceof TimeFilterFunction) {
+          timeFilterCount++;
+        }
         List<String> macroParams = paramsFromCall(call);
         String expandedMacro = macroFunction.expandMacro(macroParams, macroFunctionContext);
         return expressionToNode(expandedMacro, sqlParserConfig);
@@ -62,8 +62,12 @@ public class TimeFilterFunction implements MacroFunction {
 
     // compute timeLimits
     final Interval detectionInterval = context.getDetectionInterval();
-    final DateTime filterLowerBound = detectionInterval.getStart()
+    DateTime filterLowerBound = detectionInterval.getStart()
         .minus(isoPeriod(lookbackFromStart));
+    final Long timeFilterStartMillis = context.getTimeFilterStartMillis();
+    if (timeFilterStartMillis != null && timeFilterStartMillis > filterLowerBound.getMillis()) {
+      filterLowerBound = new DateTime(timeFilterStartMillis, detectionInterval.getChronology());
+    }
     final DateTime filterUpperBound = detectionInterval.getEnd()
         .minus(isoPeriod(lookbackFromEnd));
     final Interval filterInterval = new Interval(filterLowerBound, filterUpperBound);
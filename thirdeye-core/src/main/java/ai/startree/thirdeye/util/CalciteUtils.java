@@ -23,7 +23,9 @@ import java.util.List;
 import java.util.Map;
 import org.apache.calcite.sql.SqlAsOperator;
 import org.apache.calcite.sql.SqlBasicCall;
+import org.apache.calcite.sql.SqlBasicTypeNameSpec;
 import org.apache.calcite.sql.SqlBinaryOperator;
+import org.apache.calcite.sql.SqlDataTypeSpec;
 import org.apache.calcite.sql.SqlDialect;
 import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlKind;
@@ -31,6 +33,7 @@ import org.apache.calcite.sql.SqlLiteral;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.SqlOperator;
 import org.apache.calcite.sql.SqlPostfixOperator;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.sql.parser.SqlAbstractParserImpl.Metadata;
 import org.apache.calcite.sql.parser.SqlParseException;
 import org.apache.calcite.sql.parser.SqlParser;
@@ -223,6 +226,13 @@ public class CalciteUtils {
         SqlParserPos.ZERO);
   }
 
+  @NonNull
+  public static SqlNode castOf(final SqlNode node, final SqlTypeName typeName) {
+    final SqlDataTypeSpec typeSpec = new SqlDataTypeSpec(
+        new SqlBasicTypeNameSpec(typeName, SqlParserPos.ZERO), SqlParserPos.ZERO);
+    return SqlStdOperatorTable.CAST.createCall(SqlParserPos.ZERO, node, typeSpec);
+  }
+
   @NonNull
   public static SqlNode addDesc(final SqlNode node) {
     return new SqlBasicCall(CalciteUtils.DESC_OPERATOR, List.of(node), SqlParserPos.ZERO);
@@ -20,15 +20,21 @@ import ai.startree.thirdeye.spi.ThirdEyeStatus;
 import ai.startree.thirdeye.spi.api.StatusApi;
 import ai.startree.thirdeye.spi.api.StatusListApi;
 import ai.startree.thirdeye.spi.api.ThirdEyeApi;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
@@ -37,6 +43,7 @@ import javax.ws.rs.BadRequestException;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.NotAuthorizedException;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -44,6 +51,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 public class ResourceUtils {
 
   private final static ObjectMapper J = new ObjectMapper();
+  private static final int STREAM_FLUSH_INTERVAL = 100;
 
   public static Response respondOk(final ThirdEyeApi api) {
     return Response.ok(api).build();
@@ -53,8 +61,22 @@ public class ResourceUtils {
     return Response.ok(api).build();
   }
 
+  /**
+   * The stream is consumed while the response is written. See {@link #streamJsonArray(Stream)}.
+   */
   public static <T extends ThirdEyeApi> Response respondOk(final Stream<T> api) {
-    return Response.ok(api).build();
+    return Response.ok(streamJsonArray(api), MediaType.APPLICATION_JSON_TYPE).build();
+  }
+
+  /**
+   * Returns an entity written as a json array, element by element, while the stream is consumed.
+   * The entity is serialized by the object mapper of the server, like any other response entity.
+   * Only the element being written is held in memory. The output is flushed every
+   * STREAM_FLUSH_INTERVAL elements so that the client receives the first elements early.
+   * The stream is closed once written.
+   */
+  public static <T extends ThirdEyeApi> JsonArrayStream streamJsonArray(final Stream<T> elements) {
+    return new JsonArrayStream(elements);
   }
 
   @SuppressWarnings("unused")
@@ -189,4 +211,41 @@ public class ResourceUtils {
     }
     return object;
   }
+
+  /**
+   * A stream of elements serialized as a json array. See {@link #streamJsonArray(Stream)}.
+   */
+  @JsonSerialize(using = JsonArrayStreamSerializer.class)
+  public static final class JsonArrayStream {
+
+    private final Stream<?> elements;
+
+    private JsonArrayStream(final Stream<?> elements) {
+      this.elements = elements;
+    }
+  }
+
+  public static final class JsonArrayStreamSerializer extends StdSerializer<JsonArrayStream> {
+
+    public JsonArrayStreamSerializer() {
+      super(JsonArrayStream.class);
+    }
+
+    @Override
+    public void serialize(final JsonArrayStream value, final JsonGenerator generator,
+        final SerializerProvider provider) throws IOException {
+      try (final Stream<?> elements = value.elements) {
+        generator.writeStartArray();
+        final Iterator<?> it = elements.iterator();
+        int written = 0;
+        while (it.hasNext()) {
+          provider.defaultSerializeValue(it.next(), generator);
+          if (++written % STREAM_FLUSH_INTERVAL == 0) {
+            generator.flush();
+          }
+        }
+        generator.writeEndArray();
+      }
+    }
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.loader;
+
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_NAME;
+import static ai.startree.thirdeye.spi.datasource.loader.AggregationLoader.COL_DIMENSION_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import ai.startree.thirdeye.spi.metric.MetricSlice;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.Interval;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DefaultAggregationLoaderTest {
+
+  private static final MetricSlice SLICE = MetricSlice.from(
+      new MetricConfigDTO().setName("views").setDefaultAggFunction("SUM"),
+      new Interval(0L, 1000L),
+      new DatasetConfigDTO()
+          .setDataset("pageviews")
+          .setTimeColumn("ts")
+          .setTimeFormat("EPOCH_MILLIS")
+          .setDimensions(Templatable.of(List.of("country", "browser"))),
+      new DataSourceDTO());
+
+  private ThirdEyeDataSource dataSource;
+  private DefaultAggregationLoader loader;
+
+  private static SqlLanguage sqlLanguage(final boolean supportsUnionAll) {
+    return new SqlLanguage() {
+      @Override
+      public ThirdEyeSqlParserConfig getSqlParserConfig() {
+        return new ThirdEyeSqlParserConfig.Builder()
+            .withLex("MYSQL_ANSI")
+            .withConformance("BABEL")
+            .withParserFactory("SqlBabelParserImpl")
+            .build();
+      }
+
+      @Override
+      public ThirdeyeSqlDialect getSqlDialect() {
+        return new ThirdeyeSqlDialect.Builder()
+            .withBaseDialect("AnsiSqlDialect")
+            .withIdentifierQuoteString("\"")
+            .build();
+      }
+
+      @Override
+      public boolean supportsUnionAll() {
+        return supportsUnionAll;
+      }
+    };
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    dataSource = mock(ThirdEyeDataSource.class);
+    final SqlExpressionBuilder expressionBuilder = mock(SqlExpressionBuilder.class);
+    when(expressionBuilder.getTimeFilterExpression(anyString(), any(), anyString()))
+        .thenReturn("ts >= 0 AND ts < 1000");
+    when(dataSource.getSqlExpressionBuilder()).thenReturn(expressionBuilder);
+    final DataSourceCache dataSourceCache = mock(DataSourceCache.class);
+    when(dataSourceCache.getDataSource(any())).thenReturn(dataSource);
+    loader = new DefaultAggregationLoader(dataSourceCache);
+  }
+
+  @Test
+  public void testLoadBreakdownWithSingleUnionAllQuery() throws Exception {
+    when(dataSource.getSqlLanguage()).thenReturn(sqlLanguage(true));
+    when(dataSource.fetchDataTable(any())).thenReturn(SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries(COL_DIMENSION_NAME, "country", "country", "browser")
+        .addSeries(COL_DIMENSION_VALUE, "US", "FR", "chrome")
+        .addSeries(Constants.COL_VALUE, 10.0, 5.0, 12.0)));
+
+    final DataFrame breakdown = loader.loadBreakdown(SLICE, 10);
+
+    final ArgumentCaptor<DataSourceRequest> request = ArgumentCaptor.forClass(
+        DataSourceRequest.class);
+    verify(dataSource, times(1)).fetchDataTable(request.capture());
+    assertThat(request.getValue().getQuery()).contains("UNION ALL");
+    assertThat(DefaultAggregationLoader.makeBreakdownMap(breakdown, new DataFrame()))
+        .isEqualTo(Map.of(
+            "country", Map.of("US", 10.0, "FR", 5.0),
+            "browser", Map.of("chrome", 12.0)));
+    assertThat(breakdown.getLongs(Constants.COL_TIME).toList()).containsOnly(0L);
+  }
+
+  @Test
+  public void testLoadBreakdownWithOneQueryPerDimension() throws Exception {
+    when(dataSource.getSqlLanguage()).thenReturn(sqlLanguage(false));
+    when(dataSource.fetchDataTable(any())).thenAnswer(invocation -> {
+      final DataSourceRequest request = invocation.getArgument(0);
+      final DataFrame df = request.getQuery().contains("GROUP BY \"country\"")
+          ? new DataFrame()
+              .addSeries("country", "US", "FR")
+              .addSeries(Constants.COL_VALUE, 10.0, 5.0)
+          : new DataFrame()
+              .addSeries("browser", "chrome")
+              .addSeries(Constants.COL_VALUE, 12.0);
+      return SimpleDataTable.fromDataFrame(df);
+    });
+
+    final DataFrame breakdown = loader.loadBreakdown(SLICE, 10);
+
+    verify(dataSource, times(2)).fetchDataTable(any());
+    assertThat(DefaultAggregationLoader.makeBreakdownMap(breakdown, new DataFrame()))
+        .isEqualTo(Map.of(
+            "country", Map.of("US", 10.0, "FR", 5.0),
+            "browser", Map.of("chrome", 12.0)));
+  }
+}
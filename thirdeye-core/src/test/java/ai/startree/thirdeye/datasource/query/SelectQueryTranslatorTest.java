@@ -18,6 +18,9 @@ import static ai.startree.thirdeye.datasource.query.SelectQueryTranslator.TIME_A
 import static ai.startree.thirdeye.spi.Constants.UTC_TIMEZONE;
 import static ai.startree.thirdeye.spi.util.TimeUtils.timezonesAreEquivalent;
 import static ai.startree.thirdeye.util.CalciteUtils.EQUALS_OPERATOR;
+import static ai.startree.thirdeye.util.CalciteUtils.addAlias;
+import static ai.startree.thirdeye.util.CalciteUtils.castOf;
+import static ai.startree.thirdeye.util.CalciteUtils.identifierDescOf;
 import static ai.startree.thirdeye.util.CalciteUtils.identifierOf;
 import static ai.startree.thirdeye.util.CalciteUtils.stringLiteralOf;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -41,6 +44,7 @@ import org.apache.calcite.sql.SqlBasicCall;
 import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.DateTime;
@@ -832,6 +836,35 @@ public class SelectQueryTranslatorTest {
     assertEquivalent(output, expected);
   }
 
+  @Test
+  public void testGetUnionAllSql() {
+    final List<SelectQueryTranslator> queries = List.of(COLUMN_NAME_1, COLUMN_NAME_2)
+        .stream()
+        .map(column -> new SelectQuery(TABLE).withDatabase(DATABASE)
+            .select(addAlias(stringLiteralOf(column), "dimName"))
+            .select(addAlias(castOf(identifierOf(column), SqlTypeName.VARCHAR), "dimValue"))
+            .select(STANDARD_AGGREGATION_PROJECTION.withAlias("value"))
+            .groupBy(identifierOf(column))
+            .orderBy(identifierDescOf("value"))
+            .limit(10)
+            .build())
+        .toList();
+
+    final String output = SelectQueryTranslator.getUnionAllSql(queries, SQL_LANGUAGE,
+        SQL_EXPRESSION_BUILDER);
+
+    final String expected = String.format(
+        "(SELECT SUM(\"%1$s\") AS \"value\", '%1$s' AS \"dimName\", CAST(\"%1$s\" AS VARCHAR) AS \"dimValue\" FROM \"%3$s\".\"%4$s\" GROUP BY \"%1$s\" ORDER BY \"value\" DESC FETCH NEXT 10 ROWS ONLY)"
+            + " UNION ALL "
+            + "(SELECT SUM(\"%1$s\") AS \"value\", '%2$s' AS \"dimName\", CAST(\"%2$s\" AS VARCHAR) AS \"dimValue\" FROM \"%3$s\".\"%4$s\" GROUP BY \"%2$s\" ORDER BY \"value\" DESC FETCH NEXT 10 ROWS ONLY)",
+        COLUMN_NAME_1,
+        COLUMN_NAME_2,
+        DATABASE,
+        TABLE);
+
+    assertEquivalent(output, expected);
+  }
+
   // TODO cyril - should be easy to express:
   //  a timeseries --> with timegrouping
   //  a breakdown on a time interval, with the standard format of the time column (no datetimeconvert)
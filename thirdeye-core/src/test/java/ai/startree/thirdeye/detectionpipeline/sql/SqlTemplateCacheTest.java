@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.datasource.query.QueryPredicate;
+import ai.startree.thirdeye.detectionpipeline.sql.filter.FilterEngine;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
+import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import ai.startree.thirdeye.spi.metric.DimensionType;
+import java.util.List;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.testng.annotations.Test;
+
+public class SqlTemplateCacheTest {
+
+  private static final SqlLanguage SQL_LANGUAGE = new SqlLanguage() {
+    @Override
+    public ThirdEyeSqlParserConfig getSqlParserConfig() {
+      return new ThirdEyeSqlParserConfig.Builder()
+          .withLex("MYSQL_ANSI")
+          .withConformance("BABEL")
+          .withParserFactory("SqlBabelParserImpl")
+          .build();
+    }
+
+    @Override
+    public ThirdeyeSqlDialect getSqlDialect() {
+      return new ThirdeyeSqlDialect.Builder()
+          .withBaseDialect("AnsiSqlDialect")
+          .withIdentifierQuoteString("\"")
+          .build();
+    }
+  };
+  private static final QueryPredicate FILTER = QueryPredicate.of(
+      new Predicate("browser", OPER.EQ, "chrome"), DimensionType.STRING, "tableName");
+
+  @Test
+  public void testParseIsCachedPerParserConfig() {
+    final String sql = "SELECT ts, met FROM tableName WHERE ts >= 1";
+    // configs translated separately from the same language are equal
+    final SqlParser.Config config = SqlLanguageTranslator.translate(
+        SQL_LANGUAGE.getSqlParserConfig());
+    final SqlParser.Config sameConfig = SqlLanguageTranslator.translate(
+        SQL_LANGUAGE.getSqlParserConfig());
+
+    assertThat(SqlTemplateCache.parse(sql, config))
+        .isSameAs(SqlTemplateCache.parse(sql, sameConfig));
+    assertThat(SqlTemplateCache.parse(sql, SqlParser.config()))
+        .isNotSameAs(SqlTemplateCache.parse(sql, config));
+  }
+
+  @Test
+  public void testInvalidSqlThrows() {
+    assertThatThrownBy(() -> SqlTemplateCache.parse("SELECT FROM WHERE", SqlParser.config()))
+        .isInstanceOf(ThirdEyeException.class);
+  }
+
+  @Test
+  public void testFilterInjectionDoesNotModifyCachedTemplate() {
+    for (final String query : List.of(
+        "SELECT ts, met FROM tableName WHERE ts >= 1",
+        "SELECT ts, met FROM tableName WHERE ts >= 1 ORDER BY ts",
+        "WITH t AS (SELECT 1) SELECT ts, met FROM tableName WHERE ts >= 1")) {
+      final String filtered = new FilterEngine(SQL_LANGUAGE, query, List.of(FILTER))
+          .prepareQuery();
+      final String unfiltered = new FilterEngine(SQL_LANGUAGE, query, List.of()).prepareQuery();
+
+      assertThat(filtered).contains("'chrome'");
+      assertThat(unfiltered).doesNotContain("'chrome'");
+    }
+  }
+}
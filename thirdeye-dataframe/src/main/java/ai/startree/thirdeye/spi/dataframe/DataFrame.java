@@ -408,24 +408,28 @@ public class DataFrame {
       rightSeries[i] = right.get(onSeriesRight.get(i));
     }
 
-    // perform join, generate row pairs
-    Series.JoinPairs pairs = filterJoinPairs(Series.hashJoinOuter(leftSeries, rightSeries),
-        joinType);
-
-    // extract projection indices
-    int[] fromIndexLeft = new int[pairs.size()];
-    for (int i = 0; i < pairs.size(); i++) {
-      fromIndexLeft[i] = pairs.left(i);
-    }
-
-    int[] fromIndexRight = new int[pairs.size()];
-    for (int i = 0; i < pairs.size(); i++) {
-      fromIndexRight[i] = pairs.right(i);
+    // perform join, generate projection indices
+    final int[] fromIndexLeft;
+    final int[] fromIndexRight;
+    if (PartitionedHashJoin.isApplicable(left.size(), right.size())) {
+      PartitionedHashJoin.Projection projection = PartitionedHashJoin.join(leftSeries,
+          rightSeries, joinType);
+      fromIndexLeft = projection.left;
+      fromIndexRight = projection.right;
+    } else {
+      Series.JoinPairs pairs = filterJoinPairs(Series.hashJoinOuter(leftSeries, rightSeries),
+          joinType);
+      fromIndexLeft = new int[pairs.size()];
+      fromIndexRight = new int[pairs.size()];
+      for (int i = 0; i < pairs.size(); i++) {
+        fromIndexLeft[i] = pairs.left(i);
+        fromIndexRight[i] = pairs.right(i);
+      }
     }
 
-    byte[] maskValues = new byte[pairs.size()];
-    for (int i = 0; i < pairs.size(); i++) {
-      if (pairs.left(i) == -1) {
+    byte[] maskValues = new byte[fromIndexLeft.length];
+    for (int i = 0; i < fromIndexLeft.length; i++) {
+      if (fromIndexLeft[i] == -1) {
         maskValues[i] = BooleanSeries.TRUE;
       }
     }
@@ -940,6 +944,37 @@ public class DataFrame {
     return df;
   }
 
+  /**
+   * Returns a shallow copy of the DataFrame with its LONG and DOUBLE series stored outside of
+   * the java heap. Other series are shared with this DataFrame.
+   *
+   * @return DataFrame copy with off-heap series
+   * @see LongSeries#toOffHeap()
+   */
+  public DataFrame toOffHeap() {
+    DataFrame df = new DataFrame(this);
+    for (Map.Entry<String, Series> e : this.series.entrySet()) {
+      df.addSeries(e.getKey(), e.getValue().toOffHeap());
+    }
+    return df;
+  }
+
+  /**
+   * Moves the LONG and DOUBLE series of the DataFrame outside of the java heap, in-place. Series
+   * are replaced one at a time: the heap values of a series can be collected as soon as it is
+   * replaced, so the peak memory is the DataFrame plus one series, instead of two DataFrames
+   * with {@link #toOffHeap()}. Only use it on a DataFrame that is not shared.
+   *
+   * @return reference to the modified DataFrame (this)
+   * @see LongSeries#toOffHeap()
+   */
+  public DataFrame moveOffHeap() {
+    for (Map.Entry<String, Series> e : this.series.entrySet()) {
+      e.setValue(e.getValue().toOffHeap());
+    }
+    return this;
+  }
+
   /**
    * Adds a new series to the DataFrame in-place. The new series must have the same row count
    * as the DataFrame. If this is the first series added to an empty DataFrame, it determines
@@ -2433,6 +2468,9 @@ public class DataFrame {
    */
   public static final class Builder {
 
+    // ":STRING" columns with at most this ratio of distinct values are dictionary-encoded
+    static final double STRING_ENCODING_MAX_DISTINCT_RATIO = 0.5;
+
     final List<String> seriesNames;
     final List<Object[]> rows = new ArrayList<>();
 
@@ -2565,7 +2603,7 @@ public class DataFrame {
       for (Object[] r : this.rows) {
         values[i++] = toString(r[columnIndex]);
       }
-      return StringSeries.buildFrom(values);
+      return StringSeries.buildFrom(values).encode(STRING_ENCODING_MAX_DISTINCT_RATIO);
     }
 
     private BooleanSeries buildBooleanSeries(int columnIndex) {
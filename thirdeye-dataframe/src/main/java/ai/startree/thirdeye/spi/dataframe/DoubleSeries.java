@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.spi.dataframe;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -309,7 +310,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     @Override
     public Builder addSeries(Collection<Series> series) {
       for (Series s : series) {
-        this.addValues(s.getDoubles().values);
+        this.addValues(s.getDoubles().values());
       }
       return this;
     }
@@ -362,9 +363,17 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   // CAUTION: The array is final, but values are inherently modifiable
   private final double[] values;
+  // off-heap storage, set instead of values - see toOffHeap()
+  private final DoubleBuffer buffer;
 
   private DoubleSeries(double... values) {
     this.values = values;
+    this.buffer = null;
+  }
+
+  private DoubleSeries(DoubleBuffer buffer) {
+    this.values = null;
+    this.buffer = buffer;
   }
 
   @Override
@@ -379,7 +388,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public double getDouble(int index) {
-    return getDouble(this.values[index]);
+    return getDouble(this.get(index));
   }
 
   public static double getDouble(double value) {
@@ -388,7 +397,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public long getLong(int index) {
-    return getLong(this.values[index]);
+    return getLong(this.get(index));
   }
 
   public static long getLong(double value) {
@@ -403,7 +412,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public byte getBoolean(int index) {
-    return getBoolean(this.values[index]);
+    return getBoolean(this.get(index));
   }
 
   public static byte getBoolean(double value) {
@@ -415,7 +424,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public String getString(int index) {
-    return getString(this.values[index]);
+    return getString(this.get(index));
   }
 
   public static String getString(double value) {
@@ -427,7 +436,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public Object getObject(int index) {
-    return getObject(this.values[index]);
+    return getObject(this.get(index));
   }
 
   public static Object getObject(double value) {
@@ -438,16 +447,22 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   }
 
   public double get(int index) {
+    if (this.buffer != null) {
+      return this.buffer.get(index);
+    }
     return this.values[index];
   }
 
   @Override
   public boolean isNull(int index) {
-    return isNull(this.values[index]);
+    return isNull(this.get(index));
   }
 
   @Override
   public int size() {
+    if (this.buffer != null) {
+      return this.buffer.capacity();
+    }
     return this.values.length;
   }
 
@@ -456,7 +471,16 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     return SeriesType.DOUBLE;
   }
 
+  /**
+   * Returns the values of the series. For an off-heap series, returns a copy of the values on
+   * the heap.
+   *
+   * @return series values
+   */
   public double[] values() {
+    if (this.buffer != null) {
+      return this.copyOfRange(0, this.size());
+    }
     return this.values;
   }
 
@@ -464,7 +488,46 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (this.size() != 1) {
       throw new IllegalStateException("Series must contain exactly one element");
     }
-    return this.values[0];
+    return this.get(0);
+  }
+
+  /**
+   * Returns a copy of the series stored outside of the java heap.
+   *
+   * @return off-heap series, or this series if it is already off-heap or too large for a single
+   *     buffer
+   * @see LongSeries#toOffHeap()
+   */
+  @Override
+  public DoubleSeries toOffHeap() {
+    if (this.buffer != null || !OffHeap.fits(this.values.length)) {
+      return this;
+    }
+    DoubleBuffer buffer = OffHeap.allocate(this.values.length).asDoubleBuffer();
+    buffer.put(0, this.values);
+    return new DoubleSeries(buffer.asReadOnlyBuffer());
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return this.buffer != null;
+  }
+
+  private double[] copyOfRange(int from, int to) {
+    if (this.buffer != null) {
+      double[] values = new double[to - from];
+      this.buffer.get(from, values);
+      return values;
+    }
+    return Arrays.copyOfRange(this.values, from, to);
+  }
+
+  private void copyInto(int from, double[] dest, int destFrom, int length) {
+    if (this.buffer != null) {
+      this.buffer.get(from, dest, destFrom, length);
+    } else {
+      System.arraycopy(this.values, from, dest, destFrom, length);
+    }
   }
 
   /**
@@ -473,10 +536,10 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @return list of series elements
    */
   public List<Double> toList() {
-    Double[] values = new Double[this.values.length];
-    for (int i = 0; i < this.values.length; i++) {
+    Double[] values = new Double[this.size()];
+    for (int i = 0; i < values.length; i++) {
       if (!this.isNull(i)) {
-        values[i] = this.values[i];
+        values[i] = this.get(i);
       }
     }
     return Arrays.asList(values);
@@ -486,14 +549,15 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   public DoubleSeries slice(int from, int to) {
     from = Math.max(Math.min(this.size(), from), 0);
     to = Math.max(Math.min(this.size(), to), 0);
-    return buildFrom(Arrays.copyOfRange(this.values, from, to));
+    return buildFrom(this.copyOfRange(from, to));
   }
 
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("DoubleSeries{");
-    for (double d : this.values) {
+    for (int i = 0; i < this.size(); i++) {
+      double d = this.get(i);
       if (isNull(d)) {
         builder.append("null");
       } else {
@@ -510,7 +574,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (this.isNull(index)) {
       return TOSTRING_NULL;
     }
-    return String.valueOf(this.values[index]);
+    return String.valueOf(this.get(index));
   }
 
   @Override
@@ -929,8 +993,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     }
     assertSameLength(this, mask, other);
 
-    double[] values = Arrays.copyOf(this.values, this.values.length);
-    for (int i = 0; i < this.values.length; i++) {
+    double[] values = this.copyOfRange(0, this.size());
+    for (int i = 0; i < values.length; i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = other.getDouble(i);
       }
@@ -940,12 +1004,12 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   public DoubleSeries set(BooleanSeries mask, double value) {
     assertSameLength(this, mask);
-    double[] values = new double[this.values.length];
+    double[] values = new double[this.size()];
     for (int i = 0; i < mask.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = value;
       } else {
-        values[i] = this.values[i];
+        values[i] = this.get(i);
       }
     }
     return buildFrom(values);
@@ -953,8 +1017,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   public int count(double value) {
     int count = 0;
-    for (double v : this.values) {
-      if (nullSafeDoubleComparator(v, value) == 0) {
+    for (int i = 0; i < this.size(); i++) {
+      if (nullSafeDoubleComparator(this.get(i), value) == 0) {
         count++;
       }
     }
@@ -977,10 +1041,11 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   }
 
   public int find(double value, double epsilon, int startOffset) {
-    for (int i = startOffset; i < this.values.length; i++) {
-      if ((this.values[i] >= value - epsilon
-          && this.values[i] <= value + epsilon)
-          || isNull(this.values[i]) && isNull(value)) {
+    for (int i = startOffset; i < this.size(); i++) {
+      double v = this.get(i);
+      if ((v >= value - epsilon
+          && v <= value + epsilon)
+          || isNull(v) && isNull(value)) {
         return i;
       }
     }
@@ -1005,7 +1070,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @return series copy without nulls
    */
   public DoubleSeries fillNull(double value) {
-    double[] values = Arrays.copyOf(this.values, this.values.length);
+    double[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
         values[i] = value;
@@ -1015,7 +1080,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   }
 
   public DoubleSeries fillInfinite(double value) {
-    double[] values = Arrays.copyOf(this.values, this.values.length);
+    double[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (Double.isInfinite(values[i])) {
         values[i] = value;
@@ -1031,7 +1096,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
       if (fromIndex[i] == -1) {
         values[i] = NULL;
       } else {
-        values[i] = this.values[fromIndex[i]];
+        values[i] = this.get(fromIndex[i]);
       }
     }
     return buildFrom(values);
@@ -1048,17 +1113,29 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
     DoubleSeries that = (DoubleSeries) o;
 
-    return Arrays.equals(this.values, that.values);
+    if (this.values != null && that.values != null) {
+      return Arrays.equals(this.values, that.values);
+    }
+    if (this.size() != that.size()) {
+      return false;
+    }
+    // same as Arrays.equals(double[], double[])
+    for (int i = 0; i < this.size(); i++) {
+      if (Double.doubleToLongBits(this.get(i)) != Double.doubleToLongBits(that.get(i))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   int compare(Series that, int indexThis, int indexThat) {
-    return nullSafeDoubleComparator(this.values[indexThis], that.getDouble(indexThat));
+    return nullSafeDoubleComparator(this.get(indexThis), that.getDouble(indexThat));
   }
 
   @Override
   int hashCode(int index) {
-    return (int) Double.doubleToRawLongBits(this.values[index]);
+    return (int) Double.doubleToRawLongBits(this.get(index));
   }
 
   /**
@@ -1172,7 +1249,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    * @see Series#aggregate(Function)
    */
   public static DoubleSeries aggregate(DoubleFunction function, Series series) {
-    return buildFrom(function.apply(series.dropNull().getDoubles().values));
+    return buildFrom(function.apply(series.dropNull().getDoubles().values()));
   }
 
   /**
@@ -1180,7 +1257,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
    */
   public static BooleanSeries aggregate(DoubleConditional function, Series series) {
     return BooleanSeries.builder()
-        .addBooleanValues(function.apply(series.dropNull().getDoubles().values)).build();
+        .addBooleanValues(function.apply(series.dropNull().getDoubles().values())).build();
   }
 
   public static double corr(Series a, Series b) {
@@ -1212,7 +1289,15 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(this.values);
+    if (this.values != null) {
+      return Arrays.hashCode(this.values);
+    }
+    // same as Arrays.hashCode(double[])
+    int result = 1;
+    for (int i = 0; i < this.size(); i++) {
+      result = 31 * result + Double.hashCode(this.get(i));
+    }
+    return result;
   }
 
   public static double valueOf(Double value) {
@@ -1235,13 +1320,13 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public DoubleSeries shift(int offset) {
-    double[] values = new double[this.values.length];
+    double[] values = new double[this.size()];
     if (offset >= 0) {
       Arrays.fill(values, 0, Math.min(offset, values.length), NULL);
-      System.arraycopy(this.values, 0, values, Math.min(offset, values.length),
+      this.copyInto(0, values, Math.min(offset, values.length),
           Math.max(values.length - offset, 0));
     } else {
-      System.arraycopy(this.values, Math.min(-offset, values.length), values, 0,
+      this.copyInto(Math.min(-offset, values.length), values, 0,
           Math.max(values.length + offset, 0));
       Arrays.fill(values, Math.max(values.length + offset, 0), values.length, NULL);
     }
@@ -1250,7 +1335,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public DoubleSeries sorted() {
-    double[] values = Arrays.copyOf(this.values, this.values.length);
+    double[] values = this.copyOfRange(0, this.size());
     Arrays.sort(values);
 
     // order NaNs first
@@ -1273,8 +1358,8 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
   @Override
   int[] sortedIndex() {
     List<DoubleSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new DoubleSortTuple(this.values[i], i));
+    for (int i = 0; i < this.size(); i++) {
+      tuples.add(new DoubleSortTuple(this.get(i), i));
     }
 
     Collections.sort(tuples, new Comparator<DoubleSortTuple>() {
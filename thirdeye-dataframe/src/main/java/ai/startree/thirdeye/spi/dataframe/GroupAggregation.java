@@ -0,0 +1,253 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static ai.startree.thirdeye.spi.dataframe.Grouping.OP_COUNT;
+import static ai.startree.thirdeye.spi.dataframe.Grouping.OP_MAX;
+import static ai.startree.thirdeye.spi.dataframe.Grouping.OP_MEAN;
+import static ai.startree.thirdeye.spi.dataframe.Grouping.OP_MIN;
+import static ai.startree.thirdeye.spi.dataframe.Grouping.OP_SUM;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Single-pass aggregation over group ids. Computes {@code SUM, MIN, MAX, MEAN} of long and double
+ * series and {@code COUNT} of any series without materializing a series per group. All
+ * operations on the same series share one pass over the rows.
+ *
+ * <br/><b>NOTE:</b> results match the per-group aggregation functions: null values are skipped,
+ * groups without non-null values aggregate to {@code NULL}, and the mean of a long series is a
+ * double series.
+ */
+final class GroupAggregation {
+
+  private GroupAggregation() {
+  }
+
+  static boolean isSupported(final Series series, final String operation) {
+    switch (operation.toUpperCase()) {
+      case OP_COUNT:
+        return true;
+      case OP_SUM:
+      case OP_MIN:
+      case OP_MAX:
+      case OP_MEAN:
+        return Series.SeriesType.LONG.equals(series.type())
+            || Series.SeriesType.DOUBLE.equals(series.type());
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Aggregates each series with the corresponding operation. Returns {@code null} for pairs that
+   * are not supported.
+   *
+   * @param groupIds group id of each row
+   * @param groupCount number of groups
+   * @param series series to aggregate
+   * @param operations aggregation operations
+   * @return aggregated series, in input order
+   * @see GroupAggregation#isSupported(Series, String)
+   */
+  static Series[] aggregate(final int[] groupIds, final int groupCount, final Series[] series,
+      final String[] operations) {
+    final Map<Series, Accumulator> accumulators = new IdentityHashMap<>();
+    for (int i = 0; i < series.length; i++) {
+      if (isSupported(series[i], operations[i])) {
+        accumulators.computeIfAbsent(series[i], Accumulator::new)
+            .require(operations[i].toUpperCase());
+      }
+    }
+
+    for (final Accumulator accumulator : accumulators.values()) {
+      accumulator.accumulate(groupIds, groupCount);
+    }
+
+    final Series[] results = new Series[series.length];
+    for (int i = 0; i < series.length; i++) {
+      final Accumulator accumulator = accumulators.get(series[i]);
+      if (accumulator != null && isSupported(series[i], operations[i])) {
+        results[i] = accumulator.result(operations[i].toUpperCase());
+      }
+    }
+    return results;
+  }
+
+  static Series aggregate(final int[] groupIds, final int groupCount, final Series series,
+      final String operation) {
+    return aggregate(groupIds, groupCount, new Series[]{series}, new String[]{operation})[0];
+  }
+
+  private static final class Accumulator {
+
+    final Series series;
+
+    boolean count;
+    boolean sum;
+    boolean min;
+    boolean max;
+    boolean mean;
+
+    long[] sizes;
+    long[] counts;
+    long[] longSums;
+    long[] longMins;
+    long[] longMaxs;
+    double[] doubleSums;
+    double[] doubleMins;
+    double[] doubleMaxs;
+
+    Accumulator(final Series series) {
+      this.series = series;
+    }
+
+    void require(final String operation) {
+      switch (operation) {
+        case OP_COUNT:
+          this.count = true;
+          break;
+        case OP_SUM:
+          this.sum = true;
+          break;
+        case OP_MIN:
+          this.min = true;
+          break;
+        case OP_MAX:
+          this.max = true;
+          break;
+        case OP_MEAN:
+          this.mean = true;
+          break;
+        default:
+          throw new IllegalArgumentException(String.format("Unknown operation '%s'", operation));
+      }
+    }
+
+    void accumulate(final int[] groupIds, final int groupCount) {
+      if (this.count) {
+        this.sizes = new long[groupCount];
+        for (final int g : groupIds) {
+          this.sizes[g]++;
+        }
+      }
+      if (!this.sum && !this.min && !this.max && !this.mean) {
+        return;
+      }
+
+      this.counts = new long[groupCount];
+      if (Series.SeriesType.LONG.equals(this.series.type())) {
+        accumulateLongs(this.series.getLongs().values(), groupIds, groupCount);
+      } else {
+        accumulateDoubles(this.series.getDoubles().values(), groupIds, groupCount);
+      }
+    }
+
+    private void accumulateLongs(final long[] values, final int[] groupIds,
+        final int groupCount) {
+      this.longSums = this.sum ? new long[groupCount] : null;
+      this.longMins = this.min ? new long[groupCount] : null;
+      this.longMaxs = this.max ? new long[groupCount] : null;
+      this.doubleSums = this.mean ? new double[groupCount] : null;
+
+      for (int i = 0; i < values.length; i++) {
+        final long v = values[i];
+        if (LongSeries.isNull(v)) {
+          continue;
+        }
+        final int g = groupIds[i];
+        final boolean first = this.counts[g]++ == 0;
+        if (this.longSums != null) {
+          this.longSums[g] += v;
+        }
+        if (this.longMins != null) {
+          this.longMins[g] = first ? v : Math.min(this.longMins[g], v);
+        }
+        if (this.longMaxs != null) {
+          this.longMaxs[g] = first ? v : Math.max(this.longMaxs[g], v);
+        }
+        if (this.doubleSums != null) {
+          this.doubleSums[g] += (double) v;
+        }
+      }
+    }
+
+    private void accumulateDoubles(final double[] values, final int[] groupIds,
+        final int groupCount) {
+      this.doubleSums = this.sum || this.mean ? new double[groupCount] : null;
+      this.doubleMins = this.min ? new double[groupCount] : null;
+      this.doubleMaxs = this.max ? new double[groupCount] : null;
+
+      for (int i = 0; i < values.length; i++) {
+        final double v = values[i];
+        if (DoubleSeries.isNull(v)) {
+          continue;
+        }
+        final int g = groupIds[i];
+        final boolean first = this.counts[g]++ == 0;
+        if (this.doubleSums != null) {
+          this.doubleSums[g] += v;
+        }
+        if (this.doubleMins != null) {
+          this.doubleMins[g] = first ? v : Math.min(this.doubleMins[g], v);
+        }
+        if (this.doubleMaxs != null) {
+          this.doubleMaxs[g] = first ? v : Math.max(this.doubleMaxs[g], v);
+        }
+      }
+    }
+
+    Series result(final String operation) {
+      if (OP_COUNT.equals(operation)) {
+        return LongSeries.buildFrom(this.sizes);
+      }
+
+      final boolean isLong = Series.SeriesType.LONG.equals(this.series.type());
+      switch (operation) {
+        case OP_SUM:
+          return isLong ? longResult(this.longSums) : doubleResult(this.doubleSums);
+        case OP_MIN:
+          return isLong ? longResult(this.longMins) : doubleResult(this.doubleMins);
+        case OP_MAX:
+          return isLong ? longResult(this.longMaxs) : doubleResult(this.doubleMaxs);
+        case OP_MEAN: {
+          final double[] means = new double[this.counts.length];
+          for (int g = 0; g < means.length; g++) {
+            means[g] = this.counts[g] > 0 ? this.doubleSums[g] / this.counts[g] : DoubleSeries.NULL;
+          }
+          return DoubleSeries.buildFrom(means);
+        }
+        default:
+          throw new IllegalArgumentException(String.format("Unknown operation '%s'", operation));
+      }
+    }
+
+    private LongSeries longResult(final long[] values) {
+      final long[] result = new long[values.length];
+      for (int g = 0; g < values.length; g++) {
+        result[g] = this.counts[g] > 0 ? values[g] : LongSeries.NULL;
+      }
+      return LongSeries.buildFrom(result);
+    }
+
+    private DoubleSeries doubleResult(final double[] values) {
+      final double[] result = new double[values.length];
+      for (int g = 0; g < values.length; g++) {
+        result[g] = this.counts[g] > 0 ? values[g] : DoubleSeries.NULL;
+      }
+      return DoubleSeries.buildFrom(result);
+    }
+  }
+}
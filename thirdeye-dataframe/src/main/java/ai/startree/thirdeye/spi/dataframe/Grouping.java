@@ -41,6 +41,7 @@ public abstract class Grouping {
   public static final String OP_MEAN = "MEAN";
   public static final String OP_MEDIAN = "MEDIAN";
   public static final String OP_STD = "STD";
+  public static final String OP_COUNT = "COUNT";
 
   // TODO generate keys on-demand only
   final Series keys;
@@ -184,6 +185,57 @@ public abstract class Grouping {
     return makeResult(builder.build());
   }
 
+  /**
+   * Applies the aggregation {@code operation} to all values per group.
+   *
+   * @param s input series to apply grouping to
+   * @param operation one of {@code SUM, PRODUCT, MIN, MAX, FIRST, LAST, MEAN, MEDIAN, STD,
+   *     COUNT}
+   * @return grouped aggregation series
+   */
+  GroupingDataFrame aggregate(Series s, String operation) {
+    switch (operation.toUpperCase()) {
+      case OP_SUM:
+        return this.sum(s);
+      case OP_PRODUCT:
+        return this.product(s);
+      case OP_MIN:
+        return this.min(s);
+      case OP_MAX:
+        return this.max(s);
+      case OP_FIRST:
+        return this.first(s);
+      case OP_LAST:
+        return this.last(s);
+      case OP_MEAN:
+        return this.mean(s);
+      case OP_MEDIAN:
+        return this.median(s);
+      case OP_STD:
+        return this.std(s);
+      case OP_COUNT:
+        return this.count(s);
+    }
+    throw new IllegalArgumentException(String.format("Unknown operation '%s'", operation));
+  }
+
+  /**
+   * Applies each aggregation operation to the corresponding series and returns the aggregated
+   * values in input order. Groupings may override this to compute several aggregations at once.
+   *
+   * @param series input series to apply grouping to
+   * @param operations aggregation operations
+   * @return aggregated values
+   * @see Grouping#aggregate(Series, String)
+   */
+  Series[] aggregate(Series[] series, String[] operations) {
+    Series[] results = new Series[series.length];
+    for (int i = 0; i < series.length; i++) {
+      results[i] = this.aggregate(series[i], operations[i]).getValues();
+    }
+    return results;
+  }
+
   /**
    * Returns the number of groups
    *
@@ -404,7 +456,8 @@ public abstract class Grouping {
      * {@code seriesName[:operation[:outputName]]}, where {@code seriesName} is a valid column name
      * in the
      * underlying DataFrame and {@code operation} is one of {@code SUM, PRODUCT, MIN, MAX,
-     * FIRST, LAST, MEAN, MEDIAN, STD} and {@code outputName} is the name of the result series.
+     * FIRST, LAST, MEAN, MEDIAN, STD, COUNT} and {@code outputName} is the name of the result
+     * series.
      *
      * <br/><b>NOTE:</b> This method is generally faster than aggregating with explicit function
      * references, as it may take advantage of specialized code depending on the grouping.
@@ -423,7 +476,8 @@ public abstract class Grouping {
      * {@code seriesName[:operation[:outputName]]}, where {@code seriesName} is a valid column name
      * in the
      * underlying DataFrame and {@code operation} is one of {@code SUM, PRODUCT, MIN, MAX,
-     * FIRST, LAST, MEAN, MEDIAN, STD} and {@code outputName} is the name of the result series.
+     * FIRST, LAST, MEAN, MEDIAN, STD, COUNT} and {@code outputName} is the name of the result
+     * series.
      *
      * <br/><b>NOTE:</b> This method is generally faster than aggregating with explicit function
      * references, as it may take advantage of specialized code depending on the grouping.
@@ -440,7 +494,13 @@ public abstract class Grouping {
       Set<String> outNames = new HashSet<>();
       outNames.add(this.keyName);
 
-      for (String expression : aggregationExpressions) {
+      final int numExpressions = aggregationExpressions.size();
+      Series[] series = new Series[numExpressions];
+      String[] operations = new String[numExpressions];
+      String[] outputNames = new String[numExpressions];
+
+      for (int i = 0; i < numExpressions; i++) {
+        String expression = aggregationExpressions.get(i);
         // parse expression
         String[] parts = expression.split(":", 3);
         if (parts.length > 3) {
@@ -465,35 +525,22 @@ public abstract class Grouping {
         }
         outNames.add(outName);
 
-        // compute expression
-        df.addSeries(outName, this.aggregateExpression(name, operation).getValues());
+        series[i] = this.source.get(name);
+        operations[i] = operation;
+        outputNames[i] = outName;
+      }
+
+      // compute expressions
+      Series[] results = this.grouping.aggregate(series, operations);
+      for (int i = 0; i < numExpressions; i++) {
+        df.addSeries(outputNames[i], results[i]);
       }
 
       return df;
     }
 
     GroupingDataFrame aggregateExpression(String seriesName, String operation) {
-      switch (operation.toUpperCase()) {
-        case OP_SUM:
-          return this.sum(seriesName);
-        case OP_PRODUCT:
-          return this.product(seriesName);
-        case OP_MIN:
-          return this.min(seriesName);
-        case OP_MAX:
-          return this.max(seriesName);
-        case OP_FIRST:
-          return this.first(seriesName);
-        case OP_LAST:
-          return this.last(seriesName);
-        case OP_MEAN:
-          return this.mean(seriesName);
-        case OP_MEDIAN:
-          return this.median(seriesName);
-        case OP_STD:
-          return this.std(seriesName);
-      }
-      throw new IllegalArgumentException(String.format("Unknown operation '%s'", operation));
+      return this.grouping.aggregate(this.source.get(seriesName), operation);
     }
 
     /**
@@ -507,6 +554,10 @@ public abstract class Grouping {
       return this.grouping.count(anySeries);
     }
 
+    public GroupingDataFrame count(String seriesName) {
+      return this.grouping.count(this.source.get(seriesName));
+    }
+
     public GroupingDataFrame sum(String seriesName) {
       return this.grouping.sum(this.source.get(seriesName));
     }
@@ -625,9 +676,17 @@ public abstract class Grouping {
 
     private final List<int[]> buckets;
 
+    // group index of each row, derived from buckets on demand
+    private int[] groupIds;
+
     private GroupingByValue(Series keys, List<int[]> buckets) {
+      this(keys, buckets, null);
+    }
+
+    private GroupingByValue(Series keys, List<int[]> buckets, int[] groupIds) {
       super(keys);
       this.buckets = buckets;
+      this.groupIds = groupIds;
     }
 
     @Override
@@ -635,6 +694,89 @@ public abstract class Grouping {
       return s.project(this.buckets.get(groupIndex));
     }
 
+    @Override
+    Series[] aggregate(Series[] series, String[] operations) {
+      for (Series s : series) {
+        if (s.size() != this.groupIds().length) {
+          return super.aggregate(series, operations);
+        }
+      }
+      Series[] results = GroupAggregation.aggregate(this.groupIds(), this.size(), series,
+          operations);
+      for (int i = 0; i < results.length; i++) {
+        if (results[i] == null) {
+          results[i] = super.aggregate(series[i], operations[i]).getValues();
+        }
+      }
+      return results;
+    }
+
+    @Override
+    GroupingDataFrame count(Series s) {
+      if (!this.isAggregatable(s, OP_COUNT)) {
+        return super.count(s);
+      }
+      return this.aggregated(s, OP_COUNT);
+    }
+
+    @Override
+    GroupingDataFrame sum(Series s) {
+      if (!this.isAggregatable(s, OP_SUM)) {
+        return super.sum(s);
+      }
+      return this.aggregated(s, OP_SUM);
+    }
+
+    @Override
+    GroupingDataFrame min(Series s) {
+      if (!this.isAggregatable(s, OP_MIN)) {
+        return super.min(s);
+      }
+      return this.aggregated(s, OP_MIN);
+    }
+
+    @Override
+    GroupingDataFrame max(Series s) {
+      if (!this.isAggregatable(s, OP_MAX)) {
+        return super.max(s);
+      }
+      return this.aggregated(s, OP_MAX);
+    }
+
+    @Override
+    GroupingDataFrame mean(Series s) {
+      if (!this.isAggregatable(s, OP_MEAN)) {
+        return super.mean(s);
+      }
+      return this.aggregated(s, OP_MEAN);
+    }
+
+    private GroupingDataFrame aggregated(Series s, String operation) {
+      return new GroupingDataFrame(GROUP_KEY, GROUP_VALUE, this.keys,
+          GroupAggregation.aggregate(this.groupIds(), this.size(), s, operation));
+    }
+
+    private boolean isAggregatable(Series s, String operation) {
+      return GroupAggregation.isSupported(s, operation) && s.size() == this.groupIds().length;
+    }
+
+    private int[] groupIds() {
+      if (this.groupIds == null) {
+        int size = 0;
+        for (int[] bucket : this.buckets) {
+          size += bucket.length;
+        }
+        int[] ids = new int[size];
+        for (int g = 0; g < this.buckets.size(); g++) {
+          for (int row : this.buckets.get(g)) {
+            ids[row] = g;
+          }
+        }
+        this.groupIds = ids;
+      }
+      return this.groupIds;
+    }
+
     public static GroupingByValue from(Series series) {
       if (series.isEmpty()) {
         return new GroupingByValue(series.getBuilder().build(), new ArrayList<int[]>());
@@ -684,6 +826,10 @@ public abstract class Grouping {
     public static GroupingByValue from(Series[] series) {
       Series.assertSameLength(series);
 
+      if (GroupingTable.isSupported(series)) {
+        return fromTable(series, GroupingTable.from(series));
+      }
+
       List<int[]> buckets = new ArrayList<>();
       PrimitiveMultimap m = new PrimitiveMultimap(series);
       BitSet b = new BitSet(series[0].size());
@@ -707,6 +853,31 @@ public abstract class Grouping {
       return new GroupingByValue(ObjectSeries.buildFrom((Object[]) tuples), buckets);
     }
 
+    private static GroupingByValue fromTable(Series[] series, GroupingTable table) {
+      // bucket rows by group id, rows stay in ascending order within a bucket
+      int[] sizes = new int[table.size()];
+      for (int g : table.groupIds) {
+        sizes[g]++;
+      }
+      int[][] buckets = new int[table.size()][];
+      for (int g = 0; g < buckets.length; g++) {
+        buckets[g] = new int[sizes[g]];
+      }
+      int[] offsets = new int[table.size()];
+      for (int i = 0; i < table.groupIds.length; i++) {
+        int g = table.groupIds[i];
+        buckets[g][offsets[g]++] = i;
+      }
+
+      DataFrame.Tuple[] tuples = new DataFrame.Tuple[table.size()];
+      for (int g = 0; g < tuples.length; g++) {
+        tuples[g] = DataFrame.Tuple.buildFrom(series, table.firstRows[g]);
+      }
+
+      return new GroupingByValue(ObjectSeries.buildFrom((Object[]) tuples),
+          new ArrayList<>(Arrays.asList(buckets)), table.groupIds);
+    }
+
     private static int[] keysFromBuckets(List<int[]> buckets) {
       int[] keyIndex = new int[buckets.size()];
       int i = 0;
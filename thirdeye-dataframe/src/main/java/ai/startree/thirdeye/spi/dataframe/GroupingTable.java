@@ -0,0 +1,296 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static ai.startree.thirdeye.spi.dataframe.ParallelTasks.forEach;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Group-by engine for long, double, boolean and string keys. Key columns are encoded as
+ * primitive longs (strings via their dictionary codes, or a dictionary built on the fly) and rows are assigned group ids through an
+ * open-addressing table over primitive arrays. Groups are numbered in order of their first
+ * appearance.
+ *
+ * <br/><b>NOTE:</b> the parallel variant builds one table per chunk of rows and merges them in
+ * chunk order, so the result is identical to the single-threaded build.
+ */
+final class GroupingTable {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long MIX = 0x9E3779B97F4A7C15L;
+
+  /**
+   * Group id of each row.
+   */
+  final int[] groupIds;
+
+  /**
+   * Index of the first row of each group.
+   */
+  final int[] firstRows;
+
+  private GroupingTable(final int[] groupIds, final int[] firstRows) {
+    this.groupIds = groupIds;
+    this.firstRows = firstRows;
+  }
+
+  int size() {
+    return this.firstRows.length;
+  }
+
+  /**
+   * Returns {@code true} if all series can be encoded as primitive keys.
+   *
+   * @param series key series
+   * @return {@code true} if supported, {@code false} otherwise
+   */
+  static boolean isSupported(final Series... series) {
+    for (final Series s : series) {
+      if (Series.SeriesType.OBJECT.equals(s.type())) {
+        return false;
+      }
+    }
+    return series.length > 0;
+  }
+
+  static GroupingTable from(final Series... series) {
+    final int size = series[0].size();
+    if (ParallelTasks.isApplicable(size)) {
+      return from(series, ForkJoinPool.commonPool());
+    }
+    Series.assertSameLength(series);
+
+    final long[][] codes = encode(series);
+    final int[] groupIds = new int[size];
+    final Table table = new Table(codes.length, INITIAL_CAPACITY);
+    final long[] key = new long[codes.length];
+    for (int i = 0; i < size; i++) {
+      groupIds[i] = table.addRow(codes, i, key);
+    }
+    return new GroupingTable(groupIds, table.firstRows());
+  }
+
+  static GroupingTable from(final Series[] series, final ForkJoinPool pool) {
+    Series.assertSameLength(series);
+
+    final int size = series[0].size();
+    final long[][] codes = encode(series);
+    final int numChunks = ParallelTasks.chunkCount(pool, size);
+    final int chunkSize = (size + numChunks - 1) / numChunks;
+
+    // group each chunk locally
+    final int[] groupIds = new int[size];
+    final Table[] tables = new Table[numChunks];
+    forEach(pool, numChunks, c -> {
+      final Table table = new Table(codes.length, INITIAL_CAPACITY);
+      final long[] key = new long[codes.length];
+      final int end = Math.min((c + 1) * chunkSize, size);
+      for (int i = c * chunkSize; i < end; i++) {
+        groupIds[i] = table.addRow(codes, i, key);
+      }
+      tables[c] = table;
+    });
+
+    // merge chunk groups in chunk order to preserve first appearance
+    final Table merged = new Table(codes.length, tables[0].size);
+    final int[][] mappings = new int[numChunks][];
+    for (int c = 0; c < numChunks; c++) {
+      final Table table = tables[c];
+      final int[] mapping = new int[table.size];
+      for (int g = 0; g < table.size; g++) {
+        mapping[g] = merged.add(table.keys, g * codes.length, table.hashes[g],
+            table.firstRows[g]);
+      }
+      mappings[c] = mapping;
+    }
+
+    // rewrite local group ids
+    forEach(pool, numChunks, c -> {
+      final int[] mapping = mappings[c];
+      final int end = Math.min((c + 1) * chunkSize, size);
+      for (int i = c * chunkSize; i < end; i++) {
+        groupIds[i] = mapping[groupIds[i]];
+      }
+    });
+
+    return new GroupingTable(groupIds, merged.firstRows());
+  }
+
+  /**
+   * Encodes each series as primitive long codes that are equal if and only if the values are
+   * equal. Strings are dictionary-encoded in order of first appearance.
+   */
+  static long[][] encode(final Series[] series) {
+    final long[][] codes = new long[series.length][];
+    for (int c = 0; c < series.length; c++) {
+      codes[c] = encode(series[c]);
+    }
+    return codes;
+  }
+
+  private static long[] encode(final Series series) {
+    switch (series.type()) {
+      case LONG:
+        return series.getLongs().values();
+      case DOUBLE: {
+        final double[] values = series.getDoubles().values();
+        final long[] codes = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+          codes[i] = Double.doubleToLongBits(values[i]);
+        }
+        return codes;
+      }
+      case BOOLEAN: {
+        final byte[] values = series.getBooleans().values();
+        final long[] codes = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+          codes[i] = values[i];
+        }
+        return codes;
+      }
+      case STRING: {
+        final StringSeries strings = series.getStrings();
+        if (strings.isEncoded()) {
+          final int[] dictionaryCodes = strings.codes();
+          final long[] codes = new long[dictionaryCodes.length];
+          for (int i = 0; i < dictionaryCodes.length; i++) {
+            codes[i] = dictionaryCodes[i];
+          }
+          return codes;
+        }
+        final String[] values = strings.values();
+        final long[] codes = new long[values.length];
+        final Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+          Integer code = dictionary.get(values[i]);
+          if (code == null) {
+            code = dictionary.size();
+            dictionary.put(values[i], code);
+          }
+          codes[i] = code;
+        }
+        return codes;
+      }
+      default:
+        throw new IllegalArgumentException(
+            String.format("Cannot encode series of type '%s'", series.type()));
+    }
+  }
+
+  static int hash(final long[] key, final int offset, final int width) {
+    long h = 0;
+    for (int c = offset; c < offset + width; c++) {
+      h = (h ^ key[c]) * MIX;
+      h ^= h >>> 29;
+    }
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * Open-addressing table with linear probing. Slots hold group ids + 1, group keys are stored
+   * in a flat array of {@code width} longs per group.
+   */
+  private static final class Table {
+
+    final int width;
+
+    int[] slots;
+    long[] keys;
+    int[] hashes;
+    int[] firstRows;
+    int size;
+
+    Table(final int width, final int expectedSize) {
+      this.width = width;
+      final int capacity = Math.max(INITIAL_CAPACITY, expectedSize);
+      this.slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+      this.keys = new long[capacity * width];
+      this.hashes = new int[capacity];
+      this.firstRows = new int[capacity];
+    }
+
+    int addRow(final long[][] codes, final int row, final long[] key) {
+      for (int c = 0; c < this.width; c++) {
+        key[c] = codes[c][row];
+      }
+      return add(key, 0, hash(key, 0, this.width), row);
+    }
+
+    int add(final long[] key, final int offset, final int hash, final int firstRow) {
+      final int mask = this.slots.length - 1;
+      int index = hash & mask;
+      int slot = this.slots[index];
+      while (slot != 0) {
+        final int group = slot - 1;
+        if (this.hashes[group] == hash && keyEquals(group, key, offset)) {
+          return group;
+        }
+        index = (index + 1) & mask;
+        slot = this.slots[index];
+      }
+
+      final int group = this.size++;
+      if (group >= this.hashes.length) {
+        grow();
+      }
+      System.arraycopy(key, offset, this.keys, group * this.width, this.width);
+      this.hashes[group] = hash;
+      this.firstRows[group] = firstRow;
+      this.slots[index] = group + 1;
+
+      if (this.size * 2 > this.slots.length) {
+        rehash();
+      }
+      return group;
+    }
+
+    int[] firstRows() {
+      return Arrays.copyOf(this.firstRows, this.size);
+    }
+
+    private boolean keyEquals(final int group, final long[] key, final int offset) {
+      final int start = group * this.width;
+      for (int c = 0; c < this.width; c++) {
+        if (this.keys[start + c] != key[offset + c]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void grow() {
+      final int capacity = this.hashes.length * 2;
+      this.keys = Arrays.copyOf(this.keys, capacity * this.width);
+      this.hashes = Arrays.copyOf(this.hashes, capacity);
+      this.firstRows = Arrays.copyOf(this.firstRows, capacity);
+    }
+
+    private void rehash() {
+      final int[] slots = new int[this.slots.length * 2];
+      final int mask = slots.length - 1;
+      for (int group = 0; group < this.size; group++) {
+        int index = this.hashes[group] & mask;
+        while (slots[index] != 0) {
+          index = (index + 1) & mask;
+        }
+        slots[index] = group + 1;
+      }
+      this.slots = slots;
+    }
+  }
+}
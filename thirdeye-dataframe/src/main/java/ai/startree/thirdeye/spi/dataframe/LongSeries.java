@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.spi.dataframe;
 
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -156,7 +157,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     @Override
     public Builder addSeries(Collection<Series> series) {
       for (Series s : series) {
-        this.addValues(s.getLongs().values);
+        this.addValues(s.getLongs().values());
       }
       return this;
     }
@@ -231,9 +232,17 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   // CAUTION: The array is final, but values are inherently modifiable
   private final long[] values;
+  // off-heap storage, set instead of values - see toOffHeap()
+  private final LongBuffer buffer;
 
   private LongSeries(long... values) {
     this.values = values;
+    this.buffer = null;
+  }
+
+  private LongSeries(LongBuffer buffer) {
+    this.values = null;
+    this.buffer = buffer;
   }
 
   @Override
@@ -248,7 +257,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public double getDouble(int index) {
-    return getDouble(this.values[index]);
+    return getDouble(this.get(index));
   }
 
   public static double getDouble(long value) {
@@ -260,7 +269,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public long getLong(int index) {
-    return getLong(this.values[index]);
+    return getLong(this.get(index));
   }
 
   public static long getLong(long value) {
@@ -269,7 +278,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public byte getBoolean(int index) {
-    return getBoolean(this.values[index]);
+    return getBoolean(this.get(index));
   }
 
   public static byte getBoolean(long value) {
@@ -281,7 +290,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public String getString(int index) {
-    return getString(this.values[index]);
+    return getString(this.get(index));
   }
 
   public static String getString(long value) {
@@ -293,7 +302,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public Object getObject(int index) {
-    return getObject(this.values[index]);
+    return getObject(this.get(index));
   }
 
   public static Object getObject(long value) {
@@ -304,16 +313,22 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   }
 
   public long get(int index) {
+    if (this.buffer != null) {
+      return this.buffer.get(index);
+    }
     return this.values[index];
   }
 
   @Override
   public boolean isNull(int index) {
-    return isNull(this.values[index]);
+    return isNull(this.get(index));
   }
 
   @Override
   public int size() {
+    if (this.buffer != null) {
+      return this.buffer.capacity();
+    }
     return this.values.length;
   }
 
@@ -322,7 +337,16 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     return SeriesType.LONG;
   }
 
+  /**
+   * Returns the values of the series. For an off-heap series, returns a copy of the values on
+   * the heap.
+   *
+   * @return series values
+   */
   public long[] values() {
+    if (this.buffer != null) {
+      return this.copyOfRange(0, this.size());
+    }
     return this.values;
   }
 
@@ -330,7 +354,48 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     if (this.size() != 1) {
       throw new IllegalStateException("Series must contain exactly one element");
     }
-    return this.values[0];
+    return this.get(0);
+  }
+
+  /**
+   * Returns a copy of the series stored outside of the java heap, in a direct buffer. The
+   * off-heap series supports all operations. Operations returning a series return an on-heap
+   * series and {@link #values()} returns a heap copy of the values, so the off-heap
+   * representation is meant for large series that are kept around but rarely transformed.
+   *
+   * @return off-heap series, or this series if it is already off-heap or too large for a single
+   *     buffer
+   */
+  @Override
+  public LongSeries toOffHeap() {
+    if (this.buffer != null || !OffHeap.fits(this.values.length)) {
+      return this;
+    }
+    LongBuffer buffer = OffHeap.allocate(this.values.length).asLongBuffer();
+    buffer.put(0, this.values);
+    return new LongSeries(buffer.asReadOnlyBuffer());
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return this.buffer != null;
+  }
+
+  private long[] copyOfRange(int from, int to) {
+    if (this.buffer != null) {
+      long[] values = new long[to - from];
+      this.buffer.get(from, values);
+      return values;
+    }
+    return Arrays.copyOfRange(this.values, from, to);
+  }
+
+  private void copyInto(int from, long[] dest, int destFrom, int length) {
+    if (this.buffer != null) {
+      this.buffer.get(from, dest, destFrom, length);
+    } else {
+      System.arraycopy(this.values, from, dest, destFrom, length);
+    }
   }
 
   /**
@@ -339,10 +404,10 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @return list of series elements
    */
   public List<Long> toList() {
-    Long[] values = new Long[this.values.length];
-    for (int i = 0; i < this.values.length; i++) {
+    Long[] values = new Long[this.size()];
+    for (int i = 0; i < values.length; i++) {
       if (!this.isNull(i)) {
-        values[i] = this.values[i];
+        values[i] = this.get(i);
       }
     }
     return Arrays.asList(values);
@@ -352,14 +417,15 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   public LongSeries slice(int from, int to) {
     from = Math.max(Math.min(this.size(), from), 0);
     to = Math.max(Math.min(this.size(), to), 0);
-    return buildFrom(Arrays.copyOfRange(this.values, from, to));
+    return buildFrom(this.copyOfRange(from, to));
   }
 
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("LongSeries{");
-    for (long l : this.values) {
+    for (int i = 0; i < this.size(); i++) {
+      long l = this.get(i);
       if (isNull(l)) {
         builder.append("null");
       } else {
@@ -376,7 +442,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     if (this.isNull(index)) {
       return TOSTRING_NULL;
     }
-    return String.valueOf(this.values[index]);
+    return String.valueOf(this.get(index));
   }
 
   public LongSeries sum() {
@@ -663,8 +729,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     }
     assertSameLength(this, mask, other);
 
-    long[] values = Arrays.copyOf(this.values, this.values.length);
-    for (int i = 0; i < this.values.length; i++) {
+    long[] values = this.copyOfRange(0, this.size());
+    for (int i = 0; i < values.length; i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = other.getLong(i);
       }
@@ -674,12 +740,12 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   public LongSeries set(BooleanSeries mask, long value) {
     assertSameLength(this, mask);
-    long[] values = new long[this.values.length];
+    long[] values = new long[this.size()];
     for (int i = 0; i < mask.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = value;
       } else {
-        values[i] = this.values[i];
+        values[i] = this.get(i);
       }
     }
     return buildFrom(values);
@@ -687,8 +753,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   public int count(long value) {
     int count = 0;
-    for (long v : this.values) {
-      if (v == value) {
+    for (int i = 0; i < this.size(); i++) {
+      if (this.get(i) == value) {
         count++;
       }
     }
@@ -711,8 +777,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   }
 
   public int find(long value, int startOffset) {
-    for (int i = startOffset; i < this.values.length; i++) {
-      if (this.values[i] == value) {
+    for (int i = startOffset; i < this.size(); i++) {
+      if (this.get(i) == value) {
         return i;
       }
     }
@@ -731,7 +797,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   int hashCode(int index) {
-    return (int) this.values[index];
+    return (int) this.get(index);
   }
 
   /**
@@ -742,7 +808,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @return series copy without nulls
    */
   public LongSeries fillNull(long value) {
-    long[] values = Arrays.copyOf(this.values, this.values.length);
+    long[] values = this.copyOfRange(0, this.size());
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
         values[i] = value;
@@ -758,7 +824,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
       if (fromIndex[i] == -1) {
         values[i] = NULL;
       } else {
-        values[i] = this.values[fromIndex[i]];
+        values[i] = this.get(fromIndex[i]);
       }
     }
     return buildFrom(values);
@@ -775,17 +841,36 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
     LongSeries that = (LongSeries) o;
 
-    return Arrays.equals(this.values, that.values);
+    if (this.values != null && that.values != null) {
+      return Arrays.equals(this.values, that.values);
+    }
+    if (this.size() != that.size()) {
+      return false;
+    }
+    for (int i = 0; i < this.size(); i++) {
+      if (this.get(i) != that.get(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
   int compare(Series that, int indexThis, int indexThat) {
-    return Long.compare(this.values[indexThis], that.getLong(indexThat));
+    return Long.compare(this.get(indexThis), that.getLong(indexThat));
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(this.values);
+    if (this.values != null) {
+      return Arrays.hashCode(this.values);
+    }
+    // same as Arrays.hashCode(long[])
+    int result = 1;
+    for (int i = 0; i < this.size(); i++) {
+      result = 31 * result + Long.hashCode(this.get(i));
+    }
+    return result;
   }
 
   /**
@@ -899,7 +984,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    * @see Series#aggregate(Function)
    */
   public static LongSeries aggregate(LongFunction function, Series series) {
-    return buildFrom(function.apply(series.dropNull().getLongs().values));
+    return buildFrom(function.apply(series.dropNull().getLongs().values()));
   }
 
   /**
@@ -907,7 +992,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
    */
   public static BooleanSeries aggregate(LongConditional function, Series series) {
     return BooleanSeries.builder()
-        .addBooleanValues(function.apply(series.dropNull().getLongs().values)).build();
+        .addBooleanValues(function.apply(series.dropNull().getLongs().values())).build();
   }
 
   public static long valueOf(Long value) {
@@ -930,13 +1015,13 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public LongSeries shift(int offset) {
-    long[] values = new long[this.values.length];
+    long[] values = new long[this.size()];
     if (offset >= 0) {
       Arrays.fill(values, 0, Math.min(offset, values.length), NULL);
-      System.arraycopy(this.values, 0, values, Math.min(offset, values.length),
+      this.copyInto(0, values, Math.min(offset, values.length),
           Math.max(values.length - offset, 0));
     } else {
-      System.arraycopy(this.values, Math.min(-offset, values.length), values, 0,
+      this.copyInto(Math.min(-offset, values.length), values, 0,
           Math.max(values.length + offset, 0));
       Arrays.fill(values, Math.max(values.length + offset, 0), values.length, NULL);
     }
@@ -945,7 +1030,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
 
   @Override
   public LongSeries sorted() {
-    long[] values = Arrays.copyOf(this.values, this.values.length);
+    long[] values = this.copyOfRange(0, this.size());
     Arrays.sort(values);
     return buildFrom(values);
   }
@@ -953,8 +1038,8 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   @Override
   int[] sortedIndex() {
     List<LongSortTuple> tuples = new ArrayList<>();
-    for (int i = 0; i < this.values.length; i++) {
-      tuples.add(new LongSortTuple(this.values[i], i));
+    for (int i = 0; i < this.size(); i++) {
+      tuples.add(new LongSortTuple(this.get(i), i));
     }
 
     Collections.sort(tuples, new Comparator<LongSortTuple>() {
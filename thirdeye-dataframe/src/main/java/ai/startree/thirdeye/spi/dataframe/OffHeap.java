@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocation of the off-heap storage of LongSeries and DoubleSeries.
+ *
+ * Values are stored in direct buffers. The memory is not part of the java heap: it is not
+ * scanned nor copied by the garbage collector, and is released when the series is collected.
+ * Direct memory is bounded by {@code -XX:MaxDirectMemorySize}.
+ */
+final class OffHeap {
+
+  // long and double values have the same width
+  private static final int VALUE_BYTES = Long.BYTES;
+
+  /**
+   * Maximum number of values of a single buffer.
+   */
+  static final int MAX_SIZE = Integer.MAX_VALUE / VALUE_BYTES;
+
+  private OffHeap() {
+  }
+
+  static boolean fits(final int size) {
+    return size <= MAX_SIZE;
+  }
+
+  static ByteBuffer allocate(final int size) {
+    return ByteBuffer.allocateDirect(size * VALUE_BYTES).order(ByteOrder.nativeOrder());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Helpers for running the parallel variants of joins and groupings on a fork-join pool.
+ */
+final class ParallelTasks {
+
+  /**
+   * Minimum number of rows to justify the overhead of the parallel variants.
+   */
+  static final int MIN_ROWS = 1 << 18;
+
+  static final int TASKS_PER_THREAD = 4;
+
+  private ParallelTasks() {
+  }
+
+  /**
+   * Returns {@code true} if an operation over {@code rows} rows should run in parallel on the
+   * common pool.
+   *
+   * @param rows number of rows processed
+   * @return {@code true} if parallel, {@code false} otherwise
+   */
+  static boolean isApplicable(final long rows) {
+    return ForkJoinPool.getCommonPoolParallelism() > 1 && rows >= MIN_ROWS;
+  }
+
+  /**
+   * Returns the number of chunks to split {@code size} rows into on the given pool.
+   *
+   * @param pool fork-join pool
+   * @param size number of rows
+   * @return chunk count, at least 1
+   */
+  static int chunkCount(final ForkJoinPool pool, final int size) {
+    return Math.max(Math.min(pool.getParallelism() * TASKS_PER_THREAD, size), 1);
+  }
+
+  /**
+   * Runs {@code task} for each index in {@code [0, count)} on the pool and waits for all of them
+   * to complete.
+   *
+   * @param pool fork-join pool
+   * @param count number of tasks
+   * @param task task to run for each index
+   */
+  static void forEach(final ForkJoinPool pool, final int count, final IntConsumer task) {
+    final List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final int index = i;
+      tasks.add(ForkJoinTask.adapt(() -> task.accept(index)));
+    }
+    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+  }
+}
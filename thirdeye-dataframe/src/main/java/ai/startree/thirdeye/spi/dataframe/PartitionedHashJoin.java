@@ -0,0 +1,267 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import static ai.startree.thirdeye.spi.dataframe.ParallelTasks.TASKS_PER_THREAD;
+import static ai.startree.thirdeye.spi.dataframe.ParallelTasks.forEach;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Radix-partitioned hash join for large inputs. Row hashes are computed once per side, both
+ * sides are scattered into partitions by the high bits of the mixed hash, and each partition is
+ * built and probed independently on a fork-join pool. Matches are written directly into the
+ * projection index arrays.
+ *
+ * <br/><b>NOTE:</b> the output order is the same as the single-threaded join: rows are ordered by
+ * left row, then right row, followed by the unmatched right rows (RIGHT and OUTER joins only).
+ *
+ * @see Series#hashJoinOuter(Series[], Series[])
+ */
+final class PartitionedHashJoin {
+
+  private static final int MAX_PARTITION_BITS = 12;
+  private static final int TARGET_PARTITION_SIZE = 1 << 16;
+
+  private PartitionedHashJoin() {
+  }
+
+  /**
+   * Returns {@code true} if the join should use the partitioned implementation on the common
+   * pool.
+   *
+   * @param leftSize number of rows on the left side
+   * @param rightSize number of rows on the right side
+   * @return {@code true} if partitioned, {@code false} otherwise
+   */
+  static boolean isApplicable(final int leftSize, final int rightSize) {
+    return ParallelTasks.isApplicable((long) leftSize + rightSize);
+  }
+
+  static Projection join(final Series[] left, final Series[] right,
+      final Series.JoinType joinType) {
+    return join(left, right, joinType, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Joins the left and right series and returns the projection indices for both sides. A value
+   * of {@code -1} indicates a missing row on that side.
+   *
+   * @param left left side of the join
+   * @param right right side of the join
+   * @param joinType type of join to perform
+   * @param pool fork-join pool to execute partitions on
+   * @return projection indices
+   */
+  static Projection join(final Series[] left, final Series[] right,
+      final Series.JoinType joinType, final ForkJoinPool pool) {
+    if (left.length != right.length) {
+      throw new IllegalArgumentException(
+          "Number of series on the left side of the join must be equal to the right side");
+    }
+    if (left.length <= 0) {
+      throw new IllegalArgumentException("Must join on at least one series");
+    }
+    Series.assertSameLength(left);
+    Series.assertSameLength(right);
+
+    final Series[] leftShared = Arrays.copyOf(left, left.length);
+    final Series[] rightTyped = new Series[right.length];
+    for (int i = 0; i < right.length; i++) {
+      rightTyped[i] = right[i].get(left[i].type());
+    }
+    Series.shareDictionaries(leftShared, rightTyped);
+
+    final boolean keepLeft = joinType == Series.JoinType.LEFT
+        || joinType == Series.JoinType.OUTER;
+    final boolean keepRight = joinType == Series.JoinType.RIGHT
+        || joinType == Series.JoinType.OUTER;
+
+    final int leftSize = leftShared[0].size();
+    final int rightSize = rightTyped[0].size();
+    final int bits = partitionBits(rightSize, pool.getParallelism());
+
+    // hash once, partition both sides
+    final Partitions leftParts = Partitions.of(leftShared, bits, pool);
+    final Partitions rightParts = Partitions.of(rightTyped, bits, pool);
+
+    // build and probe each partition
+    final int[] counts = new int[leftSize];
+    final byte[] touchedRight = new byte[rightSize];
+    final Series.JoinPairs[] matches = new Series.JoinPairs[1 << bits];
+
+    forEach(pool, matches.length, p -> {
+      final int rightStart = rightParts.offsets[p];
+      final int rightEnd = rightParts.offsets[p + 1];
+      final PrimitiveMultimap hashRight = new PrimitiveMultimap(rightEnd - rightStart);
+      for (int k = rightStart; k < rightEnd; k++) {
+        final int j = rightParts.rows[k];
+        hashRight.put(rightParts.hashes[j], j);
+      }
+
+      final int leftStart = leftParts.offsets[p];
+      final int leftEnd = leftParts.offsets[p + 1];
+      final Series.JoinPairs pairs = new Series.JoinPairs(leftEnd - leftStart);
+      for (int k = leftStart; k < leftEnd; k++) {
+        final int i = leftParts.rows[k];
+        final int first = pairs.size();
+        for (int j = hashRight.get(leftParts.hashes[i]); j != -1; j = hashRight.getNext()) {
+          if (Series.equalsMultiple(leftShared, rightTyped, i, j)) {
+            pairs.add(i, j);
+            touchedRight[j] = 1;
+          }
+        }
+        if (pairs.size() - first > 1) {
+          Arrays.sort(pairs.pairs, first, pairs.size());
+        }
+        if (pairs.size() == first && keepLeft) {
+          pairs.add(i, -1);
+        }
+        counts[i] = pairs.size() - first;
+      }
+      matches[p] = pairs;
+    });
+
+    // assign output positions in left row order
+    final int[] offsets = new int[leftSize];
+    int size = 0;
+    for (int i = 0; i < leftSize; i++) {
+      offsets[i] = size;
+      size += counts[i];
+    }
+    final int matchedSize = size;
+    if (keepRight) {
+      for (int j = 0; j < rightSize; j++) {
+        size += 1 - touchedRight[j];
+      }
+    }
+
+    // write projection indices
+    final Projection projection = new Projection(size);
+    forEach(pool, matches.length, p -> {
+      final Series.JoinPairs pairs = matches[p];
+      int previous = -1;
+      int pos = 0;
+      for (int k = 0; k < pairs.size(); k++) {
+        final int i = pairs.left(k);
+        pos = i == previous ? pos + 1 : offsets[i];
+        previous = i;
+        projection.left[pos] = i;
+        projection.right[pos] = pairs.right(k);
+      }
+    });
+
+    if (keepRight) {
+      int pos = matchedSize;
+      for (int j = 0; j < rightSize; j++) {
+        if (touchedRight[j] == 0) {
+          projection.left[pos] = -1;
+          projection.right[pos] = j;
+          pos++;
+        }
+      }
+    }
+
+    return projection;
+  }
+
+  static int partitionBits(final int rightSize, final int parallelism) {
+    final int byThreads = PrimitiveMultimap.log2(Math.max(parallelism, 1) * TASKS_PER_THREAD - 1)
+        + 1;
+    final int bySize = PrimitiveMultimap.log2(Math.max(rightSize / TARGET_PARTITION_SIZE, 1));
+    return Math.min(Math.max(byThreads, bySize), MAX_PARTITION_BITS);
+  }
+
+  /**
+   * Projection indices of a join. Both arrays have the same length.
+   */
+  static final class Projection {
+
+    final int[] left;
+    final int[] right;
+
+    Projection(final int size) {
+      this.left = new int[size];
+      this.right = new int[size];
+    }
+  }
+
+  /**
+   * Row hashes and row indices grouped by partition. Rows within a partition keep their
+   * original order.
+   */
+  private static final class Partitions {
+
+    final int[] hashes;
+    final int[] rows;
+    final int[] offsets;
+
+    private Partitions(final int[] hashes, final int[] rows, final int[] offsets) {
+      this.hashes = hashes;
+      this.rows = rows;
+      this.offsets = offsets;
+    }
+
+    static Partitions of(final Series[] series, final int bits, final ForkJoinPool pool) {
+      final int size = series[0].size();
+      final int numPartitions = 1 << bits;
+      final int numChunks = ParallelTasks.chunkCount(pool, size);
+      final int chunkSize = (size + numChunks - 1) / numChunks;
+
+      // hash rows and count partition sizes per chunk
+      final int[] hashes = new int[size];
+      final int[][] histograms = new int[numChunks][numPartitions];
+      forEach(pool, numChunks, c -> {
+        final int[] histogram = histograms[c];
+        final int end = Math.min((c + 1) * chunkSize, size);
+        for (int i = c * chunkSize; i < end; i++) {
+          final int hash = PrimitiveMultimap.hashRow(series, i);
+          hashes[i] = hash;
+          histogram[partition(hash, bits)]++;
+        }
+      });
+
+      // partition-major offsets keep rows stable within a partition
+      final int[] offsets = new int[numPartitions + 1];
+      int position = 0;
+      for (int p = 0; p < numPartitions; p++) {
+        offsets[p] = position;
+        for (int c = 0; c < numChunks; c++) {
+          final int count = histograms[c][p];
+          histograms[c][p] = position;
+          position += count;
+        }
+      }
+      offsets[numPartitions] = position;
+
+      // scatter row indices
+      final int[] rows = new int[size];
+      forEach(pool, numChunks, c -> {
+        final int[] cursor = histograms[c];
+        final int end = Math.min((c + 1) * chunkSize, size);
+        for (int i = c * chunkSize; i < end; i++) {
+          rows[cursor[partition(hashes[i], bits)]++] = i;
+        }
+      });
+
+      return new Partitions(hashes, rows, offsets);
+    }
+
+    private static int partition(final int hash, final int bits) {
+      // high bits of the mixed hash, the multimap slots use the low bits
+      return bits == 0 ? 0 : PrimitiveMultimap.hash(hash) >>> (32 - bits);
+    }
+  }
+}
@@ -664,6 +664,26 @@ public abstract class Series {
     return this.slice(0, this.size());
   }
 
+  /**
+   * Returns the series stored outside of the java heap. Only LONG and DOUBLE series have an
+   * off-heap representation, series of other types return themselves.
+   *
+   * @return off-heap series, or this series
+   * @see LongSeries#toOffHeap()
+   */
+  public Series toOffHeap() {
+    return this;
+  }
+
+  /**
+   * Returns {@code true} if the values of the series are stored outside of the java heap.
+   *
+   * @return {@code true} if off-heap, {@code false} otherwise
+   */
+  public boolean isOffHeap() {
+    return false;
+  }
+
   /**
    * Returns a copy of the series with values from {@code other}
    * appended at the end. If {@code other} has different native types they are
@@ -1280,10 +1300,13 @@ public abstract class Series {
       rightTyped[i] = right[i].get(left[i].type());
     }
 
+    Series[] leftShared = Arrays.copyOf(left, left.length);
+    shareDictionaries(leftShared, rightTyped);
+
     PrimitiveMultimap hashRight = new PrimitiveMultimap(rightTyped);
 
     for (int i = 0; i < left[0].size(); i++) {
-      int[] rows = hashRight.get(left, i, rightTyped);
+      int[] rows = hashRight.get(leftShared, i, rightTyped);
       if (rows.length <= 0) {
         pairs.add(i, -1);
         continue;
@@ -1393,10 +1416,13 @@ public abstract class Series {
       rightTyped[i] = right[i].get(left[i].type());
     }
 
+    Series[] leftShared = Arrays.copyOf(left, left.length);
+    shareDictionaries(leftShared, rightTyped);
+
     PrimitiveMultimap hashRight = new PrimitiveMultimap(rightTyped);
 
     for (int i = 0; i < left[0].size(); i++) {
-      for (int j : hashRight.get(left, i, rightTyped)) {
+      for (int j : hashRight.get(leftShared, i, rightTyped)) {
         pairs.add(i, j);
       }
     }
@@ -1404,6 +1430,25 @@ public abstract class Series {
     return pairs;
   }
 
+  /**
+   * Re-encodes pairs of dictionary-encoded string series on a shared dictionary, in place, so
+   * that equality checks between left and right compare codes.
+   *
+   * @param left left side series
+   * @param right right side series
+   * @see StringSeries#withSharedDictionary(StringSeries, StringSeries)
+   */
+  static void shareDictionaries(Series[] left, Series[] right) {
+    for (int i = 0; i < left.length; i++) {
+      if (left[i] instanceof StringSeries && right[i] instanceof StringSeries) {
+        StringSeries[] shared = StringSeries.withSharedDictionary((StringSeries) left[i],
+            (StringSeries) right[i]);
+        left[i] = shared[0];
+        right[i] = shared[1];
+      }
+    }
+  }
+
   static boolean equalsMultiple(Series[] left, Series[] right, int indexLeft, int indexRight) {
     for (int i = 0; i < left.length; i++) {
       if (!left[i].equals(right[i], indexLeft, indexRight)) {
@@ -28,6 +28,11 @@ import org.apache.commons.lang3.math.NumberUtils;
 
 /**
  * Series container for String objects.
+ *
+ * <br/><b>NOTE:</b> a series may be dictionary-encoded (see {@link #encode()}). It then holds one
+ * int code per row and a shared, sorted dictionary of distinct values. The encoding is transparent
+ * to consumers; equality, sorting, grouping and joins on series sharing a dictionary operate on
+ * the codes.
  */
 public final class StringSeries extends TypedSeries<StringSeries> {
 
@@ -132,7 +137,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     @Override
     public Builder addSeries(Collection<Series> series) {
       for (Series s : series) {
-        this.addValues(s.getStrings().values);
+        this.addValues(s.getStrings().values());
       }
       return this;
     }
@@ -166,14 +171,197 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   }
 
   public static StringSeries fillValues(int size, String value) {
-    return builder().fillValues(size, value).build();
+    if (isNull(value)) {
+      return fromCodes(new String[0], filledCodes(size, NULL_CODE));
+    }
+    return fromCodes(new String[]{value}, filledCodes(size, 0));
   }
 
-  // CAUTION: The array is final, but values are inherently modifiable
+  static final int NULL_CODE = -1;
+
+  // CAUTION: values are inherently modifiable. Null if the series is encoded.
   private final String[] values;
 
+  // dictionary-encoded representation, null if the series is not encoded
+  private final String[] dictionary;
+  private final int[] codes;
+
   private StringSeries(String... values) {
     this.values = values;
+    this.dictionary = null;
+    this.codes = null;
+  }
+
+  private StringSeries(String[] dictionary, int[] codes) {
+    this.values = null;
+    this.dictionary = dictionary;
+    this.codes = codes;
+  }
+
+  static StringSeries fromCodes(String[] dictionary, int[] codes) {
+    return new StringSeries(dictionary, codes);
+  }
+
+  private static int[] filledCodes(int size, int code) {
+    int[] codes = new int[size];
+    Arrays.fill(codes, code);
+    return codes;
+  }
+
+  /**
+   * Returns a dictionary-encoded copy of the series. Equal strings in the encoded series reference
+   * the same string instance. Returns the series itself if it is already encoded.
+   *
+   * @return dictionary-encoded series
+   */
+  public StringSeries encode() {
+    return this.encode(1.0);
+  }
+
+  /**
+   * Returns a dictionary-encoded copy of the series if the number of distinct values is at most
+   * {@code maxDistinctRatio} times the size of the series. Returns the series itself otherwise,
+   * or if it is already encoded. Encoding stops as soon as the ratio is exceeded.
+   *
+   * @param maxDistinctRatio maximum ratio of distinct values to series size, in [0, 1]
+   * @return dictionary-encoded series, or the series itself
+   */
+  public StringSeries encode(double maxDistinctRatio) {
+    if (this.isEncoded()) {
+      return this;
+    }
+
+    final long maxDistinct = (long) (maxDistinctRatio * this.values.length);
+    Map<String, Integer> index = new HashMap<>();
+    int[] codes = new int[this.values.length];
+    for (int i = 0; i < codes.length; i++) {
+      String v = this.values[i];
+      if (isNull(v)) {
+        codes[i] = NULL_CODE;
+        continue;
+      }
+      Integer code = index.get(v);
+      if (code == null) {
+        if (index.size() >= maxDistinct) {
+          return this;
+        }
+        code = index.size();
+        index.put(v, code);
+      }
+      codes[i] = code;
+    }
+
+    // sort the dictionary so that code order matches value order
+    String[] unsorted = new String[index.size()];
+    for (Map.Entry<String, Integer> e : index.entrySet()) {
+      unsorted[e.getValue()] = e.getKey();
+    }
+    String[] dictionary = Arrays.copyOf(unsorted, unsorted.length);
+    Arrays.sort(dictionary);
+
+    int[] remap = new int[unsorted.length];
+    for (int c = 0; c < unsorted.length; c++) {
+      remap[c] = Arrays.binarySearch(dictionary, unsorted[c]);
+    }
+    for (int i = 0; i < codes.length; i++) {
+      if (codes[i] != NULL_CODE) {
+        codes[i] = remap[codes[i]];
+      }
+    }
+
+    return fromCodes(dictionary, codes);
+  }
+
+  /**
+   * Returns {@code true} if the series is dictionary-encoded.
+   *
+   * @return {@code true} if encoded, {@code false} otherwise
+   */
+  public boolean isEncoded() {
+    return this.codes != null;
+  }
+
+  /**
+   * Returns {@code true} if both series are dictionary-encoded with the same dictionary, i.e. equal
+   * codes denote equal values.
+   */
+  boolean sharesDictionary(Series other) {
+    return this.isEncoded() && other instanceof StringSeries
+        && this.dictionary == ((StringSeries) other).dictionary;
+  }
+
+  int[] codes() {
+    return this.codes;
+  }
+
+  String[] dictionary() {
+    return this.dictionary;
+  }
+
+  /**
+   * Re-encodes both series on a merged dictionary if they are encoded with different
+   * dictionaries, so that their codes can be compared directly.
+   *
+   * @param a first series
+   * @param b second series
+   * @return both series sharing a dictionary, or the inputs if not applicable
+   */
+  static StringSeries[] withSharedDictionary(StringSeries a, StringSeries b) {
+    if (!a.isEncoded() || !b.isEncoded() || a.dictionary == b.dictionary) {
+      return new StringSeries[]{a, b};
+    }
+
+    // merge sorted dictionaries
+    String[] merged = new String[a.dictionary.length + b.dictionary.length];
+    int[] remapA = new int[a.dictionary.length];
+    int[] remapB = new int[b.dictionary.length];
+    int i = 0;
+    int j = 0;
+    int size = 0;
+    while (i < a.dictionary.length || j < b.dictionary.length) {
+      int cmp;
+      if (i >= a.dictionary.length) {
+        cmp = 1;
+      } else if (j >= b.dictionary.length) {
+        cmp = -1;
+      } else {
+        cmp = a.dictionary[i].compareTo(b.dictionary[j]);
+      }
+      if (cmp <= 0) {
+        merged[size] = a.dictionary[i];
+        remapA[i++] = size;
+      }
+      if (cmp >= 0) {
+        merged[size] = b.dictionary[j];
+        remapB[j++] = size;
+      }
+      size++;
+    }
+    merged = Arrays.copyOf(merged, size);
+
+    return new StringSeries[]{
+        fromCodes(merged, remapCodes(a.codes, remapA)),
+        fromCodes(merged, remapCodes(b.codes, remapB))};
+  }
+
+  private static int[] remapCodes(int[] codes, int[] remap) {
+    int[] output = new int[codes.length];
+    for (int i = 0; i < codes.length; i++) {
+      output[i] = codes[i] == NULL_CODE ? NULL_CODE : remap[codes[i]];
+    }
+    return output;
+  }
+
+  private String decode(int code) {
+    return code == NULL_CODE ? NULL : this.dictionary[code];
+  }
+
+  private int codeOf(String value) {
+    if (isNull(value)) {
+      return NULL_CODE;
+    }
+    int code = Arrays.binarySearch(this.dictionary, value);
+    return code >= 0 ? code : Integer.MIN_VALUE;
   }
 
   @Override
@@ -188,7 +376,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public double getDouble(int index) {
-    return getDouble(this.values[index]);
+    return getDouble(this.get(index));
   }
 
   public static double getDouble(String value) {
@@ -200,7 +388,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public long getLong(int index) {
-    return getLong(this.values[index]);
+    return getLong(this.get(index));
   }
 
   public static long getLong(String value) {
@@ -216,7 +404,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public byte getBoolean(int index) {
-    return getBoolean(this.values[index]);
+    return getBoolean(this.get(index));
   }
 
   public static byte getBoolean(String value) {
@@ -231,7 +419,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public String getString(int index) {
-    return getString(this.values[index]);
+    return getString(this.get(index));
   }
 
   public static String getString(String string) {
@@ -240,7 +428,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public Object getObject(int index) {
-    return getObject(this.values[index]);
+    return getObject(this.get(index));
   }
 
   public static Object getObject(String value) {
@@ -251,16 +439,22 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   }
 
   public String get(int index) {
+    if (this.codes != null) {
+      return this.decode(this.codes[index]);
+    }
     return this.values[index];
   }
 
   @Override
   public boolean isNull(int index) {
-    return isNull(this.values[index]);
+    return isNull(this.get(index));
   }
 
   @Override
   public int size() {
+    if (this.codes != null) {
+      return this.codes.length;
+    }
     return this.values.length;
   }
 
@@ -269,7 +463,21 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     return SeriesType.STRING;
   }
 
+  /**
+   * Returns the values of the series. For an encoded series, the values are decoded into a new
+   * array on every call and the array is not cached: keeping it would hold both representations in
+   * memory. Use {@link #get(int)} to read single values without decoding the whole series.
+   *
+   * @return values of the series
+   */
   public String[] values() {
+    if (this.isEncoded()) {
+      String[] values = new String[this.codes.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = this.decode(this.codes[i]);
+      }
+      return values;
+    }
     return this.values;
   }
 
@@ -277,12 +485,12 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     if (this.size() != 1) {
       throw new IllegalStateException("Series must contain exactly one element");
     }
-    return this.values[0];
+    return this.get(0);
   }
 
   @Override
   public StringSeries unique() {
-    Set<String> uniques = new HashSet<>(Arrays.asList(this.values));
+    Set<String> uniques = new HashSet<>(Arrays.asList(this.values()));
     String[] values = new String[uniques.size()];
     return StringSeries.buildFrom(uniques.toArray(values));
   }
@@ -292,20 +500,10 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * equal strings in the series reference the same string instance.
    *
    * @return compressed string series
+   * @see StringSeries#encode()
    */
   public StringSeries compress() {
-    Map<String, String> map = new HashMap<>();
-
-    String[] values = new String[this.values.length];
-    for (int i = 0; i < values.length; i++) {
-      String v = this.values[i];
-      if (!map.containsKey(v)) {
-        map.put(v, v);
-      }
-      values[i] = map.get(v);
-    }
-
-    return buildFrom(values);
+    return this.encode();
   }
 
   /**
@@ -314,7 +512,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @return list of series elements
    */
   public List<String> toList() {
-    return Arrays.asList(this.values);
+    return Arrays.asList(this.values());
   }
 
   /**
@@ -332,7 +530,9 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     boolean isLong = true;
     boolean isDouble = true;
 
-    for (String s : this.values) {
+    // encoded series only need to check distinct values
+    final String[] candidates = this.isEncoded() ? this.dictionary : this.values;
+    for (String s : candidates) {
       isBoolean &= (s == null) || (s.length() <= 0) || (s.compareToIgnoreCase("true") == 0
           || s.compareToIgnoreCase("false") == 0);
       isLong &=
@@ -367,6 +567,9 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   public StringSeries slice(int from, int to) {
     from = Math.max(Math.min(this.size(), from), 0);
     to = Math.max(Math.min(this.size(), to), 0);
+    if (this.isEncoded()) {
+      return fromCodes(this.dictionary, Arrays.copyOfRange(this.codes, from, to));
+    }
     return StringSeries.buildFrom(Arrays.copyOfRange(this.values, from, to));
   }
 
@@ -435,6 +638,19 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     if (other.size() == 1) {
       return this.eq(other.getString(0));
     }
+    if (this.sharesDictionary(other)) {
+      assertSameLength(this, other);
+      int[] otherCodes = ((StringSeries) other).codes;
+      byte[] output = new byte[this.codes.length];
+      for (int i = 0; i < output.length; i++) {
+        if (this.codes[i] == NULL_CODE || otherCodes[i] == NULL_CODE) {
+          output[i] = BooleanSeries.NULL;
+        } else {
+          output[i] = BooleanSeries.valueOf(this.codes[i] == otherCodes[i]);
+        }
+      }
+      return BooleanSeries.buildFrom(output);
+    }
     return map(new StringConditional() {
       @Override
       public boolean apply(String... values) {
@@ -447,6 +663,18 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
+    if (this.isEncoded()) {
+      int code = this.codeOf(constant);
+      byte[] output = new byte[this.codes.length];
+      for (int i = 0; i < output.length; i++) {
+        if (this.codes[i] == NULL_CODE) {
+          output[i] = BooleanSeries.NULL;
+        } else {
+          output[i] = BooleanSeries.valueOf(this.codes[i] == code);
+        }
+      }
+      return BooleanSeries.buildFrom(output);
+    }
     return this.map(new StringConditional() {
       @Override
       public boolean apply(String... values) {
@@ -462,8 +690,19 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     }
     assertSameLength(this, mask, other);
 
-    String[] values = Arrays.copyOf(this.values, this.values.length);
-    for (int i = 0; i < this.values.length; i++) {
+    if (this.isEncoded() && other instanceof StringSeries && ((StringSeries) other).isEncoded()) {
+      StringSeries[] shared = withSharedDictionary(this, (StringSeries) other);
+      int[] codes = Arrays.copyOf(shared[0].codes, shared[0].codes.length);
+      for (int i = 0; i < codes.length; i++) {
+        if (BooleanSeries.isTrue(mask.getBoolean(i))) {
+          codes[i] = shared[1].codes[i];
+        }
+      }
+      return fromCodes(shared[0].dictionary, codes);
+    }
+
+    String[] values = Arrays.copyOf(this.values(), this.size());
+    for (int i = 0; i < values.length; i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = other.getString(i);
       }
@@ -473,12 +712,23 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   public StringSeries set(BooleanSeries mask, String value) {
     assertSameLength(this, mask);
-    String[] values = new String[this.values.length];
+    if (this.isEncoded() && this.codeOf(value) != Integer.MIN_VALUE) {
+      int code = this.codeOf(value);
+      int[] codes = Arrays.copyOf(this.codes, this.codes.length);
+      for (int i = 0; i < codes.length; i++) {
+        if (BooleanSeries.isTrue(mask.getBoolean(i))) {
+          codes[i] = code;
+        }
+      }
+      return fromCodes(this.dictionary, codes);
+    }
+
+    String[] values = new String[this.size()];
     for (int i = 0; i < mask.size(); i++) {
       if (BooleanSeries.isTrue(mask.getBoolean(i))) {
         values[i] = value;
       } else {
-        values[i] = this.values[i];
+        values[i] = this.get(i);
       }
     }
     return buildFrom(values);
@@ -486,6 +736,15 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   public int count(String value) {
     int count = 0;
+    if (this.isEncoded()) {
+      int code = this.codeOf(value);
+      for (int c : this.codes) {
+        if (c == code) {
+          count++;
+        }
+      }
+      return count;
+    }
     for (String v : this.values) {
       if (nullSafeStringComparator(v, value) == 0) {
         count++;
@@ -514,7 +773,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("StringSeries{");
-    for (String s : this.values) {
+    for (String s : this.values()) {
       if (isNull(s)) {
         builder.append("null ");
       } else {
@@ -532,7 +791,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     if (this.isNull(index)) {
       return TOSTRING_NULL;
     }
-    return this.values[index];
+    return this.get(index);
   }
 
   @Override
@@ -548,7 +807,10 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @return series copy without nulls
    */
   public StringSeries fillNull(String value) {
-    String[] values = Arrays.copyOf(this.values, this.values.length);
+    if (this.isEncoded() && this.codeOf(value) != Integer.MIN_VALUE) {
+      return this.set(this.isNull(), value);
+    }
+    String[] values = Arrays.copyOf(this.values(), this.size());
     for (int i = 0; i < values.length; i++) {
       if (isNull(values[i])) {
         values[i] = value;
@@ -559,6 +821,14 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   StringSeries project(int[] fromIndex) {
+    if (this.isEncoded()) {
+      int[] codes = new int[fromIndex.length];
+      for (int i = 0; i < fromIndex.length; i++) {
+        codes[i] = fromIndex[i] == -1 ? NULL_CODE : this.codes[fromIndex[i]];
+      }
+      return fromCodes(this.dictionary, codes);
+    }
+
     String[] values = new String[fromIndex.length];
     for (int i = 0; i < fromIndex.length; i++) {
       if (fromIndex[i] == -1) {
@@ -581,22 +851,29 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
     StringSeries that = (StringSeries) o;
 
-    return Arrays.equals(this.values, that.values);
+    if (this.sharesDictionary(that)) {
+      return Arrays.equals(this.codes, that.codes);
+    }
+    return Arrays.equals(this.values(), that.values());
   }
 
   @Override
   int compare(Series that, int indexThis, int indexThat) {
-    return nullSafeStringComparator(this.values[indexThis], that.getString(indexThat));
+    if (this.sharesDictionary(that)) {
+      // sorted dictionary, NULL_CODE sorts first like null
+      return Integer.compare(this.codes[indexThis], ((StringSeries) that).codes[indexThat]);
+    }
+    return nullSafeStringComparator(this.get(indexThis), that.getString(indexThat));
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(this.values);
+    return Arrays.hashCode(this.values());
   }
 
   @Override
   int hashCode(int index) {
-    return Objects.hashCode(this.values[index]);
+    return Objects.hashCode(this.get(index));
   }
 
   /**
@@ -710,7 +987,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    * @see Series#aggregate(Function)
    */
   public static StringSeries aggregate(StringFunction function, Series series) {
-    return buildFrom(function.apply(series.dropNull().getStrings().values));
+    return buildFrom(function.apply(series.dropNull().getStrings().values()));
   }
 
   /**
@@ -718,7 +995,7 @@ public final class StringSeries extends TypedSeries<StringSeries> {
    */
   public static BooleanSeries aggregate(StringConditional function, Series series) {
     return BooleanSeries.builder()
-        .addBooleanValues(function.apply(series.dropNull().getStrings().values)).build();
+        .addBooleanValues(function.apply(series.dropNull().getStrings().values())).build();
   }
 
   public static boolean isNull(String value) {
@@ -748,6 +1025,20 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public StringSeries shift(int offset) {
+    if (this.isEncoded()) {
+      int[] codes = new int[this.codes.length];
+      if (offset >= 0) {
+        Arrays.fill(codes, 0, Math.min(offset, codes.length), NULL_CODE);
+        System.arraycopy(this.codes, 0, codes, Math.min(offset, codes.length),
+            Math.max(codes.length - offset, 0));
+      } else {
+        System.arraycopy(this.codes, Math.min(-offset, codes.length), codes, 0,
+            Math.max(codes.length + offset, 0));
+        Arrays.fill(codes, Math.max(codes.length + offset, 0), codes.length, NULL_CODE);
+      }
+      return fromCodes(this.dictionary, codes);
+    }
+
     String[] values = new String[this.values.length];
     if (offset >= 0) {
       Arrays.fill(values, 0, Math.min(offset, values.length), NULL);
@@ -763,6 +1054,12 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   public StringSeries sorted() {
+    if (this.isEncoded()) {
+      int[] codes = Arrays.copyOf(this.codes, this.codes.length);
+      Arrays.sort(codes);
+      return fromCodes(this.dictionary, codes);
+    }
+
     String[] values = Arrays.copyOf(this.values, this.values.length);
     Arrays.sort(values, new Comparator<String>() {
       @Override
@@ -775,6 +1072,10 @@ public final class StringSeries extends TypedSeries<StringSeries> {
 
   @Override
   int[] sortedIndex() {
+    if (this.isEncoded()) {
+      return this.sortedIndexByCode();
+    }
+
     List<StringSortTuple> tuples = new ArrayList<>();
     for (int i = 0; i < this.values.length; i++) {
       tuples.add(new StringSortTuple(this.values[i], i));
@@ -794,6 +1095,25 @@ public final class StringSeries extends TypedSeries<StringSeries> {
     return fromIndex;
   }
 
+  /**
+   * Stable counting sort over codes. Equivalent to sorting by value since the dictionary is
+   * sorted and {@code NULL_CODE} sorts first.
+   */
+  private int[] sortedIndexByCode() {
+    int[] offsets = new int[this.dictionary.length + 2];
+    for (int c : this.codes) {
+      offsets[c + 2]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] fromIndex = new int[this.codes.length];
+    for (int i = 0; i < this.codes.length; i++) {
+      fromIndex[offsets[this.codes[i] + 1]++] = i;
+    }
+    return fromIndex;
+  }
+
   static final class StringSortTuple {
 
     final String value;
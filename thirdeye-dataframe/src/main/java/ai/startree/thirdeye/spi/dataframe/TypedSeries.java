@@ -51,6 +51,11 @@ public abstract class TypedSeries<T extends Series> extends Series {
     return (T) super.copy();
   }
 
+  @Override
+  public T toOffHeap() {
+    return (T) super.toOffHeap();
+  }
+
   @Override
   public T append(Series... other) {
     return (T) super.append(other);
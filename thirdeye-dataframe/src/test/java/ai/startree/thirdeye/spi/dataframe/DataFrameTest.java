@@ -1398,6 +1398,47 @@ public class DataFrameTest {
     assertEquals(out.getStrings("b"), "1", "2");
   }
 
+  @Test
+  public void testGroupingByValueExpressions() {
+    DataFrame out = new DataFrame()
+        .addSeries("k", "x", "y", "x", "y", "z", "x")
+        .addSeries("l", 1, 1, 1, 1, 2, 1)
+        .addSeries("a", 1, 2, LNULL, 4, LNULL, 6)
+        .addSeries("b", 1.5, DNULL, 2.5, 3.0, DNULL, -1.0)
+        .groupByValue("k", "l")
+        .aggregate("a:sum:sum", "a:min:min", "a:max:max", "a:mean:mean", "a:count:count",
+            "b:sum:bSum", "b:mean:bMean", "b:max:bMax", "a:median:median");
+
+    Assert.assertEquals(out.size(), 3);
+    assertEquals(out.getLongs("sum"), 7, 6, LNULL);
+    assertEquals(out.getLongs("min"), 1, 2, LNULL);
+    assertEquals(out.getLongs("max"), 6, 4, LNULL);
+    assertEquals(out.getDoubles("mean"), 3.5, 3.0, DNULL);
+    assertEquals(out.getLongs("count"), 3, 2, 1);
+    assertEquals(out.getDoubles("bSum"), 3.0, 3.0, DNULL);
+    assertEquals(out.getDoubles("bMean"), 1.0, 3.0, DNULL);
+    assertEquals(out.getDoubles("bMax"), 2.5, 3.0, DNULL);
+    assertEquals(out.getDoubles("median"), 3.5, 3.0, DNULL);
+  }
+
+  @Test
+  public void testGroupingByValueAggregationMatchesGeneric() {
+    DataFrame df = new DataFrame()
+        .addSeries("k", 3, 1, 3, 2, 1, LNULL, 3)
+        .addSeries("v", 0.5, 1.25, DNULL, -2.0, 4.0, 1.0, 8.0);
+    Grouping.DataFrameGrouping grouping = df.groupByValue("k");
+
+    Assert.assertEquals(grouping.sum("v").getValues(),
+        grouping.aggregate("v", DoubleSeries.SUM).getValues());
+    Assert.assertEquals(grouping.min("v").getValues(),
+        grouping.aggregate("v", DoubleSeries.MIN).getValues());
+    Assert.assertEquals(grouping.max("v").getValues(),
+        grouping.aggregate("v", DoubleSeries.MAX).getValues());
+    Assert.assertEquals(grouping.mean("v").getValues(),
+        grouping.aggregate("v", DoubleSeries.MEAN).getValues());
+    assertEquals(grouping.count("v").getValues().getLongs(), 1, 2, 1, 3);
+  }
+
   @Test
   public void testStableMultiSortDoubleLong() {
     DataFrame mydf = new DataFrame(1, 2, 3, 4, 5, 6, 7, 8)
@@ -3399,6 +3440,235 @@ public class DataFrameTest {
     Assert.assertSame(s.getString(1), s.getString(3));
   }
 
+  @Test
+  public void testOffHeapRoundTrip() {
+    LongSeries longs = LongSeries.buildFrom(3, LNULL, 1, 2);
+    DoubleSeries doubles = DoubleSeries.buildFrom(1.5, DNULL, -2.0, 0.5);
+
+    LongSeries longsOffHeap = longs.toOffHeap();
+    DoubleSeries doublesOffHeap = doubles.toOffHeap();
+
+    Assert.assertTrue(longsOffHeap.isOffHeap());
+    Assert.assertTrue(doublesOffHeap.isOffHeap());
+    Assert.assertFalse(longs.isOffHeap());
+    Assert.assertSame(longsOffHeap.toOffHeap(), longsOffHeap);
+    assertEquals(longsOffHeap, 3, LNULL, 1, 2);
+    assertEquals(doublesOffHeap, 1.5, DNULL, -2.0, 0.5);
+    Assert.assertEquals(longsOffHeap, longs);
+    Assert.assertEquals(doublesOffHeap, doubles);
+    Assert.assertEquals(longsOffHeap.hashCode(), longs.hashCode());
+    Assert.assertEquals(doublesOffHeap.hashCode(), doubles.hashCode());
+    Assert.assertEquals(longsOffHeap.toString(), longs.toString());
+    Assert.assertEquals(doublesOffHeap.toString(), doubles.toString());
+    Assert.assertEquals(longs.toOffHeap(), longsOffHeap);
+    Assert.assertEquals(doubles.toOffHeap(), doublesOffHeap);
+    Assert.assertNotEquals(LongSeries.buildFrom(3, LNULL, 1).toOffHeap(), longsOffHeap);
+    Assert.assertNotEquals(DoubleSeries.buildFrom(1.5, DNULL, -2.0, 0.25).toOffHeap(),
+        doublesOffHeap);
+  }
+
+  @Test
+  public void testOffHeapOperations() {
+    LongSeries longs = LongSeries.buildFrom(3, LNULL, 1, 2, 3);
+    LongSeries offHeap = longs.toOffHeap();
+
+    Assert.assertEquals(offHeap.sortedIndex(), longs.sortedIndex());
+    assertEquals(offHeap.sorted(), longs.sorted());
+    assertEquals(offHeap.shift(2), longs.shift(2));
+    assertEquals(offHeap.shift(-2), longs.shift(-2));
+    assertEquals(offHeap.shift(10), longs.shift(10));
+    assertEquals(offHeap.shift(-10), longs.shift(-10));
+    assertEquals(offHeap.slice(1, 4), longs.slice(1, 4));
+    assertEquals(offHeap.fillNull(), longs.fillNull());
+    assertEquals(offHeap.sum(), longs.sum());
+    assertEquals(offHeap.unique(), longs.unique());
+    assertEquals(offHeap.eq(3), longs.eq(3));
+    Assert.assertEquals(offHeap.count(3), 2);
+    Assert.assertEquals(offHeap.find(2), 3);
+    Assert.assertFalse(offHeap.slice(1, 4).isOffHeap());
+
+    DoubleSeries doubles = DoubleSeries.buildFrom(0.5, DNULL, 2.5, -1.0);
+    DoubleSeries doublesOffHeap = doubles.toOffHeap();
+    assertEquals(doublesOffHeap.sorted(), doubles.sorted());
+    assertEquals(doublesOffHeap.shift(1), doubles.shift(1));
+    assertEquals(doublesOffHeap.shift(-1), doubles.shift(-1));
+    assertEquals(doublesOffHeap.add(1.0), doubles.add(1.0));
+    assertEquals(doublesOffHeap.fillInfinite(0.0), doubles.fillInfinite(0.0));
+    assertEquals(doublesOffHeap.mean(), doubles.mean());
+    Assert.assertEquals(doublesOffHeap.find(2.5, 0.1), 2);
+  }
+
+  @Test
+  public void testDataFrameOffHeap() {
+    DataFrame df = new DataFrame()
+        .addSeries("key", 1, 2, 1, 3)
+        .addSeries("value", 1.0, 2.0, 3.0, 4.0)
+        .addSeries("name", "a", "b", "a", "c")
+        .setIndex("key");
+    DataFrame other = new DataFrame()
+        .addSeries("key", 1, 3)
+        .addSeries("other", 10.0, 30.0)
+        .setIndex("key");
+
+    DataFrame offHeap = df.toOffHeap();
+
+    Assert.assertTrue(offHeap.get("key").isOffHeap());
+    Assert.assertTrue(offHeap.get("value").isOffHeap());
+    Assert.assertSame(offHeap.get("name"), df.get("name"));
+    Assert.assertEquals(offHeap.getIndexNames(), df.getIndexNames());
+    Assert.assertEquals(offHeap, df);
+    Assert.assertEquals(offHeap.joinInner(other), df.joinInner(other));
+    Assert.assertEquals(offHeap.groupByValue("key").aggregate("value:sum"),
+        df.groupByValue("key").aggregate("value:sum"));
+  }
+
+  @Test
+  public void testDataFrameMoveOffHeap() {
+    DataFrame df = new DataFrame()
+        .addSeries("key", 1, 2, 1, 3)
+        .addSeries("value", 1.0, 2.0, 3.0, 4.0)
+        .addSeries("name", "a", "b", "a", "c")
+        .setIndex("key");
+    DataFrame expected = df.copy();
+    Series name = df.get("name");
+
+    Assert.assertSame(df.moveOffHeap(), df);
+
+    Assert.assertTrue(df.get("key").isOffHeap());
+    Assert.assertTrue(df.get("value").isOffHeap());
+    Assert.assertSame(df.get("name"), name);
+    Assert.assertEquals(df.getSeriesNames(), expected.getSeriesNames());
+    Assert.assertEquals(df.getIndexNames(), expected.getIndexNames());
+    Assert.assertEquals(df, expected);
+  }
+
+  @Test
+  public void testStringEncodedRoundTrip() {
+    StringSeries s = StringSeries.buildFrom("b", null, "a", "b", "c", null).encode();
+
+    Assert.assertTrue(s.isEncoded());
+    Assert.assertEquals(s.dictionary(), new String[]{"a", "b", "c"});
+    assertEquals(s, "b", null, "a", "b", "c", null);
+    Assert.assertEquals(s.size(), 6);
+    Assert.assertSame(s.encode(), s);
+    Assert.assertEquals(s, StringSeries.buildFrom("b", null, "a", "b", "c", null));
+  }
+
+  @Test
+  public void testStringEncodedValuesNotCached() {
+    StringSeries s = StringSeries.buildFrom("b", null, "a", "b").encode();
+
+    String[] values = s.values();
+    Assert.assertEquals(values, new String[]{"b", null, "a", "b"});
+    Assert.assertNotSame(s.values(), values);
+  }
+
+  @Test
+  public void testStringEncodeMaxDistinctRatio() {
+    StringSeries lowCardinality = StringSeries.buildFrom("a", "b", "a", "b", null, "a");
+    Assert.assertTrue(lowCardinality.encode(0.5).isEncoded());
+
+    StringSeries highCardinality = StringSeries.buildFrom("a", "b", "c", "d", "a", "e");
+    Assert.assertSame(highCardinality.encode(0.5), highCardinality);
+    Assert.assertTrue(highCardinality.encode().isEncoded());
+  }
+
+  @Test
+  public void testBuilderEncodesLowCardinalityStringColumns() {
+    DataFrame df = DataFrame.builder("dim:STRING", "id:STRING")
+        .append("x", "1")
+        .append("y", "2")
+        .append("x", "3")
+        .append("x", "4")
+        .build();
+
+    Assert.assertTrue(df.getStrings("dim").isEncoded());
+    Assert.assertFalse(df.getStrings("id").isEncoded());
+    assertEquals(df.getStrings("dim"), "x", "y", "x", "x");
+    assertEquals(df.getStrings("id"), "1", "2", "3", "4");
+  }
+
+  @Test
+  public void testStringEncodedOperations() {
+    String[] values = {"b", null, "a", "b", "c", null, "a"};
+    StringSeries plain = StringSeries.buildFrom(values);
+    StringSeries encoded = plain.encode();
+
+    Assert.assertEquals(encoded.sortedIndex(), plain.sortedIndex());
+    assertEquals(encoded.sorted(), plain.sorted());
+    assertEquals(encoded.eq("b"), plain.eq("b"));
+    assertEquals(encoded.eq("x"), plain.eq("x"));
+    assertEquals(encoded.shift(2), plain.shift(2));
+    assertEquals(encoded.slice(1, 5), plain.slice(1, 5));
+    assertEquals(encoded.unique(), plain.unique());
+    Assert.assertEquals(encoded.count("a"), 2);
+
+    StringSeries filtered = encoded.filter(encoded.eq("b")).dropNull();
+    Assert.assertTrue(filtered.isEncoded());
+    assertEquals(filtered, "b", "b");
+
+    StringSeries projected = encoded.project(new int[]{4, -1, 0});
+    Assert.assertTrue(projected.isEncoded());
+    assertEquals(projected, "c", null, "b");
+
+    StringSeries filled = encoded.fillNull("a");
+    Assert.assertTrue(filled.isEncoded());
+    assertEquals(filled, "b", "a", "a", "b", "c", "a", "a");
+  }
+
+  @Test
+  public void testStringFillValuesEncoded() {
+    StringSeries s = StringSeries.fillValues(3, "x");
+    Assert.assertTrue(s.isEncoded());
+    assertEquals(s, "x", "x", "x");
+    assertEquals(StringSeries.fillValues(2, null), null, null);
+  }
+
+  @Test
+  public void testStringEncodedSetMerged() {
+    StringSeries a = StringSeries.buildFrom("a", "b", "a").encode();
+    StringSeries b = StringSeries.buildFrom("z", "y", "b").encode();
+
+    StringSeries out = a.set(DataFrame.toSeries(false, true, true), b);
+    Assert.assertTrue(out.isEncoded());
+    assertEquals(out, "a", "y", "b");
+  }
+
+  @Test
+  public void testJoinEncodedDifferentDictionaries() {
+    DataFrame left = new DataFrame()
+        .addSeries("key", StringSeries.buildFrom("a", "b", "c", "b").encode())
+        .addSeries("lv", 1, 2, 3, 4);
+    DataFrame right = new DataFrame()
+        .addSeries("key", StringSeries.buildFrom("d", "b", "a").encode())
+        .addSeries("rv", 10, 20, 30);
+
+    DataFrame joinedEncoded = left.joinOuter(right, "key", "key");
+    DataFrame joinedPlain = new DataFrame()
+        .addSeries("key", StringSeries.buildFrom("a", "b", "c", "b"))
+        .addSeries("lv", 1, 2, 3, 4)
+        .joinOuter(new DataFrame()
+            .addSeries("key", StringSeries.buildFrom("d", "b", "a"))
+            .addSeries("rv", 10, 20, 30), "key", "key");
+
+    Assert.assertEquals(joinedEncoded, joinedPlain);
+  }
+
+  @Test
+  public void testGroupByValueEncoded() {
+    DataFrame df = new DataFrame()
+        .addSeries("dim", StringSeries.buildFrom("x", "y", "x", null, "y", "x").encode())
+        .addSeries("value", 1, 2, 3, 4, 5, 6);
+
+    DataFrame grouped = df.groupByValue("dim").aggregate("value:sum").dropNull();
+    DataFrame expected = new DataFrame()
+        .addSeries("dim", "x", "y")
+        .addSeries("value", 10, 7);
+
+    assertEquals(grouped.getStrings("dim"), expected.getStrings("dim"));
+    assertEquals(grouped.getLongs("value"), expected.getLongs("value"));
+  }
+
   @Test
   public void testBooleanOperationsSeries() {
     BooleanSeries base = DataFrame.toSeries(BNULL, TRUE, FALSE, TRUE, FALSE);
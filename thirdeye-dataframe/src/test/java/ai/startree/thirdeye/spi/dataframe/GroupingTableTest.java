@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class GroupingTableTest {
+
+  private ForkJoinPool pool;
+
+  @BeforeClass
+  public void beforeClass() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterClass(alwaysRun = true)
+  public void afterClass() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testGroupsInOrderOfFirstAppearance() {
+    Series[] series = {
+        LongSeries.buildFrom(2, 1, 2, LongSeries.NULL, 1, LongSeries.NULL),
+        StringSeries.buildFrom("a", "b", "a", null, "c", null)
+    };
+
+    GroupingTable table = GroupingTable.from(series);
+
+    Assert.assertEquals(table.groupIds, new int[]{0, 1, 0, 2, 3, 2});
+    Assert.assertEquals(table.firstRows, new int[]{0, 1, 3, 4});
+  }
+
+  @Test
+  public void testDoubleAndBooleanKeys() {
+    Series[] series = {
+        DoubleSeries.buildFrom(1.0, DoubleSeries.NULL, 1.0, 2.0, DoubleSeries.NULL),
+        BooleanSeries.buildFrom(BooleanSeries.TRUE, BooleanSeries.FALSE, BooleanSeries.FALSE,
+            BooleanSeries.TRUE, BooleanSeries.FALSE)
+    };
+
+    GroupingTable table = GroupingTable.from(series);
+
+    Assert.assertEquals(table.groupIds, new int[]{0, 1, 2, 3, 1});
+    Assert.assertEquals(table.size(), 4);
+  }
+
+  @Test
+  public void testObjectKeysNotSupported() {
+    Assert.assertFalse(GroupingTable.isSupported(LongSeries.buildFrom(1),
+        ObjectSeries.buildFrom("a")));
+    Assert.assertTrue(GroupingTable.isSupported(LongSeries.buildFrom(1),
+        StringSeries.buildFrom("a")));
+  }
+
+  @Test
+  public void testParallelMatchesSingleThreaded() {
+    final Random random = new Random(7);
+    final int size = 50000;
+    final long[] longs = new long[size];
+    final String[] strings = new String[size];
+    for (int i = 0; i < size; i++) {
+      longs[i] = random.nextInt(1000);
+      strings[i] = "dim" + random.nextInt(20);
+    }
+    Series[] series = {LongSeries.buildFrom(longs), StringSeries.buildFrom(strings)};
+
+    GroupingTable expected = GroupingTable.from(series);
+    GroupingTable actual = GroupingTable.from(series, pool);
+
+    Assert.assertEquals(actual.groupIds, expected.groupIds);
+    Assert.assertEquals(actual.firstRows, expected.firstRows);
+  }
+}
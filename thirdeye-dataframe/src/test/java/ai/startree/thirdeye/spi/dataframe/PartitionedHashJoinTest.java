@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class PartitionedHashJoinTest {
+
+  private ForkJoinPool pool;
+
+  @BeforeClass
+  public void beforeClass() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterClass(alwaysRun = true)
+  public void afterClass() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testPartitionBits() {
+    Assert.assertEquals(PartitionedHashJoin.partitionBits(0, 1), 2);
+    Assert.assertEquals(PartitionedHashJoin.partitionBits(0, 8), 5);
+    Assert.assertEquals(PartitionedHashJoin.partitionBits(100 << 16, 1), 6);
+    Assert.assertEquals(PartitionedHashJoin.partitionBits(Integer.MAX_VALUE, 64), 12);
+  }
+
+  @Test
+  public void testJoinOuter() {
+    Series[] left = {LongSeries.buildFrom(4, 2, 1, 3)};
+    Series[] right = {DoubleSeries.buildFrom(5.0, 2.0, 1.0, 3.0, 1.0, 0.0)};
+
+    PartitionedHashJoin.Projection projection = PartitionedHashJoin.join(left, right,
+        Series.JoinType.OUTER, pool);
+
+    Assert.assertEquals(projection.left, new int[]{0, 1, 2, 2, 3, -1, -1});
+    Assert.assertEquals(projection.right, new int[]{-1, 1, 2, 4, 3, 0, 5});
+  }
+
+  @Test
+  public void testJoinEmpty() {
+    Series[] left = {LongSeries.empty()};
+    Series[] right = {LongSeries.buildFrom(1, 2)};
+
+    PartitionedHashJoin.Projection projection = PartitionedHashJoin.join(left, right,
+        Series.JoinType.OUTER, pool);
+
+    Assert.assertEquals(projection.left, new int[]{-1, -1});
+    Assert.assertEquals(projection.right, new int[]{0, 1});
+  }
+
+  @Test
+  public void testJoinMatchesSingleThreadedJoin() {
+    final Random random = new Random(42);
+    final Series[] left = randomKeys(random, 20000);
+    final Series[] right = randomKeys(random, 15000);
+
+    for (Series.JoinType joinType : Series.JoinType.values()) {
+      Series.JoinPairs expected = filter(Series.hashJoinOuter(left, right), joinType);
+      PartitionedHashJoin.Projection actual = PartitionedHashJoin.join(left, right, joinType,
+          pool);
+
+      Assert.assertEquals(actual.left.length, expected.size(), joinType.name());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(actual.left[i], expected.left(i), joinType.name());
+        Assert.assertEquals(actual.right[i], expected.right(i), joinType.name());
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testJoinDifferentNumberOfSeries() {
+    PartitionedHashJoin.join(new Series[]{LongSeries.buildFrom(1)},
+        new Series[]{LongSeries.buildFrom(1), LongSeries.buildFrom(1)}, Series.JoinType.INNER,
+        pool);
+  }
+
+  private static Series[] randomKeys(final Random random, final int size) {
+    final long[] dimension = new long[size];
+    final String[] other = new String[size];
+    for (int i = 0; i < size; i++) {
+      dimension[i] = random.nextInt(5000);
+      other[i] = "value" + random.nextInt(3);
+    }
+    return new Series[]{LongSeries.buildFrom(dimension), StringSeries.buildFrom(other)};
+  }
+
+  private static Series.JoinPairs filter(final Series.JoinPairs pairs,
+      final Series.JoinType joinType) {
+    final Series.JoinPairs output = new Series.JoinPairs(pairs.size());
+    for (int i = 0; i < pairs.size(); i++) {
+      final boolean hasLeft = pairs.left(i) != -1;
+      final boolean hasRight = pairs.right(i) != -1;
+      final boolean keep = switch (joinType) {
+        case INNER -> hasLeft && hasRight;
+        case LEFT -> hasLeft;
+        case RIGHT -> hasRight;
+        case OUTER -> true;
+      };
+      if (keep) {
+        output.add(pairs.get(i));
+      }
+    }
+    return output;
+  }
+}
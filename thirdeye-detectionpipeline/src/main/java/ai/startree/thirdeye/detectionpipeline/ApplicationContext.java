@@ -15,6 +15,8 @@ package ai.startree.thirdeye.detectionpipeline;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.DataTableCache;
+import ai.startree.thirdeye.detectionpipeline.components.IncrementalFetchCache;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
@@ -27,4 +29,6 @@ public record ApplicationContext(DataSourceCache dataSourceCache,
                                  DatasetConfigManager datasetConfigManager,
                                  ExecutorService subTaskExecutor,
                                  DetectionPipelineConfiguration configuration,
-                                 EnumerationItemMaintainer enumerationItemMaintainer) {}
+                                 EnumerationItemMaintainer enumerationItemMaintainer,
+                                 DataTableCache dataTableCache,
+                                 IncrementalFetchCache incrementalFetchCache) {}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.time.Duration;
+
+/**
+ * Worker-wide cache of DataFetcher results. Alerts sharing the same query on the same interval
+ * reuse the same result instead of querying the datasource again.
+ */
+public class DataFetcherCacheConfiguration {
+
+  private boolean enabled = false;
+  /**
+   * Maximum number of cells (rows x columns) kept in the cache.
+   */
+  private long maximumWeight = 10_000_000;
+  /**
+   * Time to live of results whose interval is outside the dataset mutability period.
+   */
+  private Duration expireAfterWrite = Duration.ofMinutes(15);
+  /**
+   * Time to live of results whose interval overlaps the dataset mutability period. The data can
+   * still change, so these results are only shared between alerts running at the same time.
+   */
+  private Duration mutableExpireAfterWrite = Duration.ofMinutes(1);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public DataFetcherCacheConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public DataFetcherCacheConfiguration setMaximumWeight(final long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+    return this;
+  }
+
+  public Duration getExpireAfterWrite() {
+    return expireAfterWrite;
+  }
+
+  public DataFetcherCacheConfiguration setExpireAfterWrite(final Duration expireAfterWrite) {
+    this.expireAfterWrite = expireAfterWrite;
+    return this;
+  }
+
+  public Duration getMutableExpireAfterWrite() {
+    return mutableExpireAfterWrite;
+  }
+
+  public DataFetcherCacheConfiguration setMutableExpireAfterWrite(
+      final Duration mutableExpireAfterWrite) {
+    this.mutableExpireAfterWrite = mutableExpireAfterWrite;
+    return this;
+  }
+}
@@ -16,6 +16,15 @@ package ai.startree.thirdeye.detectionpipeline;
 public class DetectionPipelineConfiguration {
 
   private ForkJoinConfiguration forkjoin = new ForkJoinConfiguration();
+  private DataFetcherCacheConfiguration dataFetcherCache = new DataFetcherCacheConfiguration();
+  private IncrementalFetchCacheConfiguration incrementalFetchCache =
+      new IncrementalFetchCacheConfiguration();
+  /**
+   * DataTables fetched by the DataFetcher operators with at least this number of rows keep their
+   * LONG and DOUBLE columns outside of the java heap. Meant for replays and backfills over long
+   * histories. 0 disables off-heap storage.
+   */
+  private int offHeapRowThreshold = 0;
 
   public ForkJoinConfiguration getForkjoin() {
     return forkjoin;
@@ -26,4 +35,33 @@ public class DetectionPipelineConfiguration {
     this.forkjoin = forkjoin;
     return this;
   }
+
+  public DataFetcherCacheConfiguration getDataFetcherCache() {
+    return dataFetcherCache;
+  }
+
+  public DetectionPipelineConfiguration setDataFetcherCache(
+      final DataFetcherCacheConfiguration dataFetcherCache) {
+    this.dataFetcherCache = dataFetcherCache;
+    return this;
+  }
+
+  public IncrementalFetchCacheConfiguration getIncrementalFetchCache() {
+    return incrementalFetchCache;
+  }
+
+  public DetectionPipelineConfiguration setIncrementalFetchCache(
+      final IncrementalFetchCacheConfiguration incrementalFetchCache) {
+    this.incrementalFetchCache = incrementalFetchCache;
+    return this;
+  }
+
+  public int getOffHeapRowThreshold() {
+    return offHeapRowThreshold;
+  }
+
+  public DetectionPipelineConfiguration setOffHeapRowThreshold(final int offHeapRowThreshold) {
+    this.offHeapRowThreshold = offHeapRowThreshold;
+    return this;
+  }
 }
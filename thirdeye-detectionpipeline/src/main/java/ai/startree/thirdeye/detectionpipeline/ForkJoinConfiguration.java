@@ -17,7 +17,18 @@ import java.time.Duration;
 
 public class ForkJoinConfiguration {
 
+  /**
+   * Number of threads running the plan nodes, shared by all the pipelines of the instance. The
+   * default matches the default number of parallel tasks of the task driver: when all the task
+   * slots are busy, the nodes run with the same overall concurrency as nodes run one by one in
+   * each task, and when fewer tasks run, the independent branches of a pipeline run in parallel.
+   * Raise it with the number of concurrent tasks, for instance when the task driver runs tasks
+   * on virtual threads.
+   */
   private Integer parallelism = 5;
+  /**
+   * Maximum run time of a plan node. Starts when the node starts running, not when it is queued.
+   */
   private Duration timeout = Duration.ofHours(1);
 
   public Integer getParallelism() {
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import java.time.Duration;
+
+/**
+ * Worker-wide cache of the time series fetched by scheduled detections. Each run of an alert only
+ * queries the time window that is not in the cache yet.
+ */
+public class IncrementalFetchCacheConfiguration {
+
+  private boolean enabled = false;
+  /**
+   * Maximum number of cells (rows x columns) kept in the cache.
+   */
+  private long maximumWeight = 10_000_000;
+  /**
+   * Entries not used for this duration are evicted. Should be bigger than the interval between
+   * two runs of an alert.
+   */
+  private Duration expireAfterAccess = Duration.ofHours(2);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public IncrementalFetchCacheConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public IncrementalFetchCacheConfiguration setMaximumWeight(final long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+    return this;
+  }
+
+  public Duration getExpireAfterAccess() {
+    return expireAfterAccess;
+  }
+
+  public IncrementalFetchCacheConfiguration setExpireAfterAccess(
+      final Duration expireAfterAccess) {
+    this.expireAfterAccess = expireAfterAccess;
+    return this;
+  }
+}
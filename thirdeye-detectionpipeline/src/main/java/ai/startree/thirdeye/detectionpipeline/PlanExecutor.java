@@ -17,10 +17,13 @@ import static ai.startree.thirdeye.spi.util.ExecutorUtils.shutdownExecutionServi
 import static ai.startree.thirdeye.spi.util.ExecutorUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Collections.emptyList;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.DataTableCache;
+import ai.startree.thirdeye.detectionpipeline.components.IncrementalFetchCache;
 import ai.startree.thirdeye.detectionpipeline.persistence.CachedDatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
@@ -33,12 +36,28 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 @Singleton
 public class PlanExecutor implements AutoCloseable {
@@ -55,6 +74,8 @@ public class PlanExecutor implements AutoCloseable {
   private final DatasetConfigManager datasetConfigManager;
   private final DetectionPipelineConfiguration detectionPipelineConfiguration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
+  private final DataTableCache dataTableCache;
+  private final IncrementalFetchCache incrementalFetchCache;
 
   private final ExecutorService subTaskExecutor;
 
@@ -66,7 +87,9 @@ public class PlanExecutor implements AutoCloseable {
       final EventManager eventManager,
       final DataSourceManager dataSourceDao, final DatasetConfigManager datasetConfigManager,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final DataTableCache dataTableCache,
+      final IncrementalFetchCache incrementalFetchCache) {
     this.planNodeFactory = planNodeFactory;
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
@@ -76,41 +99,174 @@ public class PlanExecutor implements AutoCloseable {
     this.datasetConfigManager = datasetConfigManager;
     this.detectionPipelineConfiguration = detectionPipelineConfiguration;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
+    this.dataTableCache = dataTableCache;
+    this.incrementalFetchCache = incrementalFetchCache;
 
+    // runs the plan nodes of all the pipelines - see ForkJoinConfiguration for the sizing
     final int nThreads = detectionPipelineConfiguration.getForkjoin().getParallelism();
     subTaskExecutor = Executors.newFixedThreadPool(nThreads, threadsNamed("fork-join-%d"));
     new ExecutorServiceMetrics(subTaskExecutor, "fork-join", emptyList()).bindTo(
         Metrics.globalRegistry);
   }
 
+  /**
+   * Executes the DAG of nodes needed to compute the given root node. Independent branches run
+   * concurrently.
+   *
+   * Nodes are scheduled in topological order and run in the executor. The calling thread only
+   * waits for completed nodes and submits the nodes that become ready, so it must not be a thread
+   * of the executor, and a node must not wait on a task of the executor. If a node fails or runs
+   * longer than the timeout, the running nodes are cancelled and the exception is rethrown. The
+   * timeout of a node starts when the node starts running: the time spent in the queue of the
+   * executor, when it is busy with the nodes of other pipelines, does not count.
+   *
+   * @param resultMap must be thread-safe. All the outputs from the executed nodes are put in it.
+   */
   @VisibleForTesting
-  public static void executePlanNode(final Map<String, PlanNode> pipelinePlanNodes,
-      final PlanNode node,
-      final Map<ContextKey, OperatorResult> resultMap)
-      throws Exception {
+  public static void executePlanNodes(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode rootNode,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final ExecutorService executor,
+      final Duration timeout) throws Exception {
+    final List<PlanNode> sortedNodes = topologicalSort(pipelinePlanNodes, rootNode);
+    final Map<String, Integer> remainingInputNodes = new HashMap<>();
+    final Map<String, List<PlanNode>> dependentNodes = new HashMap<>();
+    final Deque<PlanNode> readyNodes = new ArrayDeque<>();
+    for (final PlanNode node : sortedNodes) {
+      final Set<String> inputNodeNames = inputNodeNames(node);
+      remainingInputNodes.put(node.getName(), inputNodeNames.size());
+      for (final String inputNodeName : inputNodeNames) {
+        dependentNodes.computeIfAbsent(inputNodeName, k -> new ArrayList<>()).add(node);
+      }
+      if (inputNodeNames.isEmpty()) {
+        readyNodes.add(node);
+      }
+    }
+
+    final CompletionService<PlanNode> completionService = new ExecutorCompletionService<>(
+        executor);
+    final List<Future<PlanNode>> submitted = new ArrayList<>();
+    // start time of the nodes that are running. Nodes waiting in the queue are not in the map
+    final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+    int runningCount = 0;
+    int completedCount = 0;
+    try {
+      while (completedCount < sortedNodes.size()) {
+        while (!readyNodes.isEmpty()) {
+          final PlanNode node = readyNodes.poll();
+          submitted.add(completionService.submit(() -> {
+            startTimes.put(node.getName(), System.currentTimeMillis());
+            try {
+              executeNode(node, resultMap);
+            } finally {
+              startTimes.remove(node.getName());
+            }
+            return node;
+          }));
+          runningCount++;
+        }
+        checkState(runningCount > 0, "No plan node is ready to run. Template is invalid.");
+        // nodes that start later have a later deadline
+        final long deadline = startTimes.values().stream().min(Long::compare)
+            .orElse(System.currentTimeMillis()) + timeout.toMillis();
+        final Future<PlanNode> future = completionService.poll(
+            Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        if (future == null) {
+          final Optional<Entry<String, Long>> oldest = startTimes.entrySet().stream()
+              .min(Entry.comparingByValue());
+          if (oldest.isPresent()
+              && System.currentTimeMillis() - oldest.get().getValue() >= timeout.toMillis()) {
+            throw new TimeoutException(String.format("Plan node %s timed out after %s",
+                oldest.get().getKey(),
+                timeout));
+          }
+          // the nodes were still in the queue, or the late node completed in the meantime
+          continue;
+        }
+        runningCount--;
+        final PlanNode completedNode = getUnwrapped(future);
+        completedCount++;
+        for (final PlanNode dependent : dependentNodes.getOrDefault(completedNode.getName(),
+            emptyList())) {
+          if (remainingInputNodes.merge(dependent.getName(), -1, Integer::sum) == 0) {
+            readyNodes.add(dependent);
+          }
+        }
+      }
+    } finally {
+      // no-op if all nodes completed. Cancels the running nodes if a node failed or timed out.
+      submitted.forEach(f -> f.cancel(true));
+    }
+  }
+
+  private static void executeNode(final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap) throws Exception {
     for (final InputBean input : optional(node.getPlanNodeInputs()).orElse(emptyList())) {
       final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
-      if (!resultMap.containsKey(contextKey)) {
-        final PlanNode inputPlanNode = pipelinePlanNodes.get(input.getSourcePlanNode());
-        checkArgument(inputPlanNode != null,
-            "sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist. Template is invalid.",
-            input.getSourcePlanNode(),
-            node.getName());
-        executePlanNode(pipelinePlanNodes, inputPlanNode, resultMap);
-      }
-      if (!resultMap.containsKey(contextKey)) {
+      final OperatorResult inputResult = resultMap.get(contextKey);
+      if (inputResult == null) {
         throw new RuntimeException("Missing resultMap key - " + contextKey);
       }
-      node.setInput(input.getTargetProperty(), resultMap.get(contextKey));
+      node.setInput(input.getTargetProperty(), inputResult);
     }
     final Operator operator = node.buildOperator();
     operator.execute();
-    final Map<String, OperatorResult> outputs = operator.getOutputs();
-    for (final Entry<String, OperatorResult> output : outputs.entrySet()) {
+    for (final Entry<String, OperatorResult> output : operator.getOutputs().entrySet()) {
       resultMap.put(key(node.getName(), output.getKey()), output.getValue());
     }
   }
 
+  /**
+   * Returns the nodes required to compute the root node, sorted such that a node always comes
+   * after its input nodes. The root node is the last node.
+   */
+  private static List<PlanNode> topologicalSort(final Map<String, PlanNode> pipelinePlanNodes,
+      final PlanNode rootNode) {
+    final List<PlanNode> sorted = new ArrayList<>();
+    final Set<String> visited = new HashSet<>();
+    final Set<String> inProgress = new HashSet<>();
+    visit(pipelinePlanNodes, rootNode, visited, inProgress, sorted);
+    return sorted;
+  }
+
+  private static void visit(final Map<String, PlanNode> pipelinePlanNodes, final PlanNode node,
+      final Set<String> visited, final Set<String> inProgress, final List<PlanNode> sorted) {
+    if (visited.contains(node.getName())) {
+      return;
+    }
+    checkArgument(inProgress.add(node.getName()),
+        "Cycle detected in the plan at node \"%s\". Template is invalid.",
+        node.getName());
+    for (final String inputNodeName : inputNodeNames(node)) {
+      final PlanNode inputPlanNode = pipelinePlanNodes.get(inputNodeName);
+      checkArgument(inputPlanNode != null,
+          "sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist. Template is invalid.",
+          inputNodeName,
+          node.getName());
+      visit(pipelinePlanNodes, inputPlanNode, visited, inProgress, sorted);
+    }
+    inProgress.remove(node.getName());
+    visited.add(node.getName());
+    sorted.add(node);
+  }
+
+  private static Set<String> inputNodeNames(final PlanNode node) {
+    return optional(node.getPlanNodeInputs()).orElse(emptyList()).stream()
+        .map(InputBean::getSourcePlanNode)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  private static PlanNode getUnwrapped(final Future<PlanNode> future) throws Exception {
+    try {
+      return future.get();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
   @VisibleForTesting
   static ContextKey key(final String name, final String key) {
     return new ContextKey(name, key);
@@ -140,7 +296,9 @@ public class PlanExecutor implements AutoCloseable {
         new CachedDatasetConfigManager(datasetConfigManager),
         subTaskExecutor,
         detectionPipelineConfiguration,
-        enumerationItemMaintainer);
+        enumerationItemMaintainer,
+        dataTableCache,
+        incrementalFetchCache);
   }
 
   /**
@@ -196,11 +354,17 @@ public class PlanExecutor implements AutoCloseable {
         context);
 
     /* The context stores all the outputs from all the nodes */
-    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+    final Map<ContextKey, OperatorResult> resultMap = new ConcurrentHashMap<>();
 
     /* Execute the DAG */
     final PlanNode rootNode = pipelinePlanNodes.get(rootNodeName);
-    executePlanNode(pipelinePlanNodes, rootNode, resultMap);
+    checkArgument(rootNode != null, "Root node \"%s\" does not exist. Template is invalid.",
+        rootNodeName);
+    executePlanNodes(pipelinePlanNodes,
+        rootNode,
+        resultMap,
+        subTaskExecutor,
+        detectionPipelineConfiguration.getForkjoin().getTimeout());
 
     return resultMap;
   }
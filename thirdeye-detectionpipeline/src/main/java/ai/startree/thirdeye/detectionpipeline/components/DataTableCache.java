@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import ai.startree.thirdeye.detectionpipeline.DataFetcherCacheConfiguration;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineConfiguration;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.Interval;
+
+/**
+ * Worker-wide cache of the DataTable fetched by the DataFetcher operators.
+ *
+ * Alerts sharing the same datasource, rendered query and detection interval reuse the same
+ * result. Concurrent fetches of the same key are collapsed: a single caller queries the
+ * datasource, the others wait for its result.
+ *
+ * Results of intervals overlapping the dataset mutability period expire after
+ * {@link DataFetcherCacheConfiguration#getMutableExpireAfterWrite()}, other results after
+ * {@link DataFetcherCacheConfiguration#getExpireAfterWrite()}.
+ */
+@Singleton
+public class DataTableCache {
+
+  private final @Nullable Cache<Key, Entry> cache;
+  private final long expireAfterWriteMillis;
+  private final long mutableExpireAfterWriteMillis;
+  private final Clock clock;
+
+  @Inject
+  public DataTableCache(final DetectionPipelineConfiguration configuration) {
+    this(configuration.getDataFetcherCache(), Clock.systemUTC());
+  }
+
+  DataTableCache(final DataFetcherCacheConfiguration config, final Clock clock) {
+    this.clock = clock;
+    this.expireAfterWriteMillis = config.getExpireAfterWrite().toMillis();
+    this.mutableExpireAfterWriteMillis = config.getMutableExpireAfterWrite().toMillis();
+    if (config.isEnabled()) {
+      cache = CacheBuilder.newBuilder()
+          .expireAfterWrite(Math.max(expireAfterWriteMillis, mutableExpireAfterWriteMillis),
+              TimeUnit.MILLISECONDS)
+          .maximumWeight(config.getMaximumWeight())
+          .weigher((Key k, Entry e) -> e.weight())
+          .recordStats()
+          .build();
+      GuavaCacheMetrics.monitor(Metrics.globalRegistry, cache, "thirdeye_data_fetcher_cache");
+    } else {
+      cache = null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * Returns the cached DataTable for the key, or loads it with the loader.
+   *
+   * @param mutable whether the data of the interval can still change.
+   * @return a copy of the cached DataTable. The caller can modify it freely.
+   */
+  public DataTable get(final Key key, final boolean mutable, final Callable<DataTable> loader)
+      throws Exception {
+    if (cache == null) {
+      return loader.call();
+    }
+    final long ttl = mutable ? mutableExpireAfterWriteMillis : expireAfterWriteMillis;
+    try {
+      Entry entry = cache.get(key, () -> new Entry(loader.call(), clock.millis() + ttl));
+      if (entry.expiresAt() <= clock.millis()) {
+        // mutable entry outlived its own time to live
+        cache.asMap().remove(key, entry);
+        entry = cache.get(key, () -> new Entry(loader.call(), clock.millis() + ttl));
+      }
+      return copyOf(entry.dataTable());
+    } catch (final ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static DataTable copyOf(final DataTable dataTable) {
+    // series are immutable - a shallow copy is enough to isolate the callers
+    final DataTable copy = SimpleDataTable.fromDataFrame(new DataFrame(dataTable.getDataFrame()));
+    copy.addProperties(dataTable.getProperties());
+    return copy;
+  }
+
+  /**
+   * @param dataSourceId id of the DataSourceDTO - datasource names are not unique across
+   *     namespaces.
+   */
+  public record Key(Long dataSourceId, String table, String query, Map<String, String> options,
+                    Interval interval) {}
+
+  private record Entry(DataTable dataTable, long expiresAt) {
+
+    int weight() {
+      final DataFrame df = dataTable.getDataFrame();
+      final long cells = (long) df.size() * Math.max(1, df.getSeriesNames().size());
+      return (int) Math.min(Integer.MAX_VALUE, Math.max(1, cells));
+    }
+  }
+}
@@ -14,12 +14,14 @@
 package ai.startree.thirdeye.detectionpipeline.components;
 
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.datasource.query.QueryPredicate;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
 import ai.startree.thirdeye.detectionpipeline.sql.filter.FilterEngine;
 import ai.startree.thirdeye.detectionpipeline.sql.macro.MacroEngine;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
@@ -34,6 +36,7 @@ import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.detection.DataFetcher;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import ai.startree.thirdeye.spi.metric.DimensionType;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -41,7 +44,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTime;
 import org.joda.time.Interval;
+import org.joda.time.Period;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +66,12 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   private String tableName;
   private ThirdEyeDataSource thirdEyeDataSource;
   private DatasetConfigDTO datasetConfigDTO;
+  private Long dataSourceId;
+  private @Nullable DataTableCache dataTableCache;
+  private @Nullable IncrementalFetchCache incrementalFetchCache;
+  private @Nullable Long alertId;
+  private @Nullable Long enumerationItemId;
+  private int offHeapRowThreshold;
   private List<QueryPredicate> timeseriesFilters = List.of();
 
   public String getQuery() {
@@ -102,6 +115,12 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
         .orElse(dataFetcherSpec.getNamespace());
     final DataSourceDTO dataSourceDto = dataSourceDao.findByNameAndNamespaceOrUnsetNamespace(dataSource, datasourceNamespace);
     requireNonNull(dataSourceDto);
+    this.dataSourceId = dataSourceDto.getId();
+    this.dataTableCache = dataFetcherSpec.getDataTableCache();
+    this.incrementalFetchCache = dataFetcherSpec.getIncrementalFetchCache();
+    this.alertId = dataFetcherSpec.getAlertId();
+    this.enumerationItemId = dataFetcherSpec.getEnumerationItemId();
+    this.offHeapRowThreshold = dataFetcherSpec.getOffHeapRowThreshold();
     final DataSourceCache dataSourceCache = requireNonNull(dataFetcherSpec.getDataSourceCache());
     this.thirdEyeDataSource = requireNonNull(dataSourceCache
         .getDataSource(dataSourceDto), "data source is unavailable");
@@ -119,12 +138,92 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   @Override
   public DataTable getDataTable(Interval detectionInterval) throws Exception {
     String queryWithFilters = injectFilters(query);
+    if (useIncrementalFetchCache()) {
+      final SqlParser.Config sqlParserConfig = SqlLanguageTranslator.translate(
+          thirdEyeDataSource.getSqlLanguage().getSqlParserConfig());
+      final IncrementalFetchCache.Key key = new IncrementalFetchCache.Key(alertId,
+          enumerationItemId,
+          dataSourceId,
+          tableName,
+          queryWithFilters,
+          sqlParserConfig);
+      final DataTable dataTable = incrementalFetchCache.get(key,
+          isoPeriod(datasetConfigDTO.getMutabilityPeriod(), Period.ZERO),
+          timeFilterStart -> applyMacros(detectionInterval, queryWithFilters, timeFilterStart),
+          thirdEyeDataSource::fetchDataTable);
+      return offHeapIfLarge(dataTable, tableName);
+    }
     DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters);
-    DataTable result = thirdEyeDataSource.fetchDataTable(preparedRequest);
+    if (dataTableCache != null && dataTableCache.isEnabled()) {
+      final DataTableCache.Key key = new DataTableCache.Key(dataSourceId,
+          preparedRequest.getTable(),
+          preparedRequest.getQuery(),
+          preparedRequest.getOptions(),
+          detectionInterval);
+      return dataTableCache.get(key, isMutable(detectionInterval),
+          () -> fetchDataTable(preparedRequest));
+    }
+    return fetchDataTable(preparedRequest);
+  }
+
+  /**
+   * The incremental fetch cache needs the time bounds of the macros and the dataset mutability
+   * period. Only used for scheduled runs of an alert.
+   */
+  private boolean useIncrementalFetchCache() {
+    return incrementalFetchCache != null
+        && incrementalFetchCache.isEnabled()
+        && alertId != null
+        && datasetConfigDTO != null
+        && thirdEyeDataSource.getSqlLanguage() != null
+        && thirdEyeDataSource.getSqlExpressionBuilder() != null;
+  }
+
+  private DataTable fetchDataTable(final DataSourceRequest preparedRequest) throws Exception {
+    final DataTable result = thirdEyeDataSource.fetchDataTable(preparedRequest);
+    // the fetched table is not shared yet: it can be moved off-heap in place
+    if (isLarge(result)) {
+      LOG.info("Moving {} rows off-heap for table {}", result.getDataFrame().size(),
+          preparedRequest.getTable());
+      result.getDataFrame().moveOffHeap();
+    }
     result.addProperties(preparedRequest.getProperties());
     return result;
   }
 
+  private boolean isLarge(final DataTable dataTable) {
+    return offHeapRowThreshold > 0 && dataTable.getDataFrame().size() >= offHeapRowThreshold;
+  }
+
+  /**
+   * For tables shared with a cache: the series are copied off-heap, the table is not modified.
+   */
+  private DataTable offHeapIfLarge(final DataTable dataTable, final String table) {
+    if (isLarge(dataTable)) {
+      LOG.info("Storing {} rows off-heap for table {}", dataTable.getDataFrame().size(), table);
+      return toOffHeap(dataTable);
+    }
+    return dataTable;
+  }
+
+  private static DataTable toOffHeap(final DataTable dataTable) {
+    final DataTable offHeap = SimpleDataTable.fromDataFrame(dataTable.getDataFrame().toOffHeap());
+    offHeap.addProperties(dataTable.getProperties());
+    return offHeap;
+  }
+
+  /**
+   * Returns true if the data of the interval may still change, ie the interval ends after the
+   * start of the mutability period. Without dataset, the data is considered mutable.
+   */
+  private boolean isMutable(final Interval detectionInterval) {
+    if (datasetConfigDTO == null) {
+      return true;
+    }
+    final Period mutabilityPeriod = isoPeriod(datasetConfigDTO.getMutabilityPeriod(), Period.ZERO);
+    return detectionInterval.getEnd().isAfter(DateTime.now().minus(mutabilityPeriod));
+  }
+
   private String injectFilters(final String query) {
     if (timeseriesFilters.isEmpty()) {
       return query;
@@ -138,6 +237,11 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
 
   private DataSourceRequest applyMacros(final Interval detectionInterval,
       final String queryWithFilters) {
+    return applyMacros(detectionInterval, queryWithFilters, null);
+  }
+
+  private DataSourceRequest applyMacros(final Interval detectionInterval,
+      final String queryWithFilters, final @Nullable Long timeFilterStartMillis) {
     SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
     SqlExpressionBuilder sqlExpressionBuilder = thirdEyeDataSource.getSqlExpressionBuilder();
     boolean macrosSupported = sqlLanguage != null && sqlExpressionBuilder != null;
@@ -146,7 +250,9 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
           sqlExpressionBuilder,
           detectionInterval,
           datasetConfigDTO,
-          queryWithFilters).prepareRequest();
+          queryWithFilters)
+          .setTimeFilterStartMillis(timeFilterStartMillis)
+          .prepareRequest();
     }
 
     final Map<String, String> customOptions = Map.of(); // custom query options not implemented in MinMaxTimeLoader
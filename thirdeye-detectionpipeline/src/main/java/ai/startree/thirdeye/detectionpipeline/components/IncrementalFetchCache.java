@@ -0,0 +1,302 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.TIME_COLUMN;
+
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineConfiguration;
+import ai.startree.thirdeye.detectionpipeline.IncrementalFetchCacheConfiguration;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlTemplateCache;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Period;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Worker-wide cache of the time series fetched by the scheduled runs of an alert.
+ *
+ * The query of a detection embeds absolute time bounds, so consecutive runs never produce the
+ * same request. Between two runs, the time filter window only slides forward: this cache keeps
+ * the last result of each (alert, enumeration item, query) and only queries the part of the new
+ * window that is not cached yet, plus the dataset mutability period, that may have changed since
+ * the previous run. The cached rows and the newly fetched rows are spliced back into the full
+ * result.
+ *
+ * Only applies to queries with a {@code __timeFilter} and a {@code __timeGroup(...) AS alias}
+ * projection returning epoch millis, grouped by the time bucket. Queries whose rows of a bucket
+ * can depend on other buckets, for instance with a LIMIT, a HAVING or a window function, are
+ * always fetched fully - see {@link TimeBucketedQuery}.
+ */
+@Singleton
+public class IncrementalFetchCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IncrementalFetchCache.class);
+
+  private final @Nullable Cache<Key, Entry> cache;
+  private final Clock clock;
+  private final Counter fullFetches;
+  private final Counter incrementalFetches;
+
+  @Inject
+  public IncrementalFetchCache(final DetectionPipelineConfiguration configuration) {
+    this(configuration.getIncrementalFetchCache(), Clock.systemUTC());
+  }
+
+  IncrementalFetchCache(final IncrementalFetchCacheConfiguration config, final Clock clock) {
+    this.clock = clock;
+    this.fullFetches = Metrics.counter("thirdeye_incremental_fetch_cache_fetch", "type", "full");
+    this.incrementalFetches = Metrics.counter("thirdeye_incremental_fetch_cache_fetch", "type",
+        "incremental");
+    if (config.isEnabled()) {
+      cache = CacheBuilder.newBuilder()
+          .expireAfterAccess(config.getExpireAfterAccess().toMillis(), TimeUnit.MILLISECONDS)
+          .maximumWeight(config.getMaximumWeight())
+          .weigher((Key k, Entry e) -> e.weight())
+          .recordStats()
+          .build();
+      GuavaCacheMetrics.monitor(Metrics.globalRegistry, cache, "thirdeye_incremental_fetch_cache");
+    } else {
+      cache = null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * Returns the result of the query for the detection interval. Only the time window not
+   * covered by the cached result of the key is queried.
+   *
+   * @param mutabilityPeriod period before the fetch time during which the data can still
+   *     change. Cached rows in this period are fetched again.
+   * @param requestBuilder builds the request of the query, optionally with a raised time filter
+   *     lower bound.
+   * @return a DataTable the caller can modify freely, with the properties of the request.
+   */
+  public DataTable get(final Key key, final Period mutabilityPeriod,
+      final RequestBuilder requestBuilder, final Fetcher fetcher) throws Exception {
+    final DataSourceRequest request = requestBuilder.build(null);
+    final TimeBounds bounds = TimeBounds.of(request);
+    if (cache == null || bounds == null || !isSplittable(key)) {
+      // bounds missing: no time filter or time group macro - cannot split the query in time
+      return withProperties(fetcher.fetch(request), request);
+    }
+    final long fetchTime = clock.millis();
+    final Entry entry = cache.getIfPresent(key);
+    DataFrame result = null;
+    if (entry != null) {
+      result = fetchIncrementally(entry, bounds, requestBuilder, fetcher);
+    }
+    if (result == null) {
+      result = fetcher.fetch(request).getDataFrame();
+      fullFetches.increment();
+    } else {
+      incrementalFetches.increment();
+    }
+
+    if (isTimeSeries(result, bounds.timeColumn())) {
+      final long stableUntil = new DateTime(fetchTime, DateTimeZone.UTC)
+          .minus(mutabilityPeriod)
+          .getMillis();
+      cache.put(key, new Entry(result, bounds, stableUntil));
+    } else {
+      cache.invalidate(key);
+    }
+    // series are immutable - a shallow copy is enough to isolate the callers
+    return withProperties(SimpleDataTable.fromDataFrame(new DataFrame(result)), request);
+  }
+
+  private static boolean isSplittable(final Key key) {
+    try {
+      // the template was parsed by the macro engine when the request was built - this is a hit
+      return TimeBucketedQuery.isSplittable(
+          SqlTemplateCache.parse(key.queryTemplate(), key.sqlParserConfig()));
+    } catch (final RuntimeException e) {
+      LOG.debug("Could not parse query template {}", key.queryTemplate(), e);
+      return false;
+    }
+  }
+
+  private static DataTable withProperties(final DataTable dataTable,
+      final DataSourceRequest request) {
+    dataTable.addProperties(request.getProperties());
+    return dataTable;
+  }
+
+  /**
+   * Returns the result for the bounds, built from the cached rows and a query of the window not
+   * cached yet. Returns null if the cached entry cannot be reused.
+   */
+  private @Nullable DataFrame fetchIncrementally(final Entry entry, final TimeBounds bounds,
+      final RequestBuilder requestBuilder, final Fetcher fetcher) throws Exception {
+    if (!entry.bounds().timeColumn().equals(bounds.timeColumn())
+        || bounds.min() < entry.bounds().min()) {
+      return null;
+    }
+    final DataFrame cached = entry.dataFrame();
+    final LongSeries cachedTimes = cached.getLongs(bounds.timeColumn());
+    // when the filter start is not aligned on the buckets, the first bucket is partial: its value
+    // depends on the filter start. It can only be reused if the start did not move.
+    final boolean startMoved = bounds.min() != entry.bounds().min();
+    if (startMoved && !containsTime(cachedTimes, bounds.min())) {
+      return null;
+    }
+    final long split = splitTime(cachedTimes, bounds, entry.stableUntil());
+    if (split <= bounds.min() || split >= bounds.max()) {
+      return null;
+    }
+
+    final DataSourceRequest deltaRequest = requestBuilder.build(split);
+    final TimeBounds deltaBounds = TimeBounds.of(deltaRequest);
+    if (deltaBounds == null
+        || deltaBounds.min() != split
+        || deltaBounds.max() != bounds.max()
+        || !deltaBounds.timeColumn().equals(bounds.timeColumn())) {
+      return null;
+    }
+    final DataFrame delta = fetcher.fetch(deltaRequest).getDataFrame();
+    if (!isTimeSeries(delta, bounds.timeColumn())
+        || !delta.getSeriesNames().equals(cached.getSeriesNames())) {
+      return null;
+    }
+    LOG.debug("Incremental fetch of table {} from {} instead of {}", deltaRequest.getTable(),
+        split, bounds.min());
+
+    // the partial first bucket of an unmoved start begins before the filter start
+    final long stableStart = startMoved ? bounds.min() : Long.MIN_VALUE;
+    final DataFrame stableRows = cached.project(rowsBetween(cachedTimes, stableStart, split));
+    final DataFrame newRows = delta.project(rowsBetween(delta.getLongs(bounds.timeColumn()),
+        split, bounds.max()));
+    return stableRows.append(newRows);
+  }
+
+  /**
+   * Returns the time from which the rows have to be fetched again: the start of the last cached
+   * bucket that is not entirely before stableUntil. Returns Long.MIN_VALUE if there is none.
+   */
+  private static long splitTime(final LongSeries times, final TimeBounds bounds,
+      final long stableUntil) {
+    final long upperBound = Math.min(stableUntil, bounds.max());
+    long split = Long.MIN_VALUE;
+    for (int i = 0; i < times.size(); i++) {
+      if (times.isNull(i)) {
+        continue;
+      }
+      final long t = times.getLong(i);
+      if (t <= upperBound && t > split) {
+        split = t;
+      }
+    }
+    return split;
+  }
+
+  private static boolean containsTime(final LongSeries times, final long time) {
+    for (int i = 0; i < times.size(); i++) {
+      if (!times.isNull(i) && times.getLong(i) == time) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int[] rowsBetween(final LongSeries times, final long startInclusive,
+      final long endExclusive) {
+    final int[] rows = new int[times.size()];
+    int count = 0;
+    for (int i = 0; i < times.size(); i++) {
+      if (!times.isNull(i)) {
+        final long t = times.getLong(i);
+        if (startInclusive <= t && t < endExclusive) {
+          rows[count++] = i;
+        }
+      }
+    }
+    return Arrays.copyOf(rows, count);
+  }
+
+  private static boolean isTimeSeries(final DataFrame df, final String timeColumn) {
+    return df.contains(timeColumn) && df.get(timeColumn).type() == SeriesType.LONG;
+  }
+
+  @FunctionalInterface
+  public interface RequestBuilder {
+
+    /**
+     * @param timeFilterStartMillis if not null, lower bound of the time filter of the request.
+     */
+    DataSourceRequest build(@Nullable Long timeFilterStartMillis);
+  }
+
+  @FunctionalInterface
+  public interface Fetcher {
+
+    DataTable fetch(DataSourceRequest request) throws Exception;
+  }
+
+  /**
+   * @param queryTemplate query with filters injected, before macros are applied.
+   * @param sqlParserConfig parser config of the datasource sql language.
+   */
+  public record Key(Long alertId, @Nullable Long enumerationItemId, Long dataSourceId,
+                    String table, String queryTemplate, SqlParser.Config sqlParserConfig) {}
+
+  private record TimeBounds(long min, long max, String timeColumn) {
+
+    static @Nullable TimeBounds of(final DataSourceRequest request) {
+      final Map<String, String> properties = request.getProperties();
+      final String min = properties.get(MIN_TIME_MILLIS.toString());
+      final String max = properties.get(MAX_TIME_MILLIS.toString());
+      final String timeColumn = properties.get(TIME_COLUMN.toString());
+      if (min == null || max == null || timeColumn == null) {
+        return null;
+      }
+      return new TimeBounds(Long.parseLong(min), Long.parseLong(max), timeColumn);
+    }
+  }
+
+  /**
+   * @param stableUntil rows with a bucket ending before this time do not change anymore.
+   */
+  private record Entry(DataFrame dataFrame, TimeBounds bounds, long stableUntil) {
+
+    int weight() {
+      final long cells =
+          (long) dataFrame.size() * Math.max(1, dataFrame.getSeriesNames().size());
+      return (int) Math.min(Integer.MAX_VALUE, Math.max(1, cells));
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import ai.startree.thirdeye.detectionpipeline.sql.macro.function.TimeGroupFunction;
+import org.apache.calcite.sql.SqlBasicCall;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlNumericLiteral;
+import org.apache.calcite.sql.SqlOrderBy;
+import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Checks whether the result of a query template can be split in time: the rows of the time
+ * window [split, max) must be exactly the rows of the full window [min, max) with a time bucket
+ * after split.
+ *
+ * This is only guaranteed for a single SELECT on a single table, grouped by the
+ * {@code __timeGroup} bucket, with row-level filters and plain aggregations. LIMIT, OFFSET,
+ * HAVING, QUALIFY, DISTINCT, window functions, joins, subqueries, set operations and grouping
+ * sets can make the rows of a bucket depend on other buckets: such queries are not split.
+ */
+final class TimeBucketedQuery {
+
+  private static final String TIME_GROUP_MACRO = new TimeGroupFunction().name();
+
+  private TimeBucketedQuery() {
+  }
+
+  static boolean isSplittable(final SqlNode query) {
+    final SqlSelect select;
+    final @Nullable SqlNodeList orderList;
+    if (query instanceof SqlOrderBy orderBy) {
+      if (orderBy.offset != null || orderBy.fetch != null
+          || !(orderBy.query instanceof SqlSelect orderedSelect)
+          || !isEmpty(orderedSelect.getOrderList())) {
+        return false;
+      }
+      select = orderedSelect;
+      orderList = orderBy.orderList;
+    } else if (query instanceof SqlSelect plainSelect) {
+      select = plainSelect;
+      orderList = plainSelect.getOrderList();
+    } else {
+      return false;
+    }
+    if (select.getOffset() != null
+        || select.getFetch() != null
+        || select.getHaving() != null
+        || select.getQualify() != null
+        || select.isDistinct()
+        || !isEmpty(select.getWindowList())
+        || !isSingleTable(select.getFrom())) {
+      return false;
+    }
+    final int timeGroupIdx = timeGroupIndex(select.getSelectList());
+    if (timeGroupIdx < 0) {
+      return false;
+    }
+    final SqlCall timeGroupAs = (SqlCall) select.getSelectList().get(timeGroupIdx);
+    if (!isGroupedByTimeBucket(select.getGroup(), timeGroupAs, timeGroupIdx)
+        || !isOrderedByTimeBucket(orderList, timeGroupAs, timeGroupIdx)) {
+      return false;
+    }
+    return isRowLevel(select.getSelectList())
+        && isRowLevel(select.getWhere())
+        && isRowLevel(select.getGroup());
+  }
+
+  private static boolean isEmpty(final @Nullable SqlNodeList nodes) {
+    return nodes == null || nodes.isEmpty();
+  }
+
+  private static boolean isSingleTable(final @Nullable SqlNode from) {
+    if (from instanceof SqlIdentifier) {
+      return true;
+    }
+    return from instanceof SqlBasicCall as
+        && as.getKind() == SqlKind.AS
+        && as.operand(0) instanceof SqlIdentifier;
+  }
+
+  /**
+   * Returns the index of the {@code __timeGroup(...) AS alias} projection, -1 if there is none.
+   */
+  private static int timeGroupIndex(final SqlNodeList selectList) {
+    for (int i = 0; i < selectList.size(); i++) {
+      if (selectList.get(i) instanceof SqlCall call
+          && call.getKind() == SqlKind.AS
+          && isTimeGroupCall(call.operand(0))
+          && call.operand(1) instanceof SqlIdentifier) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isTimeGroupCall(final SqlNode node) {
+    return node instanceof SqlCall call
+        && call.getOperator().getName().equals(TIME_GROUP_MACRO);
+  }
+
+  /**
+   * The time bucket can be referenced by its alias, by its position or by the macro call.
+   * ROLLUP, CUBE and GROUPING SETS add rows across buckets.
+   */
+  private static boolean isGroupedByTimeBucket(final @Nullable SqlNodeList group,
+      final SqlCall timeGroupAs, final int timeGroupIdx) {
+    if (group == null) {
+      return false;
+    }
+    boolean groupedByTimeBucket = false;
+    for (final SqlNode groupKey : group) {
+      if (groupKey.getKind() == SqlKind.ROLLUP
+          || groupKey.getKind() == SqlKind.CUBE
+          || groupKey.getKind() == SqlKind.GROUPING_SETS) {
+        return false;
+      }
+      if (isTimeBucket(groupKey, timeGroupAs, timeGroupIdx)) {
+        groupedByTimeBucket = true;
+      }
+    }
+    return groupedByTimeBucket;
+  }
+
+  /**
+   * The spliced rows are in the order of the cached rows, then of the new rows. This is the order
+   * of the full result only if the rows are ordered by ascending time bucket first. Descending
+   * keys are wrapped in a DESCENDING call and are not time buckets.
+   */
+  private static boolean isOrderedByTimeBucket(final @Nullable SqlNodeList orderList,
+      final SqlCall timeGroupAs, final int timeGroupIdx) {
+    return isEmpty(orderList) || isTimeBucket(orderList.get(0), timeGroupAs, timeGroupIdx);
+  }
+
+  private static boolean isTimeBucket(final SqlNode node, final SqlCall timeGroupAs,
+      final int timeGroupIdx) {
+    final String alias = ((SqlIdentifier) timeGroupAs.operand(1)).getSimple();
+    if (node instanceof SqlIdentifier identifier) {
+      return identifier.isSimple() && identifier.getSimple().equals(alias);
+    }
+    if (node instanceof SqlNumericLiteral position) {
+      return position.isInteger() && position.intValue(false) == timeGroupIdx + 1;
+    }
+    return isTimeGroupCall(node);
+  }
+
+  /**
+   * Returns false if the nodes contain a window function or a subquery.
+   */
+  private static boolean isRowLevel(final @Nullable SqlNode node) {
+    if (node == null) {
+      return true;
+    }
+    final RowLevelVisitor visitor = new RowLevelVisitor();
+    node.accept(visitor);
+    return visitor.rowLevel;
+  }
+
+  private static class RowLevelVisitor extends SqlBasicVisitor<Void> {
+
+    private boolean rowLevel = true;
+
+    @Override
+    public Void visit(final SqlCall call) {
+      if (call.getKind() == SqlKind.OVER || call.getKind().belongsTo(SqlKind.QUERY)) {
+        rowLevel = false;
+        return null;
+      }
+      return super.visit(call);
+    }
+  }
+}
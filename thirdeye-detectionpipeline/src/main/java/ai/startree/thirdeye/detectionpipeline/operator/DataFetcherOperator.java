@@ -18,14 +18,17 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.detectionpipeline.ApplicationContext;
+import ai.startree.thirdeye.detectionpipeline.DetectionPipelineConfiguration;
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
 import ai.startree.thirdeye.detectionpipeline.components.GenericDataFetcher;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.OutputBean;
 import ai.startree.thirdeye.spi.detection.AbstractSpec;
 import ai.startree.thirdeye.spi.detection.DataFetcher;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +61,18 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
         AbstractSpec.fromProperties(componentSpec, DataFetcherSpec.class),
         "Unable to construct DataFetcherSpec");
     spec.setDataSourceCache(requireNonNull(applicationContext.dataSourceCache()));
+    spec.setDataTableCache(applicationContext.dataTableCache());
+    if (pipelineContext.getUsage() == DetectionPipelineUsage.DETECTION) {
+      // only scheduled detections run repeatedly on a sliding window
+      spec.setIncrementalFetchCache(applicationContext.incrementalFetchCache());
+      spec.setAlertId(pipelineContext.getAlertId());
+      spec.setEnumerationItemId(optional(pipelineContext.getEnumerationItem())
+          .map(EnumerationItemDTO::getId)
+          .orElse(null));
+    }
+    spec.setOffHeapRowThreshold(optional(applicationContext.configuration())
+        .map(DetectionPipelineConfiguration::getOffHeapRowThreshold)
+        .orElse(0));
     spec.setDatasetDao(requireNonNull(applicationContext.datasetConfigManager()));
     spec.setDataSourceDao(requireNonNull(applicationContext.dataSourceDao()));
     spec.setNamespace(pipelineContext.getNamespace());
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.rel.type.RelProtoDataType;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.schema.ProjectableFilterableTable;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Table based on a DataFrame. Pushes down projections and simple comparison filters.
+ *
+ * <p>It implements the {@link ProjectableFilterableTable} interface, so Calcite gets
+ * data by calling the {@link #scan(DataContext, List, int[])} method. Filters are evaluated with
+ * a scan of the primitive arrays of the series, see {@link DataFrameRowFilter}. Only the rows
+ * passing the filters and the projected columns are materialized as Object[].
+ */
+public class DataFrameProjectableFilterableTable extends DataFrameTable
+    implements ProjectableFilterableTable {
+
+  public DataFrameProjectableFilterableTable(final DataFrame dataFrame,
+      final @Nullable RelProtoDataType protoRowType) {
+    super(dataFrame, protoRowType);
+  }
+
+  @Override
+  public String toString() {
+    return "DataFrameProjectableFilterableTable";
+  }
+
+  @Override
+  public Enumerable<@Nullable Object[]> scan(final DataContext root, final List<RexNode> filters,
+      final int @Nullable [] projects) {
+    final List<String> columnNames = dataFrame.getSeriesNames();
+    final boolean[] mask = new boolean[dataFrame.size()];
+    Arrays.fill(mask, true);
+    filters.removeIf(filter -> DataFrameRowFilter.apply(filter, dataFrame, columnNames, mask));
+    final int[] rows = selectedRows(mask);
+
+    final int[] columnIndices = projects != null ? projects : allColumns(columnNames.size());
+    final Series[] columns = new Series[columnIndices.length];
+    for (int i = 0; i < columnIndices.length; i++) {
+      columns[i] = dataFrame.get(columnNames.get(columnIndices[i]));
+    }
+    final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+    return new AbstractEnumerable<@Nullable Object[]>() {
+      @Override
+      public Enumerator<@Nullable Object[]> enumerator() {
+        return new DataFrameRowsEnumerator(columns, rows, cancelFlag);
+      }
+    };
+  }
+
+  private static int[] selectedRows(final boolean[] mask) {
+    int count = 0;
+    for (final boolean selected : mask) {
+      if (selected) {
+        count++;
+      }
+    }
+    final int[] rows = new int[count];
+    int j = 0;
+    for (int i = 0; i < mask.length; i++) {
+      if (mask[i]) {
+        rows[j++] = i;
+      }
+    }
+    return rows;
+  }
+
+  private static int[] allColumns(final int columnCount) {
+    final int[] columns = new int[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      columns[i] = i;
+    }
+    return columns;
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeUtil;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Evaluates simple filters on a DataFrame with a scan of the primitive arrays of the series.
+ *
+ * Supported filters are comparisons between a column and a literal, and conjunctions of
+ * comparisons. LONG and DOUBLE columns support =, <>, <, <=, > and >=. STRING and BOOLEAN
+ * columns support = and <>. A comparison with a null value is never true, as in SQL.
+ */
+final class DataFrameRowFilter {
+
+  private static final Set<SqlKind> COMPARISONS = EnumSet.of(SqlKind.EQUALS,
+      SqlKind.NOT_EQUALS,
+      SqlKind.LESS_THAN,
+      SqlKind.LESS_THAN_OR_EQUAL,
+      SqlKind.GREATER_THAN,
+      SqlKind.GREATER_THAN_OR_EQUAL);
+  private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+  private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+
+  private DataFrameRowFilter() {
+  }
+
+  /**
+   * Sets to false the rows of the mask that do not pass the filter.
+   *
+   * @return true if the filter was fully evaluated. If false, the filter may have been partially
+   *     applied - for instance a subset of the operands of an AND - and must still be evaluated
+   *     by the caller.
+   */
+  static boolean apply(final RexNode filter, final DataFrame dataFrame,
+      final List<String> columnNames, final boolean[] mask) {
+    if (filter.isA(SqlKind.AND)) {
+      boolean fullyApplied = true;
+      for (final RexNode operand : ((RexCall) filter).getOperands()) {
+        fullyApplied &= apply(operand, dataFrame, columnNames, mask);
+      }
+      return fullyApplied;
+    }
+    if (!filter.isA(COMPARISONS)) {
+      return false;
+    }
+    final RexCall call = (RexCall) filter;
+    RexNode column = call.getOperands().get(0);
+    RexNode value = call.getOperands().get(1);
+    SqlKind kind = call.getKind();
+    if (column instanceof RexLiteral) {
+      // literal <op> column
+      column = call.getOperands().get(1);
+      value = call.getOperands().get(0);
+      kind = kind.reverse();
+    }
+    final Integer columnIndex = columnIndex(column);
+    if (columnIndex == null || !(value instanceof RexLiteral literal) || literal.isNull()) {
+      return false;
+    }
+    final Series series = dataFrame.get(columnNames.get(columnIndex));
+    switch (series.type()) {
+      case LONG:
+        if (SqlTypeUtil.isNumeric(literal.getType())) {
+          applyLong(((LongSeries) series).values(), kind,
+              literal.getValueAs(BigDecimal.class), mask);
+          return true;
+        }
+        return false;
+      case DOUBLE:
+        if (SqlTypeUtil.isNumeric(literal.getType())) {
+          applyDouble(((DoubleSeries) series).values(), kind,
+              literal.getValueAs(BigDecimal.class).doubleValue(), mask);
+          return true;
+        }
+        return false;
+      case STRING:
+        if (SqlTypeUtil.isCharacter(literal.getType()) && isEquality(kind)) {
+          applyString(((StringSeries) series).values(), kind, literal.getValueAs(String.class),
+              mask);
+          return true;
+        }
+        return false;
+      case BOOLEAN:
+        if (SqlTypeUtil.isBoolean(literal.getType()) && isEquality(kind)) {
+          applyBoolean(((BooleanSeries) series).values(), kind,
+              literal.getValueAs(Boolean.class), mask);
+          return true;
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  private static @Nullable Integer columnIndex(final RexNode node) {
+    if (node instanceof RexInputRef inputRef) {
+      return inputRef.getIndex();
+    }
+    if (node.isA(SqlKind.CAST) && RexUtil.isLosslessCast(node)
+        && ((RexCall) node).getOperands().get(0) instanceof RexInputRef inputRef) {
+      return inputRef.getIndex();
+    }
+    return null;
+  }
+
+  private static boolean isEquality(final SqlKind kind) {
+    return kind == SqlKind.EQUALS || kind == SqlKind.NOT_EQUALS;
+  }
+
+  private static boolean matches(final int comparison, final SqlKind kind) {
+    return switch (kind) {
+      case EQUALS -> comparison == 0;
+      case NOT_EQUALS -> comparison != 0;
+      case LESS_THAN -> comparison < 0;
+      case LESS_THAN_OR_EQUAL -> comparison <= 0;
+      case GREATER_THAN -> comparison > 0;
+      case GREATER_THAN_OR_EQUAL -> comparison >= 0;
+      default -> throw new IllegalArgumentException("Unsupported comparison: " + kind);
+    };
+  }
+
+  private static void applyLong(final long[] values, final SqlKind kind, final BigDecimal literal,
+      final boolean[] mask) {
+    if (literal.compareTo(LONG_MIN) < 0 || literal.compareTo(LONG_MAX) > 0) {
+      // every value is on the same side of the literal
+      final int comparison = literal.signum() > 0 ? -1 : 1;
+      for (int i = 0; i < values.length; i++) {
+        mask[i] &= !LongSeries.isNull(values[i]) && matches(comparison, kind);
+      }
+      return;
+    }
+    final boolean integral = literal.stripTrailingZeros().scale() <= 0;
+    // for a decimal literal, value <= floor(literal) is equivalent to value < literal
+    final long bound = literal.setScale(0, RoundingMode.FLOOR).longValueExact();
+    for (int i = 0; i < values.length; i++) {
+      if (mask[i]) {
+        final long value = values[i];
+        final int comparison = integral ? Long.compare(value, bound) : (value <= bound ? -1 : 1);
+        mask[i] = !LongSeries.isNull(value) && matches(comparison, kind);
+      }
+    }
+  }
+
+  private static void applyDouble(final double[] values, final SqlKind kind, final double literal,
+      final boolean[] mask) {
+    for (int i = 0; i < values.length; i++) {
+      if (mask[i]) {
+        final double value = values[i];
+        final int comparison = value < literal ? -1 : (value > literal ? 1 : 0);
+        mask[i] = !DoubleSeries.isNull(value) && matches(comparison, kind);
+      }
+    }
+  }
+
+  private static void applyString(final String[] values, final SqlKind kind, final String literal,
+      final boolean[] mask) {
+    for (int i = 0; i < values.length; i++) {
+      if (mask[i]) {
+        final String value = values[i];
+        mask[i] = value != null && matches(value.equals(literal) ? 0 : 1, kind);
+      }
+    }
+  }
+
+  private static void applyBoolean(final byte[] values, final SqlKind kind, final boolean literal,
+      final boolean[] mask) {
+    for (int i = 0; i < values.length; i++) {
+      if (mask[i]) {
+        final byte value = values[i];
+        mask[i] = !BooleanSeries.isNull(value)
+            && matches(BooleanSeries.booleanValueOf(value) == literal ? 0 : 1, kind);
+      }
+    }
+  }
+}
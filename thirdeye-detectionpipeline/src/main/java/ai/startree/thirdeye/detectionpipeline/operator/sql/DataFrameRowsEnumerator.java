@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import static org.apache.calcite.linq4j.Nullness.castNonNull;
+
+import ai.startree.thirdeye.spi.dataframe.Series;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.calcite.linq4j.Enumerator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Enumerator that reads a subset of the rows of a list of series.
+ * Values are boxed lazily, one row at a time.
+ */
+public class DataFrameRowsEnumerator implements Enumerator<@Nullable Object[]> {
+
+  private final Series[] columns;
+  private final int[] rows;
+  private final AtomicBoolean cancelFlag;
+  private @Nullable Object[] current;
+  private int currentIndex = -1;
+
+  /**
+   * @param columns the series to read, in the output order
+   * @param rows the indices of the rows to read, in the output order
+   */
+  public DataFrameRowsEnumerator(final Series[] columns, final int[] rows,
+      final AtomicBoolean cancelFlag) {
+    this.columns = columns;
+    this.rows = rows;
+    this.cancelFlag = cancelFlag;
+  }
+
+  @Override
+  public @Nullable Object[] current() {
+    return castNonNull(current);
+  }
+
+  @Override
+  public boolean moveNext() {
+    if (cancelFlag.get()) {
+      return false;
+    }
+    currentIndex++;
+    if (currentIndex >= rows.length) {
+      return false;
+    }
+    final int row = rows[currentIndex];
+    final Object[] values = new Object[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      values[i] = columns[i].getObject(row);
+    }
+    current = values;
+    return true;
+  }
+
+  @Override
+  public void reset() {
+    currentIndex = -1;
+    current = null;
+  }
+
+  @Override
+  public void close() {
+    //nothing to do
+  }
+}
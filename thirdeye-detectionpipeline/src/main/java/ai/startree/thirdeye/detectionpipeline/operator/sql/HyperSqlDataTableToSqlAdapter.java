@@ -13,31 +13,45 @@
  */
 package ai.startree.thirdeye.detectionpipeline.operator.sql;
 
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
 import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Loads the DataTables in an in-memory HyperSQL database. Each adapter uses its own database:
+ * plan nodes run concurrently, and SqlExecution nodes with the same input table names must not
+ * share tables. The database is dropped on tearDown.
+ */
 public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
 
+  private static final int INSERT_BATCH_SIZE = 1000;
+
   private final Logger LOG = LoggerFactory.getLogger(getClass());
 
-  private final List<String> insertedTable = new ArrayList<>();
+  // the database must be named: "jdbc:hsqldb:mem" is a file database called "mem"
+  private final String databaseName = "thirdeye_" + UUID.randomUUID().toString().replace("-", "");
 
   private final Properties properties = new Properties();
 
   @Override
   public String jdbcConnection() {
-    return "jdbc:hsqldb:mem";
+    return "jdbc:hsqldb:mem:" + databaseName;
   }
 
   @Override
@@ -55,16 +69,18 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
       throws SQLException {
     for (final Entry<String, DataTable> entry : dataTables.entrySet()) {
       insertInput(connection, entry.getKey(), entry.getValue());
-      insertedTable.add(entry.getKey());
     }
   }
 
   @Override
   public void tearDown(final Connection connection) throws SQLException {
-    // Destroy database
-    LOG.debug("trying to drop all the tables to clean up the environment.");
-    for (final String tableName : insertedTable) {
-      destroyTable(connection, tableName);
+    // an in-memory database is dropped when it is shut down. This closes the connection.
+    LOG.debug("shutting down the in-memory database {}", databaseName);
+    try (final Statement statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    } catch (final SQLException e) {
+      LOG.error("Failed to shut down the in-memory database: {}", databaseName, e);
+      throw e;
     }
   }
 
@@ -91,17 +107,28 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     createTable(c, tableName, df);
 
     // Insert all rows into the table
-    for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
-      final String insertionStatement = getRowInsertionStatement(tableName, rowIdx, df);
-      try {
-        c.prepareCall(insertionStatement).execute();
-      } catch (final SQLException e) {
-        LOG.error("Failed to insert row idx: {}, insertion sql: {}",
-            rowIdx,
-            insertionStatement,
-            e);
-        throw e;
+    final String insertionStatement = getInsertionStatement(tableName, df.getSeriesNames().size());
+    try (final PreparedStatement statement = c.prepareStatement(insertionStatement)) {
+      final List<Series> columns = df.getSeriesNames().stream().map(df::get).toList();
+      for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
+        for (int colIdx = 0; colIdx < columns.size(); colIdx++) {
+          setParameter(statement, colIdx + 1, columns.get(colIdx), rowIdx);
+        }
+        statement.addBatch();
+        if ((rowIdx + 1) % INSERT_BATCH_SIZE == 0) {
+          statement.executeBatch();
+        }
       }
+      if (df.size() % INSERT_BATCH_SIZE != 0) {
+        // executing an empty batch fails in HyperSQL
+        statement.executeBatch();
+      }
+    } catch (final SQLException e) {
+      LOG.error("Failed to insert rows in table: {}, insertion sql: {}",
+          tableName,
+          insertionStatement,
+          e);
+      throw e;
     }
   }
 
@@ -122,28 +149,35 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     }
   }
 
-  private String getRowInsertionStatement(final String tableName,
-      final int rowIdx,
-      final DataFrame dataFrame) {
-    final StringBuilder sb = new StringBuilder(
-        "INSERT INTO " + tableName + " VALUES (");
-    final List<String> seriesNames = dataFrame.getSeriesNames();
-    for (int colIdx = 0; colIdx < seriesNames.size(); colIdx++) {
-      final Object value = dataFrame.getObject(seriesNames.get(colIdx), rowIdx);
-
-      // If string, then wrap with quotes
-      final String quoteWith = value instanceof String ? "'" : "";
-      sb
-          .append(quoteWith)
-          .append(value)
-          .append(quoteWith);
-
-      if (colIdx < seriesNames.size() - 1) {
-        sb.append(", ");
-      }
+  private static String getInsertionStatement(final String tableName, final int columnCount) {
+    return "INSERT INTO " + tableName + " VALUES (" + String.join(", ",
+        Collections.nCopies(columnCount, "?")) + ")";
+  }
+
+  private static void setParameter(final PreparedStatement statement, final int parameterIdx,
+      final Series series, final int rowIdx) throws SQLException {
+    if (series.isNull(rowIdx)) {
+      statement.setNull(parameterIdx, getSqlType(series.type()));
+      return;
     }
-    sb.append(")");
-    return sb.toString();
+    switch (series.type()) {
+      case LONG -> statement.setLong(parameterIdx, series.getLong(rowIdx));
+      case DOUBLE -> statement.setDouble(parameterIdx, series.getDouble(rowIdx));
+      case STRING -> statement.setString(parameterIdx, series.getString(rowIdx));
+      case BOOLEAN -> statement.setBoolean(parameterIdx,
+          BooleanSeries.booleanValueOf(series.getBoolean(rowIdx)));
+      default -> statement.setObject(parameterIdx, series.getObject(rowIdx));
+    }
+  }
+
+  private static int getSqlType(final SeriesType seriesType) {
+    return switch (seriesType) {
+      case LONG -> Types.BIGINT;
+      case DOUBLE -> Types.DOUBLE;
+      case STRING -> Types.VARCHAR;
+      case BOOLEAN -> Types.BOOLEAN;
+      default -> Types.VARBINARY;
+    };
   }
 
   private String getTableCreationStatement(final String tableName, final List<String> columns,
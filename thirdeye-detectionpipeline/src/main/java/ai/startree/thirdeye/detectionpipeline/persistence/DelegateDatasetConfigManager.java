@@ -14,10 +14,13 @@
 package ai.startree.thirdeye.detectionpipeline.persistence;
 
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import java.util.List;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * This class is generated using IntelliJ IDEA.
@@ -106,6 +109,18 @@ public class DelegateDatasetConfigManager implements DatasetConfigManager {
     return delegate.filter(daoFilter);
   }
 
+  @Override
+  public Stream<DatasetConfigDTO> findByPredicateInPages(final @Nullable Predicate predicate,
+      final int pageSize) {
+    return delegate.findByPredicateInPages(predicate, pageSize);
+  }
+
+  @Override
+  public List<DatasetConfigDTO> findPageAfter(final @Nullable Predicate predicate,
+      final @Nullable KeysetCursor after, final int limit) {
+    return delegate.findPageAfter(predicate, after, limit);
+  }
+
   @Override
   public int update(final DatasetConfigDTO entity, final Predicate predicate) {
     return delegate.update(entity, predicate);
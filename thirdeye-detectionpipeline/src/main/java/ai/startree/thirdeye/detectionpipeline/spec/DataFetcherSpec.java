@@ -14,6 +14,8 @@
 package ai.startree.thirdeye.detectionpipeline.spec;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.DataTableCache;
+import ai.startree.thirdeye.detectionpipeline.components.IncrementalFetchCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
@@ -42,6 +44,27 @@ public class DataFetcherSpec extends AbstractSpec {
    * Expected to be set during DataFetcherOperator init
    */
   private DataSourceCache dataSourceCache;
+  /**
+   * Optional. Set during DataFetcherOperator init.
+   */
+  private DataTableCache dataTableCache;
+  /**
+   * Optional. Set during DataFetcherOperator init for scheduled detections only.
+   */
+  private IncrementalFetchCache incrementalFetchCache;
+  /**
+   * Optional. Set during DataFetcherOperator init. Used with the incrementalFetchCache.
+   */
+  private Long alertId;
+  /**
+   * Optional. Set during DataFetcherOperator init. Used with the incrementalFetchCache.
+   */
+  private Long enumerationItemId;
+  /**
+   * Optional. Set during DataFetcherOperator init. Results with at least this number of rows are
+   * stored off-heap. 0 disables off-heap storage.
+   */
+  private int offHeapRowThreshold;
   /**
    * Expected to be set during DataFetcherOperator init
    * */
@@ -96,6 +119,52 @@ public class DataFetcherSpec extends AbstractSpec {
     return this;
   }
 
+  public DataTableCache getDataTableCache() {
+    return dataTableCache;
+  }
+
+  public DataFetcherSpec setDataTableCache(final DataTableCache dataTableCache) {
+    this.dataTableCache = dataTableCache;
+    return this;
+  }
+
+  public IncrementalFetchCache getIncrementalFetchCache() {
+    return incrementalFetchCache;
+  }
+
+  public DataFetcherSpec setIncrementalFetchCache(
+      final IncrementalFetchCache incrementalFetchCache) {
+    this.incrementalFetchCache = incrementalFetchCache;
+    return this;
+  }
+
+  public Long getAlertId() {
+    return alertId;
+  }
+
+  public DataFetcherSpec setAlertId(final Long alertId) {
+    this.alertId = alertId;
+    return this;
+  }
+
+  public Long getEnumerationItemId() {
+    return enumerationItemId;
+  }
+
+  public DataFetcherSpec setEnumerationItemId(final Long enumerationItemId) {
+    this.enumerationItemId = enumerationItemId;
+    return this;
+  }
+
+  public int getOffHeapRowThreshold() {
+    return offHeapRowThreshold;
+  }
+
+  public DataFetcherSpec setOffHeapRowThreshold(final int offHeapRowThreshold) {
+    this.offHeapRowThreshold = offHeapRowThreshold;
+    return this;
+  }
+
   public DatasetConfigManager getDatasetDao() {
     return datasetDao;
   }
@@ -14,12 +14,15 @@
 package ai.startree.thirdeye.detectionpipeline;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.detectionpipeline.components.DataTableCache;
+import ai.startree.thirdeye.detectionpipeline.components.IncrementalFetchCache;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator.EchoResult;
 import ai.startree.thirdeye.detectionpipeline.plan.EchoPlanNode;
@@ -30,10 +33,22 @@ import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
 import ai.startree.thirdeye.spi.detection.Enumerator;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.BeforeMethod;
@@ -67,7 +82,9 @@ public class PlanExecutorTest {
         dataSourceDao, 
         datasetConfigManager,
         new DetectionPipelineConfiguration(),
-        mock(EnumerationItemMaintainer.class));
+        mock(EnumerationItemMaintainer.class),
+        mock(DataTableCache.class),
+        mock(IncrementalFetchCache.class));
     enumerator = mock(Enumerator.class);
 
     when(detectionRegistry.buildEnumerator("default")).thenReturn(enumerator);
@@ -87,13 +104,15 @@ public class PlanExecutorTest {
             .setParams(TemplatableMap.ofValue(EchoOperator.DEFAULT_INPUT_KEY, echoInput))
         )
     );
-    final HashMap<ContextKey, OperatorResult> resultMap = new HashMap<>();
-    final HashMap<String, PlanNode> pipelinePlanNodes = new HashMap<>();
-    PlanExecutor.executePlanNode(
-        pipelinePlanNodes,
-        node,
-        resultMap
-    );
+    final Map<ContextKey, OperatorResult> resultMap = new ConcurrentHashMap<>();
+    final Map<String, PlanNode> pipelinePlanNodes = Map.of(nodeName, node);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      PlanExecutor.executePlanNodes(pipelinePlanNodes, node, resultMap, executor,
+          Duration.ofMinutes(1));
+    } finally {
+      executor.shutdownNow();
+    }
 
     assertThat(resultMap.size()).isEqualTo(1);
     final ContextKey key = PlanExecutor.key(nodeName, EchoOperator.DEFAULT_OUTPUT_KEY);
@@ -103,4 +122,208 @@ public class PlanExecutorTest {
     final EchoResult echoResult = (EchoResult) result;
     assertThat(echoResult.text()).isEqualTo(echoInput);
   }
+
+  @Test(timeOut = 10_000)
+  public void testExecutePlanNodesRunsIndependentBranchesConcurrently() throws Exception {
+    // both branches must run at the same time to pass the latch
+    final CountDownLatch latch = new CountDownLatch(2);
+    final Callable<String> waitForSibling = () -> {
+      latch.countDown();
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+      return "branch";
+    };
+    final Map<String, PlanNode> nodes = new HashMap<>();
+    nodes.put("current", new TestPlanNode("current", List.of(), waitForSibling));
+    nodes.put("baseline", new TestPlanNode("baseline", List.of(), waitForSibling));
+    nodes.put("root", new TestPlanNode("root", List.of("current", "baseline"), () -> "root"));
+
+    final Map<ContextKey, OperatorResult> resultMap = new ConcurrentHashMap<>();
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PlanExecutor.executePlanNodes(nodes, nodes.get("root"), resultMap, executor,
+          Duration.ofMinutes(1));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(resultMap.size()).isEqualTo(3);
+    final EchoResult rootResult = (EchoResult) resultMap.get(
+        PlanExecutor.key("root", TestPlanNode.OUTPUT_KEY));
+    assertThat(rootResult.text()).isEqualTo("root");
+  }
+
+  @Test(timeOut = 10_000)
+  public void testExecutePlanNodesCancelsSiblingsOnFailure() throws Exception {
+    final CountDownLatch siblingStarted = new CountDownLatch(1);
+    final AtomicBoolean siblingInterrupted = new AtomicBoolean(false);
+    final CountDownLatch siblingDone = new CountDownLatch(1);
+    final Map<String, PlanNode> nodes = new HashMap<>();
+    nodes.put("slow", new TestPlanNode("slow", List.of(), () -> {
+      siblingStarted.countDown();
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (final InterruptedException e) {
+        siblingInterrupted.set(true);
+      } finally {
+        siblingDone.countDown();
+      }
+      return "slow";
+    }));
+    nodes.put("failing", new TestPlanNode("failing", List.of(), () -> {
+      siblingStarted.await();
+      throw new IllegalStateException("failure");
+    }));
+    nodes.put("root", new TestPlanNode("root", List.of("slow", "failing"), () -> "root"));
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      assertThatThrownBy(() -> PlanExecutor.executePlanNodes(nodes, nodes.get("root"),
+          new ConcurrentHashMap<>(), executor, Duration.ofMinutes(1)))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessage("failure");
+      assertThat(siblingDone.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(siblingInterrupted.get()).isTrue();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void testExecutePlanNodesTimesOutOnSlowNode() throws Exception {
+    final CountDownLatch slowNodeDone = new CountDownLatch(1);
+    final AtomicBoolean slowNodeInterrupted = new AtomicBoolean(false);
+    final Map<String, PlanNode> nodes = new HashMap<>();
+    nodes.put("slow", new TestPlanNode("slow", List.of(), () -> {
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (final InterruptedException e) {
+        slowNodeInterrupted.set(true);
+      } finally {
+        slowNodeDone.countDown();
+      }
+      return "slow";
+    }));
+    nodes.put("root", new TestPlanNode("root", List.of("slow"), () -> "root"));
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // the timeout is enforced while the node is running, not only between nodes
+      assertThatThrownBy(() -> PlanExecutor.executePlanNodes(nodes, nodes.get("root"),
+          new ConcurrentHashMap<>(), executor, Duration.ofMillis(200)))
+          .isInstanceOf(TimeoutException.class);
+      assertThat(slowNodeDone.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(slowNodeInterrupted.get()).isTrue();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void testExecutePlanNodesDoesNotCountQueueTime() throws Exception {
+    final Map<String, PlanNode> nodes = new HashMap<>();
+    for (final String name : List.of("a", "b", "c")) {
+      nodes.put(name, new TestPlanNode(name, List.of(), () -> {
+        Thread.sleep(150);
+        return name;
+      }));
+    }
+    nodes.put("root", new TestPlanNode("root", List.of("a", "b", "c"), () -> "root"));
+    final Map<ContextKey, OperatorResult> resultMap = new ConcurrentHashMap<>();
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // the nodes run one by one in 450ms: each node runs within the timeout
+      PlanExecutor.executePlanNodes(nodes, nodes.get("root"), resultMap, executor,
+          Duration.ofMillis(300));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(resultMap.size()).isEqualTo(4);
+  }
+
+  @Test
+  public void testExecutePlanNodesWithCycle() {
+    final Map<String, PlanNode> nodes = new HashMap<>();
+    nodes.put("a", new TestPlanNode("a", List.of("b"), () -> "a"));
+    nodes.put("b", new TestPlanNode("b", List.of("a"), () -> "b"));
+    nodes.put("root", new TestPlanNode("root", List.of("a"), () -> "root"));
+
+    assertThatThrownBy(() -> PlanExecutor.executePlanNodes(nodes, nodes.get("root"),
+        new ConcurrentHashMap<>(), Executors.newSingleThreadExecutor(), Duration.ofMinutes(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * Plan node that outputs the result of the given callable as an {@link EchoResult}.
+   */
+  private static class TestPlanNode implements PlanNode {
+
+    private static final String OUTPUT_KEY = "output";
+
+    private final String name;
+    private final List<InputBean> inputs;
+    private final Callable<String> body;
+
+    private TestPlanNode(final String name, final List<String> inputNodes,
+        final Callable<String> body) {
+      this.name = name;
+      this.inputs = inputNodes.stream()
+          .map(n -> new InputBean()
+              .setSourcePlanNode(n)
+              .setSourceProperty(OUTPUT_KEY)
+              .setTargetProperty(n))
+          .toList();
+      this.body = body;
+    }
+
+    @Override
+    public void init(final PlanNodeContext planNodeContext) {
+    }
+
+    @Override
+    public PlanNodeContext getContext() {
+      return null;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getType() {
+      return "Test";
+    }
+
+    @Override
+    public void setInput(final String key, final OperatorResult obj) {
+    }
+
+    @Override
+    public List<InputBean> getPlanNodeInputs() {
+      return inputs;
+    }
+
+    @Override
+    public Map<String, Object> getParams() {
+      return Map.of();
+    }
+
+    @Override
+    public Operator buildOperator() {
+      return new EchoOperator() {
+        private EchoResult result;
+
+        @Override
+        public void execute() throws Exception {
+          result = new EchoResult(body.call());
+        }
+
+        @Override
+        public Map<String, OperatorResult> getOutputs() {
+          return Map.of(OUTPUT_KEY, result);
+        }
+      };
+    }
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.detectionpipeline.DataFetcherCacheConfiguration;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.joda.time.Interval;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DataTableCacheTest {
+
+  private static final DataTableCache.Key KEY = new DataTableCache.Key(1L,
+      "table",
+      "SELECT 1",
+      Map.of(),
+      new Interval(0L, 1000L));
+
+  private Clock clock;
+  private DataTableCache cache;
+  private AtomicInteger loads;
+
+  @BeforeMethod
+  public void setUp() {
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    cache = new DataTableCache(new DataFetcherCacheConfiguration()
+        .setEnabled(true)
+        .setExpireAfterWrite(Duration.ofMinutes(15))
+        .setMutableExpireAfterWrite(Duration.ofMinutes(1)), clock);
+    loads = new AtomicInteger(0);
+  }
+
+  private DataTable load() {
+    loads.incrementAndGet();
+    final DataTable dataTable = SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries("value", 1L, 2L, 3L));
+    dataTable.addProperties(Map.of("p", "v"));
+    return dataTable;
+  }
+
+  @Test
+  public void testGetReturnsCachedCopy() throws Exception {
+    final DataTable first = cache.get(KEY, false, this::load);
+    first.getDataFrame().addSeries("other", 4L, 5L, 6L);
+    first.addProperties(Map.of("p", "changed"));
+
+    final DataTable second = cache.get(KEY, false, this::load);
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(second.getDataFrame().getSeriesNames()).containsExactly("value");
+    assertThat(second.getProperties()).isEqualTo(Map.of("p", "v"));
+  }
+
+  @Test
+  public void testMutableEntryExpires() throws Exception {
+    cache.get(KEY, true, this::load);
+    when(clock.millis()).thenReturn(Duration.ofSeconds(30).toMillis());
+    cache.get(KEY, true, this::load);
+    assertThat(loads.get()).isEqualTo(1);
+
+    when(clock.millis()).thenReturn(Duration.ofMinutes(2).toMillis());
+    cache.get(KEY, true, this::load);
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testImmutableEntryOutlivesMutableTtl() throws Exception {
+    cache.get(KEY, false, this::load);
+    when(clock.millis()).thenReturn(Duration.ofMinutes(2).toMillis());
+    cache.get(KEY, false, this::load);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testConcurrentGetsLoadOnce() throws Exception {
+    final int nThreads = 4;
+    final CountDownLatch started = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    try {
+      final List<Future<DataTable>> futures = new ArrayList<>();
+      for (int i = 0; i < nThreads; i++) {
+        futures.add(executor.submit(() -> cache.get(KEY, false, () -> {
+          started.await(5, TimeUnit.SECONDS);
+          return load();
+        })));
+      }
+      started.countDown();
+      for (final Future<DataTable> future : futures) {
+        assertThat(future.get(5, TimeUnit.SECONDS).getDataFrame().size()).isEqualTo(3);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testLoaderExceptionIsRethrownAndNotCached() throws Exception {
+    assertThatThrownBy(() -> cache.get(KEY, false, () -> {
+      throw new IllegalStateException("datasource down");
+    })).isInstanceOf(IllegalStateException.class).hasMessage("datasource down");
+
+    cache.get(KEY, false, this::load);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testDisabledCacheAlwaysLoads() throws Exception {
+    final DataTableCache disabled = new DataTableCache(new DataFetcherCacheConfiguration(), clock);
+    disabled.get(KEY, false, this::load);
+    disabled.get(KEY, false, this::load);
+    assertThat(disabled.isEnabled()).isFalse();
+    assertThat(loads.get()).isEqualTo(2);
+  }
+}
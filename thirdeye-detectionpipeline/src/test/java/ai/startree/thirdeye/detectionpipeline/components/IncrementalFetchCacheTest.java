@@ -0,0 +1,301 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.components;
+
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.TIME_COLUMN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.detectionpipeline.IncrementalFetchCacheConfiguration;
+import ai.startree.thirdeye.detectionpipeline.sql.SqlLanguageTranslator;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.joda.time.Period;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class IncrementalFetchCacheTest {
+
+  private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+  private static final SqlParser.Config SQL_PARSER_CONFIG = SqlLanguageTranslator.translate(
+      new ThirdEyeSqlParserConfig.Builder()
+          .withLex("MYSQL_ANSI")
+          .withConformance("BABEL")
+          .withParserFactory("SqlBabelParserImpl")
+          .build());
+  private static final String SELECT_BUCKETS =
+      "SELECT __timeGroup(ts, 'EPOCH_MILLIS', 'PT1H') AS ts, SUM(v) AS v FROM tbl "
+          + "WHERE __timeFilter(ts, 'EPOCH_MILLIS', 'PT10H') ";
+  private static final IncrementalFetchCache.Key KEY = key(SELECT_BUCKETS + "GROUP BY ts");
+  private static final Period MUTABILITY = Period.hours(2);
+
+  private Clock clock;
+  private IncrementalFetchCache cache;
+  /**
+   * Lower bounds of the time filter of the fetched requests.
+   */
+  private List<Long> fetchedMins;
+  /**
+   * Value returned by the datasource for every bucket. Changing it simulates late data.
+   */
+  private long revision;
+
+  @BeforeMethod
+  public void setUp() {
+    clock = mock(Clock.class);
+    cache = new IncrementalFetchCache(new IncrementalFetchCacheConfiguration().setEnabled(true),
+        clock);
+    fetchedMins = new ArrayList<>();
+    revision = 0;
+  }
+
+  /**
+   * Request of a detection ending at {@code end} with a 10 hours lookback.
+   */
+  private static IncrementalFetchCache.RequestBuilder requestBuilder(final long end,
+      final String timeColumn) {
+    return timeFilterStart -> {
+      final long min = timeFilterStart != null ? timeFilterStart : end - 10 * HOUR;
+      final Map<String, String> properties = new HashMap<>();
+      properties.put(MIN_TIME_MILLIS.toString(), String.valueOf(min));
+      properties.put(MAX_TIME_MILLIS.toString(), String.valueOf(end));
+      if (timeColumn != null) {
+        properties.put(TIME_COLUMN.toString(), timeColumn);
+      }
+      return new DataSourceRequest("table", "SELECT " + min, Map.of(), properties);
+    };
+  }
+
+  private DataTable fetch(final DataSourceRequest request) {
+    final long min = Long.parseLong(request.getProperties().get(MIN_TIME_MILLIS.toString()));
+    final long max = Long.parseLong(request.getProperties().get(MAX_TIME_MILLIS.toString()));
+    fetchedMins.add(min);
+    final int size = (int) ((max - min) / HOUR);
+    final long[] times = new long[size];
+    final long[] values = new long[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = min + i * HOUR;
+      values[i] = revision;
+    }
+    return SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries("ts", times)
+        .addSeries("v", values));
+  }
+
+  /**
+   * Hourly buckets of the time filter window, like a datasource: the first bucket starts before
+   * the window if the window start is not aligned on the hour. The value of a bucket is the
+   * number of millis of the bucket in the window, plus the revision.
+   */
+  private DataTable fetchBuckets(final DataSourceRequest request) {
+    final long min = Long.parseLong(request.getProperties().get(MIN_TIME_MILLIS.toString()));
+    final long max = Long.parseLong(request.getProperties().get(MAX_TIME_MILLIS.toString()));
+    fetchedMins.add(min);
+    final List<Long> times = new ArrayList<>();
+    final List<Long> values = new ArrayList<>();
+    for (long bucket = min - min % HOUR; bucket < max; bucket += HOUR) {
+      times.add(bucket);
+      values.add(Math.min(bucket + HOUR, max) - Math.max(bucket, min) + revision);
+    }
+    return SimpleDataTable.fromDataFrame(new DataFrame()
+        .addSeries("ts", times.stream().mapToLong(Long::longValue).toArray())
+        .addSeries("v", values.stream().mapToLong(Long::longValue).toArray()));
+  }
+
+  private DataTable run(final long end) throws Exception {
+    return run(end, this::fetch);
+  }
+
+  private DataTable run(final long end, final IncrementalFetchCache.Fetcher fetcher)
+      throws Exception {
+    return run(KEY, end, fetcher);
+  }
+
+  private DataTable run(final IncrementalFetchCache.Key key, final long end,
+      final IncrementalFetchCache.Fetcher fetcher) throws Exception {
+    when(clock.millis()).thenReturn(end);
+    return cache.get(key, MUTABILITY, requestBuilder(end, "ts"), fetcher);
+  }
+
+  private static IncrementalFetchCache.Key key(final String queryTemplate) {
+    return new IncrementalFetchCache.Key(1L, null, 2L, "tbl", queryTemplate, SQL_PARSER_CONFIG);
+  }
+
+  /**
+   * Runs the query at 100h then at 101h and returns the lower bounds of the fetched windows.
+   */
+  private List<Long> fetchedMinsOfTwoRuns(final String queryTemplate) throws Exception {
+    final IncrementalFetchCache.Key key = key(queryTemplate);
+    run(key, 100 * HOUR, this::fetch);
+    run(key, 101 * HOUR, this::fetch);
+    return fetchedMins;
+  }
+
+  @Test
+  public void testFetchesOnlyNewWindowAndMutabilityPeriod() throws Exception {
+    final DataTable first = run(100 * HOUR);
+    assertThat(first.getDataFrame().size()).isEqualTo(10);
+
+    revision = 1;
+    final DataTable second = run(101 * HOUR);
+
+    // first run fetches the full window, second run refetches from the start of the mutability period
+    assertThat(fetchedMins).containsExactly(90 * HOUR, 98 * HOUR);
+    final DataFrame df = second.getDataFrame();
+    assertThat(df.getLongs("ts").toList()).isEqualTo(hours(91, 101));
+    assertThat(df.getLongs("v").toList()).containsExactly(0L, 0L, 0L, 0L, 0L, 0L, 0L, 1L, 1L, 1L);
+    assertThat(second.getProperties())
+        .containsEntry(MIN_TIME_MILLIS.toString(), String.valueOf(91 * HOUR));
+  }
+
+  @Test
+  public void testSplicedResultIsCachedForNextRun() throws Exception {
+    run(100 * HOUR);
+    run(101 * HOUR);
+    final DataTable third = run(102 * HOUR);
+
+    assertThat(fetchedMins).containsExactly(90 * HOUR, 98 * HOUR, 99 * HOUR);
+    assertThat(third.getDataFrame().getLongs("ts").toList()).isEqualTo(hours(92, 102));
+  }
+
+  @Test
+  public void testReturnedDataTableIsACopy() throws Exception {
+    run(100 * HOUR).getDataFrame().addSeries("other", new long[10]);
+    final DataTable second = run(100 * HOUR);
+    assertThat(second.getDataFrame().getSeriesNames()).containsExactlyInAnyOrder("ts", "v");
+  }
+
+  @Test
+  public void testUnalignedStartKeepsPartialFirstBucket() throws Exception {
+    final long end = 100 * HOUR + HOUR / 2;
+    final DataFrame full = run(end, this::fetchBuckets).getDataFrame();
+    // same window: the first bucket starts before the filter start
+    final DataTable second = run(end, this::fetchBuckets);
+
+    assertThat(fetchedMins).containsExactly(90 * HOUR + HOUR / 2, 98 * HOUR);
+    assertThat(second.getDataFrame().getLongs("ts").toList())
+        .isEqualTo(full.getLongs("ts").toList());
+    assertThat(second.getDataFrame().getLongs("v").toList())
+        .isEqualTo(full.getLongs("v").toList());
+  }
+
+  @Test
+  public void testUnalignedMovingStartFetchesFully() throws Exception {
+    run(100 * HOUR + HOUR / 2, this::fetchBuckets);
+    final DataTable second = run(101 * HOUR + HOUR / 2, this::fetchBuckets);
+
+    // the partial first bucket of the new window is not in the cache
+    assertThat(fetchedMins).containsExactly(90 * HOUR + HOUR / 2, 91 * HOUR + HOUR / 2);
+    assertThat(second.getDataFrame().getLongs("ts").toList()).isEqualTo(hours(91, 102));
+    assertThat(second.getDataFrame().getLong("v", 0)).isEqualTo(HOUR / 2);
+  }
+
+  @Test
+  public void testWindowMovingBackwardFetchesFully() throws Exception {
+    run(100 * HOUR);
+    run(95 * HOUR);
+    assertThat(fetchedMins).containsExactly(90 * HOUR, 85 * HOUR);
+  }
+
+  @Test
+  public void testNoStableRowFetchesFully() throws Exception {
+    run(100 * HOUR);
+    // all the cached buckets are in the mutability period
+    run(120 * HOUR);
+    assertThat(fetchedMins).containsExactly(90 * HOUR, 110 * HOUR);
+  }
+
+  @Test
+  public void testWithoutTimeColumnIsNotCached() throws Exception {
+    when(clock.millis()).thenReturn(100 * HOUR);
+    cache.get(KEY, MUTABILITY, requestBuilder(100 * HOUR, null), this::fetch);
+    cache.get(KEY, MUTABILITY, requestBuilder(101 * HOUR, null), this::fetch);
+    assertThat(fetchedMins).containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testDisabledCacheAlwaysFetchesFully() throws Exception {
+    cache = new IncrementalFetchCache(new IncrementalFetchCacheConfiguration(), clock);
+    run(100 * HOUR);
+    run(101 * HOUR);
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(fetchedMins).containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testOrderedByTimeBucketIsSpliced() throws Exception {
+    assertThat(fetchedMinsOfTwoRuns(SELECT_BUCKETS + "GROUP BY ts ORDER BY ts"))
+        .containsExactly(90 * HOUR, 98 * HOUR);
+  }
+
+  @Test
+  public void testLimitQueryFetchesFully() throws Exception {
+    // the 5 first buckets of the delta window are not the last 5 buckets of the full window
+    assertThat(fetchedMinsOfTwoRuns(SELECT_BUCKETS + "GROUP BY ts ORDER BY ts LIMIT 5"))
+        .containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testHavingQueryFetchesFully() throws Exception {
+    assertThat(fetchedMinsOfTwoRuns(SELECT_BUCKETS + "GROUP BY ts HAVING SUM(v) > 0"))
+        .containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testWindowFunctionQueryFetchesFully() throws Exception {
+    final String query = "SELECT __timeGroup(ts, 'EPOCH_MILLIS', 'PT1H') AS ts, "
+        + "SUM(SUM(v)) OVER (ORDER BY __timeGroup(ts, 'EPOCH_MILLIS', 'PT1H')) AS v FROM tbl "
+        + "WHERE __timeFilter(ts, 'EPOCH_MILLIS', 'PT10H') GROUP BY ts";
+    assertThat(fetchedMinsOfTwoRuns(query)).containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testOrderedByValueFetchesFully() throws Exception {
+    assertThat(fetchedMinsOfTwoRuns(SELECT_BUCKETS + "GROUP BY ts ORDER BY v DESC"))
+        .containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testSubqueryFetchesFully() throws Exception {
+    final String query = SELECT_BUCKETS + "AND v IN (SELECT v FROM other) GROUP BY ts";
+    assertThat(fetchedMinsOfTwoRuns(query)).containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  @Test
+  public void testNotGroupedByTimeBucketFetchesFully() throws Exception {
+    assertThat(fetchedMinsOfTwoRuns(SELECT_BUCKETS + "GROUP BY v"))
+        .containsExactly(90 * HOUR, 91 * HOUR);
+  }
+
+  private static List<Long> hours(final long startInclusive, final long endExclusive) {
+    final List<Long> hours = new ArrayList<>();
+    for (long h = startInclusive; h < endExclusive; h++) {
+      hours.add(h * HOUR);
+    }
+    return hours;
+  }
+}
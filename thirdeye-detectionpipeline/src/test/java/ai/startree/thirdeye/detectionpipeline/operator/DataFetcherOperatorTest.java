@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.detectionpipeline.operator;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
@@ -28,8 +29,11 @@ import ai.startree.thirdeye.detectionpipeline.DetectionRegistry;
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
 import ai.startree.thirdeye.detectionpipeline.PlanNodeContext;
 import ai.startree.thirdeye.detectionpipeline.PostProcessorRegistry;
+import ai.startree.thirdeye.detectionpipeline.components.DataTableCache;
+import ai.startree.thirdeye.detectionpipeline.components.IncrementalFetchCache;
 import ai.startree.thirdeye.detectionpipeline.components.GenericDataFetcher;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
@@ -37,11 +41,15 @@ import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.OutputBean;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
 import ai.startree.thirdeye.spi.detection.BaseComponent;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import org.joda.time.DateTimeZone;
@@ -55,6 +63,8 @@ public class DataFetcherOperatorTest {
   public static final String TABLE_NAME = "myTable";
   private String dataSourceName;
   private PlanNodeContext planNodeContext;
+  private ThirdEyeDataSource thirdEyeDataSource;
+  private DetectionPipelineConfiguration configuration;
 
   @BeforeMethod
   public void setUp() {
@@ -65,7 +75,8 @@ public class DataFetcherOperatorTest {
     final DatasetConfigManager datasetDao = mock(DatasetConfigManager.class);
     when(datasetDao.findByNameAndNamespaceOrUnsetNamespace(anyString(), nullable(String.class)))
         .thenReturn(new DatasetConfigDTO().setDataset(TABLE_NAME));
-    final ThirdEyeDataSource thirdEyeDataSource = mock(ThirdEyeDataSource.class);
+    thirdEyeDataSource = mock(ThirdEyeDataSource.class);
+    configuration = new DetectionPipelineConfiguration();
     when(dataSourceCache.getDataSource(dataSourceDTO))
         .thenReturn(thirdEyeDataSource);
     final DataSourceManager dataSourceDao = mock(DataSourceManager.class);
@@ -81,8 +92,10 @@ public class DataFetcherOperatorTest {
                 dataSourceDao, 
                 datasetDao,
                 mock(ExecutorService.class),
-                new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))
+                configuration,
+                mock(EnumerationItemMaintainer.class),
+                mock(DataTableCache.class),
+                mock(IncrementalFetchCache.class))
     ));
   }
 
@@ -137,4 +150,58 @@ public class DataFetcherOperatorTest {
         "SELECT * FROM " + TABLE_NAME);
     Assert.assertEquals(((GenericDataFetcher) pinotDataFetcher).getTableName(), TABLE_NAME);
   }
+
+  @Test
+  public void testExecuteStoresLargeResultsOffHeap() throws Exception {
+    configuration.setOffHeapRowThreshold(3);
+    final DataFrame df = new DataFrame()
+        .addSeries("ts", 1L, 2L, 3L)
+        .addSeries("value", 1.0, 2.0, 3.0);
+    final DataFrame expected = df.copy();
+    when(thirdEyeDataSource.fetchDataTable(any())).thenReturn(SimpleDataTable.fromDataFrame(df));
+
+    final DataFrame output = executeFetch();
+
+    assertThat(output.getLongs("ts").isOffHeap()).isTrue();
+    assertThat(output.getDoubles("value").isOffHeap()).isTrue();
+    assertThat(output).isEqualTo(expected);
+    // the fetched table is moved off-heap in place, without a second copy
+    assertThat(df.getLongs("ts").isOffHeap()).isTrue();
+  }
+
+  @Test
+  public void testExecuteKeepsSmallResultsOnHeap() throws Exception {
+    configuration.setOffHeapRowThreshold(4);
+    final DataFrame df = new DataFrame()
+        .addSeries("ts", 1L, 2L, 3L)
+        .addSeries("value", 1.0, 2.0, 3.0);
+    when(thirdEyeDataSource.fetchDataTable(any())).thenReturn(SimpleDataTable.fromDataFrame(df));
+
+    final DataFrame output = executeFetch();
+
+    assertThat(output.getLongs("ts").isOffHeap()).isFalse();
+    assertThat(output.getDoubles("value").isOffHeap()).isFalse();
+  }
+
+  private DataFrame executeFetch() throws Exception {
+    final Map<String, Object> params = new HashMap<>();
+    params.put("component.dataSource", dataSourceName);
+    params.put("component.query", "SELECT * FROM " + TABLE_NAME);
+    params.put("component.tableName", TABLE_NAME);
+    final PlanNodeBean planNodeBean = new PlanNodeBean()
+        .setOutputs(List.of(new OutputBean().setOutputKey("data").setOutputName("data")))
+        .setInputs(ImmutableList.of())
+        .setParams(TemplatableMap.fromValueMap(params));
+    final long startTime = System.currentTimeMillis();
+    final OperatorContext context = new OperatorContext()
+        .setDetectionInterval(new Interval(startTime, startTime + 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setPlanNodeContext(planNodeContext);
+
+    final DataFetcherOperator dataFetcherOperator = new DataFetcherOperator();
+    dataFetcherOperator.init(context);
+    dataFetcherOperator.execute();
+
+    return ((DataTable) dataFetcherOperator.getOutputs().get("data")).getDataFrame();
+  }
 }
@@ -27,8 +27,16 @@ import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.Test;
@@ -50,6 +58,61 @@ public class SqlExecutionOperatorTest {
     testSqlExecution(ImmutableMap.of("sql.engine", "Calcite"));
   }
 
+  @Test
+  public void testConcurrentSqlExecutionsWithSameTableNames() throws Exception {
+    // plan nodes run concurrently - the nodes load tables with the same name
+    final int nbNodes = 4;
+    final int rows = 5_000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(nbNodes);
+    try {
+      final List<Future<DataFrame>> futures = new ArrayList<>();
+      for (int i = 0; i < nbNodes; i++) {
+        final long value = i + 1;
+        futures.add(executor.submit(() -> {
+          final DetectionPipelineOperator operator = sqlSumOperator(value, rows);
+          start.await();
+          operator.execute();
+          return ((DataTable) operator.getOutputs().get("sql_0")).getDataFrame();
+        }));
+      }
+      start.countDown();
+      for (int i = 0; i < nbNodes; i++) {
+        final DataFrame output = futures.get(i).get(30, TimeUnit.SECONDS);
+        assertThat(output.getLong("cnt", 0)).isEqualTo(rows);
+        assertThat(output.getLong("total", 0)).isEqualTo((i + 1L) * rows);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static DetectionPipelineOperator sqlSumOperator(final long value, final int rows) {
+    final long[] values = new long[rows];
+    Arrays.fill(values, value);
+    final Map<String, Object> params = new HashMap<>();
+    params.put("sql.queries",
+        ImmutableList.of("SELECT COUNT(*) AS cnt, SUM(val) AS total FROM input_data"));
+    params.put("sql.engine", "HyperSql");
+    final PlanNodeBean planNodeBean = new PlanNodeBean().setName("sql_" + value)
+        .setType("SqlExecution")
+        .setParams(TemplatableMap.fromValueMap(params))
+        .setInputs(ImmutableList.of(new InputBean().setTargetProperty("input_data")
+            .setSourceProperty("output")
+            .setSourcePlanNode("dataFetcher")))
+        .setOutputs(ImmutableList.of(new OutputBean().setOutputKey("0").setOutputName("sql_0")));
+    final long startTime = System.currentTimeMillis();
+    final OperatorContext context = new OperatorContext()
+        .setDetectionInterval(new Interval(startTime, startTime + 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setInputsMap(ImmutableMap.of("input_data", SimpleDataTable.fromDataFrame(
+            new DataFrame().addSeries("val", LongSeries.buildFrom(values)))))
+        .setProperties(ImmutableMap.of());
+    final DetectionPipelineOperator operator = new SqlExecutionOperator();
+    operator.init(context);
+    return operator;
+  }
+
   private void testSqlExecution(Map<String, Object> customParams) throws Exception {
     Map<String, Object> params = new HashMap<>();
     params.put("sql.queries",
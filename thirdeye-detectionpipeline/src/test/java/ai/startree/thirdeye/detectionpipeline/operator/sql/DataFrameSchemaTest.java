@@ -14,6 +14,9 @@
 package ai.startree.thirdeye.detectionpipeline.operator.sql;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.google.common.collect.ImmutableMap;
@@ -84,6 +87,35 @@ public class DataFrameSchemaTest {
     Assert.assertEquals(outputDf, expectedDf);
   }
 
+  @Test
+  public void testRangePredicateAndProjectionPushdown() throws Exception {
+    final DataFrame withNulls = new DataFrame();
+    withNulls.addSeries("str_column", StringSeries.buildFrom("A", "B", null, "D", "E", "F"));
+    withNulls.addSeries("long_column", LongSeries.buildFrom(1L, 2L, 3L, 4L, LongSeries.NULL, 6L));
+    withNulls.addSeries("double_column",
+        DoubleSeries.buildFrom(0.5, 1.5, 2.5, 3.5, 4.0, DoubleSeries.NULL));
+    final DataFrameSchema schema = new DataFrameSchema(ImmutableMap.of("types_table", withNulls));
+    final Connection connection = getConnection(schema, properties);
+    final Statement statement = connection.createStatement();
+    final String query = "select str_column, double_column "
+        + "from types_table "
+        + "where long_column >= 2 "
+        + "AND 4.5 > double_column "
+        + "AND str_column <> 'B'";
+
+    final ResultSet planResultSet = statement.executeQuery("explain plan for " + query);
+    planResultSet.next();
+    final String plan = planResultSet.getString(1);
+    Assert.assertTrue(plan.contains("projects=[[0, 2]]"), plan);
+    Assert.assertFalse(plan.contains("Filter("), plan);
+
+    final DataFrame outputDf = DataFrame.fromResultSet(statement.executeQuery(query));
+    final DataFrame expectedDf = new DataFrame();
+    expectedDf.addSeries("str_column", "D");
+    expectedDf.addSeries("double_column", 3.5D);
+    Assert.assertEquals(outputDf, expectedDf);
+  }
+
   @Test
   public void testMultipleTables() throws Exception {
     // test importing multiple dataframe as SQL tables
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class HyperSqlDataTableToSqlAdapterTest {
+
+  private static DataFrame loadAndSelect(final DataFrame input, final String query)
+      throws Exception {
+    final HyperSqlDataTableToSqlAdapter adapter = new HyperSqlDataTableToSqlAdapter();
+    Class.forName(adapter.jdbcDriverClassName());
+    try (final Connection connection = DriverManager.getConnection(adapter.jdbcConnection(),
+        adapter.jdbcProperties())) {
+      adapter.loadTables(connection, Map.of("input_table", SimpleDataTable.fromDataFrame(input)));
+      try (final Statement statement = connection.createStatement();
+          final ResultSet resultSet = statement.executeQuery(query)) {
+        return DataFrame.fromResultSet(resultSet);
+      } finally {
+        adapter.tearDown(connection);
+      }
+    }
+  }
+
+  @Test
+  public void testLoadTablesWithNullsAndQuotes() throws Exception {
+    final DataFrame input = new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(1L, LongSeries.NULL, 3L))
+        .addSeries("met", DoubleSeries.buildFrom(0.5, 1.5, DoubleSeries.NULL))
+        .addSeries("dim", StringSeries.buildFrom("it's", null, "c"))
+        .addSeries("flag", BooleanSeries.buildFrom(BooleanSeries.TRUE, BooleanSeries.NULL,
+            BooleanSeries.FALSE));
+
+    final DataFrame output = loadAndSelect(input,
+        "SELECT ts, met, dim, flag FROM input_table ORDER BY met NULLS LAST");
+
+    assertThat(output.size()).isEqualTo(3);
+    assertThat(output.getLong("ts", 0)).isEqualTo(1L);
+    assertThat(output.isNull("ts", 1)).isTrue();
+    assertThat(output.isNull("met", 2)).isTrue();
+    assertThat(output.getString("dim", 0)).isEqualTo("it's");
+    assertThat(output.isNull("dim", 1)).isTrue();
+    assertThat(output.isNull("flag", 1)).isTrue();
+  }
+
+  @Test
+  public void testLoadTablesAcrossBatches() throws Exception {
+    testLoadTablesWithRows(2_500);
+  }
+
+  @Test
+  public void testLoadTablesWithFullBatches() throws Exception {
+    testLoadTablesWithRows(2_000);
+  }
+
+  private static void testLoadTablesWithRows(final int rows) throws Exception {
+    final long[] values = new long[rows];
+    for (int i = 0; i < rows; i++) {
+      values[i] = i;
+    }
+    final DataFrame input = new DataFrame().addSeries("val", LongSeries.buildFrom(values));
+
+    final DataFrame output = loadAndSelect(input,
+        "SELECT COUNT(*) AS cnt, SUM(val) AS total FROM input_table");
+
+    assertThat(output.getLong("cnt", 0)).isEqualTo(rows);
+    assertThat(output.getLong("total", 0)).isEqualTo((long) rows * (rows - 1) / 2);
+  }
+}
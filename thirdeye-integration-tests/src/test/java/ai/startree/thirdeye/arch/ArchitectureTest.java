@@ -37,6 +37,7 @@ import ai.startree.thirdeye.datalayer.DatabaseOrm;
 import ai.startree.thirdeye.datalayer.ThirdEyePersistenceModule;
 import ai.startree.thirdeye.datalayer.bao.AlertManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.TaskManagerImpl;
+import ai.startree.thirdeye.datalayer.core.DatabaseTaskNotificationChannel;
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.datalayer.dao.TaskDao;
@@ -70,6 +71,8 @@ import ai.startree.thirdeye.spi.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.spi.datalayer.bao.AbstractManager;
 import ai.startree.thirdeye.worker.task.TaskDriver;
 import ai.startree.thirdeye.worker.task.TaskDriverRunnable;
+import ai.startree.thirdeye.worker.task.TaskHeartbeat;
+import ai.startree.thirdeye.worker.task.TaskPrefetchQueue;
 import ai.startree.thirdeye.worker.task.runner.DetectionPipelineTaskRunner;
 import ai.startree.thirdeye.worker.task.runner.NotificationTaskRunner;
 import com.tngtech.archunit.base.DescribedPredicate;
@@ -163,6 +166,9 @@ public class ArchitectureTest {
         DetectionPipelineTaskRunner.class,
         TaskDriverRunnable.class,
         TaskDriver.class,
+        TaskPrefetchQueue.class,
+        DatabaseTaskNotificationChannel.class,
+        TaskHeartbeat.class,
         DetectionPipelineJob.class,
         NotificationPipelineJob.class,
         MockEventsLoader.class,
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.detectionpipeline.sql.macro;
 
 import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.QUERY;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ai.startree.thirdeye.IntegrationTestUtils;
 import ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlExpressionBuilder;
@@ -125,6 +126,53 @@ public class MacroEngineTest {
     prepareRequestAndAssert(inputQuery, INPUT_INTERVAL, expectedQuery, expectedProperties);
   }
 
+  @Test
+  public void testTimeFilterMacroWithTimeFilterStart() {
+    final String inputQuery = "select * from tableName where __timeFilter(timeCol, 'EPOCH')";
+    final long timeFilterStart = 15555555L;
+    final Interval filterInterval = new Interval(timeFilterStart, INPUT_END_TIME, DateTimeZone.UTC);
+
+    final DataSourceRequest output = new MacroEngine(MOCK_SQL_LANGUAGE,
+        MOCK_SQL_EXPRESSION_BUILDER,
+        INPUT_INTERVAL,
+        DATASET_CONFIG_DTO,
+        inputQuery)
+        .setTimeFilterStartMillis(timeFilterStart)
+        .prepareRequest();
+
+    final String expectedQuery = String.format("SELECT * FROM tableName WHERE %s",
+        MOCK_SQL_EXPRESSION_BUILDER.getTimeFilterExpression("timeCol",
+            filterInterval,
+            INPUT_TIME_COLUMN_FORMAT));
+    assertThat(IntegrationTestUtils.cleanSql(output.getQuery())).isEqualTo(
+        IntegrationTestUtils.cleanSql(expectedQuery));
+    assertThat(output.getProperties()).containsEntry(
+        MacroMetadataKeys.MIN_TIME_MILLIS.toString(), String.valueOf(timeFilterStart));
+  }
+
+  @Test
+  public void testMultipleTimeFiltersAreNotSplitInTime() {
+    final String inputQuery = String.format(
+        "select __timeGroup(timeCol,'%1$s','%2$s') AS ts, COUNT(*) FROM tableName "
+            + "WHERE __timeFilter(timeCol, '%1$s') "
+            + "AND otherCol IN (SELECT otherCol FROM tableName "
+            + "WHERE __timeFilter(timeCol, '%1$s', 'P1D')) GROUP BY ts",
+        INPUT_TIME_COLUMN_FORMAT,
+        HOUR_PERIOD);
+    final MacroEngine macroEngine = new MacroEngine(MOCK_SQL_LANGUAGE,
+        MOCK_SQL_EXPRESSION_BUILDER,
+        INPUT_INTERVAL,
+        DATASET_CONFIG_DTO,
+        inputQuery);
+
+    final DataSourceRequest output = macroEngine.prepareRequest();
+    // without time column, the result is never fetched incrementally
+    assertThat(output.getProperties()).doesNotContainKey(MacroMetadataKeys.TIME_COLUMN.toString());
+
+    assertThatThrownBy(() -> macroEngine.setTimeFilterStartMillis(15555555L).prepareRequest())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
   @Test
   public void testTimeFilterMacroWithAutoTimeConfig() {
     final String inputQuery = String.format("select * from tableName where __timeFilter(%s, '%s')",
@@ -426,6 +474,28 @@ public class MacroEngineTest {
         expectedProperties);
   }
 
+  @Test
+  public void testTimeGroupMacroAliasIsTimeColumn() {
+    final String inputQuery = String.format(
+        "select __timeGroup(timeCol,'%s','%s') AS ts, COUNT(*) FROM tableName GROUP BY ts",
+        SIMPLE_TIME_FORMAT,
+        HOUR_PERIOD);
+
+    final String expectedQuery = String.format(
+        "SELECT %s AS ts, COUNT(*) FROM tableName GROUP BY ts",
+        MOCK_SQL_EXPRESSION_BUILDER.getTimeGroupExpression("timeCol",
+            SIMPLE_TIME_FORMAT,
+            HOUR_PERIOD,
+            INPUT_INTERVAL.getChronology().getZone().toString()));
+    final Map<String, String> expectedProperties = ImmutableMap.of(
+        MacroMetadataKeys.GRANULARITY.toString(),
+        HOUR_PERIOD.toString(),
+        MacroMetadataKeys.TIME_COLUMN.toString(),
+        "ts");
+
+    prepareRequestAndAssert(inputQuery, INPUT_INTERVAL, expectedQuery, expectedProperties);
+  }
+
   @Test
   public void testNestedMacro() {
     // test if nested macros work - eg: __timeFilter(__timeGroup(timeCol, myTestFormat, P0D), 'EPOCH')
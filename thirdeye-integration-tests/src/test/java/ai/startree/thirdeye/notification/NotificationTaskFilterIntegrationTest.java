@@ -29,6 +29,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
 import com.google.inject.Injector;
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
@@ -281,4 +282,51 @@ public class NotificationTaskFilterIntegrationTest {
     assertThat(collectIds(instance.filterAnomalies(sg, POINT_IN_TIME)))
         .isEqualTo(collectIds(Set.of(anomaly3)));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testFilterMultipleAlerts() {
+    final AlertDTO alert1 = persist(new AlertDTO()
+        .setName("alert1")
+        .setActive(true));
+    final AlertDTO alert2 = persist(new AlertDTO()
+        .setName("alert2")
+        .setActive(true));
+    final AlertDTO inactiveAlert = persist(new AlertDTO()
+        .setName("alert3")
+        .setActive(false));
+
+    final SubscriptionGroupDTO sg = persist(new SubscriptionGroupDTO()
+        .setName("name1")
+        .setCronExpression(CRON)
+        .setNotifyHistoricalAnomalies(true)
+        .setAlertAssociations(List.of(aaRef(alert1.getId()),
+            aaRef(alert2.getId()),
+            aaRef(inactiveAlert.getId()))));
+    // alert1 was notified until 5 minutes ago - alert2 was never notified
+    sg.setVectorClocks(Map.of(alert1.getId(), minutesAgo(5)));
+
+    persist(anomalyWithCreateTime(minutesAgo(10))
+        .setDetectionConfigId(alert1.getId())
+        .setStartTime(minutesAgo(100))
+        .setEndTime(minutesAgo(80))
+    );
+    final AnomalyDTO anomaly1 = persist(anomalyWithCreateTime(minutesAgo(2))
+        .setDetectionConfigId(alert1.getId())
+        .setStartTime(minutesAgo(100))
+        .setEndTime(minutesAgo(80))
+    );
+    final AnomalyDTO anomaly2 = persist(anomalyWithCreateTime(minutesAgo(10))
+        .setDetectionConfigId(alert2.getId())
+        .setStartTime(minutesAgo(100))
+        .setEndTime(minutesAgo(80))
+    );
+    persist(anomalyWithCreateTime(minutesAgo(2))
+        .setDetectionConfigId(inactiveAlert.getId())
+        .setStartTime(minutesAgo(100))
+        .setEndTime(minutesAgo(80))
+    );
+
+    assertThat(collectIds(instance.filterAnomalies(sg, POINT_IN_TIME)))
+        .isEqualTo(collectIds(Set.of(anomaly1, anomaly2)));
+  }
+}
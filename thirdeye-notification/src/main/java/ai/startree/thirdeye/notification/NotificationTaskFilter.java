@@ -38,10 +38,15 @@ import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.slf4j.Logger;
@@ -131,14 +136,18 @@ public class NotificationTaskFilter {
    *     subscription group, anomalies, completed anomalies and other metadata
    */
   public NotificationTaskFilterResult filter(final SubscriptionGroupDTO sg, final long endTime) {
-    final Set<AnomalyDTO> anomalies = filterAnomalies(sg, endTime);
+    final List<AlertAssociationDto> alertAssociations = alertAssociations(sg);
+    final Map<Long, AlertDTO> activeAlerts = findActiveAlerts(alertAssociations);
+    final Set<AnomalyDTO> anomalies = filterAnomalies(sg, endTime, alertAssociations,
+        activeAlerts);
 
     final var ids = anomalies.stream()
         .map(AnomalyDTO::getId)
         .collect(toSet());
 
     // remove anomalies that are already being notified
-    final Set<AnomalyDTO> completedAnomalies = filterCompletedAnomalies(sg);
+    final Set<AnomalyDTO> completedAnomalies = filterCompletedAnomalies(sg, alertAssociations,
+        activeAlerts);
     completedAnomalies.removeIf(a -> ids.contains(a.getId()));
 
     return new NotificationTaskFilterResult()
@@ -156,60 +165,167 @@ public class NotificationTaskFilter {
    */
   @VisibleForTesting
   Set<AnomalyDTO> filterAnomalies(final SubscriptionGroupDTO sg, final long endTime) {
-    final List<AlertAssociationDto> alertAssociations = optional(sg.getAlertAssociations())
-        .orElseGet(() -> migrateOlderSchema(sg));
-
-    // Fetch all the anomalies to be notified to the recipients
-    return alertAssociations.stream()
-        .filter(aa -> isAlertActive(aa.getAlert().getId()))
-        .map(aa -> buildAnomalyFilter(aa, sg, endTime))
-        .map(f -> filterAnomalies(f, sg.getId(), "anomalies"))
-        .flatMap(Collection::stream)
-        .collect(toSet());
+    final List<AlertAssociationDto> alertAssociations = alertAssociations(sg);
+    return filterAnomalies(sg, endTime, alertAssociations, findActiveAlerts(alertAssociations));
   }
 
   @VisibleForTesting
   Set<AnomalyDTO> filterCompletedAnomalies(final SubscriptionGroupDTO sg) {
-    final List<AlertAssociationDto> alertAssociations = optional(sg.getAlertAssociations())
-        .orElseGet(() -> migrateOlderSchema(sg));
+    final List<AlertAssociationDto> alertAssociations = alertAssociations(sg);
+    return filterCompletedAnomalies(sg, alertAssociations, findActiveAlerts(alertAssociations));
+  }
+
+  /**
+   * The candidate anomalies of all the alert associations are fetched with a single query. The
+   * enumeration items of the associations are part of the query predicate. The filter of each
+   * association - with its own watermarks - is then applied in memory.
+   */
+  private Set<AnomalyDTO> filterAnomalies(final SubscriptionGroupDTO sg,
+      final long endTime,
+      final List<AlertAssociationDto> alertAssociations,
+      final Map<Long, AlertDTO> activeAlerts) {
+    final List<AnomalyFilter> filters = alertAssociations.stream()
+        .filter(aa -> activeAlerts.containsKey(aa.getAlert().getId()))
+        .map(aa -> buildAnomalyFilter(aa, activeAlerts.get(aa.getAlert().getId()), sg, endTime))
+        .toList();
+    if (filters.isEmpty()) {
+      return new HashSet<>();
+    }
+    final long createTimeStart = filters.stream()
+        .mapToLong(f -> f.getCreateTimeWindow().getStartMillis())
+        .min()
+        .getAsLong();
+    final AnomalyFilter candidatesFilter = new AnomalyFilter()
+        .setCreateTimeWindow(new Interval(createTimeStart, endTime))
+        .setIsChild(false)
+        .setIsIgnored(false)
+        .setEnumerationItemIdsByAlertId(enumerationItemIdsByAlertId(filters))
+        .setEndTimeIsGte(minOrNull(filters, AnomalyFilter::getEndTimeIsGte));
+    final List<AnomalyDTO> candidates = anomalyManager.filter(candidatesFilter);
+
+    return filters.stream()
+        .map(f -> filterAnomalies(f, candidates, sg.getId(), "anomalies"))
+        .flatMap(Collection::stream)
+        .collect(toSet());
+  }
 
-    return alertAssociations.stream()
-        .filter(aa -> isAlertActive(aa.getAlert().getId()))
+  private Set<AnomalyDTO> filterCompletedAnomalies(final SubscriptionGroupDTO sg,
+      final List<AlertAssociationDto> alertAssociations,
+      final Map<Long, AlertDTO> activeAlerts) {
+    // the merge max gap is the same for all the associations of an alert
+    final Map<Long, Long> endTimeIsLtByAlertId = new HashMap<>();
+    final List<AnomalyFilter> filters = alertAssociations.stream()
+        .filter(aa -> activeAlerts.containsKey(aa.getAlert().getId()))
         .filter(aa -> aa.getAnomalyCompletionWatermark() != null)
-        .map(this::buildAnomalyFilterCompletedAnomalies)
-        .map(f -> filterAnomalies(f, sg.getId(), "completed anomalies"))
+        .map(aa -> buildAnomalyFilterCompletedAnomalies(aa,
+            endTimeIsLtByAlertId.computeIfAbsent(aa.getAlert().getId(),
+                id -> completedAnomaliesEndTimeIsLt(activeAlerts.get(id)))))
+        .toList();
+    if (filters.isEmpty()) {
+      return new HashSet<>();
+    }
+    final AnomalyFilter candidatesFilter = new AnomalyFilter()
+        .setIsChild(false)
+        .setIsIgnored(false)
+        .setAlertIds(alertIds(filters))
+        .setEndTimeIsGte(minOrNull(filters, AnomalyFilter::getEndTimeIsGte))
+        .setEndTimeIsLt(Collections.max(endTimeIsLtByAlertId.values()));
+    final List<AnomalyDTO> candidates = anomalyManager.filter(candidatesFilter);
+
+    return filters.stream()
+        .map(f -> filterAnomalies(f, candidates, sg.getId(), "completed anomalies"))
         .flatMap(Collection::stream)
         .collect(toSet());
   }
 
-  private AnomalyFilter buildAnomalyFilterCompletedAnomalies(final AlertAssociationDto aa) {
-    final Date watermark = optional(aa.getAnomalyCompletionWatermark())
-        .orElseThrow(() -> new IllegalStateException("Invalid code path. Watermark is null"));
+  private static List<AlertAssociationDto> alertAssociations(final SubscriptionGroupDTO sg) {
+    return optional(sg.getAlertAssociations())
+        .orElseGet(() -> migrateOlderSchema(sg));
+  }
 
-    final long alertId = aa.getAlert().getId();
-    final AlertDTO alert = alertManager.findById(alertId);
+  /**
+   * Loads all the alerts referenced by the associations with a single query.
+   *
+   * @return the active alerts, by id
+   */
+  private Map<Long, AlertDTO> findActiveAlerts(final List<AlertAssociationDto> alertAssociations) {
+    final List<Long> alertIds = alertAssociations.stream()
+        .map(aa -> aa.getAlert().getId())
+        .distinct()
+        .toList();
+    if (alertIds.isEmpty()) {
+      return Map.of();
+    }
+    return alertManager.findByIds(alertIds).stream()
+        .filter(Objects::nonNull)
+        .filter(AlertDTO::isActive)
+        .collect(Collectors.toMap(AbstractDTO::getId, alert -> alert));
+  }
+
+  private static Set<Long> alertIds(final List<AnomalyFilter> filters) {
+    return filters.stream()
+        .map(AnomalyFilter::getAlertId)
+        .collect(toSet());
+  }
+
+  /**
+   * An alert with a filter on all its enumeration items is mapped to an empty collection.
+   */
+  private static Map<Long, Collection<Long>> enumerationItemIdsByAlertId(
+      final List<AnomalyFilter> filters) {
+    final Set<Long> allItemsAlertIds = filters.stream()
+        .filter(f -> f.getEnumerationItemId() == null)
+        .map(AnomalyFilter::getAlertId)
+        .collect(toSet());
+    final Map<Long, Collection<Long>> enumerationItemIdsByAlertId = new HashMap<>();
+    for (final AnomalyFilter f : filters) {
+      final Collection<Long> enumerationItemIds = enumerationItemIdsByAlertId.computeIfAbsent(
+          f.getAlertId(), id -> new HashSet<>());
+      if (!allItemsAlertIds.contains(f.getAlertId())) {
+        enumerationItemIds.add(f.getEnumerationItemId());
+      }
+    }
+    return enumerationItemIdsByAlertId;
+  }
+
+  // returns null if the value is null for any filter - the bound does not apply to all filters
+  private static @Nullable Long minOrNull(final List<AnomalyFilter> filters,
+      final Function<AnomalyFilter, Long> getter) {
+    long min = Long.MAX_VALUE;
+    for (final AnomalyFilter f : filters) {
+      final Long value = getter.apply(f);
+      if (value == null) {
+        return null;
+      }
+      min = Math.min(min, value);
+    }
+    return min;
+  }
+
+  private long completedAnomaliesEndTimeIsLt(final AlertDTO alert) {
     final AlertTemplateDTO renderedTemplate = alertTemplateRenderer.renderAlert(alert);
     final Period mergeMaxGap = AlertUtils.getMergeMaxGap(renderedTemplate);
-    final long endTimeIsLt = alert.getLastTimestamp() - mergeMaxGap.toStandardDuration().getMillis();
+    return alert.getLastTimestamp() - mergeMaxGap.toStandardDuration().getMillis();
+  }
+
+  private static AnomalyFilter buildAnomalyFilterCompletedAnomalies(final AlertAssociationDto aa,
+      final long endTimeIsLt) {
+    final Date watermark = optional(aa.getAnomalyCompletionWatermark())
+        .orElseThrow(() -> new IllegalStateException("Invalid code path. Watermark is null"));
 
     return new AnomalyFilter()
         .setIsChild(false)
-        .setAlertId(alertId)
+        .setAlertId(aa.getAlert().getId())
         .setIsIgnored(false)
         .setEndTimeIsGte(watermark.getTime())
         .setEndTimeIsLt(endTimeIsLt);
   }
 
-  private boolean isAlertActive(final long alertId) {
-    final AlertDTO alert = alertManager.findById(alertId);
-    return alert != null && alert.isActive();
-  }
-
-  private AnomalyFilter buildAnomalyFilter(final AlertAssociationDto aa,
+  private static AnomalyFilter buildAnomalyFilter(final AlertAssociationDto aa,
+      final AlertDTO alert,
       final SubscriptionGroupDTO sg,
       final long createTimeEnd) {
     final long alertId = aa.getAlert().getId();
-    final AlertDTO alert = alertManager.findById(alertId);
     final long startTime = optional(sg.getVectorClocks())
         .map(v -> v.get(alertId))
         .orElse(0L);
@@ -245,11 +361,33 @@ public class NotificationTaskFilter {
     return f;
   }
 
-  @VisibleForTesting
-  protected Set<AnomalyDTO> filterAnomalies(final AnomalyFilter f,
+  /**
+   * In memory equivalent of {@link AnomalyManager#filter(AnomalyFilter)} for the fields set by
+   * {@link #buildAnomalyFilter} and {@link #buildAnomalyFilterCompletedAnomalies}. isChild and
+   * isIgnored are the same for all the filters: they are applied by the candidates query.
+   */
+  private static boolean matches(final AnomalyFilter f, final AnomalyDTO anomaly) {
+    final Interval createTimeWindow = f.getCreateTimeWindow();
+    if (createTimeWindow != null && (anomaly.getCreateTime() == null
+        || !createTimeWindow.contains(anomaly.getCreateTime().getTime()))) {
+      return false;
+    }
+    if (f.getEnumerationItemId() != null && !f.getEnumerationItemId().equals(
+        optional(anomaly.getEnumerationItem()).map(AbstractDTO::getId).orElse(null))) {
+      return false;
+    }
+    return Objects.equals(f.getAlertId(), anomaly.getDetectionConfigId())
+        && (f.getEndTimeIsGte() == null || anomaly.getEndTime() >= f.getEndTimeIsGte())
+        && (f.getEndTimeIsLt() == null || anomaly.getEndTime() < f.getEndTimeIsLt());
+  }
+
+  private static Set<AnomalyDTO> filterAnomalies(final AnomalyFilter f,
+      final List<AnomalyDTO> allCandidates,
       final Long subscriptionGroupId,
       final String logContext) {
-    final List<AnomalyDTO> candidates = anomalyManager.filter(f);
+    final List<AnomalyDTO> candidates = allCandidates.stream()
+        .filter(a -> matches(f, a))
+        .toList();
 
     final Set<AnomalyDTO> anomaliesToBeNotified = candidates.stream()
         .filter(NotificationTaskFilter::shouldFilter)
@@ -121,9 +121,9 @@ public class NotificationTaskPostProcessor {
     }
     // at least one notification channel notified successfully - update the watermarks
     /* Update anomalies */
-    for (final AnomalyDTO anomaly : result.getAnomalies()) {
-      anomalyManager.update(anomaly.setNotified(true));
-    }
+    anomalyManager.updateAll(result.getAnomalies().stream()
+        .map(anomaly -> anomaly.setNotified(true))
+        .toList());
 
     /* Record watermarks */
     final SubscriptionGroupDTO sg = result.getSubscriptionGroup();
@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.datalayer;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.util.GenericResultSetMapper;
@@ -28,6 +30,9 @@ import io.micrometer.core.instrument.Timer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -95,6 +100,13 @@ public class DatabaseOrm {
   public <E extends AbstractEntity> List<E> findAll(final Predicate predicate, final Long limit,
       final Long offset, final Class<E> clazz, final Connection connection)
       throws Exception {
+    return findAll(predicate, List.of(), false, limit, offset, clazz, connection);
+  }
+
+  public <E extends AbstractEntity> List<E> findAll(final Predicate predicate,
+      final List<String> orderByKeys, final boolean desc, final Long limit, final Long offset,
+      final Class<E> clazz, final Connection connection)
+      throws Exception {
     final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
     final long tStart = System.nanoTime();
     try {
@@ -102,6 +114,8 @@ public class DatabaseOrm {
           .createFindByParamsStatementWithLimit(connection,
               clazz,
               predicate,
+              orderByKeys,
+              desc,
               limit,
               offset)) {
         try (final ResultSet resultSet = selectStatement.executeQuery()) {
@@ -141,10 +155,46 @@ public class DatabaseOrm {
     }
   }
 
+  /**
+   * Inserts the entities with a single JDBC batch. Entities must be of the same class.
+   *
+   * @return the generated ids, in the order of the entities
+   */
+  public <E extends AbstractEntity> List<Long> saveAll(final List<E> entities,
+      final Connection connection) throws Exception {
+    if (entities.isEmpty()) {
+      return List.of();
+    }
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement batchInsertStmt = sqlQueryBuilder
+          .createBatchInsertStatement(connection, entities)) {
+        final int[] affectedRows = batchInsertStmt.executeBatch();
+        for (final int affected : affectedRows) {
+          checkState(affected == 1 || affected == Statement.SUCCESS_NO_INFO,
+              "Batch insert failed. Affected rows: %s", affected);
+        }
+        final List<Long> ids = new ArrayList<>(entities.size());
+        try (final ResultSet generatedKeys = batchInsertStmt.getGeneratedKeys()) {
+          while (generatedKeys.next()) {
+            ids.add(generatedKeys.getLong(1));
+          }
+        }
+        checkState(ids.size() == entities.size(),
+            "Batch insert of %s entities returned %s generated keys", entities.size(), ids.size());
+        return ids;
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfCreate);
+    }
+  }
+
   public <E extends AbstractEntity> Integer update(final E entity, final Predicate predicate,
       final Connection connection)
       throws Exception {
-    final E dbEntity = (E) find(entity.getId(), entity.getClass(), connection);
     final Predicate finalPredicate;
     final String idCol = getIdColumnName(entity.getClass());
     if (predicate == null) {
@@ -152,22 +202,43 @@ public class DatabaseOrm {
     } else {
       finalPredicate = Predicate.AND(predicate, Predicate.EQ(idCol, entity.getId()));
     }
-    if (dbEntity != null) {
-      final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
-      final long tStart = System.nanoTime();
-      entity.setCreateTime(dbEntity.getCreateTime());
-      try {
-        try (final PreparedStatement baseTableInsertStmt = sqlQueryBuilder
-            .createUpdateStatement(connection, entity, null, finalPredicate)) {
-          return baseTableInsertStmt.executeUpdate();
+    // create_time is never updated - no need to read the row first. A missing row updates 0 rows.
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement baseTableInsertStmt = sqlQueryBuilder
+          .createUpdateStatement(connection, entity, null, finalPredicate)) {
+        return baseTableInsertStmt.executeUpdate();
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfUpdate);
+    }
+  }
+
+  /**
+   * Runs an UPDATE statement with positional parameters. Used for column-level updates that do
+   * not need to read or rewrite the whole entity.
+   *
+   * @return the number of updated rows
+   */
+  public int executeUpdate(final String sql, final List<Object> parameters,
+      final Connection connection) throws Exception {
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement updateStatement = connection.prepareStatement(sql)) {
+        for (int i = 0; i < parameters.size(); i++) {
+          updateStatement.setObject(i + 1, parameters.get(i));
         }
-      } finally {
-        dbWriteCallCounter.inc();
-        dbWriteDuration.update(System.nanoTime() - tStart);
-        sample.stop(dbCrudTimerOfUpdate);
+        return updateStatement.executeUpdate();
       }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfUpdate);
     }
-    return 0;
   }
 
   public <E extends AbstractEntity> String getIdColumnName(final Class<E> clazz) {
@@ -215,6 +286,69 @@ public class DatabaseOrm {
     }
   }
 
+  /**
+   * Counts the entities matching the predicate, grouped by a column of a joined index table.
+   *
+   * @return the count per group value. Entities without match in the joined table are counted
+   *     with the null key.
+   * @see SqlQueryBuilder#createCountByJoinedColumnStatement
+   */
+  public <E extends AbstractEntity> Map<String, Long> countByJoinedColumn(
+      final @Nullable Predicate predicate, final Class<E> clazz, final String foreignKeyField,
+      final Class<? extends AbstractEntity> joinedClazz, final String groupByField,
+      final Connection connection) throws Exception {
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createCountByJoinedColumnStatement(connection,
+              predicate,
+              clazz,
+              foreignKeyField,
+              joinedClazz,
+              groupByField)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          final Map<String, Long> counts = new HashMap<>();
+          while (resultSet.next()) {
+            counts.put(resultSet.getString(1), resultSet.getLong(2));
+          }
+          return counts;
+        }
+      }
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfRead);
+    }
+  }
+
+  /**
+   * Runs a SELECT statement with positional parameters that returns a single number. Returns 0 if
+   * the statement returns no row or null.
+   */
+  public long selectLong(final String sql, final List<Object> parameters,
+      final Connection connection) throws Exception {
+    final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = connection.prepareStatement(sql)) {
+        for (int i = 0; i < parameters.size(); i++) {
+          selectStatement.setObject(i + 1, parameters.get(i));
+        }
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          if (resultSet.next()) {
+            return resultSet.getLong(1);
+          }
+        }
+      }
+      return 0L;
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+      sample.stop(dbCrudTimerOfRead);
+    }
+  }
+
   public <E extends AbstractEntity> List<E> runSQL(
       final String parameterizedSQL,
       final Map<String, Object> parameterMap,
@@ -27,6 +27,8 @@ import ai.startree.thirdeye.datalayer.bao.MetricConfigManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.RcaInvestigationManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.SubscriptionGroupManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.TaskManagerImpl;
+import ai.startree.thirdeye.datalayer.core.InProcessTaskNotificationChannel;
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AlertTemplateIndex;
 import ai.startree.thirdeye.datalayer.entity.AnomalyFeedbackIndex;
@@ -101,6 +103,8 @@ public class ThirdEyePersistenceModule extends AbstractModule {
     bind(AnomalyManager.class).to(AnomalyManagerImpl.class).in(
         Scopes.SINGLETON);
     bind(TaskManager.class).to(TaskManagerImpl.class).in(Scopes.SINGLETON);
+    bind(TaskNotificationChannel.class).to(InProcessTaskNotificationChannel.class).in(
+        Scopes.SINGLETON);
     bind(DataSourceManager.class).to(DataSourceManagerImpl.class).in(Scopes.SINGLETON);
     bind(DatasetConfigManager.class).to(DatasetConfigManagerImpl.class).in(Scopes.SINGLETON);
     bind(EnumerationItemManager.class).to(EnumerationItemManagerImpl.class).in(Scopes.SINGLETON);
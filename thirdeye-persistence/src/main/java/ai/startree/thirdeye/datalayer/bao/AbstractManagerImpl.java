@@ -15,16 +15,19 @@ package ai.startree.thirdeye.datalayer.bao;
 
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AbstractManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.google.inject.persist.Transactional;
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
-// todo authz - namespace filtering in child classes and this one is implemented in app. It should be performed in DB. Need to add a mapping and an index on namespace for all entities.
+// todo authz - namespace filtering in child classes and this one is implemented in app. It should be performed in DB. The namespace column is available in all index tables.
 public abstract class AbstractManagerImpl<E extends AbstractDTO> implements AbstractManager<E> {
 
   protected final GenericPojoDao genericPojoDao;
@@ -125,6 +128,18 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
     return genericPojoDao.get(daoFilter.setBeanClass(dtoClass));
   }
 
+  @Override
+  public Stream<E> findByPredicateInPages(final @Nullable Predicate predicate,
+      final int pageSize) {
+    return genericPojoDao.getInPages(predicate, (Class<E>) dtoClass, pageSize);
+  }
+
+  @Override
+  public List<E> findPageAfter(final @Nullable Predicate predicate,
+      final @Nullable KeysetCursor after, final int limit) {
+    return genericPojoDao.getPageAfter(predicate, after, (Class<E>) dtoClass, limit);
+  }
+
   @Override
   public long count() {
     return genericPojoDao.count(dtoClass);
@@ -14,41 +14,52 @@
 package ai.startree.thirdeye.datalayer.bao;
 
 import static ai.startree.thirdeye.spi.Constants.METRICS_CACHE_TIMEOUT;
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_UNKNOWN;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Suppliers.memoizeWithExpiration;
+import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.api.AnomalyStatsApi;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
 import ai.startree.thirdeye.spi.detection.AnomalyFeedback;
+import ai.startree.thirdeye.spi.detection.AnomalyFeedbackType;
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.collections4.CollectionUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -69,14 +80,27 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
   private static final AnomalyFilter HAS_NO_FEEDBACK_FILTER = NOT_CHILD_NOT_IGNORED_FILTER
       .copy().setHasFeedback(false);
 
-  // TODO inject as dependency
-  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(10,
-      new ThreadFactoryBuilder().setNameFormat("anomaly-manager-%d").build());
+  // limits the size of the IN clause of batch reads
+  private static final int MAX_IDS_PER_QUERY = 1000;
+
+  private static final Duration ANOMALY_STATS_CACHE_TTL = Duration.ofSeconds(30);
+
+  private final DistributionSummary decorateQueriesSummary;
+  // key: predicate of the anomaly stats query - contains the namespace
+  private final Cache<Predicate, AnomalyStatsApi> anomalyStatsCache = CacheBuilder.newBuilder()
+      .expireAfterWrite(ANOMALY_STATS_CACHE_TTL)
+      .maximumSize(1000)
+      .build();
 
   @Inject
   public AnomalyManagerImpl(final GenericPojoDao genericPojoDao) {
     super(AnomalyDTO.class, genericPojoDao);
 
+    this.decorateQueriesSummary = DistributionSummary.builder("thirdeye_anomaly_decorate_queries")
+        .description("Number of queries run to load the children and the feedbacks of a list of anomalies.")
+        .publishPercentileHistogram()
+        .register(Metrics.globalRegistry);
+
     Gauge.builder("thirdeye_anomalies",
             memoizeWithExpiration(() -> count(NOT_CHILD_NOT_IGNORED_FILTER),
                 METRICS_CACHE_TIMEOUT.toMinutes(),
@@ -121,6 +145,85 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     }
   }
 
+  @Override
+  public void saveAll(final List<AnomalyDTO> anomalies, final @Nullable AlertDTO alert) {
+    // group anomalies by height in the children tree: children are persisted before their parent
+    final List<List<AnomalyDTO>> levels = new ArrayList<>();
+    final Map<AnomalyDTO, Integer> heights = new IdentityHashMap<>();
+    final Set<AnomalyDTO> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (final AnomalyDTO anomaly : anomalies) {
+      requireNonNull(anomaly, "anomaly is null");
+      computeHeight(anomaly, ancestors, heights, levels);
+    }
+
+    final boolean committed = genericPojoDao.executeInTransaction(writer -> {
+      for (final List<AnomalyDTO> level : levels) {
+        final List<AnomalyDTO> toCreate = new ArrayList<>();
+        for (final AnomalyDTO anomaly : level) {
+          convertMergeAnomalyDTO2Bean(anomaly);
+          // children are at lower levels: their ids are known
+          anomaly.setChildIds(childIds(anomaly));
+          if (anomaly.getId() == null) {
+            toCreate.add(anomaly);
+          } else {
+            writer.update(anomaly);
+          }
+        }
+        writer.createAll(toCreate);
+      }
+      if (alert != null) {
+        writer.update(alert);
+      }
+    });
+    if (!committed) {
+      throw new ThirdEyeException(ERR_UNKNOWN, String.format(
+          "Failed to persist %s anomalies in a single transaction.", heights.size()));
+    }
+  }
+
+  @Override
+  public void updateAll(final List<AnomalyDTO> anomalies) {
+    for (final AnomalyDTO anomaly : anomalies) {
+      checkArgument(anomaly.getId() != null,
+          "Anomaly id is null. Anomaly id should not be null for an update");
+    }
+    saveAll(anomalies, null);
+  }
+
+  private static int computeHeight(final AnomalyDTO anomaly, final Set<AnomalyDTO> ancestors,
+      final Map<AnomalyDTO, Integer> heights, final List<List<AnomalyDTO>> levels) {
+    final Integer knownHeight = heights.get(anomaly);
+    if (knownHeight != null) {
+      return knownHeight;
+    }
+    ancestors.add(anomaly);
+    int height = 0;
+    for (final AnomalyDTO child : optional(anomaly.getChildren()).orElse(Set.of())) {
+      if (ancestors.contains(child)) {
+        throw new IllegalArgumentException("Loop detected! Child anomaly referencing ancestor");
+      }
+      child.setAuth(anomaly.getAuth());
+      child.setChild(true);
+      height = Math.max(height, computeHeight(child, ancestors, heights, levels) + 1);
+    }
+    ancestors.remove(anomaly);
+
+    heights.put(anomaly, height);
+    while (levels.size() <= height) {
+      levels.add(new ArrayList<>());
+    }
+    levels.get(height).add(anomaly);
+    return height;
+  }
+
+  private static Set<Long> childIds(final AnomalyDTO anomaly) {
+    final Set<Long> childIds = new HashSet<>();
+    for (final AnomalyDTO child : optional(anomaly.getChildren()).orElse(Set.of())) {
+      childIds.add(requireNonNull(child.getId(), "child anomaly was not persisted"));
+    }
+    return childIds;
+  }
+
   private Long saveAnomaly(final AnomalyDTO anomalyDTO,
       final Set<AnomalyDTO> visitedAnomalies) {
     Preconditions.checkNotNull(anomalyDTO);
@@ -192,7 +295,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     if (anomaly == null) {
       return null;
     }
-    return decorate(anomaly, new HashSet<>());
+    return decorate(List.of(anomaly)).get(0);
   }
 
   @Override
@@ -219,6 +322,22 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return decorateWithFeedback(anomalies);
   }
 
+  @Override
+  public Stream<AnomalyDTO> findByPredicateInPages(final @Nullable Predicate predicate,
+      final int pageSize) {
+    return genericPojoDao.getPages(predicate, AnomalyDTO.class, pageSize)
+        .flatMap(page -> decorateWithFeedback(page).stream());
+  }
+
+  @Override
+  public List<AnomalyDTO> findPageAfter(final @Nullable Predicate predicate,
+      final @Nullable KeysetCursor after, final int limit) {
+    return decorateWithFeedback(genericPojoDao.getPageAfter(predicate,
+        after,
+        AnomalyDTO.class,
+        limit));
+  }
+
   @Override
   public void updateAnomalyFeedback(final AnomalyDTO entity) {
     final AnomalyFeedbackDTO feedbackDTO = (AnomalyFeedbackDTO) entity.getFeedback();
@@ -258,8 +377,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
       if (candidate.getChildIds() != null && !candidate.getChildIds().isEmpty()) {
         for (final Long id : candidate.getChildIds()) {
           if (entity.getId().equals(id)) {
-            return decorate(candidate,
-                new HashSet<>(Collections.singleton(candidate.getId())));
+            return decorate(List.of(candidate)).get(0);
           }
         }
       }
@@ -277,69 +395,94 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return entity;
   }
 
+  /**
+   * Loads the feedbacks and the children of the anomalies, level by level: the feedbacks and the
+   * children of all the anomalies of a level are fetched with a single IN query each, whatever the
+   * number of anomalies.
+   */
   @Override
-  public List<AnomalyDTO> decorate(final List<AnomalyDTO> l) {
-    final List<Future<AnomalyDTO>> fList = l.stream()
-        .map(anomalyDTO -> EXECUTOR_SERVICE.submit(() -> decorate(anomalyDTO, new HashSet<>())))
-        .toList();
-
-    final List<AnomalyDTO> outList = new ArrayList<>(l.size());
-    for (final Future<AnomalyDTO> f : fList) {
-      try {
-        outList.add(f.get(60, TimeUnit.SECONDS));
-      } catch (final InterruptedException | TimeoutException | ExecutionException e) {
-        LOG.warn("Failed to convert MergedAnomalyResultDTO from bean: {}", e.toString());
+  public List<AnomalyDTO> decorate(final List<AnomalyDTO> anomalies) {
+    int queryCount = 0;
+    // ids of the anomaly and of its ancestors - used to prevent loops
+    final Map<AnomalyDTO, Set<Long>> ancestorIds = new IdentityHashMap<>();
+    for (final AnomalyDTO anomaly : anomalies) {
+      ancestorIds.put(anomaly, Collections.singleton(anomaly.getId()));
+    }
+    final Map<Long, AnomalyDTO> children = new HashMap<>();
+    List<AnomalyDTO> level = anomalies;
+    while (!level.isEmpty()) {
+      queryCount += fetchFeedbacks(level);
+
+      final Set<Long> childIdsToFetch = new LinkedHashSet<>();
+      for (final AnomalyDTO anomaly : level) {
+        for (final Long id : optional(anomaly.getChildIds()).orElse(Set.of())) {
+          if (id != null && !ancestorIds.get(anomaly).contains(id) && !children.containsKey(id)) {
+            childIdsToFetch.add(id);
+          }
+        }
+      }
+      for (final List<Long> ids : Lists.partition(new ArrayList<>(childIdsToFetch),
+          MAX_IDS_PER_QUERY)) {
+        genericPojoDao.get(ids, AnomalyDTO.class).forEach(c -> children.put(c.getId(), c));
+        queryCount++;
       }
-    }
-
-    return outList;
-  }
-
-  private AnomalyDTO decorate(final AnomalyDTO anomaly, final Set<Long> visitedAnomalyIds) {
-    if (anomaly.getAnomalyFeedbackId() != null) {
-      final AnomalyFeedbackDTO anomalyFeedbackDTO = genericPojoDao
-          .get(anomaly.getAnomalyFeedbackId(), AnomalyFeedbackDTO.class);
-      anomaly.setFeedback(anomalyFeedbackDTO);
-    }
-
-    visitedAnomalyIds.add(anomaly.getId());
-    anomaly.setChildren(getChildAnomalies(anomaly, visitedAnomalyIds));
-
-    return anomaly;
-  }
 
-  private Set<AnomalyDTO> getChildAnomalies(
-      final AnomalyDTO anomalyDTO, final Set<Long> visitedAnomalyIds) {
-    final Set<AnomalyDTO> children = new HashSet<>();
-    if (anomalyDTO.getChildIds() != null) {
-      for (final Long id : anomalyDTO.getChildIds()) {
-        if (id == null || visitedAnomalyIds.contains(id)) {
-          continue;
+      final List<AnomalyDTO> nextLevel = new ArrayList<>();
+      for (final AnomalyDTO anomaly : level) {
+        final Set<Long> anomalyAncestorIds = ancestorIds.get(anomaly);
+        final Set<AnomalyDTO> anomalyChildren = new HashSet<>();
+        for (final Long id : optional(anomaly.getChildIds()).orElse(Set.of())) {
+          final AnomalyDTO child = children.get(id);
+          if (child == null || anomalyAncestorIds.contains(id)) {
+            continue;
+          }
+          if (!ancestorIds.containsKey(child)) {
+            final Set<Long> childAncestorIds = new HashSet<>(anomalyAncestorIds);
+            childAncestorIds.add(id);
+            ancestorIds.put(child, childAncestorIds);
+            nextLevel.add(child);
+          }
+          anomalyChildren.add(child);
         }
-
-        final AnomalyDTO childBean = genericPojoDao.get(id,
-            AnomalyDTO.class);
-        final AnomalyDTO child = decorate(childBean, visitedAnomalyIds);
-        children.add(child);
+        anomaly.setChildren(anomalyChildren);
       }
+      level = nextLevel;
     }
-    return children;
+    decorateQueriesSummary.record(queryCount);
+
+    return new ArrayList<>(anomalies);
   }
 
   private List<AnomalyDTO> decorateWithFeedback(final List<AnomalyDTO> anomalies) {
+    fetchFeedbacks(anomalies);
+    return anomalies;
+  }
+
+  /**
+   * Sets the feedback of the anomalies.
+   *
+   * @return the number of queries run
+   */
+  private int fetchFeedbacks(final List<AnomalyDTO> anomalies) {
     final List<Long> feedbackIds = anomalies.stream()
         .map(AnomalyDTO::getAnomalyFeedbackId)
         .filter(Objects::nonNull)
+        .distinct()
         .collect(Collectors.toList());
+    if (feedbackIds.isEmpty()) {
+      return 0;
+    }
 
-    final List<AnomalyFeedbackDTO> feedbacks = genericPojoDao.get(feedbackIds,
-        AnomalyFeedbackDTO.class);
-    final Map<Long, AnomalyFeedbackDTO> feedbackMap = feedbacks.stream()
-        .collect(Collectors.toMap(AnomalyFeedbackDTO::getId, Function.identity()));
+    final Map<Long, AnomalyFeedbackDTO> feedbackMap = new HashMap<>();
+    int queryCount = 0;
+    for (final List<Long> ids : Lists.partition(feedbackIds, MAX_IDS_PER_QUERY)) {
+      genericPojoDao.get(ids, AnomalyFeedbackDTO.class).forEach(f -> feedbackMap.put(f.getId(), f));
+      queryCount++;
+    }
     anomalies.stream()
         .filter(anomaly -> anomaly.getAnomalyFeedbackId() != null)
         .forEach(anomaly -> anomaly.setFeedback(feedbackMap.get(anomaly.getAnomalyFeedbackId())));
-    return anomalies;
+    return queryCount;
   }
 
   @Override
@@ -361,6 +504,77 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return count(finalPredicate);
   }
 
+  /**
+   * Computes the stats with a single grouped count on the index tables of anomalies and
+   * feedbacks. Results are cached for a short time.
+   */
+  @Override
+  public AnomalyStatsApi anomalyStats(final @Nullable String namespace,
+      final AnomalyFilter filter) {
+    final AnomalyFilter notChildNotIgnoredFilter = filter.copy()
+        .setIsIgnored(false)
+        .setIsChild(false);
+    final Predicate predicate = Predicate.AND(toPredicate(notChildNotIgnoredFilter),
+        namespace == null ? Predicate.IS_NULL("namespace") : Predicate.EQ("namespace", namespace));
+    try {
+      return anomalyStatsCache.get(predicate, () -> computeAnomalyStats(predicate));
+    } catch (final ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private AnomalyStatsApi computeAnomalyStats(final Predicate predicate) {
+    final Map<String, Long> countPerFeedbackType = genericPojoDao.countByJoinedColumn(predicate,
+        AnomalyDTO.class,
+        "anomalyFeedbackId",
+        AnomalyFeedbackDTO.class,
+        "type");
+    final Map<AnomalyFeedbackType, Long> feedbackStats = new HashMap<>();
+    for (final AnomalyFeedbackType type : AnomalyFeedbackType.values()) {
+      feedbackStats.put(type, 0L);
+    }
+    long totalCount = 0;
+    long countWithFeedback = 0;
+    for (final Map.Entry<String, Long> e : countPerFeedbackType.entrySet()) {
+      totalCount += e.getValue();
+      if (e.getKey() != null) {
+        // anomalies without feedback are not matched in the feedback table
+        countWithFeedback += e.getValue();
+        feedbackStats.merge(AnomalyFeedbackType.valueOf(e.getKey()), e.getValue(), Long::sum);
+      }
+    }
+    return new AnomalyStatsApi()
+        .setTotalCount(totalCount)
+        .setCountWithFeedback(countWithFeedback)
+        .setFeedbackStats(feedbackStats);
+  }
+
+  /**
+   * (detectionConfigId = a1 AND enumerationItemId IN (...)) OR ... OR detectionConfigId IN (...).
+   * Alerts mapped to an empty collection match all their enumeration items.
+   */
+  private static Predicate toAlertEnumerationItemsPredicate(
+      final Map<Long, Collection<Long>> enumerationItemIdsByAlertId) {
+    checkArgument(!enumerationItemIdsByAlertId.isEmpty(),
+        "enumerationItemIdsByAlertId must not be empty");
+    final List<Predicate> predicates = new ArrayList<>();
+    final List<Long> allItemsAlertIds = new ArrayList<>();
+    for (final Map.Entry<Long, Collection<Long>> e : enumerationItemIdsByAlertId.entrySet()) {
+      if (e.getValue().isEmpty()) {
+        allItemsAlertIds.add(e.getKey());
+      } else {
+        predicates.add(Predicate.AND(
+            Predicate.EQ("detectionConfigId", e.getKey()),
+            Predicate.IN("enumerationItemId", e.getValue().toArray())));
+      }
+    }
+    if (!allItemsAlertIds.isEmpty()) {
+      predicates.add(Predicate.IN("detectionConfigId", allItemsAlertIds.toArray()));
+    }
+    return predicates.size() == 1 ? predicates.get(0)
+        : Predicate.OR(predicates.toArray(new Predicate[]{}));
+  }
+
   private Predicate toPredicate(final AnomalyFilter af) {
     final List<Predicate> predicates = new ArrayList<>();
     optional(af.getCreateTimeWindow())
@@ -379,6 +593,14 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
         .map(id -> Predicate.EQ("detectionConfigId", id))
         .ifPresent(predicates::add);
 
+    optional(af.getAlertIds())
+        .map(ids -> Predicate.IN("detectionConfigId", ids.toArray()))
+        .ifPresent(predicates::add);
+
+    optional(af.getEnumerationItemIdsByAlertId())
+        .map(AnomalyManagerImpl::toAlertEnumerationItemsPredicate)
+        .ifPresent(predicates::add);
+
     optional(af.getEnumerationItemId())
         .map(id -> Predicate.EQ("enumerationItemId", id))
         .ifPresent(predicates::add);
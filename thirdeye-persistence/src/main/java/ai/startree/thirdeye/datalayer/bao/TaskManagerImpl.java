@@ -19,8 +19,10 @@ import static ai.startree.thirdeye.spi.Constants.TASK_MAX_DELETES_PER_CLEANUP;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Suppliers.memoizeWithExpiration;
 
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
 import ai.startree.thirdeye.datalayer.dao.TaskDao;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AuthorizationConfigurationDTO;
@@ -45,7 +47,9 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -57,6 +61,7 @@ public class TaskManagerImpl implements TaskManager {
 
   private final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
   private final TaskDao dao;
+  private final TaskNotificationChannel taskNotificationChannel;
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskManagerImpl.class);
 
@@ -65,8 +70,10 @@ public class TaskManagerImpl implements TaskManager {
 
   @Inject
   public TaskManagerImpl(final TaskDao dao,
+      final TaskNotificationChannel taskNotificationChannel,
       final MetricRegistry metricRegistry) {
     this.dao = dao;
+    this.taskNotificationChannel = taskNotificationChannel;
     orphanTasksCount = metricRegistry.meter("orphanTasksCount");
     this.metricRegistry = metricRegistry;
     registerMetrics();
@@ -90,6 +97,7 @@ public class TaskManagerImpl implements TaskManager {
         .setRefId(taskInfo.getRefId());
     task.setAuth(auth);
     save(task);
+    taskNotificationChannel.signal();
     return task;
   }
 
@@ -158,16 +166,26 @@ public class TaskManagerImpl implements TaskManager {
     return dao.update(task, predicate) == 1;
   }
 
+  @Override
+  public List<TaskDTO> acquireTasksToRun(final int limit, final long workerId,
+      final Map<TaskType, Integer> limitPerType) {
+    return dao.acquireNextTasks(limit, workerId, limitPerType, System.currentTimeMillis());
+  }
+
+  @Override
+  public void releaseTasks(final List<Long> ids, final long workerId) {
+    dao.releaseTasks(ids, workerId);
+  }
+
   @Override
   public void updateStatusAndTaskEndTime(final Long id, final TaskStatus oldStatus,
       final TaskStatus newStatus,
       final Long taskEndTime, final String message) {
-    final TaskDTO task = findById(id);
-    if (task.getStatus().equals(oldStatus)) {
-      task.setStatus(newStatus);
-      task.setEndTime(taskEndTime);
-      task.setMessage(message);
-      save(task);
+    final int updated = dao.updateStatusAndEndTime(id, oldStatus, newStatus, taskEndTime,
+        message);
+    if (updated == 1 && oldStatus == TaskStatus.RUNNING) {
+      // tasks waiting on the same refId can now run
+      taskNotificationChannel.signal();
     }
   }
 
@@ -180,9 +198,12 @@ public class TaskManagerImpl implements TaskManager {
 
   @Override
   public void updateLastActive(final Long id) {
-    final TaskDTO task = findById(id);
-    task.setLastActive(new Timestamp(System.currentTimeMillis()));
-    save(task);
+    updateLastActive(List.of(id));
+  }
+
+  @Override
+  public void updateLastActive(final List<Long> ids) {
+    dao.updateLastActive(ids, new Timestamp(System.currentTimeMillis()));
   }
 
   @Override
@@ -396,6 +417,18 @@ public class TaskManagerImpl implements TaskManager {
     return dao.filter(daoFilter);
   }
 
+  @Override
+  public Stream<TaskDTO> findByPredicateInPages(final @Nullable Predicate predicate,
+      final int pageSize) {
+    return dao.getInPages(predicate, pageSize);
+  }
+
+  @Override
+  public List<TaskDTO> findPageAfter(final @Nullable Predicate predicate,
+      final @Nullable KeysetCursor after, final int limit) {
+    return dao.getPageAfter(predicate, after, limit);
+  }
+
   @Override
   public long count() {
     return dao.count();
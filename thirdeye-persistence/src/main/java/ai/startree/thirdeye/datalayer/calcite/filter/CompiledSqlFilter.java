@@ -0,0 +1,192 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.calcite.filter;
+
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_CALCITE_FILTERING;
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_INVALID_SQL;
+
+import ai.startree.thirdeye.datalayer.calcite.object.ObjectTable;
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableInterpretable;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.QueryProvider;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.runtime.Bindable;
+import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql2rel.SqlToRelConverter;
+import org.apache.calcite.tools.FrameworkConfig;
+import org.apache.calcite.tools.Frameworks;
+import org.apache.calcite.tools.Planner;
+import org.apache.calcite.tools.Programs;
+import org.apache.calcite.tools.RelConversionException;
+import org.apache.calcite.tools.ValidationException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A sql filter predicate parsed, validated, planned and compiled once.
+ *
+ * The elements are not known at compile time: the table reads them from the DataContext of each
+ * run. A compiled filter can be run concurrently on different lists of elements.
+ */
+class CompiledSqlFilter<T> {
+
+  private static final String TABLE_NAME = "objects";
+  private static final String ELEMENTS_VARIABLE = "elements";
+
+  private final ObjectWithIdToRelationAdapter<T> adapter;
+  private final String cleanTextPredicate;
+  private final SchemaPlus rootSchema;
+  private final JavaTypeFactory typeFactory;
+  // constants stashed by the code generation - read at runtime from the DataContext
+  private final Map<String, Object> parameters;
+  private final Bindable<?> bindable;
+
+  private CompiledSqlFilter(final ObjectWithIdToRelationAdapter<T> adapter,
+      final String cleanTextPredicate, final SchemaPlus rootSchema,
+      final JavaTypeFactory typeFactory, final Map<String, Object> parameters,
+      final Bindable<?> bindable) {
+    this.adapter = adapter;
+    this.cleanTextPredicate = cleanTextPredicate;
+    this.rootSchema = rootSchema;
+    this.typeFactory = typeFactory;
+    this.parameters = parameters;
+    this.bindable = bindable;
+  }
+
+  static <T> CompiledSqlFilter<T> compile(final ObjectWithIdToRelationAdapter<T> adapter,
+      final @NonNull String cleanTextPredicate) {
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    rootSchema.add(TABLE_NAME, ObjectTable.fromContextVariable(ELEMENTS_VARIABLE, adapter));
+    final String sqlQuery =
+        "select " + adapter.idColumn() + " from " + TABLE_NAME + " WHERE " + cleanTextPredicate;
+    final Planner planner = buildPlanner(rootSchema);
+    try {
+      final SqlNode sqlNode;
+      try {
+        sqlNode = planner.parse(sqlQuery);
+      } catch (SqlParseException e) {
+        throw new ThirdEyeException(e, ERR_INVALID_SQL, sqlQuery);
+      }
+      final SqlNode sqlNodeValidated = planner.validate(sqlNode);
+      final RelNode logicalPlan = planner.rel(sqlNodeValidated).project();
+      final RelNode physicalPlan = planner.transform(0,
+          logicalPlan.getTraitSet().replace(EnumerableConvention.INSTANCE),
+          logicalPlan);
+      final Map<String, Object> parameters = new HashMap<>();
+      final Bindable<?> bindable = EnumerableInterpretable.toBindable(parameters,
+          null,
+          (EnumerableRel) physicalPlan,
+          EnumerableRel.Prefer.ARRAY);
+      return new CompiledSqlFilter<>(adapter,
+          cleanTextPredicate,
+          rootSchema,
+          (JavaTypeFactory) logicalPlan.getCluster().getTypeFactory(),
+          parameters,
+          bindable);
+    } catch (RelConversionException | ValidationException e) {
+      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, cleanTextPredicate);
+    } finally {
+      planner.close();
+    }
+  }
+
+  private static Planner buildPlanner(final SchemaPlus querySchema) {
+    final SqlParser.Config insensitiveParser = SqlParser.config().withCaseSensitive(false);
+    final FrameworkConfig config = Frameworks.newConfigBuilder()
+        .sqlToRelConverterConfig(SqlToRelConverter.config().withExpand(false))
+        .parserConfig(insensitiveParser)
+        .defaultSchema(querySchema)
+        .programs(Programs.standard())
+        .build();
+
+    return Frameworks.getPlanner(config);
+  }
+
+  /**
+   * Returns the ids of the elements matching the predicate.
+   */
+  Set<Long> matchingIds(final List<T> elements) {
+    final Set<Long> matchingIds = new HashSet<>();
+    try (final Enumerator<?> enumerator = bindable.bind(new FilterDataContext(elements))
+        .enumerator()) {
+      while (enumerator.moveNext()) {
+        final Object current = enumerator.current();
+        // a single column is not wrapped in an array
+        final Object id = current instanceof Object[] row ? row[0] : current;
+        matchingIds.add(((Number) id).longValue());
+      }
+    } catch (final RuntimeException e) {
+      // for instance a failed cast in the predicate
+      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, cleanTextPredicate);
+    }
+    return matchingIds;
+  }
+
+  private class FilterDataContext implements DataContext {
+
+    private final List<T> elements;
+    private final AtomicBoolean cancelFlag = new AtomicBoolean(false);
+    private final long currentTimeMillis = System.currentTimeMillis();
+
+    private FilterDataContext(final List<T> elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    public SchemaPlus getRootSchema() {
+      return rootSchema;
+    }
+
+    @Override
+    public JavaTypeFactory getTypeFactory() {
+      return typeFactory;
+    }
+
+    @Override
+    public @Nullable QueryProvider getQueryProvider() {
+      return null;
+    }
+
+    @Override
+    public @Nullable Object get(final String name) {
+      if (ELEMENTS_VARIABLE.equals(name)) {
+        return elements;
+      } else if (Variable.CANCEL_FLAG.camelName.equals(name)) {
+        return cancelFlag;
+      } else if (Variable.UTC_TIMESTAMP.camelName.equals(name)
+          || Variable.CURRENT_TIMESTAMP.camelName.equals(name)
+          || Variable.LOCAL_TIMESTAMP.camelName.equals(name)) {
+        return currentTimeMillis;
+      } else if (Variable.TIME_ZONE.camelName.equals(name)) {
+        return TimeZone.getTimeZone("UTC");
+      }
+      return parameters.get(name);
+    }
+  }
+}
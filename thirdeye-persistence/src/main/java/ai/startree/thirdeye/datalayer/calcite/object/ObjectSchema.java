@@ -1,54 +0,0 @@
-/*
- * Copyright 2024 StarTree Inc
- *
- * Licensed under the StarTree Community License (the "License"); you may not use
- * this file except in compliance with the License. You may obtain a copy of the
- * License at http://www.startree.ai/legal/startree-community-license
- *
- * Unless required by applicable law or agreed to in writing, software distributed under the
- * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
- * either express or implied.
- * See the License for the specific language governing permissions and limitations under
- * the License.
- */
-package ai.startree.thirdeye.datalayer.calcite.object;
-
-import java.util.List;
-import java.util.Map;
-import org.apache.calcite.schema.Table;
-import org.apache.calcite.schema.impl.AbstractSchema;
-
-/**
- * Allow SQL on any list of Object with an ObjectToRelationAdapter.
- *
- * There is only one table in this schema, it corresponds to the list of objects.
- *
- * Could be generalized to multiple tables - see how it's done in DataFrameSchema
- */
-public class ObjectSchema<T> extends AbstractSchema {
-
-  private static final String SINGLE_TABLE_NAME = "objects";
-
-  private final List<T> elements;
-  private final ObjectToRelationAdapter<T> adapter;
-  private Map<String, Table> tableMap;
-
-  public ObjectSchema(final List<T> elements, final ObjectToRelationAdapter<T> adapter) {
-    super();
-    this.elements = elements;
-    this.adapter = adapter;
-  }
-
-  public String singleTableName() {
-    return SINGLE_TABLE_NAME;
-  }
-
-  @Override
-  protected Map<String, Table> getTableMap() {
-    if (tableMap == null) {
-      final Table table = new ObjectTable<>(elements, adapter);
-      tableMap = Map.of(SINGLE_TABLE_NAME, table);
-    }
-    return tableMap;
-  }
-}
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.datalayer.calcite.object;
 
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.linq4j.AbstractEnumerable;
 import org.apache.calcite.linq4j.Enumerable;
@@ -32,18 +33,35 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  */
 public class ObjectTable<T> extends AbstractTable implements ScannableTable {
 
-  private final @NonNull List<T> elements;
+  private final @NonNull Function<DataContext, List<T>> elementsProvider;
   private final @NonNull ObjectToRelationAdapter<T> adapter;
   private @Nullable RelDataType rowType;
 
   public ObjectTable(final @NonNull List<T> elements, final @NonNull ObjectToRelationAdapter<T> adapter) {
-    this.elements = elements;
+    this(root -> elements, adapter);
+  }
+
+  private ObjectTable(final @NonNull Function<DataContext, List<T>> elementsProvider,
+      final @NonNull ObjectToRelationAdapter<T> adapter) {
+    this.elementsProvider = elementsProvider;
     this.adapter = adapter;
   }
 
+  /**
+   * Table whose elements are read from the DataContext variable {@code variableName} at scan time.
+   * A query on this table can be planned and compiled once, then run on different lists of
+   * elements.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> ObjectTable<T> fromContextVariable(final @NonNull String variableName,
+      final @NonNull ObjectToRelationAdapter<T> adapter) {
+    return new ObjectTable<>(root -> (List<T>) root.get(variableName), adapter);
+  }
+
   @Override
   public Enumerable<Object[]> scan(final DataContext root) {
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+    final List<T> elements = elementsProvider.apply(root);
     return new AbstractEnumerable<>() {
       @Override
       public Enumerator<@Nullable Object[]> enumerator() {
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.datalayer.dao.TaskDao;
+import java.time.Duration;
+
+/**
+ * Notification channel for setups where tasks are created by other nodes.
+ *
+ * The watermark is the max id of the WAITING tasks - a read of the status index. It increases
+ * when a task is created on another node. Claims, heartbeats and status updates of RUNNING tasks
+ * do not wake up runners. A task that becomes claimable without a new id, for instance when a
+ * task completes on another node and unblocks the WAITING tasks with the same refId, is picked
+ * up at the next claim of the runners, after their await timeout at the latest.
+ *
+ * Waits on the given in-process channel in slices of pollInterval and checks the task table
+ * watermark between slices, so tasks created in the same JVM still wake up runners immediately.
+ */
+public class DatabaseTaskNotificationChannel implements TaskNotificationChannel {
+
+  private final TaskNotificationChannel inProcessChannel;
+  private final TaskDao taskDao;
+  private final long pollIntervalMillis;
+
+  public DatabaseTaskNotificationChannel(final TaskNotificationChannel inProcessChannel,
+      final TaskDao taskDao, final Duration pollInterval) {
+    checkArgument(pollInterval.toMillis() > 0, "pollInterval must be strictly positive");
+    this.inProcessChannel = inProcessChannel;
+    this.taskDao = taskDao;
+    this.pollIntervalMillis = pollInterval.toMillis();
+  }
+
+  @Override
+  public void signal() {
+    inProcessChannel.signal();
+  }
+
+  @Override
+  public long watermark() {
+    return taskDao.getMaxWaitingId();
+  }
+
+  @Override
+  public boolean await(final long watermark, final long timeoutMillis)
+      throws InterruptedException {
+    final long inProcessWatermark = inProcessChannel.watermark();
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    long remaining = timeoutMillis;
+    while (remaining > 0) {
+      if (inProcessChannel.await(inProcessWatermark, Math.min(pollIntervalMillis, remaining))) {
+        return true;
+      }
+      if (watermark() > watermark) {
+        return true;
+      }
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return false;
+  }
+}
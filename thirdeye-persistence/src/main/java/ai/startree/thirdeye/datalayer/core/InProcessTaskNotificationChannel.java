@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import com.google.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Notification channel for a scheduler and a worker running in the same JVM.
+ * The watermark is the number of signals received.
+ */
+@Singleton
+public class InProcessTaskNotificationChannel implements TaskNotificationChannel {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition signaled = lock.newCondition();
+  private long signalCount = 0;
+
+  @Override
+  public void signal() {
+    lock.lock();
+    try {
+      signalCount++;
+      signaled.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long watermark() {
+    lock.lock();
+    try {
+      return signalCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean await(final long watermark, final long timeoutMillis)
+      throws InterruptedException {
+    lock.lock();
+    try {
+      long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      while (signalCount <= watermark) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = signaled.awaitNanos(remainingNanos);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
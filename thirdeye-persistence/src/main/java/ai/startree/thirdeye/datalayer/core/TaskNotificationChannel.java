@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+/**
+ * Channel used to wake up idle task runners when a task may have become available to run.
+ *
+ * A notification is only a hint: runners still claim tasks from the persistence layer and fall
+ * back to polling when no notification is received before the timeout.
+ */
+public interface TaskNotificationChannel {
+
+  /**
+   * Signals that a task may have become available to run.
+   */
+  void signal();
+
+  /**
+   * Returns the current watermark of the channel. Read it before checking for tasks, then pass
+   * it to {@link #await} to not miss a signal received in between.
+   */
+  long watermark();
+
+  /**
+   * Blocks until the channel moves past the given watermark or the timeout elapses.
+   *
+   * @return true if the channel moved past the watermark, false if the timeout elapsed
+   */
+  boolean await(long watermark, long timeoutMillis) throws InterruptedException;
+}
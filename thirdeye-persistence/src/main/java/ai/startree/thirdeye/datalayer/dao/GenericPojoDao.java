@@ -36,6 +36,7 @@ import ai.startree.thirdeye.datalayer.entity.SubEntityType;
 import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.ThirdEyeStatus;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -43,11 +44,16 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.collections4.CollectionUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.reflections.ReflectionUtils;
@@ -171,25 +177,8 @@ public class GenericPojoDao {
     pojo.setUpdateTime(new Timestamp(System.currentTimeMillis()));
 
     try {
-      final GenericJsonEntity genericJsonEntity = toGenericJsonEntity(pojo);
-      final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
-      return databaseClient.executeTransaction((connection) -> {
-        Integer ret = databaseOrm.update(genericJsonEntity, predicate, connection);
-        //update indexes
-        if (ret == 1) {
-          if (indexClass != null) {
-            final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
-                indexClass,
-                genericJsonEntity.getJsonVal());
-            //updates all columns in the index table by default
-            ret = databaseOrm.update(abstractIndexEntity, null, connection);
-          }
-        }
-        if (ret > 1) {
-          throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
-        }
-        return ret;
-      }, 0);
+      return databaseClient.executeTransaction(
+          (connection) -> update(pojo, predicate, connection), 0);
     } catch (final Exception e) {
       pojo.setUpdateTime(lastUpdateTime);
       LOG.error("Could not update entity : {}", pojo, e);
@@ -197,6 +186,50 @@ public class GenericPojoDao {
     }
   }
 
+  private <E extends AbstractDTO> int update(final E pojo, final @Nullable Predicate predicate,
+      final Connection connection) throws Exception {
+    final GenericJsonEntity genericJsonEntity = toGenericJsonEntity(pojo);
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
+    Integer ret = databaseOrm.update(genericJsonEntity, predicate, connection);
+    //update indexes
+    if (ret == 1) {
+      if (indexClass != null) {
+        final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
+            indexClass,
+            genericJsonEntity.getJsonVal());
+        //updates all columns in the index table by default
+        ret = databaseOrm.update(abstractIndexEntity, null, connection);
+      }
+    }
+    if (ret > 1) {
+      throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+    }
+    return ret;
+  }
+
+  /**
+   * Runs the write operation in a single transaction. If the operation throws, the transaction is
+   * rolled back and the ids set on the pojos created by the operation are reset to null.
+   *
+   * @return true if the transaction was committed
+   */
+  public boolean executeInTransaction(final WriteOperation operation) {
+    final List<AbstractDTO> created = new ArrayList<>();
+    boolean committed = false;
+    try {
+      committed = databaseClient.executeTransaction((connection) -> {
+        operation.apply(new TransactionWriter(connection, created));
+        return true;
+      }, false);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+    }
+    if (!committed) {
+      created.forEach(pojo -> pojo.setId(null));
+    }
+    return committed;
+  }
+
   public <E extends AbstractDTO> List<E> list(final Class<E> beanClass, final long limit,
       final long offset) {
     try {
@@ -237,6 +270,35 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Counts the entities matching the predicate, grouped by a column of the index table of
+   * another entity. The entities are joined with entity.foreignKeyField = joinedEntity.id. Only
+   * index tables are read.
+   *
+   * @return the count per group value. Entities without match are counted with the null key.
+   *     Returns an empty map if the query failed.
+   */
+  public <E extends AbstractDTO> Map<String, Long> countByJoinedColumn(
+      final @Nullable Predicate predicate, final Class<E> beanClass, final String foreignKeyField,
+      final Class<? extends AbstractDTO> joinedBeanClass, final String groupByField) {
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(beanClass);
+    final Class<? extends AbstractIndexEntity> joinedIndexClass = BEAN_INDEX_MAP.get(
+        joinedBeanClass);
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.countByJoinedColumn(predicate,
+              indexClass,
+              foreignKeyField,
+              joinedIndexClass,
+              groupByField,
+              connection),
+          Map.of());
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Map.of();
+    }
+  }
+
   public <E extends AbstractDTO> E get(final Long id, final Class<E> pojoClass) {
     try {
       final GenericJsonEntity genericJsonEntity = databaseClient.executeTransaction(
@@ -310,6 +372,63 @@ public class GenericPojoDao {
     return (List<E>) get(ids, beanClass);
   }
 
+  /**
+   * Returns the entities matching the predicate, in id order. Pages of pageSize ids are read
+   * lazily from the index table with a keyset on the id, then the entities of the page are
+   * loaded. Only one page of entities is held at a time.
+   *
+   * A database error fails the stream instead of ending it early.
+   *
+   * @param predicate filter on the index table. null means no filter.
+   */
+  public <E extends AbstractDTO> Stream<E> getInPages(final @Nullable Predicate predicate,
+      final Class<E> beanClass, final int pageSize) {
+    return getPages(predicate, beanClass, pageSize).flatMap(List::stream);
+  }
+
+  /**
+   * Same as {@link #getInPages} but returns the pages, for callers that process a page at once.
+   */
+  public <E extends AbstractDTO> Stream<List<E>> getPages(final @Nullable Predicate predicate,
+      final Class<E> beanClass, final int pageSize) {
+    return KeysetPages.<Long>stream(lastId -> {
+          final Predicate afterLastId = Predicate.GT("baseId", lastId == null ? 0 : lastId);
+          return fetchIdsOrThrow(new DaoFilter()
+                  .setBeanClass(beanClass)
+                  .setPredicate(
+                      predicate == null ? afterLastId : Predicate.AND(predicate, afterLastId))
+                  .setLimit((long) pageSize),
+              List.of("baseId"));
+        }, pageSize)
+        .map(pageIds -> getOrThrow(pageIds, beanClass).stream()
+            .sorted(Comparator.comparing(AbstractDTO::getId))
+            .collect(Collectors.toList()));
+  }
+
+  /**
+   * Returns at most limit entities matching the predicate and strictly after the cursor, in
+   * (createTime, id) order. The keyset is applied on the index table. Entities without
+   * createTime are not returned. A database error is rethrown.
+   *
+   * @param predicate filter on the index table. null means no filter.
+   * @param after null means the first page.
+   */
+  public <E extends AbstractDTO> List<E> getPageAfter(final @Nullable Predicate predicate,
+      final @Nullable KeysetCursor after, final Class<E> beanClass, final int limit) {
+    final Predicate keyset = KeysetPages.keyset(after, "createTime", "baseId");
+    final List<Long> ids = fetchIdsOrThrow(new DaoFilter()
+            .setBeanClass(beanClass)
+            .setPredicate(predicate == null ? keyset : Predicate.AND(predicate, keyset))
+            .setLimit((long) limit),
+        List.of("createTime", "baseId"));
+    if (ids.isEmpty()) {
+      return emptyList();
+    }
+    return getOrThrow(ids, beanClass).stream()
+        .sorted(KeysetPages.CREATE_TIME_ID_ORDER)
+        .collect(Collectors.toList());
+  }
+
   private <E extends AbstractDTO> List<E> fetchEntities(final Class<E> pojoClass,
       final Predicate predicate)
       throws SQLException, JsonProcessingException {
@@ -330,31 +449,62 @@ public class GenericPojoDao {
   }
 
   private List<Long> fetchIds(final DaoFilter daoFilter) {
-    //apply the predicates and fetch the primary key ids
-    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(
-        daoFilter.getBeanClass());
+    return fetchIds(daoFilter, optional(daoFilter.getOrderByKey()).map(List::of).orElse(List.of()));
+  }
+
+  private List<Long> fetchIds(final DaoFilter daoFilter, final List<String> orderByKeys) {
     try {
-      validate(daoFilter);
-      //find the matching ids
-      final List<? extends AbstractIndexEntity> indexEntities = databaseClient.executeTransaction(
-          (connection) -> databaseOrm.findAll(daoFilter.getPredicate(),
-              daoFilter.getLimit(),
-              daoFilter.getOffset(),
-              indexClass,
-              connection), emptyList());
-      final List<Long> idsToReturn = new ArrayList<>();
-      if (CollectionUtils.isNotEmpty(indexEntities)) {
-        for (final AbstractIndexEntity entity : indexEntities) {
-          idsToReturn.add(entity.getBaseId());
-        }
-      }
-      return idsToReturn;
+      return queryIds(daoFilter, orderByKeys);
     } catch (final SQLException e) {
       LOG.error(e.getMessage(), e);
       return emptyList();
     }
   }
 
+  /**
+   * Used by the paged readers: an empty page means the end of the data, so errors are rethrown.
+   */
+  private List<Long> fetchIdsOrThrow(final DaoFilter daoFilter, final List<String> orderByKeys) {
+    try {
+      return queryIds(daoFilter, orderByKeys);
+    } catch (final SQLException e) {
+      throw new RuntimeException("Failed to read a page of " + daoFilter.getBeanClass(), e);
+    }
+  }
+
+  private <E extends AbstractDTO> List<E> getOrThrow(final List<Long> idList,
+      final Class<E> pojoClass) {
+    try {
+      return fetchEntities(pojoClass, Predicate.IN("id", idList.toArray()));
+    } catch (final JsonProcessingException | SQLException e) {
+      throw new RuntimeException("Failed to read a page of " + pojoClass, e);
+    }
+  }
+
+  private List<Long> queryIds(final DaoFilter daoFilter, final List<String> orderByKeys)
+      throws SQLException {
+    //apply the predicates and fetch the primary key ids
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(
+        daoFilter.getBeanClass());
+    validate(daoFilter);
+    //find the matching ids
+    final List<? extends AbstractIndexEntity> indexEntities = databaseClient.executeTransaction(
+        (connection) -> databaseOrm.findAll(daoFilter.getPredicate(),
+            orderByKeys,
+            daoFilter.isDesc(),
+            daoFilter.getLimit(),
+            daoFilter.getOffset(),
+            indexClass,
+            connection), emptyList());
+    final List<Long> idsToReturn = new ArrayList<>();
+    if (CollectionUtils.isNotEmpty(indexEntities)) {
+      for (final AbstractIndexEntity entity : indexEntities) {
+        idsToReturn.add(entity.getBaseId());
+      }
+    }
+    return idsToReturn;
+  }
+
   /**
    * Dump all entities of type entityClass to logger
    * This utility is useful to dump the entire table. However, it gets executed in code regularly in
@@ -414,4 +564,74 @@ public class GenericPojoDao {
         new DaoFilter().setPredicate(predicate).setBeanClass(pojoClass));
     return delete(idsToDelete, pojoClass);
   }
+
+  public interface WriteOperation {
+
+    void apply(TransactionWriter writer) throws Exception;
+  }
+
+  /**
+   * Writes pojos in the transaction of {@link #executeInTransaction}.
+   */
+  public class TransactionWriter {
+
+    private final Connection connection;
+    private final List<AbstractDTO> created;
+
+    private TransactionWriter(final Connection connection, final List<AbstractDTO> created) {
+      this.connection = connection;
+      this.created = created;
+    }
+
+    /**
+     * Creates the pojos with one batch insert in the entity table and one batch insert in the
+     * index table. Pojos must be of the same class. The generated ids are set on the pojos.
+     */
+    public <E extends AbstractDTO> void createAll(final List<E> pojos) throws Exception {
+      if (pojos.isEmpty()) {
+        return;
+      }
+      final Class<? extends AbstractDTO> pojoClass = pojos.get(0).getClass();
+      final Timestamp now = new Timestamp(System.currentTimeMillis());
+      final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+      for (final E pojo : pojos) {
+        checkArgument(pojo.getId() == null, "id must be null for create flow.");
+        checkArgument(pojo.getClass() == pojoClass, "pojos must be of the same class.");
+        if (pojo.getCreateTime() == null) {
+          pojo.setCreateTime(now);
+        }
+        entities.add(toGenericJsonEntity(pojo));
+      }
+      final List<Long> ids = databaseOrm.saveAll(entities, connection);
+      for (int i = 0; i < pojos.size(); i++) {
+        pojos.get(i).setId(ids.get(i));
+        created.add(pojos.get(i));
+      }
+
+      final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojoClass);
+      if (indexClass != null) {
+        final List<AbstractIndexEntity> indexEntities = new ArrayList<>(pojos.size());
+        for (int i = 0; i < pojos.size(); i++) {
+          final E pojo = pojos.get(i);
+          final AbstractIndexEntity indexEntity = toAbstractIndexEntity(pojo,
+              indexClass,
+              entities.get(i).getJsonVal());
+          indexEntity.setVersion(1);
+          indexEntity.setCreateTime(pojo.getCreateTime());
+          indexEntities.add(indexEntity);
+        }
+        databaseOrm.saveAll(indexEntities, connection);
+      }
+    }
+
+    /**
+     * Updates the pojo. Throws if the pojo does not exist.
+     */
+    public <E extends AbstractDTO> void update(final E pojo) throws Exception {
+      checkNotNull(pojo.getId(), "An id is required to update the entity: %s", pojo);
+      pojo.setUpdateTime(new Timestamp(System.currentTimeMillis()));
+      final int updated = GenericPojoDao.this.update(pojo, null, connection);
+      checkState(updated == 1, "Could not update entity with id %s", pojo.getId());
+    }
+  }
 }
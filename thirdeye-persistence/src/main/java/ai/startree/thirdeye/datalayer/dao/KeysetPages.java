@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Lazy keyset pagination: a page is read only when the previous one is consumed. Each page is
+ * read with the last element of the previous page as the key.
+ */
+class KeysetPages {
+
+  static final Comparator<AbstractDTO> CREATE_TIME_ID_ORDER = Comparator
+      .comparing(AbstractDTO::getCreateTime)
+      .thenComparing(AbstractDTO::getId);
+
+  /**
+   * Predicate on the (createTime, id) keyset. The first page, when after is null, excludes the
+   * entities without createTime because they cannot be positioned by a cursor.
+   */
+  static Predicate keyset(final @Nullable KeysetCursor after, final String createTimeKey,
+      final String idKey) {
+    return after == null ? Predicate.IS_NOT_NULL(createTimeKey) : after.after(createTimeKey, idKey);
+  }
+
+  /**
+   * @param pageAfter returns the page of at most pageSize elements after the given element. The
+   *     element is null for the first page.
+   */
+  static <T> Stream<List<T>> stream(final Function<@Nullable T, List<T>> pageAfter,
+      final int pageSize) {
+    checkArgument(pageSize > 0, "pageSize must be strictly positive. Got: %s", pageSize);
+    final Iterator<List<T>> pages = new Iterator<>() {
+      private @Nullable T last = null;
+      private boolean exhausted = false;
+      private @Nullable List<T> nextPage = null;
+
+      @Override
+      public boolean hasNext() {
+        if (nextPage == null && !exhausted) {
+          nextPage = pageAfter.apply(last);
+          exhausted = nextPage.size() < pageSize;
+        }
+        return nextPage != null && !nextPage.isEmpty();
+      }
+
+      @Override
+      public List<T> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final List<T> page = nextPage;
+        nextPage = null;
+        last = page.get(page.size() - 1);
+        return page;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED),
+        false);
+  }
+}
@@ -20,20 +20,29 @@ import ai.startree.thirdeye.datalayer.DatabaseOrm;
 import ai.startree.thirdeye.datalayer.entity.TaskEntity;
 import ai.startree.thirdeye.datalayer.mapper.TaskEntityMapper;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import ai.startree.thirdeye.spi.task.TaskType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 import org.apache.commons.collections4.CollectionUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
@@ -74,6 +83,8 @@ public class TaskDao {
     dto.setCreateTime(entity.getCreateTime());
     dto.setUpdateTime(entity.getUpdateTime());
     dto.setVersion(entity.getVersion());
+    // the heartbeat only updates the column - see updateLastActive
+    dto.setLastActive(entity.getLastActive());
     return dto;
   }
 
@@ -155,6 +166,67 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Column-level update of the status, end time and message of a task, if the task is in status
+   * oldStatus. The json_val is updated in the same statement, the task is not read. The version
+   * is incremented, like in every column-level task update.
+   *
+   * @return the number of updated rows: 0 if the task is not in status oldStatus.
+   */
+  public int updateStatusAndEndTime(final long id, final TaskStatus oldStatus,
+      final TaskStatus newStatus, final long endTime, final @Nullable String message) {
+    final String sql = """
+        UPDATE task_entity
+        SET status = ?, end_time = ?, update_time = ?, version = version + 1,
+        json_val = JSON_SET(json_val, '$.status', ?, '$.endTime', ?, '$.message', ?)
+        WHERE id = ? AND status = ?
+        """;
+    final List<Object> parameters = Arrays.asList(newStatus.toString(),
+        endTime,
+        new Timestamp(System.currentTimeMillis()),
+        newStatus.toString(),
+        endTime,
+        message,
+        id,
+        oldStatus.toString());
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.executeUpdate(sql, parameters, connection),
+          0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
+  /**
+   * Sets the last_active column of the RUNNING tasks in ids with a single statement. Only the
+   * column and the version are updated: {@link #toDto} reads lastActive from the column.
+   *
+   * @return the number of updated rows
+   */
+  public int updateLastActive(final List<Long> ids, final Timestamp lastActive) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    final String sql = """
+        UPDATE task_entity
+        SET last_active = ?, version = version + 1
+        WHERE status = 'RUNNING' AND id IN (%s)
+        """.formatted(String.join(",", Collections.nCopies(ids.size(), "?")));
+    final List<Object> parameters = new ArrayList<>(ids.size() + 1);
+    parameters.add(lastActive);
+    parameters.addAll(ids);
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.executeUpdate(sql, parameters, connection),
+          0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
   public List<TaskDTO> getAll() {
     try {
       final List<TaskEntity> entities = databaseClient.executeTransaction(
@@ -225,6 +297,63 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Returns the tasks matching the predicate, in id order. Pages of pageSize tasks are read
+   * lazily with a keyset on the id. A database error fails the stream.
+   *
+   * @param predicate null means no filter.
+   */
+  public Stream<TaskDTO> getInPages(final @Nullable Predicate predicate, final int pageSize) {
+    return KeysetPages.<TaskDTO>stream(last -> {
+      final Predicate afterLast = Predicate.GT("id", last == null ? 0 : last.getId());
+      try {
+        final List<TaskEntity> entities = databaseClient.executeTransaction(
+            (connection) -> databaseOrm.findAll(
+                predicate == null ? afterLast : Predicate.AND(predicate, afterLast),
+                List.of("id"),
+                false,
+                (long) pageSize,
+                null,
+                TaskEntity.class,
+                connection),
+            Collections.emptyList());
+        return toDto(entities);
+      } catch (final JsonProcessingException | SQLException e) {
+        // an empty page would end the stream silently
+        throw new RuntimeException("Failed to read a page of tasks", e);
+      }
+    }, pageSize).flatMap(List::stream);
+  }
+
+  /**
+   * Returns at most limit tasks matching the predicate and strictly after the cursor, in
+   * (createTime, id) order. Tasks without createTime are not returned. A database error is
+   * rethrown.
+   *
+   * @param predicate null means no filter.
+   * @param after null means the first page.
+   */
+  public List<TaskDTO> getPageAfter(final @Nullable Predicate predicate,
+      final @Nullable KeysetCursor after, final int limit) {
+    final Predicate keyset = KeysetPages.keyset(after, "createTime", "id");
+    try {
+      final List<TaskEntity> entities = databaseClient.executeTransaction(
+          (connection) -> databaseOrm.findAll(
+              predicate == null ? keyset : Predicate.AND(predicate, keyset),
+              List.of("createTime", "id"),
+              false,
+              (long) limit,
+              null,
+              TaskEntity.class,
+              connection),
+          Collections.emptyList());
+      return toDto(entities);
+    } catch (final JsonProcessingException | SQLException e) {
+      // an empty page would look like the last page
+      throw new RuntimeException("Failed to read a page of tasks", e);
+    }
+  }
+
   public long count() {
     try {
       return databaseClient.executeTransaction(
@@ -247,6 +376,26 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Returns the max id of the WAITING tasks, 0 if no task is WAITING. It increases when a task is
+   * created, and when a task with a greater id than the WAITING tasks is released back to
+   * WAITING. Claims, heartbeats and status updates of RUNNING tasks do not increase it. The
+   * lookup uses the status index and does not write anything.
+   */
+  public long getMaxWaitingId() {
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.selectLong(
+              "SELECT max(id) FROM task_entity WHERE status = ?",
+              List.of(TaskStatus.WAITING.toString()),
+              connection),
+          0L);
+    } catch (SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
   /**
    * @param parameterizedSQL second part of the sql (omit select from table section)
    */
@@ -266,6 +415,179 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Claims up to limit WAITING tasks for the given worker in a single transaction.
+   *
+   * Candidate rows are selected with FOR UPDATE SKIP LOCKED: rows already locked by a
+   * concurrent claim are skipped instead of waited on, so concurrent workers get disjoint
+   * batches without version conflicts. At most one task per refId is claimed in a batch.
+   * Only tasks of the types in limitPerType are selected, so that a worker does not claim tasks
+   * of a type it cannot start, and at most limitPerType.get(type) tasks of each type are claimed.
+   * The subquery on RUNNING tasks is a non-locking read: two workers can claim WAITING tasks with
+   * the same refId concurrently. After the claim is committed, conflicting claims are resolved
+   * by {@link #releaseConflictingClaims(List, long)}.
+   *
+   * @param limit maximum number of tasks to claim
+   * @param workerId the worker claiming the tasks
+   * @param limitPerType the maximum number of tasks to claim for each task type
+   * @param claimTime the start time set on claimed tasks
+   * @return the claimed tasks, in status RUNNING. Empty if nothing could be claimed.
+   */
+  public List<TaskDTO> acquireNextTasks(final int limit, final long workerId,
+      final Map<TaskType, Integer> limitPerType, final long claimTime) {
+    Preconditions.checkArgument(limit > 0, "limit must be strictly positive. Got %s", limit);
+    final Map<TaskType, Integer> remainingPerType = new EnumMap<>(TaskType.class);
+    limitPerType.forEach((type, typeLimit) -> {
+      if (typeLimit > 0) {
+        remainingPerType.put(type, typeLimit);
+      }
+    });
+    if (remainingPerType.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final String queryClause = """
+        WHERE status = 'WAITING'
+        AND type IN (%s)
+        AND ref_id not in (select ref_id from task_entity where status = 'RUNNING')
+        ORDER BY create_time ASC LIMIT %d
+        FOR UPDATE SKIP LOCKED
+        """.formatted(String.join(",",
+            remainingPerType.keySet().stream().map(type -> "'" + type.name() + "'").toList()),
+        limit);
+    final List<TaskDTO> claimedTasks;
+    try {
+      claimedTasks = databaseClient.executeTransaction((connection) -> {
+        final List<TaskEntity> candidates = databaseOrm.runSQL(queryClause,
+            Collections.emptyMap(),
+            TaskEntity.class,
+            connection);
+        final List<TaskDTO> claimed = new ArrayList<>();
+        final Set<Long> claimedRefIds = new HashSet<>();
+        for (final TaskEntity candidate : candidates) {
+          if (remainingPerType.get(TaskType.valueOf(candidate.getType())) == 0) {
+            // enough tasks of this type are claimed in this batch - leave this one WAITING
+            continue;
+          }
+          if (candidate.getRefId() != null && !claimedRefIds.add(candidate.getRefId())) {
+            // another task with the same refId is claimed in this batch - leave this one WAITING
+            continue;
+          }
+          final TaskDTO task = toDto(candidate);
+          final int currentVersion = task.getVersion();
+          task.setStatus(TaskStatus.RUNNING)
+              .setWorkerId(workerId)
+              .setStartTime(claimTime)
+              .setVersion(currentVersion + 1);
+          final TaskEntity entity = toEntity(task);
+          final Predicate predicate = Predicate.AND(
+              Predicate.EQ("version", currentVersion),
+              Predicate.EQ("status", TaskStatus.WAITING.toString()));
+          if (databaseOrm.update(entity, predicate, connection) == 1) {
+            claimed.add(task);
+            remainingPerType.merge(task.getTaskType(), -1, Integer::sum);
+          }
+        }
+        return claimed;
+      }, Collections.emptyList());
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Collections.emptyList();
+    }
+    return releaseConflictingClaims(claimedTasks, workerId);
+  }
+
+  /**
+   * Releases the claimed tasks that have another RUNNING task with the same refId and a lower id.
+   *
+   * The RUNNING tasks of the claimed refIds are read with a locking read: the check waits for
+   * in-flight claims of the same refIds and sees them once they are committed. When two workers
+   * claim tasks with the same refId concurrently, both checks see both claims and agree on the
+   * task to keep: the one with the lowest id. The other one is released back to WAITING.
+   * Releasing every conflicting claim instead would let two concurrent claimers release each
+   * other indefinitely and starve the refId.
+   *
+   * @return the claimed tasks that were kept
+   */
+  @VisibleForTesting
+  List<TaskDTO> releaseConflictingClaims(final List<TaskDTO> claimed,
+      final long workerId) {
+    final Set<Long> refIds = new HashSet<>();
+    for (final TaskDTO task : claimed) {
+      if (task.getRefId() != null) {
+        refIds.add(task.getRefId());
+      }
+    }
+    if (refIds.isEmpty()) {
+      return claimed;
+    }
+    final String queryClause = "WHERE status = 'RUNNING' AND ref_id IN (%s) FOR UPDATE".formatted(
+        String.join(",", refIds.stream().map(String::valueOf).toList()));
+    final List<TaskEntity> running;
+    try {
+      running = databaseClient.executeTransaction(
+          (connection) -> databaseOrm.runSQL(queryClause,
+              Collections.emptyMap(),
+              TaskEntity.class,
+              connection),
+          Collections.emptyList());
+    } catch (final SQLException e) {
+      // cannot check for conflicts - release everything, the tasks will be claimed again
+      LOG.error(e.getMessage(), e);
+      releaseTasks(claimed.stream().map(TaskDTO::getId).toList(), workerId);
+      return Collections.emptyList();
+    }
+    final List<TaskDTO> kept = new ArrayList<>();
+    final List<Long> conflicting = new ArrayList<>();
+    for (final TaskDTO task : claimed) {
+      final boolean conflict = task.getRefId() != null && running.stream()
+          .anyMatch(e -> task.getRefId().equals(e.getRefId()) && e.getId() < task.getId());
+      if (conflict) {
+        conflicting.add(task.getId());
+      } else {
+        kept.add(task);
+      }
+    }
+    if (!conflicting.isEmpty()) {
+      LOG.info("Releasing tasks {}: a task with the same refId and a lower id is running",
+          conflicting);
+      releaseTasks(conflicting, workerId);
+    }
+    return kept;
+  }
+
+  /**
+   * Puts the RUNNING tasks in ids claimed by workerId back in status WAITING, with a single
+   * column-level statement. The json_val is updated in the same statement.
+   *
+   * @return the number of released tasks
+   */
+  public int releaseTasks(final List<Long> ids, final long workerId) {
+    if (ids.isEmpty()) {
+      return 0;
+    }
+    final String sql = """
+        UPDATE task_entity
+        SET status = ?, update_time = ?, version = version + 1,
+        json_val = JSON_SET(json_val, '$.status', ?)
+        WHERE status = ? AND worker_id = ? AND id IN (%s)
+        """.formatted(String.join(",", Collections.nCopies(ids.size(), "?")));
+    final List<Object> parameters = new ArrayList<>(ids.size() + 5);
+    parameters.add(TaskStatus.WAITING.toString());
+    parameters.add(new Timestamp(System.currentTimeMillis()));
+    parameters.add(TaskStatus.WAITING.toString());
+    parameters.add(TaskStatus.RUNNING.toString());
+    parameters.add(workerId);
+    parameters.addAll(ids);
+    try {
+      return databaseClient.executeTransaction(
+          (connection) -> databaseOrm.executeUpdate(sql, parameters, connection),
+          0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
   /**
    * Dump all entities of type entityClass to logger
    * This utility is useful to dump the entire table. However, it gets executed in code regularly in
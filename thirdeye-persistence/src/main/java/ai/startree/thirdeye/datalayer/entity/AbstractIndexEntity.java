@@ -16,6 +16,7 @@ package ai.startree.thirdeye.datalayer.entity;
 public abstract class AbstractIndexEntity extends AbstractEntity {
 
   protected Long baseId;
+  protected String namespace;
 
   public Long getBaseId() {
     return baseId;
@@ -24,4 +25,13 @@ public abstract class AbstractIndexEntity extends AbstractEntity {
   public void setBaseId(Long baseId) {
     this.baseId = baseId;
   }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public AbstractIndexEntity setNamespace(final String namespace) {
+    this.namespace = namespace;
+    return this;
+  }
 }
@@ -28,6 +28,7 @@ public class TaskEntity extends AbstractEntity implements HasJsonVal<TaskEntity>
   private String jsonVal;
 
   private Long refId;
+  private String namespace;
 
   @Override
   public String getJsonVal() {
@@ -120,4 +121,13 @@ public class TaskEntity extends AbstractEntity implements HasJsonVal<TaskEntity>
     this.refId = refId;
     return this;
   }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public TaskEntity setNamespace(final String namespace) {
+    this.namespace = namespace;
+    return this;
+  }
 }
@@ -35,10 +35,12 @@ public interface IndexMapper {
   IndexMapper INSTANCE = Mappers.getMapper(IndexMapper.class);
 
   @Mapping(source = "alert.id", target = "alertId")
+  @Mapping(target = "namespace", ignore = true)
   EnumerationItemIndex toIndexEntity(EnumerationItemDTO dto);
 
   @Mapping(source = "enumerationItem.id", target = "enumerationItemId")
   @Mapping(target = "dimensions", ignore = true)
+  @Mapping(target = "namespace", ignore = true)
   @Mapping(source = "anomalyLabels", target = "ignored", qualifiedByName = "labelsToIgnoredMapper")
   MergedAnomalyResultIndex toIndexEntity(AnomalyDTO dto);
   @Named("labelsToIgnoredMapper")
@@ -52,6 +54,7 @@ public interface IndexMapper {
   @Mapping(source = "createdBy", target = "owner")
   @Mapping(source = "createTime", target = "created", qualifiedByName = "timeMapper")
   @Mapping(source = "updateTime", target = "updated", qualifiedByName = "timeMapper")
+  @Mapping(target = "namespace", ignore = true)
   RcaInvestigationIndex toIndexEntity(RcaInvestigationDTO dto);
 
   @Named("timeMapper")
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.datalayer.util;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 
@@ -26,6 +27,7 @@ import java.lang.reflect.Array;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
@@ -38,6 +40,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -55,6 +58,8 @@ public class SqlQueryBuilder {
       Pattern.compile(":(" + NAME_REGEX + ")", Pattern.CASE_INSENSITIVE);
   private static final Set<String> AUTO_UPDATE_COLUMN_SET =
       Sets.newHashSet("id", "last_modified");
+  // columns set at insert time only
+  private static final Set<String> IMMUTABLE_COLUMN_SET = Set.of("create_time");
   //insert sql per table
   private final Map<String, String> insertSqlMap = new HashMap<>();
   private final EntityMappingHolder entityMappingHolder;
@@ -97,6 +102,34 @@ public class SqlQueryBuilder {
 
   public PreparedStatement createInsertStatement(final Connection conn, final String tableName,
       final AbstractEntity entity) throws Exception {
+    final PreparedStatement preparedStatement = prepareInsertStatement(conn, tableName);
+    setInsertParameters(conn, preparedStatement, tableName, entity);
+    return preparedStatement;
+  }
+
+  /**
+   * Returns an insert statement with one batch entry per entity. Entities must be of the same
+   * class.
+   */
+  public PreparedStatement createBatchInsertStatement(final Connection conn,
+      final List<? extends AbstractEntity> entities) throws Exception {
+    checkArgument(!entities.isEmpty(), "No entity to insert");
+    final Class<? extends AbstractEntity> entityClass = entities.get(0).getClass();
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName()));
+    final PreparedStatement preparedStatement = prepareInsertStatement(conn, tableName);
+    for (final AbstractEntity entity : entities) {
+      checkArgument(entity.getClass() == entityClass,
+          "All entities of a batch insert must be of the same class. Found %s and %s",
+          entityClass.getSimpleName(), entity.getClass().getSimpleName());
+      setInsertParameters(conn, preparedStatement, tableName, entity);
+      preparedStatement.addBatch();
+    }
+    return preparedStatement;
+  }
+
+  private PreparedStatement prepareInsertStatement(final Connection conn, final String tableName)
+      throws SQLException {
     if (!insertSqlMap.containsKey(tableName)) {
       final String insertSql = generateInsertSql(tableName,
           entityMappingHolder.columnInfoPerTable.get(tableName.toLowerCase()));
@@ -104,8 +137,12 @@ public class SqlQueryBuilder {
     }
 
     final String sql = insertSqlMap.get(tableName);
-    final PreparedStatement preparedStatement =
-        conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    return conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+  }
+
+  private void setInsertParameters(final Connection conn,
+      final PreparedStatement preparedStatement, final String tableName,
+      final AbstractEntity entity) throws Exception {
     final LinkedHashMap<String, ColumnInfo> columnInfoMap =
         entityMappingHolder.columnInfoPerTable.get(tableName);
     int parameterIndex = 1;
@@ -128,7 +165,6 @@ public class SqlQueryBuilder {
         }
       }
     }
-    return preparedStatement;
   }
 
   public PreparedStatement createUpdateStatement(final Connection connection, final AbstractEntity entity,
@@ -144,6 +180,7 @@ public class SqlQueryBuilder {
     for (final ColumnInfo columnInfo : columnInfoMap.values()) {
       final String columnNameInDB = columnInfo.getColumnNameInDB();
       if (!AUTO_UPDATE_COLUMN_SET.contains(columnNameInDB)
+          && !IMMUTABLE_COLUMN_SET.contains(columnNameInDB)
           && (fieldsToUpdate == null || fieldsToUpdate.contains(columnInfo.getColumnNameInEntity()))) {
         Object val = columnInfo.getField().get(entity);
         if (val != null) {
@@ -204,17 +241,37 @@ public class SqlQueryBuilder {
   public PreparedStatement createFindByParamsStatementWithLimit(final Connection connection,
       final Class<? extends AbstractEntity> entityClass, final Predicate predicate, final Long limit, final Long offset)
       throws Exception {
+    return createFindByParamsStatementWithLimit(connection,
+        entityClass,
+        predicate,
+        List.of(),
+        false,
+        limit,
+        offset);
+  }
+
+  public PreparedStatement createFindByParamsStatementWithLimit(final Connection connection,
+      final Class<? extends AbstractEntity> entityClass, final Predicate predicate,
+      final List<String> orderByKeys, final boolean desc, final Long limit, final Long offset)
+      throws Exception {
     final String tableName = entityMappingHolder.tableToEntityNameMap.inverse()
         .get(entityClass.getSimpleName());
     final StringBuilder sqlBuilder = new StringBuilder("SELECT * FROM " + tableName);
     final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    final BiMap<String, String> entityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
     if(predicate != null) {
-      final BiMap<String, String> entityNameToDBNameMapping =
-          entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
       final StringBuilder whereClause = new StringBuilder(" WHERE ");
       generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
       sqlBuilder.append(whereClause);
     }
+    if (!orderByKeys.isEmpty()) {
+      final String direction = desc ? " DESC" : " ASC";
+      sqlBuilder.append(" ORDER BY ").append(orderByKeys.stream()
+          .map(key -> checkNotNull(entityNameToDBNameMapping.get(key),
+              "Unknown order by key '%s' for table %s", key, tableName) + direction)
+          .collect(Collectors.joining(", ")));
+    }
     if (limit != null) {
       sqlBuilder.append(" LIMIT ").append(limit);
     }
@@ -262,6 +319,56 @@ public class SqlQueryBuilder {
       sqlBuilder.append(whereClause);
     }
     final PreparedStatement preparedStatement = connection.prepareStatement(sqlBuilder.toString());
+    setParameters(preparedStatement, tableName, parametersList);
+    return preparedStatement;
+  }
+
+  /**
+   * Returns a statement counting the rows of the entity table matching the predicate, grouped by
+   * a column of a joined index table. Rows are joined with a left join on
+   * entity.foreignKeyField = joinedEntity.baseId. Rows without match are counted in the NULL
+   * group.
+   * The statement returns 2 columns: the group value and the count.
+   */
+  public PreparedStatement createCountByJoinedColumnStatement(final Connection connection,
+      final @Nullable Predicate predicate,
+      final Class<? extends AbstractEntity> entityClass,
+      final String foreignKeyField,
+      final Class<? extends AbstractEntity> joinedEntityClass,
+      final String groupByField) throws Exception {
+    final String tableName =
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName());
+    final BiMap<String, String> entityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
+    final String joinedTableName =
+        entityMappingHolder.tableToEntityNameMap.inverse().get(joinedEntityClass.getSimpleName());
+    final BiMap<String, String> joinedEntityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(joinedTableName).inverse();
+    final String foreignKeyColumn = requireNonNull(
+        entityNameToDBNameMapping.get(foreignKeyField), "Unknown field " + foreignKeyField);
+    final String baseIdColumn = requireNonNull(joinedEntityNameToDBNameMapping.get("baseId"));
+    final String groupByColumn = requireNonNull(
+        joinedEntityNameToDBNameMapping.get(groupByField), "Unknown field " + groupByField);
+
+    // filter in a subquery: column names of the predicate may exist in both tables
+    final StringBuilder filteredTable = new StringBuilder(
+        "SELECT " + foreignKeyColumn + " FROM " + tableName);
+    final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    if (predicate != null) {
+      final StringBuilder whereClause = new StringBuilder(" WHERE ");
+      generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
+      filteredTable.append(whereClause);
+    }
+    final String sql = "SELECT j." + groupByColumn + ", count(*) FROM (" + filteredTable + ") e"
+        + " LEFT JOIN " + joinedTableName + " j ON e." + foreignKeyColumn + " = j." + baseIdColumn
+        + " GROUP BY j." + groupByColumn;
+    final PreparedStatement preparedStatement = connection.prepareStatement(sql);
+    setParameters(preparedStatement, tableName, parametersList);
+    return preparedStatement;
+  }
+
+  private void setParameters(final PreparedStatement preparedStatement, final String tableName,
+      final List<Pair<String, Object>> parametersList) throws SQLException {
     if (!parametersList.isEmpty()) {
       int parameterIndex = 1;
       final Map<String, ColumnInfo> columnInfoMap =
@@ -275,7 +382,6 @@ public class SqlQueryBuilder {
         preparedStatement.setObject(parameterIndex++, pair.getValue(), info.getSqlType());
       }
     }
-    return preparedStatement;
   }
 
   private void generateWhereClause(final BiMap<String, String> entityNameToDBNameMapping,
@@ -335,6 +441,10 @@ public class SqlQueryBuilder {
           whereClause.append(")");
         }
         break;
+      case IS_NULL:
+      case IS_NOT_NULL:
+        whereClause.append(columnName).append(" ").append(predicate.getOper().toString());
+        break;
       case BETWEEN:
         whereClause.append(columnName).append(predicate.getOper().toString()).append("? AND ?");
         final ImmutablePair<Object, Object> pair = (ImmutablePair<Object, Object>) predicate.getRhs();
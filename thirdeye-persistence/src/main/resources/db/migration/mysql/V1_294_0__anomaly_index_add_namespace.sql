@@ -0,0 +1,22 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+-- namespace is denormalized in the anomaly index table to filter and aggregate anomalies in the database
+ALTER TABLE merged_anomaly_result_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE merged_anomaly_result_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX merged_anomaly_result_namespace_idx ON merged_anomaly_result_index (namespace);
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+-- namespace is denormalized in all index tables to filter entities by namespace in the database
+-- see V1_294_0 for the anomaly index table
+
+ALTER TABLE alert_template_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE alert_template_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX alert_template_namespace_idx ON alert_template_index (namespace);
+
+ALTER TABLE anomaly_feedback_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE anomaly_feedback_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX anomaly_feedback_namespace_idx ON anomaly_feedback_index (namespace);
+
+ALTER TABLE data_source_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE data_source_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX data_source_namespace_idx ON data_source_index (namespace);
+
+ALTER TABLE dataset_config_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE dataset_config_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX dataset_config_namespace_idx ON dataset_config_index (namespace);
+
+ALTER TABLE detection_alert_config_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE detection_alert_config_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX detection_alert_config_namespace_idx ON detection_alert_config_index (namespace);
+
+ALTER TABLE detection_config_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE detection_config_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX detection_config_namespace_idx ON detection_config_index (namespace);
+
+ALTER TABLE enumeration_item_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE enumeration_item_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX enumeration_item_namespace_idx ON enumeration_item_index (namespace);
+
+ALTER TABLE event_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE event_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX event_namespace_idx ON event_index (namespace);
+
+ALTER TABLE metric_config_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE metric_config_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX metric_config_namespace_idx ON metric_config_index (namespace);
+
+ALTER TABLE rca_investigation_index
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE rca_investigation_index i
+    JOIN generic_json_entity g ON i.base_id = g.id
+SET i.namespace = JSON_UNQUOTE(JSON_EXTRACT(g.json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(g.json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX rca_investigation_namespace_idx ON rca_investigation_index (namespace);
@@ -0,0 +1,21 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+-- namespace is denormalized in the task table to filter tasks by namespace in the database
+ALTER TABLE task_entity
+    ADD COLUMN namespace varchar(255) DEFAULT NULL;
+UPDATE task_entity
+SET namespace = JSON_UNQUOTE(JSON_EXTRACT(json_val, '$.auth.namespace'))
+WHERE JSON_TYPE(JSON_EXTRACT(json_val, '$.auth.namespace')) = 'STRING';
+CREATE INDEX task_namespace_idx ON task_entity (namespace);
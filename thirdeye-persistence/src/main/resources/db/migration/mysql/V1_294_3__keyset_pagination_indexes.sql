@@ -0,0 +1,18 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+-- (create_time, id) keyset pagination of the anomaly and task listings
+CREATE INDEX merged_anomaly_result_create_time_base_id_idx
+    ON merged_anomaly_result_index (create_time, base_id);
+CREATE INDEX task_create_time_id_idx ON task_entity (create_time, id);
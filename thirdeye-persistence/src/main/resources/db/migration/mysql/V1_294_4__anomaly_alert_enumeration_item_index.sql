@@ -0,0 +1,17 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+-- anomalies of an alert and of a set of its enumeration items, by create time
+CREATE INDEX merged_anomaly_result_alert_enumeration_item_create_time_idx
+    ON merged_anomaly_result_index (detection_config_id, enumeration_item_id, create_time);
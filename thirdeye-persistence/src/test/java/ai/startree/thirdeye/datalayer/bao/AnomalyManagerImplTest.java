@@ -0,0 +1,215 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.bao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.spi.api.AnomalyStatsApi;
+import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
+import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
+import ai.startree.thirdeye.spi.detection.AnomalyFeedbackType;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AnomalyManagerImplTest {
+
+  private GenericPojoDao genericPojoDao;
+  private AnomalyManagerImpl anomalyManager;
+  private Map<Long, AnomalyDTO> storedAnomalies;
+  private Map<Long, AnomalyFeedbackDTO> storedFeedbacks;
+
+  private static AnomalyDTO anomaly(final long id, final Long... childIds) {
+    final AnomalyDTO anomaly = new AnomalyDTO().setChildIds(Set.of(childIds));
+    anomaly.setId(id);
+    return anomaly;
+  }
+
+  private static AnomalyFeedbackDTO feedback(final long id) {
+    final AnomalyFeedbackDTO feedback = new AnomalyFeedbackDTO();
+    feedback.setId(id);
+    return feedback;
+  }
+
+  @SuppressWarnings("unchecked")
+  @BeforeMethod
+  public void setUp() {
+    genericPojoDao = mock(GenericPojoDao.class);
+    storedAnomalies = new HashMap<>();
+    storedFeedbacks = new HashMap<>();
+    when(genericPojoDao.get(anyList(), eq(AnomalyDTO.class))).thenAnswer(invocation -> (
+        (List<Long>) invocation.getArgument(0)).stream()
+        .filter(storedAnomalies::containsKey)
+        .map(storedAnomalies::get)
+        .toList());
+    when(genericPojoDao.get(anyList(), eq(AnomalyFeedbackDTO.class))).thenAnswer(invocation -> (
+        (List<Long>) invocation.getArgument(0)).stream()
+        .map(storedFeedbacks::get)
+        .toList());
+    anomalyManager = new AnomalyManagerImpl(genericPojoDao);
+  }
+
+  private void store(final AnomalyDTO... anomalies) {
+    for (final AnomalyDTO anomaly : anomalies) {
+      storedAnomalies.put(anomaly.getId(), anomaly);
+    }
+  }
+
+  @Test
+  public void testDecorateFetchesChildrenAndFeedbacksLevelByLevel() {
+    // 2 parents, 3 children, 1 grandchild
+    final AnomalyDTO parent1 = anomaly(1L, 11L, 12L);
+    final AnomalyDTO parent2 = anomaly(2L, 21L);
+    final AnomalyDTO child11 = anomaly(11L, 111L);
+    final AnomalyDTO child12 = anomaly(12L);
+    final AnomalyDTO child21 = anomaly(21L);
+    final AnomalyDTO grandChild111 = anomaly(111L);
+    store(child11, child12, child21, grandChild111);
+    parent1.setAnomalyFeedbackId(100L);
+    child21.setAnomalyFeedbackId(200L);
+    storedFeedbacks.put(100L, feedback(100L));
+    storedFeedbacks.put(200L, feedback(200L));
+
+    final List<AnomalyDTO> decorated = anomalyManager.decorate(List.of(parent1, parent2));
+
+    assertThat(decorated).containsExactly(parent1, parent2);
+    assertThat(parent1.getChildren()).containsExactlyInAnyOrder(child11, child12);
+    assertThat(parent2.getChildren()).containsExactly(child21);
+    assertThat(child11.getChildren()).containsExactly(grandChild111);
+    assertThat(grandChild111.getChildren()).isEmpty();
+    assertThat(parent1.getFeedback()).isEqualTo(storedFeedbacks.get(100L));
+    assertThat(child21.getFeedback()).isEqualTo(storedFeedbacks.get(200L));
+    // one query per level for the children: level 1 and level 2 - the grandchild has no child
+    verify(genericPojoDao, times(2)).get(anyList(), eq(AnomalyDTO.class));
+    // one query per level with feedbacks: parents and children
+    verify(genericPojoDao, times(2)).get(anyList(), eq(AnomalyFeedbackDTO.class));
+  }
+
+  @Test
+  public void testDecorateStopsOnLoops() {
+    final AnomalyDTO parent = anomaly(1L, 2L);
+    final AnomalyDTO child = anomaly(2L, 1L, 2L);
+    store(parent, child);
+
+    anomalyManager.decorate(List.of(parent));
+
+    assertThat(parent.getChildren()).containsExactly(child);
+    assertThat(child.getChildren()).isEmpty();
+  }
+
+  @Test
+  public void testFindByPredicateInPagesDecoratesWithFeedback() {
+    final AnomalyDTO first = anomaly(1L);
+    final AnomalyDTO second = anomaly(2L);
+    first.setAnomalyFeedbackId(100L);
+    second.setAnomalyFeedbackId(200L);
+    storedFeedbacks.put(100L, feedback(100L));
+    storedFeedbacks.put(200L, feedback(200L));
+    when(genericPojoDao.getPages(isNull(), eq(AnomalyDTO.class), anyInt()))
+        .thenReturn(Stream.of(List.of(first), List.of(second)));
+
+    final List<AnomalyDTO> anomalies = anomalyManager.findByPredicateInPages(null, 1).toList();
+
+    assertThat(anomalies).containsExactly(first, second);
+    assertThat(first.getFeedback()).isEqualTo(storedFeedbacks.get(100L));
+    assertThat(second.getFeedback()).isEqualTo(storedFeedbacks.get(200L));
+    // one feedback query per page
+    verify(genericPojoDao, times(2)).get(anyList(), eq(AnomalyFeedbackDTO.class));
+  }
+
+  @Test
+  public void testFindPageAfterDecoratesWithFeedback() {
+    final AnomalyDTO anomaly = anomaly(1L);
+    anomaly.setAnomalyFeedbackId(100L);
+    storedFeedbacks.put(100L, feedback(100L));
+    final KeysetCursor cursor = new KeysetCursor(1000L, 0L);
+    when(genericPojoDao.getPageAfter(isNull(), eq(cursor), eq(AnomalyDTO.class), eq(2)))
+        .thenReturn(List.of(anomaly));
+
+    assertThat(anomalyManager.findPageAfter(null, cursor, 2)).containsExactly(anomaly);
+    assertThat(anomaly.getFeedback()).isEqualTo(storedFeedbacks.get(100L));
+  }
+
+  @Test
+  public void testAnomalyStatsFromGroupedCount() {
+    final Map<String, Long> countPerFeedbackType = new HashMap<>();
+    countPerFeedbackType.put(null, 5L);
+    countPerFeedbackType.put("ANOMALY", 3L);
+    countPerFeedbackType.put("NOT_ANOMALY", 2L);
+    when(genericPojoDao.countByJoinedColumn(any(Predicate.class),
+        eq(AnomalyDTO.class),
+        eq("anomalyFeedbackId"),
+        eq(AnomalyFeedbackDTO.class),
+        eq("type"))).thenReturn(countPerFeedbackType);
+
+    final AnomalyStatsApi stats = anomalyManager.anomalyStats("ns1",
+        new AnomalyFilter().setAlertId(1L));
+    // same query - served from the cache
+    anomalyManager.anomalyStats("ns1", new AnomalyFilter().setAlertId(1L));
+
+    assertThat(stats.getTotalCount()).isEqualTo(10L);
+    assertThat(stats.getCountWithFeedback()).isEqualTo(5L);
+    assertThat(stats.getFeedbackStats())
+        .containsEntry(AnomalyFeedbackType.ANOMALY, 3L)
+        .containsEntry(AnomalyFeedbackType.NOT_ANOMALY, 2L)
+        .containsEntry(AnomalyFeedbackType.NO_FEEDBACK, 0L)
+        .hasSize(AnomalyFeedbackType.values().length);
+    verify(genericPojoDao, times(1)).countByJoinedColumn(any(), any(), any(), any(), any());
+
+    anomalyManager.anomalyStats("ns2", new AnomalyFilter().setAlertId(1L));
+    verify(genericPojoDao, times(2)).countByJoinedColumn(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void testFilterPushesEnumerationItemsByAlertInPredicate() {
+    final Map<Long, Collection<Long>> enumerationItemIdsByAlertId = new LinkedHashMap<>();
+    enumerationItemIdsByAlertId.put(1L, List.of(10L, 11L));
+    enumerationItemIdsByAlertId.put(2L, List.of());
+    enumerationItemIdsByAlertId.put(3L, List.of());
+
+    anomalyManager.filter(new AnomalyFilter()
+        .setEnumerationItemIdsByAlertId(enumerationItemIdsByAlertId));
+
+    final ArgumentCaptor<DaoFilter> daoFilter = ArgumentCaptor.forClass(DaoFilter.class);
+    verify(genericPojoDao).get(daoFilter.capture());
+    final Predicate expected = Predicate.AND(Predicate.OR(
+        Predicate.AND(
+            Predicate.EQ("detectionConfigId", 1L),
+            Predicate.IN("enumerationItemId", new Object[]{10L, 11L})),
+        // alerts without an enumeration item restriction share a single IN
+        Predicate.IN("detectionConfigId", new Object[]{2L, 3L})));
+    assertThat(daoFilter.getValue().getPredicate()).usingRecursiveComparison().isEqualTo(expected);
+  }
+}
@@ -458,6 +458,57 @@ public class TestAnomalyManager {
         .getStartTime(), 1600);
   }
 
+  @Test
+  public void testSaveAllWithChildrenAndAlert() {
+    final AlertDTO alert = mockDetectionConfig();
+    alert.setName("testSaveAllWithChildrenAndAlert");
+    final Long alertId = detectionConfigDAO.save(alert);
+
+    final AnomalyDTO parent = anomaly(1000, 2000);
+    final AnomalyDTO child1 = anomaly(1000, 1500);
+    final AnomalyDTO child2 = anomaly(1500, 2000);
+    final AnomalyDTO grandChild = anomaly(1600, 1800);
+    child2.setChildren(new HashSet<>(List.of(grandChild)));
+    parent.setChildren(new HashSet<>(Arrays.asList(child1, child2)));
+    final AnomalyDTO other = anomaly(3000, 4000);
+    List.of(parent, child1, child2, grandChild, other)
+        .forEach(a -> a.setDetectionConfigId(alertId));
+
+    alert.setLastTimestamp(4000);
+    anomalyManager.saveAll(List.of(parent, other), alert);
+
+    assertThat(parent.getId()).isNotNull();
+    assertThat(grandChild.getId()).isNotNull();
+    assertThat(other.getId()).isNotNull();
+    assertThat(detectionConfigDAO.findById(alertId).getLastTimestamp()).isEqualTo(4000);
+
+    final AnomalyDTO read = anomalyManager.findById(parent.getId());
+    assertThat(read.isChild()).isFalse();
+    assertThat(read.getChildIds()).isEqualTo(Set.of(child1.getId(), child2.getId()));
+    final AnomalyDTO readChild2 = anomalyManager.findById(child2.getId());
+    assertThat(readChild2.isChild()).isTrue();
+    assertThat(readChild2.getChildIds()).isEqualTo(Set.of(grandChild.getId()));
+    assertThat(anomalyManager.findById(other.getId()).getStartTime()).isEqualTo(3000);
+  }
+
+  @Test(dependsOnMethods = "testSaveAllWithChildrenAndAlert")
+  public void testUpdateAll() {
+    final AnomalyDTO anomaly1 = anomaly(1000, 2000);
+    final AnomalyDTO anomaly2 = anomaly(2000, 3000);
+    anomalyManager.saveAll(List.of(anomaly1, anomaly2));
+
+    final AnomalyDTO newChild = anomaly(2000, 2500);
+    anomaly1.setNotified(true);
+    anomaly2.setNotified(true).setChildren(new HashSet<>(List.of(newChild)));
+    anomalyManager.updateAll(List.of(anomaly1, anomaly2));
+
+    assertThat(newChild.getId()).isNotNull();
+    assertThat(anomalyManager.findById(anomaly1.getId()).isNotified()).isTrue();
+    final AnomalyDTO read2 = anomalyManager.findById(anomaly2.getId());
+    assertThat(read2.isNotified()).isTrue();
+    assertThat(read2.getChildIds()).isEqualTo(Set.of(newChild.getId()));
+  }
+
   @Test
   public void testFindParent() {
     final AnomalyDTO top = new AnomalyDTO();
@@ -25,6 +25,7 @@ import ai.startree.thirdeye.spi.task.TaskType;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Injector;
+import java.sql.Timestamp;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -112,6 +113,17 @@ public class TestAnomalyTaskManager {
   }
 
   @Test(dependsOnMethods = {"testFindNextTaskToRun"})
+  public void testUpdateLastActive() {
+    final Timestamp waitingTaskLastActive = taskDAO.findById(anomalyTaskId2).getLastActive();
+    CLOCK.tick(10);
+    final long lastActive = System.currentTimeMillis();
+    // anomalyTaskId2 is still WAITING - only RUNNING tasks are updated
+    taskDAO.updateLastActive(List.of(anomalyTaskId1, anomalyTaskId2));
+    assertThat(taskDAO.findById(anomalyTaskId1).getLastActive().getTime()).isEqualTo(lastActive);
+    assertThat(taskDAO.findById(anomalyTaskId2).getLastActive()).isEqualTo(waitingTaskLastActive);
+  }
+
+  @Test(dependsOnMethods = {"testUpdateLastActive"})
   public void testUpdateStatusAndTaskEndTime() {
     TaskStatus oldStatus = TaskStatus.RUNNING;
     TaskStatus newStatus = TaskStatus.COMPLETED;
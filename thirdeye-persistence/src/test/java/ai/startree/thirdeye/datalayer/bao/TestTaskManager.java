@@ -13,12 +13,13 @@
  */
 package ai.startree.thirdeye.datalayer.bao;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
+import ai.startree.thirdeye.datalayer.core.InProcessTaskNotificationChannel;
 import ai.startree.thirdeye.datalayer.dao.TaskDao;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
@@ -30,13 +31,23 @@ import ai.startree.thirdeye.spi.task.TaskType;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Injector;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 public class TestTaskManager {
 
+  private static final Map<TaskType, Integer> ALL_TYPES = Map.of(TaskType.DETECTION, 10,
+      TaskType.NOTIFICATION, 10);
+
   private TaskManager taskManager;
 
   private static Long getGaugeValue(final List<TaskDTO> tasks, final String gaugeName) {
@@ -44,7 +55,7 @@ public class TestTaskManager {
     when(dao.filter(any())).thenReturn(tasks);
 
     final MetricRegistry metricRegistry = new MetricRegistry();
-    new TaskManagerImpl(dao, metricRegistry);
+    new TaskManagerImpl(dao, new InProcessTaskNotificationChannel(), metricRegistry);
     return (Long) metricRegistry.getGauges().get(gaugeName).getValue();
   }
 
@@ -124,4 +135,117 @@ public class TestTaskManager {
     assertThat(byId).isNotNull();
     assertThat(byId.getRefId()).isEqualTo(refId);
   }
+
+  @Test
+  public void testAcquireTasksToRun() throws Exception {
+    final long workerId = 7L;
+    final TaskDTO t1 = taskManager.createTaskDto(newTaskInfo(1001L), TaskType.DETECTION,
+        new AuthorizationConfigurationDTO());
+    final TaskDTO t2 = taskManager.createTaskDto(newTaskInfo(1001L), TaskType.DETECTION,
+        new AuthorizationConfigurationDTO());
+    final TaskDTO t3 = taskManager.createTaskDto(newTaskInfo(1002L), TaskType.DETECTION,
+        new AuthorizationConfigurationDTO());
+
+    final List<TaskDTO> claimed = taskManager.acquireTasksToRun(10, workerId, ALL_TYPES);
+    // only one task per refId can be claimed
+    assertThat(claimed.stream().map(TaskDTO::getId).toList())
+        .containsExactlyInAnyOrder(t1.getId(), t3.getId());
+    for (final TaskDTO task : claimed) {
+      final TaskDTO persisted = taskManager.findById(task.getId());
+      assertThat(persisted.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(persisted.getWorkerId()).isEqualTo(workerId);
+      assertThat(persisted.getVersion()).isEqualTo(task.getVersion());
+    }
+    assertThat(taskManager.findById(t2.getId()).getStatus()).isEqualTo(TaskStatus.WAITING);
+
+    // t2 cannot run while t1 is running
+    assertThat(taskManager.acquireTasksToRun(10, workerId, ALL_TYPES)).isEmpty();
+  }
+
+  @Test(dependsOnMethods = "testAcquireTasksToRun")
+  public void testConcurrentAcquireTasksToRunWithSameRefId() throws Exception {
+    // clean the tasks of the previous tests
+    taskManager.deleteByPredicate(Predicate.GE("id", 0L));
+    final long refId = 2001L;
+    for (int i = 0; i < 10; i++) {
+      taskManager.createTaskDto(newTaskInfo(refId), TaskType.DETECTION,
+          new AuthorizationConfigurationDTO());
+    }
+
+    final int nbClaimers = 2;
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(nbClaimers);
+    try {
+      final List<Future<List<TaskDTO>>> futures = new ArrayList<>();
+      for (int i = 0; i < nbClaimers; i++) {
+        final long workerId = 100L + i;
+        futures.add(executor.submit(() -> {
+          start.await();
+          return taskManager.acquireTasksToRun(10, workerId, ALL_TYPES);
+        }));
+      }
+      start.countDown();
+      final List<TaskDTO> claimed = new ArrayList<>();
+      for (final Future<List<TaskDTO>> future : futures) {
+        claimed.addAll(future.get(30, TimeUnit.SECONDS));
+      }
+      assertThat(claimed).hasSizeLessThanOrEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+    final List<TaskDTO> running = taskManager.findByPredicate(
+        Predicate.EQ("status", TaskStatus.RUNNING.toString()));
+    assertThat(running).hasSizeLessThanOrEqualTo(1);
+  }
+
+  @Test(dependsOnMethods = "testConcurrentAcquireTasksToRunWithSameRefId")
+  public void testReleaseTasks() throws Exception {
+    taskManager.deleteByPredicate(Predicate.GE("id", 0L));
+    final long workerId = 7L;
+    final TaskDTO task = taskManager.createTaskDto(newTaskInfo(3001L), TaskType.DETECTION,
+        new AuthorizationConfigurationDTO());
+    assertThat(taskManager.acquireTasksToRun(10, workerId, ALL_TYPES)).hasSize(1);
+
+    // a release by another worker is ignored
+    taskManager.releaseTasks(List.of(task.getId()), workerId + 1);
+    assertThat(taskManager.findById(task.getId()).getStatus()).isEqualTo(TaskStatus.RUNNING);
+
+    taskManager.releaseTasks(List.of(task.getId()), workerId);
+    assertThat(taskManager.findById(task.getId()).getStatus()).isEqualTo(TaskStatus.WAITING);
+    // the task can be claimed again
+    assertThat(taskManager.acquireTasksToRun(10, workerId, ALL_TYPES)).hasSize(1);
+  }
+
+  @Test(dependsOnMethods = "testReleaseTasks")
+  public void testAcquireTasksToRunWithTypeLimits() throws Exception {
+    taskManager.deleteByPredicate(Predicate.GE("id", 0L));
+    final long workerId = 7L;
+    final TaskDTO d1 = taskManager.createTaskDto(newTaskInfo(4001L), TaskType.DETECTION,
+        new AuthorizationConfigurationDTO());
+    final TaskDTO d2 = taskManager.createTaskDto(newTaskInfo(4002L), TaskType.DETECTION,
+        new AuthorizationConfigurationDTO());
+    final TaskDTO n1 = taskManager.createTaskDto(newTaskInfo(4003L), TaskType.NOTIFICATION,
+        new AuthorizationConfigurationDTO());
+
+    // DETECTION is saturated: the NOTIFICATION task is claimed even if it is the most recent
+    assertThat(taskManager.acquireTasksToRun(10, workerId, Map.of(TaskType.NOTIFICATION, 1)))
+        .extracting(TaskDTO::getId).containsExactly(n1.getId());
+    // at most one DETECTION task can be claimed
+    assertThat(taskManager.acquireTasksToRun(10, workerId, Map.of(TaskType.DETECTION, 1)))
+        .extracting(TaskDTO::getId).containsExactly(d1.getId());
+    assertThat(taskManager.acquireTasksToRun(10, workerId, Map.of())).isEmpty();
+    assertThat(taskManager.findById(d2.getId()).getStatus()).isEqualTo(TaskStatus.WAITING);
+  }
+
+  private static TaskInfo newTaskInfo(final long refId) {
+    return new TaskInfo() {
+      @SuppressWarnings("unused")
+      public final int dummyVariable = 0; // required for jackson json serialization
+
+      @Override
+      public long getRefId() {
+        return refId;
+      }
+    };
+  }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.dao.TaskDao;
+import java.time.Duration;
+import org.testng.annotations.Test;
+
+public class DatabaseTaskNotificationChannelTest {
+
+  @Test
+  public void testAwaitTimesOutWithoutChange() throws InterruptedException {
+    final TaskDao taskDao = mock(TaskDao.class);
+    when(taskDao.getMaxWaitingId()).thenReturn(10L);
+    final DatabaseTaskNotificationChannel channel = new DatabaseTaskNotificationChannel(
+        new InProcessTaskNotificationChannel(), taskDao, Duration.ofMillis(5));
+    final long watermark = channel.watermark();
+
+    assertThat(channel.await(watermark, 20)).isFalse();
+  }
+
+  @Test
+  public void testNewTaskWakesUpWaiter() throws InterruptedException {
+    final TaskDao taskDao = mock(TaskDao.class);
+    when(taskDao.getMaxWaitingId()).thenReturn(10L, 11L);
+    final DatabaseTaskNotificationChannel channel = new DatabaseTaskNotificationChannel(
+        new InProcessTaskNotificationChannel(), taskDao, Duration.ofMillis(5));
+    final long watermark = channel.watermark();
+
+    assertThat(channel.await(watermark, 1000)).isTrue();
+  }
+}
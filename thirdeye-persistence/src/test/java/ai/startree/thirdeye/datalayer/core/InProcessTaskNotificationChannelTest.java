@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class InProcessTaskNotificationChannelTest {
+
+  @Test
+  public void testAwaitTimesOutWithoutSignal() throws InterruptedException {
+    final InProcessTaskNotificationChannel channel = new InProcessTaskNotificationChannel();
+    final long watermark = channel.watermark();
+
+    assertThat(channel.await(watermark, 10)).isFalse();
+  }
+
+  @Test
+  public void testSignalBeforeAwaitIsNotMissed() throws InterruptedException {
+    final InProcessTaskNotificationChannel channel = new InProcessTaskNotificationChannel();
+    final long watermark = channel.watermark();
+    channel.signal();
+
+    assertThat(channel.await(watermark, 0)).isTrue();
+    assertThat(channel.await(channel.watermark(), 0)).isFalse();
+  }
+
+  @Test
+  public void testSignalWakesUpWaiter() throws Exception {
+    final InProcessTaskNotificationChannel channel = new InProcessTaskNotificationChannel();
+    final long watermark = channel.watermark();
+    final CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+      try {
+        return channel.await(watermark, TimeUnit.MINUTES.toMillis(1));
+      } catch (final InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    channel.signal();
+
+    assertThat(waiter.get(10, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -21,9 +21,13 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AuthorizationConfigurationDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 import org.testng.annotations.AfterClass;
@@ -200,4 +204,49 @@ public class TestGenericPojoDao {
     }
     assertThat(entryCount).isEqualTo(TOTAL_ANOMALIES);
   }
+
+  @Test
+  public void getInPagesTest() {
+    // ensure more than 2 pages are formed and the last page is not full
+    final int pageSize = TOTAL_ANOMALIES / 3;
+    final List<Long> ids = dao.getInPages(null, AnomalyDTO.class, pageSize)
+        .map(AnomalyDTO::getId)
+        .toList();
+    assertThat(ids).hasSize(TOTAL_ANOMALIES);
+    assertThat(ids).isSorted();
+    assertThat(ids).doesNotHaveDuplicates();
+  }
+
+  @Test
+  public void getInPagesWithNamespaceTest() {
+    final AnomalyDTO anomalyInNamespace = anomaly();
+    anomalyInNamespace.setAuth(new AuthorizationConfigurationDTO().setNamespace("ns1"));
+    final Long id = dao.create(anomalyInNamespace);
+    try {
+      assertThat(dao.getInPages(Predicate.EQ("namespace", "ns1"), AnomalyDTO.class, 10)
+          .map(AnomalyDTO::getId)).containsExactly(id);
+      assertThat(dao.getInPages(Predicate.IS_NULL("namespace"), AnomalyDTO.class, 10)
+          .map(AnomalyDTO::getId)).doesNotContain(id).hasSize(TOTAL_ANOMALIES);
+    } finally {
+      dao.delete(id, AnomalyDTO.class);
+    }
+  }
+
+  @Test
+  public void getPageAfterTest() {
+    // ensure more than 2 pages are formed and the last page is not full
+    final int limit = TOTAL_ANOMALIES / 3;
+    final List<AnomalyDTO> all = new ArrayList<>();
+    List<AnomalyDTO> page = dao.getPageAfter(null, null, AnomalyDTO.class, limit);
+    while (!page.isEmpty()) {
+      all.addAll(page);
+      page = dao.getPageAfter(null, KeysetCursor.of(page.get(page.size() - 1)), AnomalyDTO.class,
+          limit);
+    }
+    assertThat(all).hasSize(TOTAL_ANOMALIES);
+    assertThat(all.stream().map(AnomalyDTO::getId)).doesNotHaveDuplicates();
+    assertThat(all).isSortedAccordingTo(Comparator
+        .comparing(AnomalyDTO::getCreateTime)
+        .thenComparing(AnomalyDTO::getId));
+  }
 }
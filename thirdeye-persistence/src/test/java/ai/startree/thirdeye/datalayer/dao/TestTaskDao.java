@@ -21,7 +21,14 @@ import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.spi.task.TaskType;
 import com.google.inject.Injector;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -86,4 +93,78 @@ public class TestTaskDao {
     assertThat(dao.deleteByPredicate(Predicate.EQ("name", dto.getJobName()))).isEqualTo(1);
     assertThat(dao.get(dto.getId())).isNull();
   }
+
+  @Test
+  public void maxWaitingIdTest() {
+    final long workerId = 5L;
+    final Long waitingId = dao.put(buildTask().setJobName("maxWaitingIdTest").setRefId(4001L));
+    // a task is created
+    final long created = dao.getMaxWaitingId();
+    assertThat(created).isEqualTo(waitingId);
+
+    // a heartbeat and a status update of a RUNNING task do not wake up waiters
+    final Long runningId = dao.put(buildTask()
+        .setJobName("maxWaitingIdTest")
+        .setRefId(4002L)
+        .setWorkerId(workerId)
+        .setStatus(TaskStatus.RUNNING));
+    dao.updateLastActive(List.of(runningId), new Timestamp(System.currentTimeMillis()));
+    dao.updateStatusAndEndTime(runningId, TaskStatus.RUNNING, TaskStatus.COMPLETED,
+        System.currentTimeMillis(), null);
+    assertThat(dao.getMaxWaitingId()).isEqualTo(created);
+
+    // a RUNNING task is released back to WAITING
+    final Long releasedId = dao.put(buildTask()
+        .setJobName("maxWaitingIdTest")
+        .setRefId(4003L)
+        .setWorkerId(workerId)
+        .setStatus(TaskStatus.RUNNING));
+    assertThat(dao.getMaxWaitingId()).isEqualTo(created);
+    assertThat(dao.releaseTasks(List.of(releasedId), workerId)).isEqualTo(1);
+    assertThat(dao.getMaxWaitingId()).isEqualTo(releasedId);
+  }
+
+  @Test
+  public void releaseConflictingClaimsKeepsLowestIdTest() throws Exception {
+    final long refId = 4101L;
+    // two workers claimed a task with the same refId concurrently
+    final long firstWorker = 11L;
+    final long secondWorker = 12L;
+    final TaskDTO first = buildTask()
+        .setJobName("releaseConflictingClaimsKeepsLowestIdTest")
+        .setRefId(refId)
+        .setWorkerId(firstWorker)
+        .setStatus(TaskStatus.RUNNING);
+    first.setId(dao.put(first));
+    final TaskDTO second = buildTask()
+        .setJobName("releaseConflictingClaimsKeepsLowestIdTest")
+        .setRefId(refId)
+        .setWorkerId(secondWorker)
+        .setStatus(TaskStatus.RUNNING);
+    second.setId(dao.put(second));
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    final List<TaskDTO> kept = new ArrayList<>();
+    try {
+      final Future<List<TaskDTO>> firstCheck = executor.submit(() -> {
+        start.await();
+        return dao.releaseConflictingClaims(List.of(first), firstWorker);
+      });
+      final Future<List<TaskDTO>> secondCheck = executor.submit(() -> {
+        start.await();
+        return dao.releaseConflictingClaims(List.of(second), secondWorker);
+      });
+      start.countDown();
+      kept.addAll(firstCheck.get(30, TimeUnit.SECONDS));
+      kept.addAll(secondCheck.get(30, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // exactly one claim survives: the one with the lowest id
+    assertThat(kept).extracting(TaskDTO::getId).containsExactly(first.getId());
+    assertThat(dao.get(first.getId()).getStatus()).isEqualTo(TaskStatus.RUNNING);
+    assertThat(dao.get(second.getId()).getStatus()).isEqualTo(TaskStatus.WAITING);
+  }
 }
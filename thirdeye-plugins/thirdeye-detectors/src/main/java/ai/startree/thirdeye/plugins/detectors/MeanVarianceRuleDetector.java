@@ -42,7 +42,8 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import org.joda.time.Chronology;
-import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeField;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.joda.time.ReadableInterval;
@@ -201,25 +202,27 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
           detectionInterval.getStartMillis(), inputTimes.sliceFrom(Math.max(0,inputTimes.size()-10)).toString());
     }
 
-    // todo cyril compute mean and std in a single pass
-    // https://nestedsoftware.com/2018/03/20/calculating-a-moving-average-on-streaming-data-5a7k.22879.html
-    // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
-    final boolean applyMask = inputDF.contains(COL_MASK);
+    final Chronology chronology = detectionInterval.getChronology();
+    final long[] times = inputTimes.values();
+    final double[] values = inputDF.getDoubles(COL_VALUE).values();
+    final boolean[] included = new boolean[size];
+    final byte[] mask = inputDF.contains(COL_MASK) ? inputDF.getBooleans(COL_MASK).values() : null;
+    for (int i = 0; i < size; i++) {
+      included[i] = !DoubleSeries.isNull(values[i]) && (mask == null || !BooleanSeries.isTrue(mask[i]));
+    }
+    final int[] phases = new int[size];
+    final int phaseCount = computePhases(times, chronology, phases);
+    final SeasonalRollingStatistics statistics = new SeasonalRollingStatistics(values, phases,
+        phaseCount, included);
+
     for (int k = firstDetectionIndex; k < size; k++) {
-      if (applyMask && BooleanSeries.isTrue(inputDF.getBoolean(COL_MASK, k))) {
+      if (mask != null && BooleanSeries.isTrue(mask[k])) {
         // this point is masked - skip it
         continue;
       }
-      final long forecastTime = inputTimes.getLong(k);
-      final DataFrame lookbackDf = getLookbackDf(inputDF, forecastTime, detectionInterval.getChronology());
-      final DoubleSeries periodMask = buildPeriodMask(lookbackDf, forecastTime, detectionInterval.getChronology());
-      DoubleSeries maskedValues = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask);
-      if (applyMask) {
-        // todo cyril perf - COL_MASK.fillNull().not() can be computed once outside of the loop
-        maskedValues = maskedValues.filter(lookbackDf.getBooleans(COL_MASK).fillNull().not());
-      }
-      double mean = maskedValues.mean().value();
-      double std = maskedValues.std().value();
+      statistics.slide(lookbackStart(k, times[k], chronology), k);
+      double mean = statistics.mean(phases[k]);
+      double std = statistics.std(phases[k]);
       if (Double.isNaN(mean)) {
         // mean and std can be null if all values are masked or null
         mean = 0.0;
@@ -245,42 +248,50 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     return resultDF;
   }
 
-  private DoubleSeries buildPeriodMask(final DataFrame lookbackDf, final long forecastTime,
-      final Chronology chronology) {
+  /**
+   * Assigns a seasonal phase to each time. Two times have the same phase if they match for the
+   * seasonality: same time of the day in the timezone of the chronology for a daily seasonality,
+   * same day of the week and time of the day for a weekly seasonality. The phase is based on the
+   * local time, so it stays correct around DST changes.
+   *
+   * @return the number of distinct phases. Phases are in [0, phaseCount).
+   */
+  private int computePhases(final long[] times, final Chronology chronology, final int[] phases) {
     if (seasonality.equals(Period.ZERO)) {
-      // no seasonality --> no mask
-      return DoubleSeries.fillValues(lookbackDf.size(), 1);
-    }
-    final DateTime forecastDateTime = new DateTime(forecastTime, chronology);
-    final DoubleSeries.Builder mask = DoubleSeries.builder();
-    final LongSeries lookbackEpochs = lookbackDf.get(COL_TIME).getLongs();
-    for (int idx = 0; idx < lookbackEpochs.size(); idx++) {
-      final DateTime lookbackDateTime = new DateTime(lookbackEpochs.get(idx), chronology);
-      mask.addValues(isSeasonalityMatch(forecastDateTime, lookbackDateTime) ? 1. : null);
+      // no seasonality --> a single phase
+      Arrays.fill(phases, 0);
+      return 1;
     }
-    return mask.build();
-  }
-
-  private boolean isSeasonalityMatch(final DateTime dt1, final DateTime dt2) {
-    final boolean isSameTimeInDay =
-        dt1.getHourOfDay() == dt2.getHourOfDay() && dt1.getMinuteOfHour() == dt2.getMinuteOfHour()
-            && dt1.getSecondOfMinute() == dt2.getSecondOfMinute()
-            && dt1.getMillisOfSecond() == dt2.getMillisOfSecond();
+    final boolean weekly;
     if (seasonality.equals(Period.days(7))) {
-      return isSameTimeInDay && dt1.getDayOfWeek() == dt2.getDayOfWeek();
+      weekly = true;
     } else if (seasonality.equals(Period.days(1))) {
-      return isSameTimeInDay;
+      weekly = false;
     } else {
       throw new UnsupportedOperationException();
     }
+    final DateTimeField millisOfDay = chronology.millisOfDay();
+    final DateTimeField dayOfWeek = chronology.dayOfWeek();
+    final long[] keys = new long[times.length];
+    for (int i = 0; i < times.length; i++) {
+      final long timeInDay = millisOfDay.get(times[i]);
+      keys[i] = weekly ? (long) dayOfWeek.get(times[i]) * DateTimeConstants.MILLIS_PER_DAY + timeInDay
+          : timeInDay;
+    }
+    // map keys to dense phase ids
+    final long[] distinctKeys = Arrays.stream(keys).sorted().distinct().toArray();
+    for (int i = 0; i < times.length; i++) {
+      phases[i] = Arrays.binarySearch(distinctKeys, keys[i]);
+    }
+    return distinctKeys.length;
   }
 
-  private DataFrame getLookbackDf(final DataFrame inputDF, final long endTimeMillis,
+  /**
+   * Returns the index of the first point of the lookback window of the point at index.
+   */
+  private int lookbackStart(final int index, final long endTimeMillis,
       final Chronology chronology) {
-    final int indexEnd = inputDF.getLongs(COL_TIME).find(endTimeMillis);
-    checkArgument(indexEnd != -1,
-        "Could not find index of endTime %s. endTime should exist in inputDf. This should not happen.", endTimeMillis);
-    int indexStart = indexEnd - lookback;
+    final int indexStart = index - lookback;
     if (indexStart < 0) {
       if (TimeUtils.timezonesAreEquivalent(chronology.getZone().toString(), UTC_TIMEZONE)) {
         throw new IllegalArgumentException(String.format("Invalid index. Insufficient data to compute mean/variance on lookback. index: "
@@ -289,13 +300,12 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
         LOG.warn("Unexpected low number of points in the training data when computing mean-variance. This can happen around a DST change. Timezone: {}. Time: {}. Number of missing points: {}.",
             chronology.getZone(),
             endTimeMillis,
-            indexStart 
+            indexStart
             );
-        indexStart = 0;
+        return 0;
       }
     }
-    
-    return inputDF.slice(indexStart, indexEnd);
+    return indexStart;
   }
 
   private double bounded(final double val) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.detectors;
+
+import java.util.Arrays;
+
+/**
+ * Mean and standard deviation of the values of a sliding window of rows, by seasonal phase.
+ *
+ * Rows enter the window at its end and leave it at its start. Both operations update running
+ * sums in O(1). The sums are computed on the difference to a reference value of the phase, to
+ * limit the cancellation error of the sum of squares. The sums are recomputed from the rows of
+ * the window each time the window has slid by its own length, so that rounding errors do not
+ * accumulate over long time series. The amortized cost stays O(1) per row.
+ */
+class SeasonalRollingStatistics {
+
+  private final double[] values;
+  private final int[] phases;
+  private final boolean[] included;
+
+  private final int[] counts;
+  private final double[] references;
+  private final double[] sums;
+  private final double[] sumsOfSquares;
+
+  private int start = 0;
+  private int end = 0;
+  private int removedSinceRebuild = 0;
+
+  /**
+   * @param values values of the rows
+   * @param phases seasonal phase of each row, between 0 and phaseCount - 1
+   * @param phaseCount number of distinct phases
+   * @param included whether each row is used in the statistics. Null and masked rows are
+   *     typically excluded.
+   */
+  SeasonalRollingStatistics(final double[] values, final int[] phases, final int phaseCount,
+      final boolean[] included) {
+    this.values = values;
+    this.phases = phases;
+    this.included = included;
+    this.counts = new int[phaseCount];
+    this.references = new double[phaseCount];
+    this.sums = new double[phaseCount];
+    this.sumsOfSquares = new double[phaseCount];
+  }
+
+  /**
+   * Moves the window to the rows [newStart, newEnd). Bounds can only move forward.
+   */
+  void slide(final int newStart, final int newEnd) {
+    if (newStart >= end) {
+      // no overlap with the current window
+      start = newStart;
+      end = newStart;
+      rebuild();
+    }
+    while (end < newEnd) {
+      add(end++);
+    }
+    while (start < newStart) {
+      remove(start++);
+    }
+    if (removedSinceRebuild > 0 && removedSinceRebuild >= end - start) {
+      rebuild();
+    }
+  }
+
+  /**
+   * @return the mean of the values of the phase in the window, NaN if there is no value
+   */
+  double mean(final int phase) {
+    final int count = counts[phase];
+    if (count == 0) {
+      return Double.NaN;
+    }
+    return references[phase] + sums[phase] / count;
+  }
+
+  /**
+   * @return the sample standard deviation of the values of the phase in the window, NaN if there
+   *     are less than 2 values
+   */
+  double std(final int phase) {
+    final int count = counts[phase];
+    if (count <= 1) {
+      return Double.NaN;
+    }
+    final double sum = sums[phase];
+    final double variance = (sumsOfSquares[phase] - sum * sum / count) / (count - 1);
+    return Math.sqrt(Math.max(0, variance));
+  }
+
+  private void add(final int row) {
+    if (!included[row]) {
+      return;
+    }
+    final int phase = phases[row];
+    if (counts[phase] == 0) {
+      references[phase] = values[row];
+      sums[phase] = 0;
+      sumsOfSquares[phase] = 0;
+    }
+    final double delta = values[row] - references[phase];
+    counts[phase]++;
+    sums[phase] += delta;
+    sumsOfSquares[phase] += delta * delta;
+  }
+
+  private void remove(final int row) {
+    removedSinceRebuild++;
+    if (!included[row]) {
+      return;
+    }
+    final int phase = phases[row];
+    final double delta = values[row] - references[phase];
+    counts[phase]--;
+    sums[phase] -= delta;
+    sumsOfSquares[phase] -= delta * delta;
+  }
+
+  private void rebuild() {
+    Arrays.fill(counts, 0);
+    removedSinceRebuild = 0;
+    for (int row = start; row < end; row++) {
+      add(row);
+    }
+  }
+}
@@ -35,7 +35,9 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 import org.assertj.core.data.Offset;
+import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.testng.annotations.Test;
@@ -372,9 +374,9 @@ public class MeanVarianceRuleDetectorTest {
     for (int i =0; i<12; i++) {
       assertThat(outputDf.getDouble(Constants.COL_VALUE, i)).isNaN();
     }
-    assertThat(outputDf.getDouble(Constants.COL_VALUE, 12)).isCloseTo( 2.69,Offset.offset(0.01));
-    assertThat(outputDf.getDouble(Constants.COL_VALUE, 13)).isCloseTo( 2.69,Offset.offset(0.01));
-    assertThat(outputDf.getDouble(Constants.COL_VALUE, 14)).isCloseTo( 2.69,Offset.offset(0.01));
+    assertThat(outputDf.getDouble(Constants.COL_VALUE, 12)).isCloseTo( 2.70,Offset.offset(0.01));
+    assertThat(outputDf.getDouble(Constants.COL_VALUE, 13)).isCloseTo( 2.70,Offset.offset(0.01));
+    assertThat(outputDf.getDouble(Constants.COL_VALUE, 14)).isCloseTo( 2.70,Offset.offset(0.01));
     assertThat(outputDf.getDouble(Constants.COL_VALUE, 15)).isCloseTo( 2.68,Offset.offset(0.01));
     assertThat(outputDf.getDouble(Constants.COL_VALUE, 16)).isCloseTo( 2.67,Offset.offset(0.01));
   }
@@ -405,9 +407,9 @@ public class MeanVarianceRuleDetectorTest {
     for (int i =0; i<12; i++) {
       assertThat(outputDf.getDouble(Constants.COL_VALUE, i)).isNaN();
     }
-    assertThat(outputDf.getDouble(Constants.COL_VALUE, 12)).isCloseTo( 2.69,Offset.offset(0.01));
-    assertThat(outputDf.getDouble(Constants.COL_VALUE, 13)).isCloseTo( 2.69,Offset.offset(0.01));
-    assertThat(outputDf.getDouble(Constants.COL_VALUE, 14)).isCloseTo( 2.69,Offset.offset(0.01));
+    assertThat(outputDf.getDouble(Constants.COL_VALUE, 12)).isCloseTo( 2.70,Offset.offset(0.01));
+    assertThat(outputDf.getDouble(Constants.COL_VALUE, 13)).isCloseTo( 2.70,Offset.offset(0.01));
+    assertThat(outputDf.getDouble(Constants.COL_VALUE, 14)).isCloseTo( 2.70,Offset.offset(0.01));
     assertThat(outputDf.getDouble(Constants.COL_VALUE, 15)).isCloseTo( 2.68,Offset.offset(0.01));
     assertThat(outputDf.getDouble(Constants.COL_VALUE, 16)).isCloseTo( 2.67,Offset.offset(0.01));
     assertThat(outputDf.getDouble(Constants.COL_VALUE, 17)).isCloseTo( 2.68,Offset.offset(0.01));
@@ -635,4 +637,68 @@ public class MeanVarianceRuleDetectorTest {
     int output = computeSteps(period, monitoringGranularity);
     assertThat(output).isEqualTo(365);
   }
+
+  @Test
+  public void testRollingStatisticsMatchFullRecomputationWithSeasonalityAndDst() {
+    // hourly data over 8 weeks in a timezone with a DST change, with null and masked points
+    final DateTimeZone timezone = DateTimeZone.forID("America/New_York");
+    final DateTime start = new DateTime(2023, 2, 1, 0, 0, timezone);
+    final int size = 8 * 7 * 24;
+    final Random random = new Random(42);
+    final long[] times = new long[size];
+    final double[] values = new double[size];
+    final byte[] mask = new byte[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = start.plusHours(i).getMillis();
+      values[i] = random.nextInt(20) == 0 ? DoubleSeries.NULL : 1000 + 100 * random.nextGaussian();
+      mask[i] = BooleanSeries.valueOf(random.nextInt(20) == 0);
+    }
+    final DataFrame currentDf = new DataFrame()
+        .addSeries(Constants.COL_TIME, times)
+        .addSeries(Constants.COL_VALUE, values)
+        .addSeries(Constants.COL_MASK, BooleanSeries.buildFrom(mask));
+    final Interval interval = new Interval(start.plusWeeks(3).getMillis(), times[size - 1] + 1,
+        timezone);
+
+    final MeanVarianceRuleDetectorSpec spec = new MeanVarianceRuleDetectorSpec();
+    spec.setMonitoringGranularity("PT1H");
+    spec.setLookbackPeriod("P21D");
+    spec.setSeasonalityPeriod("P7D");
+    spec.setSensitivity(5);
+    final MeanVarianceRuleDetector detector = new MeanVarianceRuleDetector();
+    detector.init(spec);
+    final DataFrame outputDf = detector.runDetection(interval,
+        Map.of(AnomalyDetector.KEY_CURRENT, SimpleDataTable.fromDataFrame(currentDf)))
+        .getDataFrame();
+
+    final int lookback = 21 * 24;
+    final int firstDetectionIndex = 3 * 7 * 24;
+    for (int k = firstDetectionIndex; k < size; k++) {
+      if (BooleanSeries.isTrue(mask[k])) {
+        assertThat(outputDf.getDouble(Constants.COL_VALUE, k)).isNaN();
+        continue;
+      }
+      final DateTime forecast = new DateTime(times[k], timezone);
+      final DoubleSeries.Builder lookbackValues = DoubleSeries.builder();
+      for (int j = k - lookback; j < k; j++) {
+        final DateTime lookbackTime = new DateTime(times[j], timezone);
+        if (!BooleanSeries.isTrue(mask[j])
+            && lookbackTime.getDayOfWeek() == forecast.getDayOfWeek()
+            && lookbackTime.getMillisOfDay() == forecast.getMillisOfDay()) {
+          lookbackValues.addValues(values[j]);
+        }
+      }
+      final DoubleSeries expected = lookbackValues.build().dropNull();
+      final double expectedMean = expected.isEmpty() ? 0. : expected.mean().value();
+      final double expectedStd = expected.isEmpty() ? 0. : expected.std().value();
+      assertThat(outputDf.getDouble(Constants.COL_VALUE, k))
+          .isCloseTo(expectedMean, Offset.offset(1e-9));
+      if (Double.isNaN(expectedStd)) {
+        assertThat(outputDf.getDouble(Constants.COL_UPPER_BOUND, k)).isNaN();
+      } else {
+        assertThat(outputDf.getDouble(Constants.COL_UPPER_BOUND, k))
+            .isCloseTo(expectedMean + expectedStd, Offset.offset(1e-9));
+      }
+    }
+  }
 }
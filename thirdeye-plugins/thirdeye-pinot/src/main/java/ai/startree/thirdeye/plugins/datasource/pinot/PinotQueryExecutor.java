@@ -18,6 +18,10 @@ import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSet
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSetGroup;
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSetMetaData;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType.ColumnDataType;
 import ai.startree.thirdeye.spi.util.Pair;
@@ -35,6 +39,7 @@ import org.apache.pinot.client.PinotClientException;
 import org.apache.pinot.client.Request;
 import org.apache.pinot.client.ResultSet;
 import org.apache.pinot.client.ResultSetGroup;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +50,7 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
 
   private static final String SQL_QUERY_FORMAT = "sql";
   private static final String PQL_QUERY_FORMAT = "pql";
+  private static final String NULL_STRING = "null";
   private final PinotConnectionManager pinotConnectionManager;
 
   @Inject
@@ -103,7 +109,7 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
    * @param resultSet A result set from Pinot.
    * @return an unified {@link ThirdEyeDataFrameResultSet}.
    */
-  private static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
+  public static ThirdEyeDataFrameResultSet fromPinotResultSet(final ResultSet resultSet) {
     // Build the meta data of this result set
     final List<String> groupKeyColumnNames = new ArrayList<>();
     final List<ColumnType> groupKeyColumnTypes = new ArrayList<>();
@@ -141,45 +147,104 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
             groupKeyColumnTypes,
             metricColumnTypes);
 
-    // Build the DataFrame - FIXME CYRIL - this is not necessary to build a DataFrame at this point
-    final List<String> columnNameWithDataType = new ArrayList<>();
-    //   Always cast dimension values to STRING type
-    for (final String groupColumnName : thirdEyeResultSetMetaData.getGroupKeyColumnNames()) {
-      columnNameWithDataType.add(groupColumnName + ":STRING");
+    // Build the DataFrame column by column - values are read directly into primitive arrays
+    final DataFrame dataFrame = new DataFrame();
+    for (int groupKeyColumnIdx = 0; groupKeyColumnIdx < groupByColumnCount; groupKeyColumnIdx++) {
+      //   Always cast dimension values to STRING type
+      dataFrame.addSeries(groupKeyColumnNames.get(groupKeyColumnIdx),
+          groupKeySeries(resultSet, groupKeyColumnIdx));
+    }
+    for (int columnIdx = 0; columnIdx < metricColumnNames.size(); columnIdx++) {
+      dataFrame.addSeries(metricColumnNames.get(columnIdx),
+          metricSeries(resultSet, columnIdx, metricColumnTypes.get(columnIdx)));
     }
-    columnNameWithDataType.addAll(thirdEyeResultSetMetaData.getMetricColumnNames());
-    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNameWithDataType);
+    // Build ThirdEye's result set
+    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+
+  private static Series groupKeySeries(final ResultSet resultSet, final int groupKeyColumnIdx) {
     final int rowCount = resultSet.getRowCount();
-    final int metricColumnCount = resultSet.getColumnCount();
-    final int totalColumnCount = groupByColumnCount + metricColumnCount;
-    // Dump the values in ResultSet to the DataFrame
+    final String[] values = new String[rowCount];
     for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
-      final String[] columnsOfTheRow = new String[totalColumnCount];
-      // GroupBy column value(i.e., dimension values)
-      for (int groupByColumnIdx = 0; groupByColumnIdx < groupByColumnCount; groupByColumnIdx++) {
-        String valueString = null;
-        try {
-          valueString = resultSet.getGroupKeyString(rowIdx, groupByColumnIdx);
-        } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
-        }
-        columnsOfTheRow[groupByColumnIdx] = valueString;
+      try {
+        values[rowIdx] = resultSet.getGroupKeyString(rowIdx, groupKeyColumnIdx);
+      } catch (final Exception e) {
+        // Do nothing and subsequently insert a null value to the current series.
       }
-      // Metric column's value
-      for (int metricColumnIdx = 0; metricColumnIdx < metricColumnCount; metricColumnIdx++) {
-        String valueString = null;
-        try {
-          valueString = resultSet.getString(rowIdx, metricColumnIdx);
-        } catch (final Exception e) {
-          // Do nothing and subsequently insert a null value to the current series.
-        }
-        columnsOfTheRow[metricColumnIdx + groupByColumnCount] = valueString;
+    }
+    return StringSeries.buildFrom(values);
+  }
+
+  /**
+   * Reads a metric column into a series of the type announced by Pinot. INT and LONG columns are
+   * read into a {@link LongSeries}, FLOAT and DOUBLE columns into a {@link DoubleSeries}. Other
+   * types, and numeric columns with a value that cannot be parsed, are read into a
+   * {@link StringSeries}: parsing is then left to the consumer of the result set.
+   */
+  @VisibleForTesting
+  static Series metricSeries(final ResultSet resultSet, final int columnIdx,
+      final ColumnType columnType) {
+    final Series series = switch (columnType.getType()) {
+      case INT, LONG -> longSeries(resultSet, columnIdx);
+      case FLOAT, DOUBLE -> doubleSeries(resultSet, columnIdx);
+      default -> null;
+    };
+    return series != null ? series : stringSeries(resultSet, columnIdx);
+  }
+
+  private static @Nullable Series longSeries(final ResultSet resultSet, final int columnIdx) {
+    final int rowCount = resultSet.getRowCount();
+    final long[] values = new long[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      final String valueString = metricString(resultSet, rowIdx, columnIdx);
+      if (valueString == null || NULL_STRING.equals(valueString)) {
+        values[rowIdx] = LongSeries.NULL;
+        continue;
+      }
+      try {
+        values[rowIdx] = Long.parseLong(valueString);
+      } catch (final NumberFormatException e) {
+        return null;
       }
-      dfBuilder.append(columnsOfTheRow);
     }
-    final DataFrame dataFrame = dfBuilder.build();
-    // Build ThirdEye's result set
-    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+    return LongSeries.buildFrom(values);
+  }
+
+  private static @Nullable Series doubleSeries(final ResultSet resultSet, final int columnIdx) {
+    final int rowCount = resultSet.getRowCount();
+    final double[] values = new double[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      final String valueString = metricString(resultSet, rowIdx, columnIdx);
+      if (valueString == null || NULL_STRING.equals(valueString)) {
+        values[rowIdx] = DoubleSeries.NULL;
+        continue;
+      }
+      try {
+        values[rowIdx] = Double.parseDouble(valueString);
+      } catch (final NumberFormatException e) {
+        return null;
+      }
+    }
+    return DoubleSeries.buildFrom(values);
+  }
+
+  private static Series stringSeries(final ResultSet resultSet, final int columnIdx) {
+    final int rowCount = resultSet.getRowCount();
+    final String[] values = new String[rowCount];
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+      values[rowIdx] = metricString(resultSet, rowIdx, columnIdx);
+    }
+    return StringSeries.buildFrom(values);
+  }
+
+  private static @Nullable String metricString(final ResultSet resultSet, final int rowIdx,
+      final int columnIdx) {
+    try {
+      return resultSet.getString(rowIdx, columnIdx);
+    } catch (final Exception e) {
+      // Do nothing and subsequently insert a null value to the current series.
+      return null;
+    }
   }
 
   private static List<Pair<Integer, Integer>> rowColCounts(final ResultSetGroup resultSetGroup) {
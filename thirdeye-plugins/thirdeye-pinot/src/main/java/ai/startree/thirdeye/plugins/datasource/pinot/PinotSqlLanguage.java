@@ -13,12 +13,23 @@
  */
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.datasource.macro.ThirdEyeSqlParserConfig;
 import ai.startree.thirdeye.spi.datasource.macro.ThirdeyeSqlDialect;
+import javax.inject.Inject;
 
 public class PinotSqlLanguage implements SqlLanguage {
 
+  /**
+   * Pinot query option that runs queries on the multi-stage engine. Only the multi-stage engine
+   * supports UNION ALL.
+   */
+  public static final String USE_MULTISTAGE_ENGINE_OPTION = "useMultistageEngine";
+
   private static final ThirdEyeSqlParserConfig SQL_PARSER_CONFIG = new ThirdEyeSqlParserConfig.Builder()
       .withLex("MYSQL_ANSI")
       .withConformance("BABEL")
@@ -31,6 +42,25 @@ public class PinotSqlLanguage implements SqlLanguage {
       .withIdentifierQuoteString("\"")
       .build();
 
+  private final boolean multistageEngine;
+
+  public PinotSqlLanguage() {
+    this(false);
+  }
+
+  @Inject
+  public PinotSqlLanguage(final ThirdEyeDataSourceContext context) {
+    this(optional(context.getDataSourceDTO())
+        .map(DataSourceDTO::getDefaultQueryOptions)
+        .map(options -> options.get(USE_MULTISTAGE_ENGINE_OPTION))
+        .map(Boolean::parseBoolean)
+        .orElse(false));
+  }
+
+  private PinotSqlLanguage(final boolean multistageEngine) {
+    this.multistageEngine = multistageEngine;
+  }
+
   @Override
   public ThirdEyeSqlParserConfig getSqlParserConfig() {
     return SQL_PARSER_CONFIG;
@@ -40,4 +70,13 @@ public class PinotSqlLanguage implements SqlLanguage {
   public ThirdeyeSqlDialect getSqlDialect() {
     return SQL_DIALECT;
   }
+
+  /**
+   * UNION ALL is only supported by the multi-stage engine: enabled when the datasource default
+   * query options set {@value #USE_MULTISTAGE_ENGINE_OPTION} to true.
+   */
+  @Override
+  public boolean supportsUnionAll() {
+    return multistageEngine;
+  }
 }
@@ -13,16 +13,20 @@
  */
 package ai.startree.thirdeye.plugins.datasource.pinot;
 
+import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeDataFrameResultSet;
 import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSet;
 import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.detection.v2.AbstractDataTableImpl;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType.ColumnDataType;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Metrics;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +57,11 @@ public class ThirdEyeResultSetDataTable extends AbstractDataTableImpl {
     // TODO CYRIL check if groupKey is still used
     for (int colIdx = 0; colIdx < thirdEyeResultSet.getGroupKeyLength(); colIdx++) {
       final String columnName = thirdEyeResultSet.getGroupKeyColumnName(colIdx);
+      if (thirdEyeResultSet instanceof ThirdEyeDataFrameResultSet dfResultSet
+          && dfResultSet.getGroupKeySeries(colIdx).type() == SeriesType.STRING) {
+        df.addSeries(columnName, dfResultSet.getGroupKeySeries(colIdx));
+        continue;
+      }
       final String[] vals = new String[rowCount];
       for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
         vals[rowIdx] = thirdEyeResultSet.getGroupKeyColumnValue(rowIdx, colIdx);
@@ -62,6 +71,11 @@ public class ThirdEyeResultSetDataTable extends AbstractDataTableImpl {
     for (int colIdx = 0; colIdx < thirdEyeResultSet.getColumnCount(); colIdx++) {
       final String columnName = thirdEyeResultSet.getColumnName(colIdx);
       final ColumnDataType type = thirdEyeResultSet.getColumnType(colIdx).getType();
+      final Series typedSeries = typedSeries(thirdEyeResultSet, colIdx, type);
+      if (typedSeries != null) {
+        df.addSeries(columnName, typedSeries);
+        continue;
+      }
       switch (type) {
         case BOOLEAN:
           final byte[] bVals = new byte[rowCount];
@@ -123,6 +137,25 @@ public class ThirdEyeResultSetDataTable extends AbstractDataTableImpl {
     return df;
   }
 
+  /**
+   * Returns the series backing the column if the result set is already typed as expected. Avoids
+   * a copy and a parsing of each value.
+   */
+  private static @Nullable Series typedSeries(final ThirdEyeResultSet thirdEyeResultSet,
+      final int colIdx, final ColumnDataType type) {
+    if (!(thirdEyeResultSet instanceof ThirdEyeDataFrameResultSet dfResultSet)) {
+      return null;
+    }
+    final Series series = dfResultSet.getSeries(colIdx);
+    final SeriesType expectedSeriesType = switch (type) {
+      case INT, LONG -> SeriesType.LONG;
+      case FLOAT, DOUBLE -> SeriesType.DOUBLE;
+      case STRING -> SeriesType.STRING;
+      default -> null;
+    };
+    return series.type() == expectedSeriesType ? series : null;
+  }
+
   private byte boolOrNull(final ThirdEyeResultSet thirdEyeResultSet, final int rowIdx,
       final int colIdx) {
     final Boolean aBoolean = thirdEyeResultSet.getBoolean(rowIdx, colIdx);
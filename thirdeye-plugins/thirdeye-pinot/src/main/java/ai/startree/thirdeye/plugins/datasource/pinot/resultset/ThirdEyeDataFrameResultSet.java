@@ -14,6 +14,8 @@
 package ai.startree.thirdeye.plugins.datasource.pinot.resultset;
 
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.detection.v2.ColumnType;
 import com.google.common.base.Preconditions;
 import java.sql.ResultSet;
@@ -58,26 +60,80 @@ public class ThirdEyeDataFrameResultSet extends AbstractThirdEyeResultSet {
 
   @Override
   public String getColumnName(int columnIdx) {
-    Preconditions.checkPositionIndexes(0, columnIdx,
-        thirdEyeResultSetMetaData.getMetricColumnNames().size() - 1);
+    Preconditions.checkElementIndex(columnIdx,
+        thirdEyeResultSetMetaData.getMetricColumnNames().size());
     return thirdEyeResultSetMetaData.getMetricColumnNames().get(columnIdx);
   }
 
   @Override
   public ColumnType getColumnType(final int columnIdx) {
-    Preconditions.checkPositionIndexes(0, columnIdx,
-        thirdEyeResultSetMetaData.getMetricColumnTypes().size() - 1);
+    Preconditions.checkElementIndex(columnIdx,
+        thirdEyeResultSetMetaData.getMetricColumnTypes().size());
     return thirdEyeResultSetMetaData.getMetricColumnTypes().get(columnIdx);
   }
 
   @Override
   public String getString(int rowIdx, int columnIdx) {
-    Preconditions.checkPositionIndexes(0, columnIdx,
-        thirdEyeResultSetMetaData.getMetricColumnNames().size() - 1);
+    Preconditions.checkElementIndex(columnIdx,
+        thirdEyeResultSetMetaData.getMetricColumnNames().size());
     return dataFrame.get(thirdEyeResultSetMetaData.getMetricColumnNames().get(columnIdx))
         .getString(rowIdx);
   }
 
+  /**
+   * Typed columns are read directly from the series. String columns are parsed.
+   */
+  @Override
+  public Integer getInteger(final int rowIdx, final int columnIdx) {
+    final Series series = getSeries(columnIdx);
+    if (series.type() != SeriesType.LONG) {
+      return super.getInteger(rowIdx, columnIdx);
+    }
+    if (series.isNull(rowIdx)) {
+      return null;
+    }
+    final long value = series.getLong(rowIdx);
+    if (value != (int) value) {
+      throw new NumberFormatException("Value out of int range: " + value);
+    }
+    return (int) value;
+  }
+
+  @Override
+  public Long getLong(final int rowIdx, final int columnIdx) {
+    final Series series = getSeries(columnIdx);
+    if (series.type() != SeriesType.LONG) {
+      return super.getLong(rowIdx, columnIdx);
+    }
+    return series.isNull(rowIdx) ? null : series.getLong(rowIdx);
+  }
+
+  @Override
+  public Double getDouble(final int rowIdx, final int columnIdx) {
+    final Series series = getSeries(columnIdx);
+    if (series.type() != SeriesType.DOUBLE && series.type() != SeriesType.LONG) {
+      return super.getDouble(rowIdx, columnIdx);
+    }
+    return series.isNull(rowIdx) ? null : series.getDouble(rowIdx);
+  }
+
+  /**
+   * Returns the series backing a metric column. Series are immutable and can be shared.
+   */
+  public Series getSeries(final int columnIdx) {
+    Preconditions.checkElementIndex(columnIdx,
+        thirdEyeResultSetMetaData.getMetricColumnNames().size());
+    return dataFrame.get(thirdEyeResultSetMetaData.getMetricColumnNames().get(columnIdx));
+  }
+
+  /**
+   * Returns the series backing a group key column. Series are immutable and can be shared.
+   */
+  public Series getGroupKeySeries(final int columnIdx) {
+    Preconditions.checkElementIndex(columnIdx, getGroupKeyLength());
+    return dataFrame.get(thirdEyeResultSetMetaData.getGroupKeyColumnNames().get(columnIdx));
+  }
+
   @Override
   public int getGroupKeyLength() {
     return thirdEyeResultSetMetaData.getGroupKeyColumnNames().size();
@@ -85,19 +141,19 @@ public class ThirdEyeDataFrameResultSet extends AbstractThirdEyeResultSet {
 
   @Override
   public String getGroupKeyColumnName(int columnIdx) {
-    Preconditions.checkPositionIndexes(0, columnIdx, getGroupKeyLength() - 1);
+    Preconditions.checkElementIndex(columnIdx, getGroupKeyLength());
     return thirdEyeResultSetMetaData.getGroupKeyColumnNames().get(columnIdx);
   }
 
   @Override
   public ColumnType getGroupKeyColumnType(int columnIdx) {
-    Preconditions.checkPositionIndexes(0, columnIdx, getGroupKeyLength() - 1);
+    Preconditions.checkElementIndex(columnIdx, getGroupKeyLength());
     return thirdEyeResultSetMetaData.getGroupKeyColumnTypes().get(columnIdx);
   }
 
   @Override
   public String getGroupKeyColumnValue(int rowIdx, int columnIdx) {
-    Preconditions.checkPositionIndexes(0, columnIdx, getGroupKeyLength() - 1);
+    Preconditions.checkElementIndex(columnIdx, getGroupKeyLength());
     return dataFrame.get(thirdEyeResultSetMetaData.getGroupKeyColumnNames().get(columnIdx))
         .getString(rowIdx);
   }
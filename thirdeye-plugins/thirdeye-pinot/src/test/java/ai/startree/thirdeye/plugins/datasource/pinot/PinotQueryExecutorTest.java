@@ -15,8 +15,24 @@ package ai.startree.thirdeye.plugins.datasource.pinot;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeDataFrameResultSet;
+import ai.startree.thirdeye.plugins.datasource.pinot.resultset.ThirdEyeResultSetMetaData;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
 import org.testng.annotations.Test;
 
 public class PinotQueryExecutorTest {
@@ -56,4 +72,99 @@ public class PinotQueryExecutorTest {
     assertThat(output).isEqualTo(expectedOptionString+BASE_QUERY);
 
   }
+
+  @Test
+  public void testFromPinotResultSetReadsTypedColumns() throws Exception {
+    final ResultSet resultSet = new ResultTableResultSet(new ObjectMapper().readTree("""
+        {
+          "dataSchema": {
+            "columnNames": ["ts", "value", "country", "count", "day"],
+            "columnDataTypes": ["LONG", "DOUBLE", "STRING", "INT", "TIMESTAMP"]
+          },
+          "rows": [
+            [1000, 1.5, "007", 3, "2024-01-01 00:00:00.0"],
+            [2000, null, "us", 4, "2024-01-02 00:00:00.0"]
+          ]
+        }"""));
+
+    final ThirdEyeDataFrameResultSet thirdEyeResultSet = PinotQueryExecutor.fromPinotResultSet(
+        resultSet);
+
+    assertThat(thirdEyeResultSet.getSeries(0).type()).isEqualTo(SeriesType.LONG);
+    assertThat(thirdEyeResultSet.getSeries(1).type()).isEqualTo(SeriesType.DOUBLE);
+    assertThat(thirdEyeResultSet.getSeries(2).type()).isEqualTo(SeriesType.STRING);
+    assertThat(thirdEyeResultSet.getSeries(3).type()).isEqualTo(SeriesType.LONG);
+    // other types are read as STRING - the data table parses them as DOUBLE, see "day" below
+    assertThat(thirdEyeResultSet.getSeries(4).type()).isEqualTo(SeriesType.STRING);
+    assertThat(thirdEyeResultSet.getLong(1, 0)).isEqualTo(2000L);
+    assertThat(thirdEyeResultSet.getDouble(1, 1)).isNull();
+    assertThat(thirdEyeResultSet.getInteger(0, 3)).isEqualTo(3);
+
+    final DataFrame df = new ThirdEyeResultSetDataTable(thirdEyeResultSet).getDataFrame();
+    final DataFrame expected = new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(1000L, 2000L))
+        .addSeries("value", DoubleSeries.buildFrom(1.5, DoubleSeries.NULL))
+        .addSeries("country", StringSeries.buildFrom("007", "us"))
+        .addSeries("count", LongSeries.buildFrom(3L, 4L))
+        .addSeries("day", DoubleSeries.buildFrom(DoubleSeries.NULL, DoubleSeries.NULL));
+    assertThat(df).isEqualTo(expected);
+  }
+
+  @Test
+  public void testFromPinotResultSetMatchesRowWiseConversion() {
+    final ResultSet resultSet = breakdownResultSet(100);
+    final DataFrame columnar = new ThirdEyeResultSetDataTable(
+        PinotQueryExecutor.fromPinotResultSet(resultSet)).getDataFrame();
+
+    assertThat(columnar.size()).isEqualTo(100);
+    assertThat(columnar).isEqualTo(rowWise(resultSet));
+  }
+
+  /**
+   * A result set shaped like a breakdown query: a time column, 2 dimensions and 2 metrics.
+   */
+  private static ResultSet breakdownResultSet(final int rows) {
+    final ObjectNode resultTable = new ObjectMapper().createObjectNode();
+    final ObjectNode dataSchema = resultTable.putObject("dataSchema");
+    dataSchema.putArray("columnNames")
+        .add("ts").add("country").add("browser").add("revenue").add("views");
+    dataSchema.putArray("columnDataTypes")
+        .add("LONG").add("STRING").add("STRING").add("DOUBLE").add("LONG");
+    final ArrayNode rowsArray = resultTable.putArray("rows");
+    final Random random = new Random(42);
+    for (int i = 0; i < rows; i++) {
+      rowsArray.addArray()
+          .add(1_700_000_000_000L + i * 3_600_000L)
+          .add("country_" + random.nextInt(50))
+          .add("browser_" + random.nextInt(10))
+          .add(random.nextDouble() * 1000)
+          .add(random.nextInt(100_000));
+    }
+    return new ResultTableResultSet(resultTable);
+  }
+
+  /**
+   * Former row-wise conversion: every value is converted to a String, then parsed again by the
+   * DataFrame builder. Pinot SQL result sets have no group key columns.
+   */
+  private static DataFrame rowWise(final ResultSet resultSet) {
+    final List<String> columnNames = new ArrayList<>();
+    final List<ColumnType> columnTypes = new ArrayList<>();
+    for (int columnIdx = 0; columnIdx < resultSet.getColumnCount(); columnIdx++) {
+      columnNames.add(resultSet.getColumnName(columnIdx));
+      columnTypes.add(ColumnType.pinotTypeToColumnType(resultSet.getColumnDataType(columnIdx)));
+    }
+    final DataFrame.Builder dfBuilder = DataFrame.builder(columnNames);
+    final int columnCount = resultSet.getColumnCount();
+    for (int rowIdx = 0; rowIdx < resultSet.getRowCount(); rowIdx++) {
+      final String[] columnsOfTheRow = new String[columnCount];
+      for (int columnIdx = 0; columnIdx < columnCount; columnIdx++) {
+        columnsOfTheRow[columnIdx] = resultSet.getString(rowIdx, columnIdx);
+      }
+      dfBuilder.append((Object[]) columnsOfTheRow);
+    }
+    return new ThirdEyeResultSetDataTable(new ThirdEyeDataFrameResultSet(
+        new ThirdEyeResultSetMetaData(List.of(), columnNames, List.of(), columnTypes),
+        dfBuilder.build())).getDataFrame();
+  }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static ai.startree.thirdeye.plugins.datasource.pinot.PinotSqlLanguage.USE_MULTISTAGE_ENGINE_OPTION;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSourceContext;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class PinotSqlLanguageTest {
+
+  private static PinotSqlLanguage languageWithOptions(final Map<String, String> options) {
+    return new PinotSqlLanguage(new ThirdEyeDataSourceContext()
+        .setDataSourceDTO(new DataSourceDTO().setDefaultQueryOptions(options)));
+  }
+
+  @Test
+  public void testSupportsUnionAllOnlyWithMultistageEngine() {
+    assertThat(new PinotSqlLanguage().supportsUnionAll()).isFalse();
+    assertThat(languageWithOptions(Map.of()).supportsUnionAll()).isFalse();
+    assertThat(languageWithOptions(Map.of(USE_MULTISTAGE_ENGINE_OPTION, "false"))
+        .supportsUnionAll()).isFalse();
+    assertThat(languageWithOptions(Map.of(USE_MULTISTAGE_ENGINE_OPTION, "true"))
+        .supportsUnionAll()).isTrue();
+  }
+}
@@ -13,6 +13,9 @@
  */
 package ai.startree.thirdeye;
 
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_CURSOR_WITHOUT_LIMIT;
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_CURSOR_WITH_OFFSET;
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_INVALID_CURSOR;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_INVALID_QUERY_PARAM_OPERATOR;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_LIMIT_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_OFFSET_VALUE;
@@ -20,11 +23,13 @@ import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_OFFSET_WITHOUT_LIMIT;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_UNEXPECTED_QUERY_PARAM;
 import static ai.startree.thirdeye.spi.util.Pair.pair;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static ai.startree.thirdeye.util.ResourceUtils.badRequest;
 import static ai.startree.thirdeye.util.ResourceUtils.ensure;
 import static ai.startree.thirdeye.util.ResourceUtils.ensureExists;
 
 import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
 import ai.startree.thirdeye.spi.util.Pair;
@@ -37,11 +42,12 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.ws.rs.core.MultivaluedMap;
 
 public class DaoFilterBuilder {
 
-  private static final ImmutableSet<String> KEYWORDS = ImmutableSet.of("limit", "offset");
+  private static final ImmutableSet<String> KEYWORDS = ImmutableSet.of("limit", "offset", "cursor");
   private static final ImmutableMap<String, OPER> OPERATOR_MAP = ImmutableMap.<String, OPER>builder()
       .put("eq", OPER.EQ)
       .put("gt", OPER.GT)
@@ -96,10 +102,38 @@ public class DaoFilterBuilder {
           ensure(offset >= 0, ERR_NEGATIVE_OFFSET_VALUE);
           daoFilter.setOffset(offset);
         });
+    if (queryParameters.getFirst("cursor") != null) {
+      ensureExists(daoFilter.getLimit(), ERR_CURSOR_WITHOUT_LIMIT);
+      ensure(daoFilter.getOffset() == null, ERR_CURSOR_WITH_OFFSET);
+    }
 
     return daoFilter.setPredicate(buildPredicate(queryParameters));
   }
 
+  /**
+   * Whether the client asked for keyset paging, by setting the 'cursor' query param.
+   */
+  public boolean isKeysetPaging(final MultivaluedMap<String, String> queryParameters) {
+    return queryParameters.getFirst("cursor") != null;
+  }
+
+  /**
+   * Returns the keyset cursor of the 'cursor' query param. null if the param is not set or empty.
+   * An empty cursor means the first page.
+   */
+  public @Nullable KeysetCursor buildCursor(
+      final MultivaluedMap<String, String> queryParameters) {
+    final String token = queryParameters.getFirst("cursor");
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    try {
+      return KeysetCursor.fromToken(token);
+    } catch (final IllegalArgumentException e) {
+      throw badRequest(ERR_INVALID_CURSOR, token);
+    }
+  }
+
   private Predicate buildPredicate(final MultivaluedMap<String, String> queryParameters) {
     final List<Predicate> predicates = new ArrayList<>();
     for (Map.Entry<String, List<String>> e : queryParameters.entrySet()) {
@@ -27,6 +27,7 @@ import ai.startree.thirdeye.datalayer.DataSourceBuilder;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
 import ai.startree.thirdeye.healthcheck.DatabaseHealthCheck;
 import ai.startree.thirdeye.json.ThirdEyeJsonProcessingExceptionMapper;
+import ai.startree.thirdeye.resources.CrudResource;
 import ai.startree.thirdeye.resources.root.RootResource;
 import ai.startree.thirdeye.scheduler.SchedulerService;
 import ai.startree.thirdeye.scheduler.events.MockEventsLoader;
@@ -109,6 +110,7 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
         return configuration.getSwaggerBundleConfiguration();
       }
     });
+    // also serializes the list responses streamed by ResourceUtils#streamJsonArray
     bootstrap.getObjectMapper().registerModule(ThirdEyeSerialization.TEMPLATABLE);
   }
 
@@ -265,6 +267,7 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
     cors.setInitParameter("allowedHeaders",
         "Authorization,X-Requested-With,Content-Type,Accept,Origin,Accept-Version");
     cors.setInitParameter("allowedMethods", "OPTIONS,GET,PUT,POST,DELETE,HEAD");
+    cors.setInitParameter("exposedHeaders", CrudResource.NEXT_CURSOR_HEADER);
 
     // Add URL mapping
     cors.addMappingForUrlPatterns(EnumSet.allOf(DispatcherType.class), true, "/*");
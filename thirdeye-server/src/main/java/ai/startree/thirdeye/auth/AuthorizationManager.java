@@ -26,6 +26,7 @@ import ai.startree.thirdeye.spi.auth.AuthenticationType;
 import ai.startree.thirdeye.spi.auth.ResourceIdentifier;
 import ai.startree.thirdeye.spi.auth.ThirdEyeAuthorizer;
 import ai.startree.thirdeye.spi.auth.ThirdEyePrincipal;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertTemplateManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
@@ -145,6 +146,26 @@ public class AuthorizationManager {
     }
   }
 
+  /**
+   * Returns a predicate on the namespace column of the index tables that keeps the entities the
+   * principal may read, or null if no entity can be excluded in the database.
+   * Entities with an unset namespace are always kept: their namespace is resolved in app.
+   * This is a pre-filter: the entities must still be checked with hasAccess.
+   */
+  public @Nullable Predicate readableNamespacesPredicate(final ThirdEyePrincipal principal) {
+    if (!requireNamespace
+        || INTERNAL_VALID_PRINCIPAL.equals(principal)
+        || principal.getAuthenticationType() == AuthenticationType.BASIC_AUTH) {
+      return null;
+    }
+    final List<String> namespaces = thirdEyeAuthorizer.listNamespaces(principal);
+    final Predicate unsetNamespace = Predicate.IS_NULL("namespace");
+    if (namespaces.isEmpty()) {
+      return unsetNamespace;
+    }
+    return Predicate.OR(Predicate.IN("namespace", namespaces.toArray()), unsetNamespace);
+  }
+
   // FIXME CYRIL I AM HERE - maybe will need a filterByNamespace with an existing dto --> will need to resolve namespace with the namespace resolver
   // TODO CYRIL authz perf - in most cases places using this method should filter at fetch time on the namespace to avoid noisy neighbours effect / stressing the instance   
   public <T extends AbstractDTO> List<T> filterByNamespace(final ThirdEyePrincipal principal,
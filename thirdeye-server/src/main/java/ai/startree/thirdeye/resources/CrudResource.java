@@ -17,9 +17,11 @@ import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_OBJECT_DOES_NOT_EXIST;
 import static ai.startree.thirdeye.util.ResourceUtils.ensureExists;
 import static ai.startree.thirdeye.util.ResourceUtils.respondOk;
 import static ai.startree.thirdeye.util.ResourceUtils.statusResponse;
+import static ai.startree.thirdeye.util.ResourceUtils.streamJsonArray;
 
 import ai.startree.thirdeye.auth.ThirdEyeServerPrincipal;
 import ai.startree.thirdeye.service.CrudService;
+import ai.startree.thirdeye.service.CrudService.ListPage;
 import ai.startree.thirdeye.spi.api.ThirdEyeCrudApi;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import io.dropwizard.auth.Auth;
@@ -43,6 +45,11 @@ import org.slf4j.LoggerFactory;
 
 public abstract class CrudResource<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT extends AbstractDTO> {
 
+  /**
+   * Response header of the list endpoint, set when the 'cursor' query param is passed. Pass it in
+   * the 'cursor' query param to get the next page. An empty 'cursor' gives the first page.
+   */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
   private static final Logger LOG = LoggerFactory.getLogger(CrudResource.class);
 
   protected final CrudService<ApiT, DtoT> crudService;
@@ -59,7 +66,10 @@ public abstract class CrudResource<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT exte
       @Context UriInfo uriInfo
   ) {
     final MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
-    return respondOk(crudService.list(principal, queryParameters));
+    final ListPage<ApiT> page = crudService.list(principal, queryParameters);
+    return Response.ok(streamJsonArray(page.elements()), MediaType.APPLICATION_JSON_TYPE)
+        .header(NEXT_CURSOR_HEADER, page.nextCursor())
+        .build();
   }
 
   @GET
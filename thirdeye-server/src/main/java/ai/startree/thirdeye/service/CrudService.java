@@ -33,6 +33,7 @@ import ai.startree.thirdeye.spi.api.ThirdEyeCrudApi;
 import ai.startree.thirdeye.spi.auth.AccessType;
 import ai.startree.thirdeye.spi.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AbstractManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -52,6 +53,8 @@ import org.slf4j.LoggerFactory;
 public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT extends AbstractDTO> {
 
   private static final Logger LOG = LoggerFactory.getLogger(CrudService.class);
+  private static final int LIST_PAGE_SIZE = 500;
+
   protected final AuthorizationManager authorizationManager;
 
   protected final AbstractManager<DtoT> dtoManager;
@@ -116,21 +119,58 @@ public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT exten
     return toApi(dtoT, cache);
   }
 
-  public Stream<ApiT> list(
+  /**
+   * Without limit, entities are read page by page while the stream is consumed.
+   * With a limit and the 'cursor' query param, returns the page after the cursor in
+   * (createTime, id) order, and the cursor of the next page if the page is full. An empty cursor
+   * gives the first page. Entities without createTime are not returned in this mode.
+   * The namespaces the principal can read are filtered in the database, then access is checked
+   * for each entity.
+   */
+  public ListPage<ApiT> list(
       final ThirdEyeServerPrincipal principal,
       final MultivaluedMap<String, String> queryParameters
   ) {
-    final List<DtoT> results = queryParameters.size() > 0
-        ? dtoManager.filter(new DaoFilterBuilder(apiToIndexMap).buildFilter(queryParameters))
-        : dtoManager.findAll();
-    // FIXME CYRIL ADD namespace in-app filter - then add query level filter
+    final DaoFilterBuilder daoFilterBuilder = new DaoFilterBuilder(apiToIndexMap);
+    final DaoFilter daoFilter = daoFilterBuilder.buildFilter(queryParameters);
+    final KeysetCursor cursor = daoFilterBuilder.buildCursor(queryParameters);
+    final Predicate predicate = withReadableNamespaces(principal, daoFilter.getPredicate());
+
+    if (daoFilterBuilder.isKeysetPaging(queryParameters)) {
+      final int limit = Math.toIntExact(daoFilter.getLimit());
+      final List<DtoT> page = dtoManager.findPageAfter(predicate, cursor, limit);
+      // computed before the access check: a page can have less than limit readable entities
+      final String nextCursor = limit > 0 && page.size() == limit
+          ? KeysetCursor.of(page.get(page.size() - 1)).toToken()
+          : null;
+      return new ListPage<>(toReadableApis(principal, page.stream()), nextCursor);
+    }
+    final Stream<DtoT> results = daoFilter.getLimit() != null
+        ? dtoManager.filter(daoFilter.setPredicate(predicate)).stream()
+        : dtoManager.findByPredicateInPages(predicate, LIST_PAGE_SIZE);
+    return new ListPage<>(toReadableApis(principal, results), null);
+  }
 
+  private Stream<ApiT> toReadableApis(final ThirdEyeServerPrincipal principal,
+      final Stream<DtoT> dtos) {
     final RequestCache cache = createRequestCache();
-    return results.stream()
+    return dtos
         .filter(dto -> authorizationManager.hasAccess(principal, dto, AccessType.READ))
         .map(dto -> toApi(dto, cache));
   }
 
+  private @Nullable Predicate withReadableNamespaces(final ThirdEyeServerPrincipal principal,
+      final @Nullable Predicate predicate) {
+    final Predicate namespacePredicate = authorizationManager.readableNamespacesPredicate(
+        principal);
+    if (namespacePredicate == null) {
+      return predicate;
+    } else if (predicate == null) {
+      return namespacePredicate;
+    }
+    return Predicate.AND(predicate, namespacePredicate);
+  }
+
   @NonNull
   public List<ApiT> createMultiple(final ThirdEyePrincipal principal,
       final List<ApiT> list) {
@@ -322,4 +362,10 @@ public abstract class CrudService<ApiT extends ThirdEyeCrudApi<ApiT>, DtoT exten
   protected void deleteDto(final DtoT dto) {
     dtoManager.delete(dto);
   }
+
+  /**
+   * @param nextCursor token of the 'cursor' query param to get the next page. null if there is
+   *     no next page or if the listing is not paginated with a cursor.
+   */
+  public record ListPage<ApiT>(Stream<ApiT> elements, @Nullable String nextCursor) {}
 }
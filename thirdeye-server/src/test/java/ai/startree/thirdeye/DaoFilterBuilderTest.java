@@ -19,6 +19,7 @@ import static ai.startree.thirdeye.spi.util.Pair.pair;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
 import com.google.common.collect.ImmutableMap;
@@ -106,4 +107,28 @@ public class DaoFilterBuilderTest {
   public void testOffsetWithoutLimit() {
     assertBadRequestException(queryParams("offset", "10"));
   }
+
+  @Test
+  public void testCursorParams() {
+    final String token = new KeysetCursor(1000L, 7L).toToken();
+    final MultivaluedMap<String, String> queryParams = queryParams(
+        "limit", "5",
+        "cursor", token);
+    assertThat(builder().buildFilter(queryParams).getPredicate()).isNull();
+    assertThat(builder().buildCursor(queryParams)).isEqualTo(new KeysetCursor(1000L, 7L));
+    assertThat(builder().buildCursor(queryParams("limit", "5"))).isNull();
+    assertThat(builder().isKeysetPaging(queryParams)).isTrue();
+    assertThat(builder().isKeysetPaging(queryParams("limit", "5"))).isFalse();
+    // an empty cursor asks for the first page
+    assertThat(builder().isKeysetPaging(queryParams("limit", "5", "cursor", ""))).isTrue();
+    assertThat(builder().buildCursor(queryParams("limit", "5", "cursor", ""))).isNull();
+
+    assertBadRequestException(queryParams("cursor", token));
+    assertBadRequestException(queryParams(
+        "limit", "5",
+        "offset", "10",
+        "cursor", token));
+    assertThatThrownBy(() -> builder().buildCursor(queryParams("cursor", "not a cursor")))
+        .isInstanceOf(BadRequestException.class);
+  }
 }
@@ -19,7 +19,11 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.spi.auth.AuthenticationType;
 import ai.startree.thirdeye.spi.auth.ResourceIdentifier;
+import ai.startree.thirdeye.spi.auth.ThirdEyeAuthorizer;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
@@ -320,6 +324,31 @@ public class AuthorizationManagerTest {
     assertThat(output.getEntityType()).isEqualTo(expected.getEntityType());
   }
 
+  @Test
+  public void testReadableNamespacesPredicate() {
+    final ThirdEyeAuthorizer authorizer = mock(ThirdEyeAuthorizer.class);
+    final ThirdEyeServerPrincipal principal = new ThirdEyeServerPrincipal("user", "",
+        AuthenticationType.OAUTH);
+    when(authorizer.listNamespaces(principal)).thenReturn(List.of("ns1", "ns2"));
+    final AuthConfiguration requireNamespace = new AuthConfiguration().setEnabled(true)
+        .setAuthorization(new AuthorizationConfiguration().setRequireNamespace(true));
+
+    final AuthorizationManager authorizationManager = new AuthorizationManager(null, null, null,
+        authorizer, null, requireNamespace);
+    final Predicate predicate = authorizationManager.readableNamespacesPredicate(principal);
+    assertThat(predicate.getOper()).isEqualTo(OPER.OR);
+    final Predicate inNamespaces = predicate.getChildPredicates()[0];
+    assertThat(inNamespaces.getOper()).isEqualTo(OPER.IN);
+    assertThat((Object[]) inNamespaces.getRhs()).isEqualTo(new Object[]{"ns1", "ns2"});
+    // entities with an unset namespace are filtered in app
+    assertThat(predicate.getChildPredicates()[1]).isEqualTo(Predicate.IS_NULL("namespace"));
+
+    // without requireNamespace, the namespace of the entities is not filtered in the database
+    final AuthorizationManager noRequireNamespaceManager = new AuthorizationManager(null, null,
+        null, authorizer, null, new AuthConfiguration());
+    assertThat(noRequireNamespaceManager.readableNamespacesPredicate(principal)).isNull();
+  }
+
   private static EnumerationItemDTO enumWithResource() {
     final var enumItem = new EnumerationItemDTO();
     enumItem.setId(2L);
@@ -16,7 +16,12 @@ package ai.startree.thirdeye.resources;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ai.startree.thirdeye.auth.AuthConfiguration;
@@ -31,16 +36,22 @@ import ai.startree.thirdeye.service.CrudService;
 import ai.startree.thirdeye.spi.api.ThirdEyeCrudApi;
 import ai.startree.thirdeye.spi.auth.AuthenticationType;
 import ai.startree.thirdeye.spi.auth.ThirdEyeAuthorizer;
+import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.bao.AbstractManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertTemplateManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import java.util.stream.Stream;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.core.MultivaluedHashMap;
@@ -127,11 +138,11 @@ public class CrudResourceTest {
   }
 
   @Test
-  public void testGetAll_withNoAccess() {
+  public void testGetAll_withNoAccess() throws IOException {
     final DummyManager manager = mock(DummyManager.class);
     final UriInfo uriInfo = mock(UriInfo.class);
     when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
-    when(manager.findAll()).thenReturn(Arrays.asList(
+    when(manager.findByPredicateInPages(isNull(), anyInt())).thenReturn(Stream.of(
         (DummyDto) new DummyDto().setId(1L),
         (DummyDto) new DummyDto().setId(2L),
         (DummyDto) new DummyDto().setId(3L)
@@ -142,18 +153,16 @@ public class CrudResourceTest {
     try (Response resp = resource.list(nobody(), uriInfo)) {
       assertThat(resp.getStatus()).isEqualTo(200);
 
-      final List<DummyApi> entities = ((Stream<DummyApi>) resp.getEntity()).collect(
-          Collectors.toList());
-      assertThat(entities).isEmpty();
+      assertThat(listedIds(resp)).isEmpty();
     }
   }
 
   @Test
-  public void testGetAll_withPartialAccess() {
+  public void testGetAll_withPartialAccess() throws IOException {
     final DummyManager manager = mock(DummyManager.class);
     final UriInfo uriInfo = mock(UriInfo.class);
     when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>());
-    when(manager.findAll()).thenReturn(Arrays.asList(
+    when(manager.findByPredicateInPages(isNull(), anyInt())).thenReturn(Stream.of(
         (DummyDto) new DummyDto().setId(1L),
         (DummyDto) new DummyDto().setId(2L),
         (DummyDto) new DummyDto().setId(3L)
@@ -165,11 +174,69 @@ public class CrudResourceTest {
     try (Response resp = resource.list(nobody(), uriInfo)) {
       assertThat(resp.getStatus()).isEqualTo(200);
 
-      final List<DummyApi> entities = ((Stream<DummyApi>) resp.getEntity()).collect(
-          Collectors.toList());
-      assertThat(1).isEqualTo(entities.size());
-      assertThat(2L).isEqualTo(entities.get(0).getId());
+      assertThat(listedIds(resp)).containsExactly(2L);
+    }
+  }
+
+  @Test
+  public void testList_withLimitReturnsNextCursor() throws IOException {
+    final DummyManager manager = mock(DummyManager.class);
+    final DummyDto first = (DummyDto) new DummyDto()
+        .setCreateTime(new Timestamp(1000L))
+        .setId(1L);
+    final DummyDto second = (DummyDto) new DummyDto()
+        .setCreateTime(new Timestamp(1000L))
+        .setId(2L);
+    when(manager.findPageAfter(isNull(), isNull(), eq(2))).thenReturn(List.of(first, second));
+    final DummyResource resource = new DummyResource(manager, ImmutableMap.of(),
+        ThirdEyeAuthorizerProvider.ALWAYS_ALLOW);
+
+    final UriInfo uriInfo = mock(UriInfo.class);
+    when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>(
+        Map.of("limit", "2", "cursor", "")));
+    final String nextCursor;
+    try (Response resp = resource.list(nobody(), uriInfo)) {
+      assertThat(listedIds(resp)).containsExactly(1L, 2L);
+      nextCursor = resp.getHeaderString(CrudResource.NEXT_CURSOR_HEADER);
+    }
+    assertThat(KeysetCursor.fromToken(nextCursor)).isEqualTo(new KeysetCursor(1000L, 2L));
+
+    // last page: not full, no next cursor
+    when(manager.findPageAfter(isNull(), eq(new KeysetCursor(1000L, 2L)), eq(2)))
+        .thenReturn(List.of());
+    when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>(
+        Map.of("limit", "2", "cursor", nextCursor)));
+    try (Response resp = resource.list(nobody(), uriInfo)) {
+      assertThat(listedIds(resp)).isEmpty();
+      assertThat(resp.getHeaderString(CrudResource.NEXT_CURSOR_HEADER)).isNull();
+    }
+  }
+
+  @Test
+  public void testList_withLimitAndNoCursorUsesLimitQuery() throws IOException {
+    final DummyManager manager = mock(DummyManager.class);
+    // no createTime: still listed without a cursor
+    when(manager.filter(any(DaoFilter.class))).thenReturn(List.of(
+        (DummyDto) new DummyDto().setId(2L),
+        (DummyDto) new DummyDto().setId(1L)));
+    final DummyResource resource = new DummyResource(manager, ImmutableMap.of(),
+        ThirdEyeAuthorizerProvider.ALWAYS_ALLOW);
+
+    final UriInfo uriInfo = mock(UriInfo.class);
+    when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>(Map.of("limit", "2")));
+    try (Response resp = resource.list(nobody(), uriInfo)) {
+      assertThat(listedIds(resp)).containsExactly(2L, 1L);
+      assertThat(resp.getHeaderString(CrudResource.NEXT_CURSOR_HEADER)).isNull();
     }
+    verify(manager, never()).findPageAfter(any(), any(), anyInt());
+  }
+
+  private static List<Long> listedIds(final Response resp) throws IOException {
+    final ObjectMapper objectMapper = ThirdEyeSerialization.getObjectMapper();
+    final List<Long> ids = new ArrayList<>();
+    objectMapper.readTree(objectMapper.writeValueAsBytes(resp.getEntity()))
+        .forEach(node -> ids.add(node.get("id").asLong()));
+    return ids;
   }
 
   @Test(expectedExceptions = ForbiddenException.class)
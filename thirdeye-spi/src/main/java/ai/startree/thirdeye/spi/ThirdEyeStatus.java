@@ -59,6 +59,9 @@ public enum ThirdEyeStatus {
   ERR_NEGATIVE_LIMIT_VALUE("Negative 'limit' value provided."),
   ERR_NEGATIVE_OFFSET_VALUE("Negative 'offset' value provided."),
   ERR_OFFSET_WITHOUT_LIMIT("'offset' value provided without 'limit' value."),
+  ERR_CURSOR_WITHOUT_LIMIT("'cursor' value provided without 'limit' value."),
+  ERR_CURSOR_WITH_OFFSET("'cursor' and 'offset' values cannot be provided together."),
+  ERR_INVALID_CURSOR("Invalid 'cursor' value: %s"),
 
   OK("OK"),
   ;
@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.spi.datalayer;
 
+import java.util.Collection;
+import java.util.Map;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.joda.time.Interval;
 
@@ -20,6 +22,13 @@ public class AnomalyFilter {
 
   private Interval createTimeWindow;
   private Long alertId;
+  // find anomalies of any of these alerts. Must not be empty
+  private Collection<Long> alertIds;
+  /*
+   * find anomalies of any of these alerts, restricted to the given enumeration items. An alert
+   * mapped to an empty collection matches all its enumeration items. Must not be empty
+   */
+  private Map<Long, Collection<Long>> enumerationItemIdsByAlertId;
   private Long enumerationItemId;
   private Boolean isIgnored;
   private Boolean hasFeedback;
@@ -50,6 +59,8 @@ public class AnomalyFilter {
     return new AnomalyFilter()
         .setCreateTimeWindow(filter.createTimeWindow)
         .setAlertId(filter.alertId)
+        .setAlertIds(filter.alertIds)
+        .setEnumerationItemIdsByAlertId(filter.enumerationItemIdsByAlertId)
         .setEnumerationItemId(filter.enumerationItemId)
         .setIsIgnored(filter.isIgnored)
         .setHasFeedback(filter.hasFeedback)
@@ -84,6 +95,25 @@ public class AnomalyFilter {
     return this;
   }
 
+  public Collection<Long> getAlertIds() {
+    return alertIds;
+  }
+
+  public AnomalyFilter setAlertIds(final Collection<Long> alertIds) {
+    this.alertIds = alertIds;
+    return this;
+  }
+
+  public Map<Long, Collection<Long>> getEnumerationItemIdsByAlertId() {
+    return enumerationItemIdsByAlertId;
+  }
+
+  public AnomalyFilter setEnumerationItemIdsByAlertId(
+      final Map<Long, Collection<Long>> enumerationItemIdsByAlertId) {
+    this.enumerationItemIdsByAlertId = enumerationItemIdsByAlertId;
+    return this;
+  }
+
   public Long getEnumerationItemId() {
     return enumerationItemId;
   }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datalayer;
+
+import static java.util.Objects.requireNonNull;
+
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Position of an entity in the (createTime, id) order. Used for keyset pagination: the next page
+ * is the entities strictly after the cursor, so pages stay stable and cheap to read whatever the
+ * depth, unlike limit/offset.
+ *
+ * The cursor is exchanged with clients as an opaque token. See {@link #toToken()}.
+ */
+public record KeysetCursor(long createTime, long id) {
+
+  private static final String SEPARATOR = ":";
+
+  public static KeysetCursor of(final AbstractDTO dto) {
+    requireNonNull(dto.getCreateTime(), "createTime is required to build a cursor");
+    requireNonNull(dto.getId(), "id is required to build a cursor");
+    return new KeysetCursor(dto.getCreateTime().getTime(), dto.getId());
+  }
+
+  /**
+   * @throws IllegalArgumentException if the token was not created by {@link #toToken()}
+   */
+  public static KeysetCursor fromToken(final String token) {
+    final String decoded = new String(Base64.getUrlDecoder().decode(token),
+        StandardCharsets.UTF_8);
+    final String[] parts = decoded.split(SEPARATOR);
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+    return new KeysetCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+  }
+
+  public String toToken() {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((createTime + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Predicate matching the entities strictly after this cursor.
+   * Entities with a null createTime never match.
+   *
+   * @param createTimeKey name of the create time column
+   * @param idKey name of the id column
+   */
+  public Predicate after(final String createTimeKey, final String idKey) {
+    final Timestamp timestamp = new Timestamp(createTime);
+    return Predicate.OR(
+        Predicate.GT(createTimeKey, timestamp),
+        Predicate.AND(Predicate.EQ(createTimeKey, timestamp), Predicate.GT(idKey, id)));
+  }
+}
@@ -101,6 +101,14 @@ public class Predicate {
     return new Predicate(columnName, OPER.LIKE, value);
   }
 
+  public static Predicate IS_NULL(String columnName) {
+    return new Predicate(columnName, OPER.IS_NULL, null);
+  }
+
+  public static Predicate IS_NOT_NULL(String columnName) {
+    return new Predicate(columnName, OPER.IS_NOT_NULL, null);
+  }
+
   public String getLhs() {
     return lhs;
   }
@@ -128,7 +136,9 @@ public class Predicate {
     NEQ("!="),
     IN("IN"),
     BETWEEN("BETWEEN"),
-    LIKE("LIKE");
+    LIKE("LIKE"),
+    IS_NULL("IS NULL"),
+    IS_NOT_NULL("IS NOT NULL");
 
     private static final Map<String, OPER> STRING_TO_ENUM = Arrays.stream(OPER.values()).collect(
         Collectors.toMap(Object::toString, e -> e));
@@ -14,10 +14,12 @@
 package ai.startree.thirdeye.spi.datalayer.bao;
 
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
+import ai.startree.thirdeye.spi.datalayer.KeysetCursor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -75,6 +77,23 @@ public interface AbstractManager<E extends AbstractDTO> {
 
   List<E> filter(DaoFilter daoFilter);
 
+  /**
+   * Find entities matching the predicate, in id order. Entities are read lazily, pageSize at a
+   * time, when the stream is consumed.
+   *
+   * @param predicate predicate on the indexed columns. null means all entities.
+   */
+  Stream<E> findByPredicateInPages(@Nullable Predicate predicate, int pageSize);
+
+  /**
+   * Find at most limit entities matching the predicate and strictly after the cursor, in
+   * (createTime, id) order. The cursor of the last entity gives the next page.
+   *
+   * @param predicate predicate on the indexed columns. null means all entities.
+   * @param after null means the first page.
+   */
+  List<E> findPageAfter(@Nullable Predicate predicate, @Nullable KeysetCursor after, int limit);
+
   int update(E entity, Predicate predicate);
 
   /**
@@ -15,6 +15,7 @@ package ai.startree.thirdeye.spi.datalayer.bao;
 
 import ai.startree.thirdeye.spi.api.AnomalyStatsApi;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.detection.AnomalyFeedback;
 import ai.startree.thirdeye.spi.detection.AnomalyFeedbackType;
@@ -29,6 +30,31 @@ public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
 
   AnomalyDTO findById(Long id);
 
+  /**
+   * Saves the anomalies and their children in a single transaction. Anomalies without id are
+   * created, anomalies with an id are updated. The ids of created anomalies are set on the dtos.
+   *
+   * @throws ai.startree.thirdeye.spi.ThirdEyeException if the transaction failed. Nothing is
+   *     persisted in this case.
+   */
+  default void saveAll(final List<AnomalyDTO> anomalies) {
+    saveAll(anomalies, null);
+  }
+
+  /**
+   * Same as {@link #saveAll(List)}. The alert is updated in the same transaction. Used to persist
+   * the results of a detection run and the new lastTimestamp of the alert atomically.
+   */
+  void saveAll(List<AnomalyDTO> anomalies, @Nullable AlertDTO alert);
+
+  /**
+   * Updates the anomalies and their children in a single transaction. All anomalies must have
+   * an id. New children are created.
+   *
+   * @see #saveAll(List)
+   */
+  void updateAll(List<AnomalyDTO> anomalies);
+
   AnomalyDTO findParent(AnomalyDTO entity);
 
   void updateAnomalyFeedback(AnomalyDTO entity);
@@ -21,6 +21,7 @@ import ai.startree.thirdeye.spi.task.TaskType;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Note:
@@ -40,6 +41,23 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
 
   boolean acquireTaskToRun(TaskDTO taskDTO, final long workerId);
 
+  /**
+   * Atomically claims up to limit tasks to run for the given worker.
+   * Concurrent callers get disjoint sets of tasks. At most one task per refId is claimed.
+   * Only tasks of the types in limitPerType are claimed, at most limitPerType.get(type) of each
+   * type.
+   *
+   * @return the claimed tasks, in status RUNNING. Empty if no task could be claimed.
+   */
+  List<TaskDTO> acquireTasksToRun(final int limit, final long workerId,
+      final Map<TaskType, Integer> limitPerType);
+
+  /**
+   * Puts RUNNING tasks claimed by the given worker back in status WAITING. Used to give back
+   * claimed tasks that were not started.
+   */
+  void releaseTasks(List<Long> ids, long workerId);
+
   List<TaskDTO> findByStatusAndWorkerId(Long workerId, TaskStatus status);
 
   void updateStatusAndTaskEndTime(Long id, TaskStatus oldStatus, TaskStatus newStatus,
@@ -49,6 +67,11 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
 
   void updateLastActive(Long id);
 
+  /**
+   * Updates the lastActive of the RUNNING tasks with the given ids in a single statement.
+   */
+  void updateLastActive(List<Long> ids);
+
   void purge(Duration expiryDuration, Integer limitOptional);
 
   void orphanTaskCleanUp(Timestamp activeThreshold);
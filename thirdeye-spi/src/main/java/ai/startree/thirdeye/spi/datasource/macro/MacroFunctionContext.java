@@ -37,6 +37,12 @@ public class MacroFunctionContext {
   /**Used by macro function to quote identifiers in AUTO mode.*/
   private Function<String, String> identifierQuoter;
 
+  /**
+   * Optional. Raises the lower bound of the time filter to this time. Used to query only the end
+   * of the time filter window.
+   */
+  private Long timeFilterStartMillis;
+
   public SqlExpressionBuilder getSqlExpressionBuilder() {
     return sqlExpressionBuilder;
   }
@@ -86,6 +92,15 @@ public class MacroFunctionContext {
     return this;
   }
 
+  public Long getTimeFilterStartMillis() {
+    return timeFilterStartMillis;
+  }
+
+  public MacroFunctionContext setTimeFilterStartMillis(final Long timeFilterStartMillis) {
+    this.timeFilterStartMillis = timeFilterStartMillis;
+    return this;
+  }
+
   public Function<String, String> getIdentifierQuoter() {
     return identifierQuoter;
   }
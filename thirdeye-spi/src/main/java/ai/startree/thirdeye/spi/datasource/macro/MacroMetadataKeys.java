@@ -21,6 +21,10 @@ public enum MacroMetadataKeys {
   MIN_TIME_MILLIS("metadata.minTimeMillis"),
   MAX_TIME_MILLIS("metadata.maxTimeMillis"),
   GRANULARITY("metadata.granularity"),
+  /**
+   * Alias of the __timeGroup projection, ie the name of the time column of the result.
+   */
+  TIME_COLUMN("metadata.timeColumn"),
   QUERY("metadata.query");
 
   private final String key;
@@ -32,4 +32,13 @@ public interface SqlLanguage {
    * The object returned will be cast to a Calcite SqlDialect.
    */
   ThirdeyeSqlDialect getSqlDialect();
+
+  /**
+   * Whether the data source can run a UNION ALL of queries that each have their own ORDER BY and
+   * LIMIT. Lets ThirdEye combine several small queries in a single one, for instance the
+   * per-dimension queries of a breakdown.
+   */
+  default boolean supportsUnionAll() {
+    return false;
+  }
 }
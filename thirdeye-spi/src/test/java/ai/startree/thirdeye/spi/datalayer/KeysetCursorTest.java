@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datalayer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.spi.datalayer.Predicate.OPER;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import java.sql.Timestamp;
+import org.testng.annotations.Test;
+
+public class KeysetCursorTest {
+
+  @Test
+  public void testTokenRoundTrip() {
+    final AnomalyDTO anomaly = new AnomalyDTO();
+    anomaly.setId(42L);
+    anomaly.setCreateTime(new Timestamp(1_700_000_000_123L));
+
+    final KeysetCursor cursor = KeysetCursor.of(anomaly);
+    assertThat(KeysetCursor.fromToken(cursor.toToken()))
+        .isEqualTo(new KeysetCursor(1_700_000_000_123L, 42L));
+  }
+
+  @Test
+  public void testInvalidToken() {
+    assertThatThrownBy(() -> KeysetCursor.fromToken("not a token"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> KeysetCursor.fromToken("bm90IGEgY3Vyc29y"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void testAfterPredicate() {
+    final Predicate after = new KeysetCursor(1000L, 7L).after("createTime", "baseId");
+
+    assertThat(after.getOper()).isEqualTo(OPER.OR);
+    final Predicate[] children = after.getChildPredicates();
+    assertThat(children[0]).isEqualTo(Predicate.GT("createTime", new Timestamp(1000L)));
+    assertThat(children[1]).isEqualTo(Predicate.AND(
+        Predicate.EQ("createTime", new Timestamp(1000L)),
+        Predicate.GT("baseId", 7L)));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.task.TaskType;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of tasks in flight on a worker, globally and per task type.
+ *
+ * A task permit is taken by a {@link TaskDriverRunnable} before it claims a task, so that a worker
+ * at capacity does not claim tasks it cannot start. Permits of the task types are reserved by the
+ * {@link TaskPrefetchQueue} before a claim: only tasks of the types with a reserved permit are
+ * claimed, so a task of a saturated type is never claimed, and the tasks of other types are not
+ * blocked behind it.
+ */
+public class TaskConcurrencyLimiter {
+
+  private final Semaphore taskPermits;
+  private final Map<TaskType, Semaphore> taskTypePermits = new EnumMap<>(TaskType.class);
+
+  public TaskConcurrencyLimiter(final int maxConcurrentTasks,
+      final Map<TaskType, Integer> maxConcurrentTasksPerType) {
+    checkArgument(maxConcurrentTasks > 0, "maxConcurrentTasks must be strictly positive");
+    taskPermits = new Semaphore(maxConcurrentTasks);
+    maxConcurrentTasksPerType.forEach((type, limit) -> {
+      checkArgument(limit > 0, "maxConcurrentTasksPerType of %s must be strictly positive", type);
+      taskTypePermits.put(type, new Semaphore(limit));
+    });
+  }
+
+  /**
+   * @return false if no task permit was available before the timeout
+   */
+  public boolean tryAcquire(final Duration timeout) throws InterruptedException {
+    return taskPermits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public void release() {
+    taskPermits.release();
+  }
+
+  /**
+   * Reserves up to max permits of each task type. A task type without a limit gets max permits.
+   * Task types without an available permit are not in the returned map. The permits that are
+   * not used by a claimed task must be given back with {@link #release(TaskType, int)}.
+   *
+   * @return the number of reserved permits of each task type
+   */
+  public Map<TaskType, Integer> reserve(final int max) {
+    final Map<TaskType, Integer> reserved = new EnumMap<>(TaskType.class);
+    for (final TaskType taskType : TaskType.values()) {
+      final Semaphore permits = taskTypePermits.get(taskType);
+      if (permits == null) {
+        reserved.put(taskType, max);
+        continue;
+      }
+      final int available = Math.min(max, permits.availablePermits());
+      if (available > 0 && permits.tryAcquire(available)) {
+        reserved.put(taskType, available);
+      }
+    }
+    return reserved;
+  }
+
+  public void release(final TaskType taskType) {
+    release(taskType, 1);
+  }
+
+  public void release(final TaskType taskType, final int nbPermits) {
+    final Semaphore permits = taskTypePermits.get(taskType);
+    if (permits != null && nbPermits > 0) {
+      permits.release(nbPermits);
+    }
+  }
+}
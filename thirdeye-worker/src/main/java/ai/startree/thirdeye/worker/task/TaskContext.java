@@ -23,8 +23,10 @@ public class TaskContext {
 
   private TaskDriverThreadPoolManager taskDriverThreadPoolManager;
   private TaskManager taskManager;
+  private TaskPrefetchQueue taskPrefetchQueue;
   private TaskRunnerFactory taskRunnerFactory;
   private MetricRegistry metricRegistry;
+  private TaskHeartbeat taskHeartbeat;
 
   public TaskDriverConfiguration getConfig() {
     return config;
@@ -63,6 +65,15 @@ public class TaskContext {
     return this;
   }
 
+  public TaskPrefetchQueue getTaskPrefetchQueue() {
+    return taskPrefetchQueue;
+  }
+
+  public TaskContext setTaskPrefetchQueue(final TaskPrefetchQueue taskPrefetchQueue) {
+    this.taskPrefetchQueue = taskPrefetchQueue;
+    return this;
+  }
+
   public TaskRunnerFactory getTaskRunnerFactory() {
     return taskRunnerFactory;
   }
@@ -81,4 +92,13 @@ public class TaskContext {
     this.metricRegistry = metricRegistry;
     return this;
   }
+
+  public TaskHeartbeat getTaskHeartbeat() {
+    return taskHeartbeat;
+  }
+
+  public TaskContext setTaskHeartbeat(final TaskHeartbeat taskHeartbeat) {
+    this.taskHeartbeat = taskHeartbeat;
+    return this;
+  }
 }
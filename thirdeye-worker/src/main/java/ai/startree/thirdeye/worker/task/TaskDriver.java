@@ -17,6 +17,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
+import ai.startree.thirdeye.datalayer.core.DatabaseTaskNotificationChannel;
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
+import ai.startree.thirdeye.datalayer.dao.TaskDao;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskStatus;
@@ -44,7 +47,9 @@ public class TaskDriver {
       final TaskRunnerFactory taskRunnerFactory,
       final TaskDriverThreadPoolManager taskDriverThreadPoolManager,
       final MetricRegistry metricRegistry,
-      final TaskDriverConfiguration taskDriverConfiguration) {
+      final TaskDriverConfiguration taskDriverConfiguration,
+      final TaskNotificationChannel taskNotificationChannel,
+      final TaskDao taskDao) {
     this.taskManager = taskManager;
     this.taskDriverThreadPoolManager = taskDriverThreadPoolManager;
     config = taskDriverConfiguration;
@@ -52,11 +57,29 @@ public class TaskDriver {
 
     taskContext = new TaskContext()
         .setTaskManager(taskManager)
+        .setTaskPrefetchQueue(new TaskPrefetchQueue(taskManager,
+            workerId,
+            config,
+            notificationChannel(config, taskNotificationChannel, taskDao),
+            taskDriverThreadPoolManager.getTaskConcurrencyLimiter()))
         .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager)
         .setTaskRunnerFactory(taskRunnerFactory)
         .setMetricRegistry(metricRegistry)
         .setConfig(taskDriverConfiguration)
-        .setWorkerId(workerId);
+        .setWorkerId(workerId)
+        .setTaskHeartbeat(config.isRandomWorkerIdEnabled() ? new TaskHeartbeat(taskManager,
+            taskDriverThreadPoolManager.getHeartbeatExecutorService(),
+            config.getHeartbeatInterval()) : null);
+  }
+
+  private static TaskNotificationChannel notificationChannel(final TaskDriverConfiguration config,
+      final TaskNotificationChannel inProcessChannel, final TaskDao taskDao) {
+    if (config.isDatabaseNotificationEnabled()) {
+      return new DatabaseTaskNotificationChannel(inProcessChannel,
+          taskDao,
+          config.getDatabaseNotificationPollInterval());
+    }
+    return inProcessChannel;
   }
 
   private Long fetchWorkerId(final TaskDriverConfiguration config) {
@@ -110,5 +133,6 @@ public class TaskDriver {
 
   public void shutdown() {
     taskDriverThreadPoolManager.shutdown();
+    taskContext.getTaskPrefetchQueue().releaseAll();
   }
 }
@@ -13,7 +13,10 @@
  */
 package ai.startree.thirdeye.worker.task;
 
+import ai.startree.thirdeye.spi.task.TaskType;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 public class TaskDriverConfiguration {
 
@@ -31,6 +34,18 @@ public class TaskDriverConfiguration {
   private int taskFetchSizeCap = 50;
   private int maxParallelTasks = 5;
 
+  // When enabled, tasks run on virtual threads (Java 21+) instead of a pool of maxParallelTasks
+  // threads. maxParallelTasks is then the number of runners claiming tasks, and the number of
+  // tasks in flight is bounded by maxConcurrentTasks. The worker fails to start on Java < 21.
+  private boolean virtualThreadsEnabled = false;
+  private int maxConcurrentTasks = 200;
+  // Optional limit of tasks in flight per task type. Eg {DETECTION: 150, NOTIFICATION: 20}
+  private Map<TaskType, Integer> maxConcurrentTasksPerType = new HashMap<>();
+
+  // When enabled, idle workers watch the task table for new tasks created by other nodes
+  private boolean databaseNotificationEnabled = false;
+  private Duration databaseNotificationPollInterval = Duration.ofSeconds(1);
+
   public Long getId() {
     return id;
   }
@@ -112,6 +127,34 @@ public class TaskDriverConfiguration {
     return this;
   }
 
+  public boolean isVirtualThreadsEnabled() {
+    return virtualThreadsEnabled;
+  }
+
+  public TaskDriverConfiguration setVirtualThreadsEnabled(final boolean virtualThreadsEnabled) {
+    this.virtualThreadsEnabled = virtualThreadsEnabled;
+    return this;
+  }
+
+  public int getMaxConcurrentTasks() {
+    return maxConcurrentTasks;
+  }
+
+  public TaskDriverConfiguration setMaxConcurrentTasks(final int maxConcurrentTasks) {
+    this.maxConcurrentTasks = maxConcurrentTasks;
+    return this;
+  }
+
+  public Map<TaskType, Integer> getMaxConcurrentTasksPerType() {
+    return maxConcurrentTasksPerType;
+  }
+
+  public TaskDriverConfiguration setMaxConcurrentTasksPerType(
+      final Map<TaskType, Integer> maxConcurrentTasksPerType) {
+    this.maxConcurrentTasksPerType = maxConcurrentTasksPerType;
+    return this;
+  }
+
   public Duration getHeartbeatInterval() {
     return heartbeatInterval;
   }
@@ -129,4 +172,24 @@ public class TaskDriverConfiguration {
     this.activeThresholdMultiplier = activeThresholdMultiplier;
     return this;
   }
+
+  public boolean isDatabaseNotificationEnabled() {
+    return databaseNotificationEnabled;
+  }
+
+  public TaskDriverConfiguration setDatabaseNotificationEnabled(
+      final boolean databaseNotificationEnabled) {
+    this.databaseNotificationEnabled = databaseNotificationEnabled;
+    return this;
+  }
+
+  public Duration getDatabaseNotificationPollInterval() {
+    return databaseNotificationPollInterval;
+  }
+
+  public TaskDriverConfiguration setDatabaseNotificationPollInterval(
+      final Duration databaseNotificationPollInterval) {
+    this.databaseNotificationPollInterval = databaseNotificationPollInterval;
+    return this;
+  }
 }
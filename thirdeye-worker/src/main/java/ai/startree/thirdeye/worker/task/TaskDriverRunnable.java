@@ -30,7 +30,9 @@ import io.micrometer.core.instrument.Timer.Sample;
 import java.io.IOException;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -44,10 +46,12 @@ public class TaskDriverRunnable implements Runnable {
   private static final Random RANDOM = new Random();
 
   private final TaskManager taskManager;
+  private final TaskPrefetchQueue taskPrefetchQueue;
   private final TaskContext taskContext;
   private final TaskDriverConfiguration config;
-  private final long workerId;
   private final TaskRunnerFactory taskRunnerFactory;
+  private final TaskHeartbeat taskHeartbeat;
+  private final TaskConcurrencyLimiter taskConcurrencyLimiter;
 
   @Deprecated //  use thirdeye_task_run
   private final Counter taskExceptionCounter;
@@ -66,11 +70,13 @@ public class TaskDriverRunnable implements Runnable {
   public TaskDriverRunnable(final TaskContext taskContext) {
     this.taskContext = taskContext;
     taskDriverThreadPoolManager = taskContext.getTaskDriverThreadPoolManager();
+    taskConcurrencyLimiter = taskDriverThreadPoolManager.getTaskConcurrencyLimiter();
 
     this.taskManager = taskContext.getTaskManager();
+    this.taskPrefetchQueue = taskContext.getTaskPrefetchQueue();
     this.config = taskContext.getConfig();
-    this.workerId = taskContext.getWorkerId();
     this.taskRunnerFactory = taskContext.getTaskRunnerFactory();
+    this.taskHeartbeat = taskContext.getTaskHeartbeat();
 
     final MetricRegistry metricRegistry = taskContext.getMetricRegistry();
     // deprecated - use thirdeye_task_run
@@ -101,20 +107,47 @@ public class TaskDriverRunnable implements Runnable {
     this.taskRunnerWaitIdleTimer = io.micrometer.core.instrument.Timer.builder(
             "thirdeye_task_runner_idle")
         .description(
-            "Start: start thread sleep because no tasks were found. End: end of sleep. Mostly used for the sum and the count.")
+            "Start: start waiting for a task. End: end of wait, no task was found. Mostly used for the sum and the count.")
         .publishPercentiles(METRICS_TIMER_PERCENTILES)
         .register(Metrics.globalRegistry);
   }
 
   public void run() {
     while (!isShutdown()) {
+      // do not claim a task if the worker is at capacity
+      if (!waitForTaskPermit()) {
+        continue;
+      }
       // select a task to execute, and update it to RUNNING
       final TaskDTO taskDTO = waitForTask();
       if (taskDTO == null) {
+        taskConcurrencyLimiter.release();
         continue;
       }
-      // a task was acquired - try to finish executing it before termination
-      taskRunningTimer.time(() -> runTask(taskDTO));
+      // a task was acquired with a permit of its type - try to finish executing it before
+      // termination
+      final Runnable taskRun = () -> {
+        try {
+          taskRunningTimer.time(() -> runTask(taskDTO));
+        } finally {
+          taskConcurrencyLimiter.release(taskDTO.getTaskType());
+          taskConcurrencyLimiter.release();
+        }
+      };
+      final ExecutorService dispatchExecutorService = taskDriverThreadPoolManager
+          .getTaskDispatchExecutorService();
+      if (dispatchExecutorService != null) {
+        try {
+          dispatchExecutorService.execute(taskRun);
+        } catch (final RejectedExecutionException e) {
+          // the task will not run - give back the permits and the task
+          taskConcurrencyLimiter.release(taskDTO.getTaskType());
+          taskConcurrencyLimiter.release();
+          releaseTask(taskDTO, "dispatch was rejected");
+        }
+      } else {
+        taskRun.run();
+      }
     }
     LOG.info(String.format("TaskDriverRunnable safely quitting. name: %s",
         Thread.currentThread().getName()));
@@ -132,14 +165,7 @@ public class TaskDriverRunnable implements Runnable {
     final long tStart = System.nanoTime();
     taskCounter.inc();
 
-    Future heartbeat = null;
-    if (config.isRandomWorkerIdEnabled()) {
-      heartbeat = taskDriverThreadPoolManager.getHeartbeatExecutorService()
-          .scheduleAtFixedRate(() -> taskExecutionHeartbeat(taskDTO),
-              0,
-              config.getHeartbeatInterval().toMillis(),
-              TimeUnit.MILLISECONDS);
-    }
+    optional(taskHeartbeat).ifPresent(h -> h.register(taskDTO.getId()));
 
     Future<List<TaskResult>> future = null;
     try {
@@ -165,14 +191,10 @@ public class TaskDriverRunnable implements Runnable {
     } finally {
       long elapsedTime = (System.nanoTime() - tStart) / 1_000_000;
       LOG.info("Task {} {}: run took {}ms", taskDTO.getId(), taskDTO.getJobName(), elapsedTime);
-      optional(heartbeat).ifPresent(f -> f.cancel(false));
+      optional(taskHeartbeat).ifPresent(h -> h.unregister(taskDTO.getId()));
     }
   }
 
-  private void taskExecutionHeartbeat(final TaskDTO taskDTO) {
-    taskManager.updateLastActive(taskDTO.getId());
-  }
-
   private Future<List<TaskResult>> runTaskAsync(final TaskDTO taskDTO) throws IOException {
     final TaskType taskType = taskDTO.getTaskType();
     final TaskInfo taskInfo = TaskInfoFactory.get(taskType, taskDTO.getTaskInfo());
@@ -183,6 +205,21 @@ public class TaskDriverRunnable implements Runnable {
         .submit(() -> taskRunner.execute(taskInfo, taskContext));
   }
 
+  /**
+   * Returns true if a task permit is acquired; returns false if no permit was available before
+   * the no task delay, or if the system is shutting down.
+   */
+  private boolean waitForTaskPermit() {
+    try {
+      return taskConcurrencyLimiter.tryAcquire(config.getNoTaskDelay());
+    } catch (InterruptedException e) {
+      if (!isShutdown()) {
+        LOG.warn(e.getMessage(), e);
+      }
+      return false;
+    }
+  }
+
   /**
    * Returns a TaskDTO if a task is successfully acquired; returns null if system is shutting down.
    *
@@ -190,52 +227,59 @@ public class TaskDriverRunnable implements Runnable {
    */
   private TaskDTO waitForTask() {
     while (!isShutdown()) {
+      final Sample idleSample = io.micrometer.core.instrument.Timer.start(Metrics.globalRegistry);
       final TaskDTO nextTask;
       try {
-        nextTask = taskManager.findNextTaskToRun();
+        // waits for a task to be claimed by this runner or handed over by another runner
+        nextTask = taskPrefetchQueue.poll(noTaskDelayMillis());
+      } catch (InterruptedException e) {
+        if (!isShutdown()) {
+          LOG.warn(e.getMessage(), e);
+        }
+        continue;
       } catch (Exception e) {
         LOG.error("Failed to fetch a new task to run", e);
-        taskRunnerWaitIdleTimer.record(() -> sleep(true));
+        taskRunnerWaitIdleTimer.record(this::sleepAfterFetchError);
         continue;
       }
       if (nextTask == null) {
         // no task found
-        taskRunnerWaitIdleTimer.record(() -> sleep(false));
-        continue;
-      }
-      if (isShutdown()) {
-        break;
-      }
-      try {
-        boolean success = taskManager.acquireTaskToRun(nextTask, workerId);
-        if (success) {
-          final long waitTime = System.currentTimeMillis() - nextTask.getCreateTime().getTime();
-          taskWaitTimer.record(waitTime, TimeUnit.MILLISECONDS);
-          return nextTask;
-        } else {
-          LOG.debug("Failed to acquire task {} referencing {} from worker id {}. Task was locked, or edited by another transaction.)", nextTask.getId(),
-              nextTask.getRefId(), workerId);
-          // don't sleep - look for a next task
-          continue;  
-        }
-      } catch (Exception e) {
-        LOG.warn("Failed to acquire task {} from worker id {})", nextTask, workerId, e);
-        taskRunnerWaitIdleTimer.record(() -> sleep(true));
+        idleSample.stop(taskRunnerWaitIdleTimer);
         continue;
       }
+      final long waitTime = System.currentTimeMillis() - nextTask.getCreateTime().getTime();
+      taskWaitTimer.record(waitTime, TimeUnit.MILLISECONDS);
+      return nextTask;
     }
     return null;
   }
 
-  private void sleep(final boolean hasFetchError) {
-    final long sleepTime = hasFetchError
-        ? config.getTaskFailureDelay().toMillis()
-        : config.getNoTaskDelay().toMillis() + RANDOM
-            .nextInt((int) config.getRandomDelayCap().toMillis());
-    // sleep for few seconds if not tasks found - avoid cpu thrashing
-    // also add some extra random number of milliseconds to allow threads to start at different times
+  /**
+   * Puts a claimed task that will not run back in status WAITING, so that it can be run by another
+   * worker.
+   */
+  private void releaseTask(final TaskDTO taskDTO, final String reason) {
+    LOG.info("Task {} {}: {}. Releasing the task", taskDTO.getId(), taskDTO.getJobName(), reason);
+    try {
+      taskManager.releaseTasks(List.of(taskDTO.getId()), taskContext.getWorkerId());
+    } catch (Exception e) {
+      LOG.error("Failed to release task {}", taskDTO.getId(), e);
+    }
+  }
+
+  private long noTaskDelayMillis() {
+    // add some extra random number of milliseconds to allow threads to poll at different times
+    return config.getNoTaskDelay().toMillis() + RANDOM
+        .nextInt((int) config.getRandomDelayCap().toMillis());
+  }
+
+  private void sleepAfterFetchError() {
+    sleep(config.getTaskFailureDelay().toMillis());
+  }
+
+  private void sleep(final long millis) {
     try {
-      Thread.sleep(sleepTime);
+      Thread.sleep(millis);
     } catch (InterruptedException e) {
       if (!isShutdown()) {
         LOG.warn(e.getMessage(), e);
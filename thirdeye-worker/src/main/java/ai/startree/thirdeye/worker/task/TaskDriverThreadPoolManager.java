@@ -25,22 +25,39 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 @Singleton
 public class TaskDriverThreadPoolManager {
 
   private final ExecutorService taskExecutorService;
   private final ExecutorService taskWatcherExecutorService;
+  // runs the claimed tasks in virtual thread mode. null: tasks run in the watcher threads
+  private final @Nullable ExecutorService taskDispatchExecutorService;
   private final ScheduledExecutorService heartbeatExecutorService;
+  private final TaskConcurrencyLimiter taskConcurrencyLimiter;
   private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
   @Inject
   public TaskDriverThreadPoolManager(final TaskDriverConfiguration config) {
-    taskExecutorService = Executors.newFixedThreadPool(
-        config.getMaxParallelTasks(),
-        new ThreadFactoryBuilder()
-            .setNameFormat("task-executor-%d")
-            .build());
+    if (config.isVirtualThreadsEnabled()) {
+      taskExecutorService = newVirtualThreadPerTaskExecutor();
+      taskDispatchExecutorService = newVirtualThreadPerTaskExecutor();
+      new ExecutorServiceMetrics(taskDispatchExecutorService, "task-dispatch", emptyList()).bindTo(
+          Metrics.globalRegistry);
+      taskConcurrencyLimiter = new TaskConcurrencyLimiter(config.getMaxConcurrentTasks(),
+          config.getMaxConcurrentTasksPerType());
+    } else {
+      taskExecutorService = Executors.newFixedThreadPool(
+          config.getMaxParallelTasks(),
+          new ThreadFactoryBuilder()
+              .setNameFormat("task-executor-%d")
+              .build());
+      taskDispatchExecutorService = null;
+      // one task per watcher thread - the task permits never block
+      taskConcurrencyLimiter = new TaskConcurrencyLimiter(config.getMaxParallelTasks(),
+          config.getMaxConcurrentTasksPerType());
+    }
     new ExecutorServiceMetrics(taskExecutorService, "task-executor", emptyList()).bindTo(
         Metrics.globalRegistry);
 
@@ -53,7 +70,8 @@ public class TaskDriverThreadPoolManager {
     new ExecutorServiceMetrics(taskWatcherExecutorService, "task-watcher", emptyList()).bindTo(
         Metrics.globalRegistry);
 
-    heartbeatExecutorService = Executors.newScheduledThreadPool(config.getMaxParallelTasks(),
+    // a single job updates the heartbeat of all the running tasks - see TaskHeartbeat
+    heartbeatExecutorService = Executors.newScheduledThreadPool(1,
         new ThreadFactoryBuilder()
             .setNameFormat("task-heartbeat-%d")
             .build());
@@ -61,6 +79,23 @@ public class TaskDriverThreadPoolManager {
         Metrics.globalRegistry);
   }
 
+  /**
+   * Returns an executor starting a virtual thread per task. Virtual threads require Java 21 while
+   * the project targets Java 17: the executor is looked up at runtime.
+   *
+   * @throws IllegalStateException if virtual threads are not available
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (final ReflectiveOperationException e) {
+      throw new IllegalStateException(String.format(
+          "taskDriver.virtualThreadsEnabled requires Java 21 or later. Running Java %d",
+          Runtime.version().feature()), e);
+    }
+  }
+
   public ExecutorService getTaskExecutorService() {
     return taskExecutorService;
   }
@@ -69,10 +104,18 @@ public class TaskDriverThreadPoolManager {
     return taskWatcherExecutorService;
   }
 
+  public @Nullable ExecutorService getTaskDispatchExecutorService() {
+    return taskDispatchExecutorService;
+  }
+
   public ScheduledExecutorService getHeartbeatExecutorService() {
     return heartbeatExecutorService;
   }
 
+  public TaskConcurrencyLimiter getTaskConcurrencyLimiter() {
+    return taskConcurrencyLimiter;
+  }
+
   public boolean isShutdown() {
     return shutdown.get();
   }
@@ -81,6 +124,7 @@ public class TaskDriverThreadPoolManager {
     shutdown.set(true);
     shutdownExecutionService(taskExecutorService);
     shutdownExecutionService(taskWatcherExecutorService);
+    shutdownExecutionService(taskDispatchExecutorService);
     shutdownExecutionService(heartbeatExecutorService);
   }
 }
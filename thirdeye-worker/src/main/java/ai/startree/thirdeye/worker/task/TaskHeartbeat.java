@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the last_active column of the tasks running on this worker up to date.
+ *
+ * One heartbeat is scheduled per worker: every interval, the ids of all the registered tasks are
+ * updated with a single statement, instead of one scheduled job and one statement per task.
+ */
+public class TaskHeartbeat {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskHeartbeat.class);
+
+  private final TaskManager taskManager;
+  private final Set<Long> runningTaskIds = ConcurrentHashMap.newKeySet();
+
+  public TaskHeartbeat(final TaskManager taskManager,
+      final ScheduledExecutorService executorService,
+      final Duration interval) {
+    this.taskManager = taskManager;
+    executorService.scheduleAtFixedRate(this::beat,
+        interval.toMillis(),
+        interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  public void register(final long taskId) {
+    runningTaskIds.add(taskId);
+    // first pulse right away - the task may have been waiting in the prefetch queue
+    updateLastActive(List.of(taskId));
+  }
+
+  public void unregister(final long taskId) {
+    runningTaskIds.remove(taskId);
+  }
+
+  private void beat() {
+    if (!runningTaskIds.isEmpty()) {
+      updateLastActive(new ArrayList<>(runningTaskIds));
+    }
+  }
+
+  private void updateLastActive(final List<Long> taskIds) {
+    try {
+      taskManager.updateLastActive(taskIds);
+    } catch (final Exception e) {
+      // an exception would cancel the scheduled heartbeat - log and retry at the next interval
+      LOG.error("Failed to update the heartbeat of tasks {}", taskIds, e);
+    }
+  }
+}
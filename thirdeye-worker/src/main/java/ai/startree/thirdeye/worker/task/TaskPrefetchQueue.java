@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskType;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Local queue of tasks claimed by this worker. Shared by all the {@link TaskDriverRunnable}.
+ *
+ * When the queue is empty, a single runner claims a batch of tasks for all idle runners with
+ * {@link TaskManager#acquireTasksToRun}. Other idle runners block on the queue instead of
+ * querying the persistence layer. The batch size is capped by the number of idle runners so that
+ * claimed tasks do not stay in the queue without a runner - and without a heartbeat. Only tasks of
+ * the types with a free permit in the {@link TaskConcurrencyLimiter} are claimed. A task is handed
+ * to a runner with the permit of its type, the runner releases it when the task is done.
+ *
+ * If there is no task to claim, the fetching runner blocks on the {@link TaskNotificationChannel}
+ * until a new task is signaled. When the wait times out, the runner polls the persistence layer
+ * again.
+ *
+ * On shutdown, claimed tasks that were not started are released back to WAITING with
+ * {@link #releaseAll()}.
+ */
+public class TaskPrefetchQueue {
+
+  private final TaskManager taskManager;
+  private final long workerId;
+  private final int fetchSizeCap;
+  private final TaskNotificationChannel notificationChannel;
+  private final TaskConcurrencyLimiter taskConcurrencyLimiter;
+
+  private final BlockingQueue<TaskDTO> queue = new LinkedBlockingQueue<>();
+  private final ReentrantLock fetchLock = new ReentrantLock();
+  private final AtomicInteger idleRunners = new AtomicInteger(0);
+
+  public TaskPrefetchQueue(final TaskManager taskManager, final long workerId,
+      final TaskDriverConfiguration config, final TaskNotificationChannel notificationChannel,
+      final TaskConcurrencyLimiter taskConcurrencyLimiter) {
+    checkArgument(config.getTaskFetchSizeCap() > 0, "taskFetchSizeCap must be strictly positive");
+    this.taskManager = taskManager;
+    this.workerId = workerId;
+    this.fetchSizeCap = config.getTaskFetchSizeCap();
+    this.notificationChannel = notificationChannel;
+    this.taskConcurrencyLimiter = taskConcurrencyLimiter;
+  }
+
+  /**
+   * Returns a task claimed for this worker, waiting at most timeoutMillis if no task is
+   * available.
+   *
+   * @return null if no task was available before the timeout
+   */
+  public @Nullable TaskDTO poll(final long timeoutMillis) throws InterruptedException {
+    idleRunners.incrementAndGet();
+    try {
+      final TaskDTO prefetched = queue.poll();
+      if (prefetched != null) {
+        return prefetched;
+      }
+      if (fetchLock.tryLock()) {
+        try {
+          final long watermark = notificationChannel.watermark();
+          final TaskDTO task = fetch();
+          if (task != null) {
+            return task;
+          }
+          // no task to run - wait for a new task
+          if (notificationChannel.await(watermark, timeoutMillis)) {
+            return fetch();
+          }
+          return null;
+        } finally {
+          fetchLock.unlock();
+        }
+      }
+      // another runner is fetching - wait for a task to be handed over
+      return queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    } finally {
+      idleRunners.decrementAndGet();
+    }
+  }
+
+  private @Nullable TaskDTO fetch() {
+    // the queue may have been filled while waiting for the lock
+    final TaskDTO prefetched = queue.poll();
+    if (prefetched != null) {
+      return prefetched;
+    }
+    final int batchSize = Math.max(1, Math.min(idleRunners.get(), fetchSizeCap));
+    final Map<TaskType, Integer> typePermits = taskConcurrencyLimiter.reserve(batchSize);
+    if (typePermits.isEmpty()) {
+      // no task type can be started
+      return null;
+    }
+    final List<TaskDTO> claimed = claim(batchSize, typePermits);
+    if (claimed.isEmpty()) {
+      return null;
+    }
+    queue.addAll(claimed.subList(1, claimed.size()));
+    return claimed.get(0);
+  }
+
+  /**
+   * Claims tasks with the reserved typePermits. The permits that are not used by a claimed task
+   * are given back.
+   */
+  private List<TaskDTO> claim(final int batchSize, final Map<TaskType, Integer> typePermits) {
+    final Map<TaskType, Integer> unusedPermits = new EnumMap<>(typePermits);
+    try {
+      final List<TaskDTO> claimed = taskManager.acquireTasksToRun(batchSize,
+          workerId,
+          typePermits);
+      claimed.forEach(task -> unusedPermits.merge(task.getTaskType(), -1, Integer::sum));
+      return claimed;
+    } finally {
+      unusedPermits.forEach(taskConcurrencyLimiter::release);
+    }
+  }
+
+  /**
+   * Puts the claimed tasks that were not handed to a runner back in status WAITING, so that other
+   * workers can run them.
+   */
+  public void releaseAll() {
+    final List<TaskDTO> unstarted = new ArrayList<>();
+    queue.drainTo(unstarted);
+    if (!unstarted.isEmpty()) {
+      taskManager.releaseTasks(unstarted.stream().map(TaskDTO::getId).toList(), workerId);
+      unstarted.forEach(task -> taskConcurrencyLimiter.release(task.getTaskType()));
+    }
+  }
+}
@@ -160,13 +160,9 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
         alert.getLastTimestamp());
 
     alert.setLastTimestamp(newLastTimestamp);
-    // TODO CYRIL: lastTimestamp and updateTime are used by consumers to known when an alert has run
-    //  to improve consistency the anomaly save and the update of the alert should be in a single
-    //  transaction this would also improve failure cases
-    optional(result.getAnomalies())
-        .orElse(Collections.emptyList())
-        .forEach(anomalyManager::save);
-    alertManager.update(alert);
+    // lastTimestamp and updateTime are used by consumers to known when an alert has run
+    // anomalies and the alert are persisted in a single transaction
+    anomalyManager.saveAll(optional(result.getAnomalies()).orElse(Collections.emptyList()), alert);
 
     LOG.info("Completed detection task for id {} between {} and {}. Detected {} anomalies.",
         alert.getId(),
@@ -16,13 +16,17 @@ package ai.startree.thirdeye.worker.task;
 import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.datalayer.core.InProcessTaskNotificationChannel;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
@@ -33,6 +37,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.sql.Timestamp;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
@@ -71,9 +76,6 @@ public class HeartbeatTest {
         .setHeartbeatInterval(HEARTBEAT_INTERVAL);
 
     taskManager = Mockito.mock(TaskManager.class);
-    when(taskManager.acquireTaskToRun(any(), anyLong()))
-        .thenReturn(true);
-
     doNothing().when(taskManager)
         .updateStatusAndTaskEndTime(anyLong(), any(), any(), anyLong(), any());
 
@@ -95,7 +97,8 @@ public class HeartbeatTest {
   public void heartbeatPulseCheck() {
     final Timestamp startTime = new Timestamp(System.currentTimeMillis());
     final TaskDTO taskDTO = newTask();
-    when(taskManager.findNextTaskToRun()).thenAnswer(i -> pollingCount++ == 0? taskDTO : null);
+    when(taskManager.acquireTasksToRun(anyInt(), anyLong(), anyMap()))
+        .thenAnswer(i -> pollingCount++ == 0 ? List.of(taskDTO) : List.of());
 
     doAnswer(invocation -> {
       taskDTO.setStatus(TaskStatus.COMPLETED);
@@ -117,7 +120,7 @@ public class HeartbeatTest {
       // to ensure the worker stops after executing one task
 //      taskDriverThreadPoolManager.shutdown();
       return null;
-    }).when(taskManager).updateLastActive(anyLong());
+    }).when(taskManager).updateLastActive(anyList());
 
     final TaskContext taskContext = newTaskContext();
     final TaskDriverRunnable taskDriverRunnable = new TaskDriverRunnable(taskContext);
@@ -136,9 +139,15 @@ public class HeartbeatTest {
         .setConfig(config)
         .setWorkerId(0)
         .setTaskManager(taskManager)
+        .setTaskPrefetchQueue(new TaskPrefetchQueue(taskManager, 0, config,
+            new InProcessTaskNotificationChannel(),
+            taskDriverThreadPoolManager.getTaskConcurrencyLimiter()))
         .setTaskRunnerFactory(taskRunnerFactory)
         .setMetricRegistry(new MetricRegistry())
-        .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager);
+        .setTaskDriverThreadPoolManager(taskDriverThreadPoolManager)
+        .setTaskHeartbeat(new TaskHeartbeat(taskManager,
+            taskDriverThreadPoolManager.getHeartbeatExecutorService(),
+            config.getHeartbeatInterval()));
   }
 
   private TaskDTO newTask() {
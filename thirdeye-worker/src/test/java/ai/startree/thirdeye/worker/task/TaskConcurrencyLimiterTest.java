@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.spi.task.TaskType;
+import java.time.Duration;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class TaskConcurrencyLimiterTest {
+
+  @Test
+  public void testTaskPermits() throws InterruptedException {
+    final TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(2, Map.of());
+    assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+    assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+    assertThat(limiter.tryAcquire(Duration.ofMillis(10))).isFalse();
+
+    limiter.release();
+    assertThat(limiter.tryAcquire(Duration.ZERO)).isTrue();
+  }
+
+  @Test
+  public void testTaskTypePermits() {
+    final TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter(10,
+        Map.of(TaskType.NOTIFICATION, 2));
+    // DETECTION is not limited
+    assertThat(limiter.reserve(5)).containsEntry(TaskType.DETECTION, 5)
+        .containsEntry(TaskType.NOTIFICATION, 2);
+
+    // all the NOTIFICATION permits are reserved
+    assertThat(limiter.reserve(5)).containsEntry(TaskType.DETECTION, 5)
+        .doesNotContainKey(TaskType.NOTIFICATION);
+
+    limiter.release(TaskType.NOTIFICATION);
+    assertThat(limiter.reserve(5)).containsEntry(TaskType.NOTIFICATION, 1);
+    limiter.release(TaskType.NOTIFICATION, 2);
+    assertThat(limiter.reserve(1)).containsEntry(TaskType.NOTIFICATION, 1);
+  }
+
+  @Test
+  public void testInvalidLimits() {
+    assertThatThrownBy(() -> new TaskConcurrencyLimiter(0, Map.of()))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new TaskConcurrencyLimiter(1, Map.of(TaskType.DETECTION, 0)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}